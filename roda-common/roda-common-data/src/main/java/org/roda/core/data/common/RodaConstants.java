@@ -802,6 +802,7 @@ public final class RodaConstants {
   public static final String JOB_RESOURCE_TYPE = "resourceType";
   public static final String JOB_SOURCE_OBJECTS = "sourceObjects";
   public static final String JOB_OUTCOME_OBJECTS_CLASS = "outcomeObjectsClass";
+  public static final String JOB_LATENCY_BREAKDOWN = "latencyBreakdown";
   public static final String JOB_IN_FINAL_STATE = "inFinalState";
   public static final String JOB_STOPPING = "stopping";
   public static final String JOB_HAS_FAILURES = "hasFailures";
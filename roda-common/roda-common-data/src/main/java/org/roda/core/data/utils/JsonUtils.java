@@ -10,17 +10,20 @@ package org.roda.core.data.utils;
 import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.commons.io.IOUtils;
-import org.roda.core.data.common.RodaConstants;
 import org.roda.core.data.exceptions.GenericException;
 import org.roda.core.data.v2.ip.metadata.DescriptiveMetadata;
 import org.roda.core.data.v2.ip.metadata.DescriptiveMetadataMixIn;
@@ -28,20 +31,86 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.fasterxml.jackson.core.JsonFactory;
-import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.Module;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
 import com.fasterxml.jackson.databind.node.ObjectNode;
-import com.fasterxml.jackson.databind.type.TypeFactory;
 
+/**
+ * JSON (de)serialization of RODA objects.
+ *
+ * Object mappers are expensive to create and keep caches of (de)serializers,
+ * so they are shared, as are the readers and writers created from them (all
+ * of them are thread safe). If the Jackson Afterburner module is on the class
+ * path, it is registered to speed up (de)serialization with generated
+ * bytecode, unless the system property <code>roda.json.afterburner</code> is
+ * <code>false</code>.
+ */
 public final class JsonUtils {
   private static final Logger LOGGER = LoggerFactory.getLogger(JsonUtils.class);
   private static final String JSON_ERROR_MESSAGE = "Error while parsing JSON";
+  private static final String AFTERBURNER_MODULE = "com.fasterxml.jackson.module.afterburner.AfterburnerModule";
+
+  private static final ObjectMapper MAPPER = createMapper();
+  private static final ObjectWriter PLAIN_WRITER = MAPPER.writer();
+  // by default, descriptive metadata is written without its binary
+  private static final ObjectWriter DEFAULT_WRITER = createMapper()
+    .addMixIn(DescriptiveMetadata.class, DescriptiveMetadataMixIn.class).writer();
+  private static final ConcurrentMap<String, ObjectWriter> MIXIN_WRITERS = new ConcurrentHashMap<>();
+  private static final ConcurrentMap<JavaType, ObjectReader> READERS = new ConcurrentHashMap<>();
+  private static final JavaType STRING_MAP_TYPE = MAPPER.getTypeFactory().constructMapType(HashMap.class,
+    String.class, String.class);
 
   private JsonUtils() {
     // do nothing
   }
 
+  private static ObjectMapper createMapper() {
+    ObjectMapper mapper = new ObjectMapper(new JsonFactory());
+    if (!"false".equals(System.getProperty("roda.json.afterburner"))) {
+      try {
+        mapper.registerModule((Module) Class.forName(AFTERBURNER_MODULE).getDeclaredConstructor().newInstance());
+      } catch (ClassNotFoundException e) {
+        // optional module, not available
+      } catch (ReflectiveOperationException | LinkageError e) {
+        LOGGER.warn("Could not register JSON module {}", AFTERBURNER_MODULE, e);
+      }
+    }
+    return mapper;
+  }
+
+  private static ObjectReader getReader(JavaType type) {
+    return READERS.computeIfAbsent(type, MAPPER::readerFor);
+  }
+
+  private static ObjectReader getReader(Class<?> objectClass) {
+    return getReader(MAPPER.getTypeFactory().constructType(objectClass));
+  }
+
+  private static ObjectWriter getWriter(Object object, Class<?> mixin) {
+    boolean descriptiveMetadata = object instanceof DescriptiveMetadata || (object instanceof List<?>
+      && !((List<?>) object).isEmpty() && ((List<?>) object).get(0) instanceof DescriptiveMetadata);
+
+    if (mixin == null) {
+      return descriptiveMetadata ? PLAIN_WRITER : DEFAULT_WRITER;
+    }
+
+    String key = object.getClass().getName() + "/" + mixin.getName() + "/" + descriptiveMetadata;
+    return MIXIN_WRITERS.computeIfAbsent(key, k -> {
+      ObjectMapper mapper = createMapper();
+      if (!descriptiveMetadata) {
+        mapper.addMixIn(DescriptiveMetadata.class, DescriptiveMetadataMixIn.class);
+      }
+      return mapper.addMixIn(object.getClass(), mixin).writer();
+    });
+  }
+
   public static <T> T readObjectFromFile(Path jsonFile, Class<T> objectClass) throws GenericException {
     try (InputStream stream = Files.newInputStream(jsonFile)) {
       return getObjectFromJson(stream, objectClass);
@@ -62,19 +131,50 @@ public final class JsonUtils {
   }
 
   public static void appendObjectToFile(Object object, Path file) throws GenericException {
-    try {
-      String json = getJsonFromObject(object) + "\n";
-      Files.write(file, json.getBytes(), StandardOpenOption.APPEND);
+    try (OutputStream out = Files.newOutputStream(file, StandardOpenOption.APPEND)) {
+      getWriter(object, null).without(JsonGenerator.Feature.AUTO_CLOSE_TARGET).writeValue(out, object);
+      out.write('\n');
     } catch (IOException e) {
       throw new GenericException("Error writing object, as json, to file", e);
     }
   }
 
+  /**
+   * Writes the objects as a JSON array, one at a time, so that large lists do
+   * not have to be kept in memory. The stream is not closed.
+   */
+  public static void writeObjectsToStream(Iterator<?> objects, OutputStream out) throws GenericException {
+    try (SequenceWriter writer = DEFAULT_WRITER.without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+      .writeValuesAsArray(out)) {
+      while (objects.hasNext()) {
+        writer.write(objects.next());
+      }
+    } catch (IOException e) {
+      throw new GenericException("Error writing objects, as json, to stream", e);
+    }
+  }
+
+  /**
+   * Reads the objects of a JSON array (or of a sequence of JSON values) one at a
+   * time, so that large lists do not have to be kept in memory. The iterator
+   * must be closed, which also closes the stream, and it throws
+   * {@link com.fasterxml.jackson.databind.RuntimeJsonMappingException} on
+   * parsing errors.
+   */
+  public static <T> MappingIterator<T> readObjectsFromStream(InputStream json, Class<T> objectClass)
+    throws GenericException {
+    try {
+      return getReader(objectClass).readValues(json);
+    } catch (IOException e) {
+      IOUtils.closeQuietly(json);
+      throw new GenericException(JSON_ERROR_MESSAGE, e);
+    }
+  }
+
   public static Map<String, String> getMapFromJson(String json) {
     Map<String, String> ret = new HashMap<>();
     try {
-      ObjectMapper mapper = new ObjectMapper(new JsonFactory());
-      ret = mapper.readValue(json, new TypeReference<Map<String, String>>() {});
+      ret = getReader(STRING_MAP_TYPE).readValue(json);
     } catch (IOException e) {
       LOGGER.error("Error transforming json string to Map<String,String>", e);
     }
@@ -88,66 +188,34 @@ public final class JsonUtils {
   public static String getJsonFromObject(Object object, Class<?> mixin) {
     String ret = null;
     try {
-      ObjectMapper mapper = new ObjectMapper(new JsonFactory());
-      mapper = addMixinsToMapper(mapper, object, mixin);
-      ret = mapper.writeValueAsString(object);
+      ret = getWriter(object, mixin).writeValueAsString(object);
     } catch (IOException e) {
       LOGGER.error("Error transforming object '{}' to json string", object, e);
     }
     return ret;
   }
 
-  private static ObjectMapper addMixinsToMapper(ObjectMapper mapper, Object object, Class<?> mixin) {
-    if (!(object instanceof DescriptiveMetadata)) {
-      if (object instanceof List<?>) {
-        List<?> objectList = (List<?>) object;
-        if (!objectList.isEmpty() && !(objectList.get(0) instanceof DescriptiveMetadata)) {
-          mapper.addMixIn(DescriptiveMetadata.class, DescriptiveMetadataMixIn.class);
-        }
-      } else {
-        mapper.addMixIn(DescriptiveMetadata.class, DescriptiveMetadataMixIn.class);
-      }
-    }
-
-    if (mixin != null) {
-      mapper.addMixIn(object.getClass(), mixin);
-    }
-
-    return mapper;
-  }
-
   public static <T> T getObjectFromJson(Path json, Class<T> objectClass) throws GenericException {
-    T ret;
-    InputStream stream = null;
-    try {
-      stream = Files.newInputStream(json);
-      String jsonString = IOUtils.toString(stream, RodaConstants.DEFAULT_ENCODING);
-      ret = getObjectFromJson(jsonString, objectClass);
+    try (InputStream stream = Files.newInputStream(json)) {
+      return getReader(objectClass).readValue(stream);
     } catch (IOException e) {
       throw new GenericException(JSON_ERROR_MESSAGE, e);
-    } finally {
-      IOUtils.closeQuietly(stream);
     }
-    return ret;
   }
 
   public static <T> T getObjectFromJson(InputStream json, Class<T> objectClass) throws GenericException {
-    T ret;
     try {
-      String jsonString = IOUtils.toString(json, RodaConstants.DEFAULT_ENCODING);
-      ret = getObjectFromJson(jsonString, objectClass);
+      return getReader(objectClass).readValue(json);
     } catch (IOException e) {
       throw new GenericException(e);
     } finally {
       IOUtils.closeQuietly(json);
     }
-    return ret;
   }
 
   public static <T> T getObjectFromJson(String json, Class<T> objectClass) throws GenericException {
     try {
-      ObjectMapper mapper = new ObjectMapper(new JsonFactory());
-      return mapper.readValue(json, objectClass);
+      return getReader(objectClass).readValue(json);
     } catch (IOException e) {
       throw new GenericException(JSON_ERROR_MESSAGE, e);
     }
@@ -155,9 +223,8 @@ public final class JsonUtils {
 
   public static <T> List<T> getListFromJson(String json, Class<T> objectClass) throws GenericException {
     try {
-      ObjectMapper mapper = new ObjectMapper(new JsonFactory());
-      TypeFactory t = TypeFactory.defaultInstance();
-      return mapper.readValue(json, t.constructCollectionType(ArrayList.class, objectClass));
+      return getReader(MAPPER.getTypeFactory().constructCollectionType(ArrayList.class, objectClass))
+        .readValue(json);
     } catch (IOException e) {
       throw new GenericException(JSON_ERROR_MESSAGE, e);
     }
@@ -165,8 +232,7 @@ public final class JsonUtils {
 
   public static JsonNode parseJson(String json) throws GenericException {
     try {
-      ObjectMapper mapper = new ObjectMapper(new JsonFactory());
-      return mapper.readTree(json);
+      return MAPPER.readTree(json);
     } catch (IOException e) {
       throw new GenericException(JSON_ERROR_MESSAGE, e);
     }
@@ -174,8 +240,7 @@ public final class JsonUtils {
 
   public static JsonNode parseJson(InputStream json) throws GenericException {
     try {
-      ObjectMapper mapper = new ObjectMapper(new JsonFactory());
-      return mapper.readTree(json);
+      return MAPPER.readTree(json);
     } catch (IOException e) {
       throw new GenericException(JSON_ERROR_MESSAGE, e);
     } finally {
@@ -183,11 +248,38 @@ public final class JsonUtils {
     }
   }
 
+  public static JsonNode parseJson(byte[] json) throws GenericException {
+    try {
+      return MAPPER.readTree(json);
+    } catch (IOException e) {
+      throw new GenericException(JSON_ERROR_MESSAGE, e);
+    }
+  }
+
+  public static byte[] getJsonBytesFromNode(JsonNode node) throws GenericException {
+    try {
+      return PLAIN_WRITER.writeValueAsBytes(node);
+    } catch (IOException e) {
+      throw new GenericException("Error transforming JSON node to bytes", e);
+    }
+  }
+
+  public static ObjectNode getNodeFromObject(Object object) {
+    return MAPPER.valueToTree(object);
+  }
+
+  public static <T> T getObjectFromNode(JsonNode node, Class<T> objectClass) throws GenericException {
+    try {
+      return getReader(objectClass).readValue(node);
+    } catch (IOException e) {
+      throw new GenericException(JSON_ERROR_MESSAGE, e);
+    }
+  }
+
   public static String getJsonFromNode(JsonNode node) {
     String ret = null;
     try {
-      ObjectMapper mapper = new ObjectMapper(new JsonFactory());
-      ret = mapper.writeValueAsString(node);
+      ret = PLAIN_WRITER.writeValueAsString(node);
     } catch (IOException e) {
       LOGGER.error("Error transforming object '{}' to json string", node, e);
     }
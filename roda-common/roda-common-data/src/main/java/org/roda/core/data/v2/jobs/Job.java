@@ -67,6 +67,9 @@ public class Job implements IsModelObject, IsIndexed, HasId {
   // objects to act upon (All, None, List, Filter, etc.)
   private SelectedItems<? extends IsRODAObject> sourceObjects = null;
   private String outcomeObjectsClass = "";
+
+  // time spent by kind of operation, slowest first
+  private List<JobLatency> latencyBreakdown = new ArrayList<>();
   
   private Map<String, Object> fields;
 
@@ -203,6 +206,15 @@ public class Job implements IsModelObject, IsIndexed, HasId {
     return this;
   }
 
+  public List<JobLatency> getLatencyBreakdown() {
+    return latencyBreakdown;
+  }
+
+  public Job setLatencyBreakdown(List<JobLatency> latencyBreakdown) {
+    this.latencyBreakdown = latencyBreakdown;
+    return this;
+  }
+
   public Job setPluginType(PluginType pluginType) {
     this.pluginType = pluginType;
     return this;
@@ -0,0 +1,85 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/roda
+ */
+package org.roda.core.data.v2.jobs;
+
+import java.io.Serializable;
+
+/**
+ * Time spent by a job in one kind of operation (e.g. storage createBinary,
+ * Solr requests to the AIP collection, executions of a command), part of the
+ * latency breakdown of the job.
+ */
+public class JobLatency implements Serializable {
+  private static final long serialVersionUID = -1180913725339512785L;
+
+  // e.g. object, step, storage, index, command, lock
+  private String type = null;
+  // e.g. plugin or step class, storage operation, collection and request path
+  private String name = null;
+  private long count = 0;
+  private long totalMillis = 0;
+  private long maxMillis = 0;
+
+  public JobLatency() {
+    // do nothing
+  }
+
+  public JobLatency(String type, String name, long count, long totalMillis, long maxMillis) {
+    this.type = type;
+    this.name = name;
+    this.count = count;
+    this.totalMillis = totalMillis;
+    this.maxMillis = maxMillis;
+  }
+
+  public String getType() {
+    return type;
+  }
+
+  public void setType(String type) {
+    this.type = type;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public void setName(String name) {
+    this.name = name;
+  }
+
+  public long getCount() {
+    return count;
+  }
+
+  public void setCount(long count) {
+    this.count = count;
+  }
+
+  public long getTotalMillis() {
+    return totalMillis;
+  }
+
+  public void setTotalMillis(long totalMillis) {
+    this.totalMillis = totalMillis;
+  }
+
+  public long getMaxMillis() {
+    return maxMillis;
+  }
+
+  public void setMaxMillis(long maxMillis) {
+    this.maxMillis = maxMillis;
+  }
+
+  @Override
+  public String toString() {
+    return "JobLatency [type=" + type + ", name=" + name + ", count=" + count + ", totalMillis=" + totalMillis
+      + ", maxMillis=" + maxMillis + "]";
+  }
+}
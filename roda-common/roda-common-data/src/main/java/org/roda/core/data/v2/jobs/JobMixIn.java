@@ -13,6 +13,6 @@ import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 
 @JsonIgnoreProperties({RodaConstants.JOB_ID, RodaConstants.JOB_START_DATE, RodaConstants.JOB_END_DATE,
   RodaConstants.JOB_STATE, RodaConstants.JOB_STATE_DETAILS, RodaConstants.JOB_STATS, RodaConstants.JOB_IN_FINAL_STATE,
-  RodaConstants.JOB_STOPPING})
+  RodaConstants.JOB_STOPPING, RodaConstants.JOB_LATENCY_BREAKDOWN})
 public class JobMixIn {
 }
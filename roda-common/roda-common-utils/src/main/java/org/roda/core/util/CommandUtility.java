@@ -13,6 +13,8 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.io.IOUtils;
 import org.slf4j.Logger;
@@ -27,10 +29,35 @@ import org.slf4j.LoggerFactory;
 public class CommandUtility {
   private static final Logger LOGGER = LoggerFactory.getLogger(CommandUtility.class);
 
+  // executable name > executor
+  private static final Map<String, CommandExecutor> EXECUTORS = new ConcurrentHashMap<>();
+
   private CommandUtility() {
     // do nothing
   }
 
+  /**
+   * Executes command lines in place of {@link CommandUtility}, e.g. with a
+   * limited concurrency, a timeout or on long-lived workers.
+   */
+  @FunctionalInterface
+  public interface CommandExecutor {
+    String execute(List<String> args) throws CommandException;
+  }
+
+  /**
+   * Makes the command lines of the given executable (its name, without path)
+   * be executed by the given executor, which always captures the error
+   * stream together with the output.
+   */
+  public static void setExecutor(String executable, CommandExecutor executor) {
+    EXECUTORS.put(executable, executor);
+  }
+
+  public static void removeExecutor(String executable) {
+    EXECUTORS.remove(executable);
+  }
+
   /**
    * Execute the given command line.
    * 
@@ -59,7 +86,13 @@ public class CommandUtility {
     int exitValue = 0;
     String output;
 
-    try {
+    String commandName = getCommandName(args);
+    try (Tracing.Span span = Tracing.start(Tracing.SpanType.COMMAND, commandName)) {
+      CommandExecutor executor = EXECUTORS.get(commandName);
+      if (executor != null) {
+        return executor.execute(Arrays.asList(args));
+      }
+
       StringBuilder builder = new StringBuilder();
       for (String arg : args) {
         builder.append(arg + " ");
@@ -112,6 +145,16 @@ public class CommandUtility {
     }
   }
 
+  /**
+   * @return the name of the executable, without its path
+   */
+  private static String getCommandName(String... args) {
+    if (args.length == 0) {
+      return "";
+    }
+    return args[0].substring(Math.max(args[0].lastIndexOf('/'), args[0].lastIndexOf('\\')) + 1);
+  }
+
   /**
    * Execute the given command line.
    * 
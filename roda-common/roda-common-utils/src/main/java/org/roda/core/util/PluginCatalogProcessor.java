@@ -0,0 +1,152 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/roda
+ */
+package org.roda.core.util;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic.Kind;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+/**
+ * Annotation processor that writes, at compile time, the catalog of the
+ * internal RODA plugins of a module, i.e. the concrete public subclasses of
+ * {@code AbstractPlugin} and {@code AbstractAIPComponentsPlugin}. The catalog
+ * is a {@code META-INF/services} file, with one class name per line, that the
+ * plugin manager reads instead of scanning the classpath.
+ *
+ * The processor is not registered as a service, so it only runs in the
+ * modules that list it in their compiler configuration. Entries of a catalog
+ * left by a previous compilation of the same module are kept while their
+ * classes still exist, so that compiling only some of its classes does not
+ * lose plugins.
+ */
+@SupportedAnnotationTypes("*")
+public class PluginCatalogProcessor extends AbstractProcessor {
+
+  public static final String CATALOG = "META-INF/services/org.roda.core.plugins.Plugin";
+
+  private static final List<String> PLUGIN_BASE_CLASSES = Arrays.asList("org.roda.core.plugins.AbstractPlugin",
+    "org.roda.core.plugins.AbstractAIPComponentsPlugin");
+
+  private final Set<String> plugins = new TreeSet<>();
+
+  @Override
+  public SourceVersion getSupportedSourceVersion() {
+    return SourceVersion.latestSupported();
+  }
+
+  @Override
+  public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+    if (roundEnv.processingOver()) {
+      if (!plugins.isEmpty()) {
+        writeCatalog();
+      }
+    } else {
+      List<TypeMirror> baseTypes = new ArrayList<>();
+      for (String baseClass : PLUGIN_BASE_CLASSES) {
+        TypeElement baseType = processingEnv.getElementUtils().getTypeElement(baseClass);
+        if (baseType != null) {
+          baseTypes.add(processingEnv.getTypeUtils().erasure(baseType.asType()));
+        }
+      }
+
+      if (!baseTypes.isEmpty()) {
+        for (Element element : roundEnv.getRootElements()) {
+          collectPlugins(element, baseTypes);
+        }
+      }
+    }
+
+    // other processors may also be interested in the annotations
+    return false;
+  }
+
+  private void collectPlugins(Element element, List<TypeMirror> baseTypes) {
+    if (element.getKind() != ElementKind.CLASS) {
+      return;
+    }
+
+    TypeElement type = (TypeElement) element;
+    Set<Modifier> modifiers = type.getModifiers();
+    boolean instantiable = modifiers.contains(Modifier.PUBLIC) && !modifiers.contains(Modifier.ABSTRACT)
+      && (type.getNestingKind() == NestingKind.TOP_LEVEL || modifiers.contains(Modifier.STATIC));
+
+    if (instantiable) {
+      TypeMirror erasure = processingEnv.getTypeUtils().erasure(type.asType());
+      for (TypeMirror baseType : baseTypes) {
+        if (processingEnv.getTypeUtils().isSubtype(erasure, baseType)) {
+          plugins.add(processingEnv.getElementUtils().getBinaryName(type).toString());
+          break;
+        }
+      }
+    }
+
+    for (Element enclosed : type.getEnclosedElements()) {
+      collectPlugins(enclosed, baseTypes);
+    }
+  }
+
+  private void writeCatalog() {
+    Set<String> catalog = new TreeSet<>(plugins);
+    catalog.addAll(readExistingCatalog());
+
+    try {
+      FileObject file = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", CATALOG);
+      try (Writer writer = file.openWriter()) {
+        for (String plugin : catalog) {
+          writer.write(plugin);
+          writer.write('\n');
+        }
+      }
+    } catch (IOException e) {
+      processingEnv.getMessager().printMessage(Kind.ERROR, "Could not write plugin catalog " + CATALOG + ": " + e);
+    }
+  }
+
+  private Set<String> readExistingCatalog() {
+    Set<String> existing = new TreeSet<>();
+    try {
+      FileObject file = processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "", CATALOG);
+      try (BufferedReader reader = new BufferedReader(
+        new InputStreamReader(file.openInputStream(), StandardCharsets.UTF_8))) {
+        String line;
+        while ((line = reader.readLine()) != null) {
+          String name = line.trim();
+          // plugins removed since then are dropped
+          if (!name.isEmpty() && !name.startsWith("#")
+            && processingEnv.getElementUtils().getTypeElement(name.replace('$', '.')) != null) {
+            existing.add(name);
+          }
+        }
+      }
+    } catch (IOException e) {
+      // no previous catalog
+    }
+    return existing;
+  }
+}
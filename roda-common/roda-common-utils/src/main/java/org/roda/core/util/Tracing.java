@@ -0,0 +1,206 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/roda
+ */
+package org.roda.core.util;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.roda.core.data.v2.jobs.JobLatency;
+
+/**
+ * Lightweight tracing of where the time of jobs goes (storage, index, external
+ * commands, lock waits, ...).
+ *
+ * Code wraps the operations worth measuring in spans:
+ *
+ * <pre>
+ * try (Tracing.Span span = Tracing.start(Tracing.SpanType.STORAGE, "createBinary")) {
+ *   ...
+ * }
+ * </pre>
+ *
+ * Each ended span is given to the registered listeners (e.g. to be exported as
+ * Prometheus histograms) and, if the thread is working for a job (see
+ * {@link #enterJob(String)}), added to the latency breakdown of the job. Spans
+ * may be nested, so the time of a span is also part of the time of the spans
+ * enclosing it (e.g. storage operations done while processing an object).
+ */
+public final class Tracing {
+  public enum SpanType {
+    PLUGIN, OBJECT, STEP, STORAGE, INDEX, COMMAND, LOCK;
+
+    public String getLabel() {
+      return name().toLowerCase(Locale.ROOT);
+    }
+  }
+
+  @FunctionalInterface
+  public interface SpanListener {
+    void spanEnded(SpanType type, String name, long durationInNanos);
+  }
+
+  private static final Span NOOP = new Span(null, null, null);
+  private static final ThreadLocal<String> CURRENT_JOB = new ThreadLocal<>();
+  // job id > span type and name > latency
+  private static final ConcurrentMap<String, ConcurrentMap<String, Latency>> JOBS = new ConcurrentHashMap<>();
+  private static final List<SpanListener> LISTENERS = new CopyOnWriteArrayList<>();
+  private static volatile boolean enabled = true;
+
+  private Tracing() {
+    // do nothing
+  }
+
+  public static void setEnabled(boolean enabled) {
+    Tracing.enabled = enabled;
+  }
+
+  public static boolean isEnabled() {
+    return enabled;
+  }
+
+  public static void addListener(SpanListener listener) {
+    LISTENERS.add(listener);
+  }
+
+  public static void removeListener(SpanListener listener) {
+    LISTENERS.remove(listener);
+  }
+
+  /**
+   * Starts a span, which ends when closed.
+   */
+  public static Span start(SpanType type, String name) {
+    if (!enabled) {
+      return NOOP;
+    }
+    return new Span(type, name, CURRENT_JOB.get());
+  }
+
+  /**
+   * Records a span whose time was measured by the caller, e.g. the time spent
+   * over many calls iterating a lazy listing.
+   */
+  public static void record(SpanType type, String name, long durationInNanos) {
+    if (enabled) {
+      ended(new Span(type, name, CURRENT_JOB.get()), durationInNanos);
+    }
+  }
+
+  /**
+   * Adds the spans of the current thread to the latency breakdown of the job,
+   * until {@link #exitJob(String)} is called with the returned value.
+   *
+   * @return the job the thread was working for before, if any
+   */
+  public static String enterJob(String jobId) {
+    String previousJobId = CURRENT_JOB.get();
+    if (jobId == null) {
+      CURRENT_JOB.remove();
+    } else {
+      CURRENT_JOB.set(jobId);
+    }
+    return previousJobId;
+  }
+
+  public static void exitJob(String previousJobId) {
+    enterJob(previousJobId);
+  }
+
+  /**
+   * @return the latency breakdown of the spans of the job so far, slowest
+   *         first, or an empty list if none was recorded in this process
+   */
+  public static List<JobLatency> getLatencyBreakdown(String jobId) {
+    List<JobLatency> breakdown = new ArrayList<>();
+    Map<String, Latency> latencies = JOBS.get(jobId);
+    if (latencies != null) {
+      for (Latency latency : latencies.values()) {
+        breakdown.add(latency.toJobLatency());
+      }
+      breakdown.sort(Comparator.comparingLong(JobLatency::getTotalMillis).reversed());
+    }
+    return breakdown;
+  }
+
+  /**
+   * Forgets the latency breakdown of the job, e.g. when it has ended.
+   *
+   * @return the latency breakdown of the job, as in
+   *         {@link #getLatencyBreakdown(String)}
+   */
+  public static List<JobLatency> removeLatencyBreakdown(String jobId) {
+    List<JobLatency> breakdown = getLatencyBreakdown(jobId);
+    JOBS.remove(jobId);
+    return breakdown;
+  }
+
+  private static void ended(Span span, long durationInNanos) {
+    for (SpanListener listener : LISTENERS) {
+      listener.spanEnded(span.type, span.name, durationInNanos);
+    }
+    if (span.jobId != null) {
+      JOBS.computeIfAbsent(span.jobId, id -> new ConcurrentHashMap<>())
+        .computeIfAbsent(span.type.getLabel() + " " + span.name, key -> new Latency(span.type, span.name))
+        .add(durationInNanos);
+    }
+  }
+
+  public static final class Span implements AutoCloseable {
+    private final SpanType type;
+    private final String name;
+    private final String jobId;
+    private final long start;
+
+    private Span(SpanType type, String name, String jobId) {
+      this.type = type;
+      this.name = name;
+      this.jobId = jobId;
+      this.start = type == null ? 0 : System.nanoTime();
+    }
+
+    @Override
+    public void close() {
+      if (type != null) {
+        ended(this, System.nanoTime() - start);
+      }
+    }
+  }
+
+  private static final class Latency {
+    private final SpanType type;
+    private final String name;
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalInNanos = new LongAdder();
+    private final AtomicLong maxInNanos = new AtomicLong();
+
+    private Latency(SpanType type, String name) {
+      this.type = type;
+      this.name = name;
+    }
+
+    private void add(long durationInNanos) {
+      count.increment();
+      totalInNanos.add(durationInNanos);
+      maxInNanos.accumulateAndGet(durationInNanos, Math::max);
+    }
+
+    private JobLatency toJobLatency() {
+      return new JobLatency(type.getLabel(), name, count.sum(), TimeUnit.NANOSECONDS.toMillis(totalInNanos.sum()),
+        TimeUnit.NANOSECONDS.toMillis(maxInNanos.get()));
+    }
+  }
+}
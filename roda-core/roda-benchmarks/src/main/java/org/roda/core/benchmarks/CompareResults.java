@@ -0,0 +1,96 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/roda
+ */
+package org.roda.core.benchmarks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import org.roda.core.data.exceptions.GenericException;
+import org.roda.core.data.utils.JsonUtils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * Compares two JSON result files of {@link RodaBenchmarks} (e.g. of two
+ * commits), printing for each benchmark both scores, the change and whether
+ * it is larger than the error of the measurements.
+ *
+ * Usage: <code>java -cp benchmarks.jar org.roda.core.benchmarks.CompareResults
+ * base.json new.json</code>
+ */
+public final class CompareResults {
+  private static final String THROUGHPUT_MODE = "thrpt";
+
+  private CompareResults() {
+    // do nothing
+  }
+
+  public static void main(String[] args) throws IOException, GenericException {
+    if (args.length != 2) {
+      System.err.println("Usage: CompareResults <base result file> <new result file>");
+      System.exit(1);
+    }
+
+    Map<String, JsonNode> base = read(args[0]);
+    Map<String, JsonNode> current = read(args[1]);
+
+    System.out.println(String.format(Locale.ROOT, "%-80s %14s %14s %9s %s", "Benchmark", "Base", "New", "Change",
+      "Unit"));
+    for (Map.Entry<String, JsonNode> entry : current.entrySet()) {
+      JsonNode newResult = entry.getValue();
+      JsonNode baseResult = base.get(entry.getKey());
+      JsonNode newMetric = newResult.get("primaryMetric");
+      double newScore = newMetric.get("score").asDouble();
+      String unit = newMetric.get("scoreUnit").asText();
+
+      if (baseResult == null) {
+        System.out.println(String.format(Locale.ROOT, "%-80s %14s %14.3f %9s %s", entry.getKey(), "-", newScore, "-",
+          unit));
+      } else {
+        JsonNode baseMetric = baseResult.get("primaryMetric");
+        double baseScore = baseMetric.get("score").asDouble();
+        double change = baseScore == 0 ? 0 : (newScore - baseScore) / baseScore * 100;
+        boolean significant = Math.abs(newScore - baseScore) > error(baseMetric) + error(newMetric);
+        boolean better = THROUGHPUT_MODE.equals(newResult.get("mode").asText()) ? newScore > baseScore
+          : newScore < baseScore;
+        String verdict = !significant ? "" : (better ? " (better)" : " (worse)");
+        System.out.println(String.format(Locale.ROOT, "%-80s %14.3f %14.3f %+8.1f%% %s%s", entry.getKey(), baseScore,
+          newScore, change, unit, verdict));
+      }
+    }
+  }
+
+  private static double error(JsonNode metric) {
+    double error = metric.path("scoreError").asDouble(0);
+    return Double.isNaN(error) ? 0 : error;
+  }
+
+  /**
+   * @return results by benchmark name and parameters
+   */
+  private static Map<String, JsonNode> read(String file) throws IOException, GenericException {
+    Map<String, JsonNode> results = new LinkedHashMap<>();
+    try (InputStream stream = Files.newInputStream(Paths.get(file))) {
+      for (JsonNode result : JsonUtils.parseJson(stream)) {
+        StringBuilder key = new StringBuilder(result.get("benchmark").asText());
+        JsonNode params = result.get("params");
+        if (params != null) {
+          params.fields().forEachRemaining(param -> key.append(' ').append(param.getKey()).append('=')
+            .append(param.getValue().asText()));
+        }
+        results.put(key.toString(), result);
+      }
+    }
+    return results;
+  }
+}
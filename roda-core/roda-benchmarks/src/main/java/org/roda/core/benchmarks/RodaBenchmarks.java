@@ -0,0 +1,55 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/roda
+ */
+package org.roda.core.benchmarks;
+
+import java.io.IOException;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the RODA benchmarks with the usual JMH command line options (e.g. a
+ * regular expression of the benchmarks to run, <code>-h</code> for help).
+ *
+ * Unless told otherwise with <code>-rf</code> and <code>-rff</code>, results
+ * are written as JSON to <code>jmh-result.json</code>, so that the results of
+ * two commits can be compared with {@link CompareResults}.
+ */
+public final class RodaBenchmarks {
+  private static final String DEFAULT_RESULT_FILE = "jmh-result.json";
+
+  private RodaBenchmarks() {
+    // do nothing
+  }
+
+  public static void main(String[] args) throws RunnerException, CommandLineOptionException, IOException {
+    CommandLineOptions commandLine = new CommandLineOptions(args);
+    if (commandLine.shouldHelp()) {
+      commandLine.showHelp();
+      return;
+    }
+    if (commandLine.shouldList()) {
+      new Runner(commandLine).list();
+      return;
+    }
+
+    ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLine);
+    if (!commandLine.getResultFormat().hasValue()) {
+      options.resultFormat(ResultFormatType.JSON);
+    }
+    if (!commandLine.getResult().hasValue()) {
+      options.result(DEFAULT_RESULT_FILE);
+    }
+    new Runner(options.build()).run();
+  }
+}
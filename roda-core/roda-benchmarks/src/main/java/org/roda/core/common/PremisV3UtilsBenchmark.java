@@ -0,0 +1,82 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/roda
+ */
+package org.roda.core.common;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.xmlbeans.XmlException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.roda.core.data.exceptions.GenericException;
+import org.roda.core.data.v2.ip.metadata.Fixity;
+
+import gov.loc.premis.v3.FixityComplexType;
+import gov.loc.premis.v3.ObjectCharacteristicsComplexType;
+
+/**
+ * Compares reading the PREMIS file fields used for indexing and fixity
+ * checking with the XMLBeans object model and with the streaming
+ * {@link PremisV3StreamReader}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PremisV3UtilsBenchmark {
+
+  private static final String PREMIS_FILE = "/corpora/aip/AIP_1/representations/representation_1/metadata/preservation/"
+    + "urn:roda:premis:file:fil_7516.jpg.tiff.xml";
+
+  private byte[] premis;
+
+  @Setup
+  public void setup() throws IOException {
+    try (InputStream inputStream = PremisV3UtilsBenchmark.class.getResourceAsStream(PREMIS_FILE)) {
+      premis = IOUtils.toByteArray(inputStream);
+    }
+  }
+
+  @Benchmark
+  public int xmlBeans() throws XmlException, IOException, GenericException {
+    gov.loc.premis.v3.File file = PremisV3Utils.binaryToFile(new ByteArrayInputStream(premis));
+    ObjectCharacteristicsComplexType occt = file.getObjectCharacteristicsArray(0);
+    int hash = Long.hashCode(occt.getSize());
+    for (FixityComplexType fixity : occt.getFixityArray()) {
+      hash += fixity.getMessageDigest().hashCode();
+    }
+    hash += occt.getFormatArray(0).getFormatDesignation().getFormatName().getStringValue().hashCode();
+    return hash;
+  }
+
+  @Benchmark
+  public int streaming() throws IOException, GenericException {
+    PremisV3StreamReader.FileSummary summary = PremisV3StreamReader.readFile(new ByteArrayInputStream(premis));
+    int hash = Long.hashCode(summary.getSize());
+    List<Fixity> fixities = summary.getFixities();
+    for (Fixity fixity : fixities) {
+      hash += fixity.getMessageDigest().hashCode();
+    }
+    hash += summary.getFormatName().hashCode();
+    return hash;
+  }
+}
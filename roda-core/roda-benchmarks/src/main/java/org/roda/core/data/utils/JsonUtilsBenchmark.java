@@ -0,0 +1,92 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/roda
+ */
+package org.roda.core.data.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.IOUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.roda.core.data.exceptions.GenericException;
+import org.roda.core.data.v2.ip.AIP;
+import org.roda.core.data.v2.jobs.PluginState;
+import org.roda.core.data.v2.jobs.Report;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Reads and writes the JSON of an AIP and of a job report, the objects written
+ * the most while ingesting, with the shared mappers of {@link JsonUtils} and
+ * with a mapper created per call (as done before they were shared).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonUtilsBenchmark {
+  private static final String AIP_FILE = "/corpora/aip/AIP_1/aip.json";
+  private static final int ITEM_REPORTS = 20;
+
+  private String aipJson;
+  private AIP aip;
+  private Report report;
+
+  @Setup
+  public void setup() throws IOException, GenericException {
+    try (InputStream inputStream = JsonUtilsBenchmark.class.getResourceAsStream(AIP_FILE)) {
+      aipJson = IOUtils.toString(inputStream, StandardCharsets.UTF_8);
+    }
+    aip = JsonUtils.getObjectFromJson(aipJson, AIP.class);
+
+    report = new Report().setTitle("Ingest").setPluginState(PluginState.SUCCESS);
+    for (int i = 0; i < ITEM_REPORTS; i++) {
+      report.addReport(new Report().setTitle("Step " + i).setSourceObjectId("sip_" + i)
+        .setOutcomeObjectId("aip_" + i).setPluginState(PluginState.SUCCESS).setPluginDetails("Details " + i)
+        .setDateCreated(new Date()));
+    }
+  }
+
+  @Benchmark
+  public AIP readAIP() throws GenericException {
+    return JsonUtils.getObjectFromJson(aipJson, AIP.class);
+  }
+
+  @Benchmark
+  public AIP readAIPWithNewMapper() throws IOException {
+    return new ObjectMapper().readValue(aipJson, AIP.class);
+  }
+
+  @Benchmark
+  public String writeAIP() {
+    return JsonUtils.getJsonFromObject(aip);
+  }
+
+  @Benchmark
+  public String writeAIPWithNewMapper() throws IOException {
+    return new ObjectMapper().writeValueAsString(aip);
+  }
+
+  @Benchmark
+  public Report roundTripReport() throws GenericException {
+    return JsonUtils.getObjectFromJson(JsonUtils.getJsonFromObject(report), Report.class);
+  }
+}
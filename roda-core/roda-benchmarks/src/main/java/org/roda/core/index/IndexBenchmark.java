@@ -0,0 +1,123 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/roda
+ */
+package org.roda.core.index;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.roda.core.RodaCoreFactory;
+import org.roda.core.TestsHelper;
+import org.roda.core.data.common.RodaConstants;
+import org.roda.core.data.exceptions.AuthorizationDeniedException;
+import org.roda.core.data.exceptions.GenericException;
+import org.roda.core.data.exceptions.NotFoundException;
+import org.roda.core.data.exceptions.NotSupportedException;
+import org.roda.core.data.exceptions.RequestNotValidException;
+import org.roda.core.data.v2.index.IndexResult;
+import org.roda.core.data.v2.index.filter.Filter;
+import org.roda.core.data.v2.index.filter.SimpleFilterParameter;
+import org.roda.core.data.v2.index.sublist.Sublist;
+import org.roda.core.data.v2.risks.IndexedRisk;
+import org.roda.core.data.v2.risks.Risk;
+import org.roda.core.index.schema.SolrCollectionRegistry;
+import org.roda.core.storage.fs.FSUtils;
+import org.roda.core.util.IdUtils;
+
+/**
+ * Indexes risks and searches them with an embedded Solr, with and without the
+ * index result cache.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class IndexBenchmark {
+  private static final int BATCH_SIZE = 100;
+  private static final int INDEXED_RISKS = 1000;
+
+  @Param({"true", "false"})
+  private boolean cached;
+
+  private Path basePath;
+  private IndexService index;
+  private Filter filter;
+
+  @Setup
+  public void setup() throws IOException, AuthorizationDeniedException, GenericException, NotSupportedException {
+    basePath = TestsHelper.createBaseTempDir(IndexBenchmark.class, true);
+    RodaCoreFactory.instantiateTest(true, true, false, false, false, false);
+    index = RodaCoreFactory.getIndexService();
+
+    if (!cached) {
+      // read when the collection is first queried
+      RodaCoreFactory.getRodaConfiguration().setProperty(
+        "core.index_result.cache.max_staleness_ms." + SolrCollectionRegistry.getIndexName(IndexedRisk.class), 0);
+    }
+
+    for (int i = 0; i < INDEXED_RISKS / BATCH_SIZE; i++) {
+      index.createAll(IndexedRisk.class, createRisks());
+    }
+    index.commit(IndexedRisk.class);
+    filter = new Filter(new SimpleFilterParameter(RodaConstants.RISK_CATEGORIES, "Category 1"));
+  }
+
+  @TearDown
+  public void tearDown() throws NotFoundException, GenericException {
+    RodaCoreFactory.shutdown();
+    FSUtils.deletePath(basePath);
+  }
+
+  private static List<Risk> createRisks() {
+    List<Risk> risks = new ArrayList<>();
+    for (int i = 0; i < BATCH_SIZE; i++) {
+      Risk risk = new Risk();
+      risk.setId(IdUtils.createUUID());
+      risk.setName("Risk " + i);
+      risk.setDescription("Description of risk " + i);
+      risk.setCategories(Collections.singletonList("Category " + (i % 10)));
+      risk.setIdentifiedOn(new Date());
+      risk.setCreatedOn(new Date());
+      risk.setUpdatedOn(new Date());
+      risks.add(risk);
+    }
+    return risks;
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.Throughput)
+  @OutputTimeUnit(TimeUnit.SECONDS)
+  @OperationsPerInvocation(BATCH_SIZE)
+  public void createAll() throws AuthorizationDeniedException {
+    index.createAll(IndexedRisk.class, createRisks());
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.SampleTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public IndexResult<IndexedRisk> find() throws GenericException, RequestNotValidException {
+    return index.find(IndexedRisk.class, filter, null, new Sublist(0, 20), Collections.emptyList());
+  }
+}
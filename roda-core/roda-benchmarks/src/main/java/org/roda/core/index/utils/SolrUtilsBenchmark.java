@@ -0,0 +1,117 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/roda
+ */
+package org.roda.core.index.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.solr.common.SolrInputDocument;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.roda.core.RodaCoreFactory;
+import org.roda.core.TestsHelper;
+import org.roda.core.data.common.RodaConstants;
+import org.roda.core.data.exceptions.GenericException;
+import org.roda.core.data.exceptions.NotFoundException;
+import org.roda.core.data.exceptions.RequestNotValidException;
+import org.roda.core.data.v2.index.filter.BasicSearchFilterParameter;
+import org.roda.core.data.v2.index.filter.DateIntervalFilterParameter;
+import org.roda.core.data.v2.index.filter.Filter;
+import org.roda.core.data.v2.index.filter.OneOfManyFilterParameter;
+import org.roda.core.data.v2.index.filter.OrFiltersParameters;
+import org.roda.core.data.v2.index.filter.SimpleFilterParameter;
+import org.roda.core.data.v2.ip.IndexedAIP;
+import org.roda.core.data.v2.user.User;
+import org.roda.core.storage.Binary;
+import org.roda.core.storage.DefaultBinary;
+import org.roda.core.storage.DefaultStoragePath;
+import org.roda.core.storage.StringContentPayload;
+import org.roda.core.storage.fs.FSUtils;
+
+/**
+ * Builds the Solr queries of a search with several filters and of the
+ * permissions of a user, and the Solr document of an EAD descriptive metadata
+ * file, without Solr itself.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SolrUtilsBenchmark {
+  private static final String EAD_FILE = "/corpora/aip/AIP_1/metadata/descriptive/ead.xml";
+
+  private Path basePath;
+  private Filter filter;
+  private User user;
+  private Binary ead;
+
+  @Setup
+  public void setup() throws IOException, RequestNotValidException {
+    basePath = TestsHelper.createBaseTempDir(SolrUtilsBenchmark.class, true);
+    // only the configuration and crosswalks are needed
+    RodaCoreFactory.instantiateTest(false, false, false, false, false, false);
+
+    filter = new Filter(new SimpleFilterParameter(RodaConstants.AIP_PARENT_ID, "parent"),
+      new OneOfManyFilterParameter(RodaConstants.AIP_LEVEL, Arrays.asList("fonds", "series", "file", "item")),
+      new OrFiltersParameters(Arrays.asList(new SimpleFilterParameter(RodaConstants.AIP_TITLE, "title"),
+        new BasicSearchFilterParameter(RodaConstants.INDEX_SEARCH, "some words"))),
+      new DateIntervalFilterParameter(RodaConstants.AIP_DATE_INITIAL, RodaConstants.AIP_DATE_FINAL, new Date(0),
+        new Date()));
+
+    user = new User("user");
+    for (int i = 0; i < 10; i++) {
+      user.addGroup("group_" + i);
+    }
+
+    String content;
+    try (InputStream inputStream = SolrUtilsBenchmark.class.getResourceAsStream(EAD_FILE)) {
+      content = IOUtils.toString(inputStream, StandardCharsets.UTF_8);
+    }
+    ead = new DefaultBinary(DefaultStoragePath.parse("ead.xml"), new StringContentPayload(content),
+      (long) content.length(), false, Collections.emptyMap());
+  }
+
+  @TearDown
+  public void tearDown() throws NotFoundException, GenericException {
+    RodaCoreFactory.shutdown();
+    FSUtils.deletePath(basePath);
+  }
+
+  @Benchmark
+  public String parseFilter() throws RequestNotValidException {
+    return SolrUtils.parseFilter(filter);
+  }
+
+  @Benchmark
+  public String getFilterQueries() {
+    return SolrUtils.getFilterQueries(user, true, IndexedAIP.class);
+  }
+
+  @Benchmark
+  public SolrInputDocument getDescriptiveMetadataFields() throws GenericException {
+    return SolrUtils.getDescriptiveMetadataFields(ead, "ead", "2002");
+  }
+}
@@ -0,0 +1,105 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/roda
+ */
+package org.roda.core.plugins;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.roda.core.CorporaConstants;
+import org.roda.core.RodaCoreFactory;
+import org.roda.core.TestsHelper;
+import org.roda.core.common.monitor.TransferredResourcesScanner;
+import org.roda.core.data.exceptions.RODAException;
+import org.roda.core.data.v2.index.select.SelectedItemsList;
+import org.roda.core.data.v2.ip.TransferredResource;
+import org.roda.core.data.v2.jobs.Job;
+import org.roda.core.data.v2.jobs.PluginType;
+import org.roda.core.index.IndexService;
+import org.roda.core.plugins.plugins.ingest.EARKSIPToAIPPlugin;
+import org.roda.core.plugins.plugins.ingest.MinimalIngestPlugin;
+import org.roda.core.storage.fs.FSUtils;
+import org.roda.core.util.IdUtils;
+
+/**
+ * Ingests an E-ARK SIP end to end, from the transferred resource to the
+ * indexed AIP, with an embedded Solr and the plugin orchestrator.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 20)
+@Fork(1)
+public class IngestBenchmark {
+  private static final String SIP_FILE = "/corpora/" + CorporaConstants.SIP_FOLDER + "/" + CorporaConstants.EARK_SIP;
+
+  @Param({"minimal", "earksip"})
+  private String plugin;
+
+  private Path basePath;
+  private IndexService index;
+  private int sips = 0;
+  private TransferredResource transferredResource;
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    basePath = TestsHelper.createBaseTempDir(IngestBenchmark.class, true);
+    RodaCoreFactory.instantiateTest(true, true, true, true, true, false);
+    index = RodaCoreFactory.getIndexService();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws RODAException {
+    RodaCoreFactory.shutdown();
+    FSUtils.deletePath(basePath);
+  }
+
+  /**
+   * Transfers a new copy of the SIP, as each ingest moves it.
+   */
+  @Setup(Level.Invocation)
+  public void transfer() throws IOException, RODAException {
+    String name = "sip_" + (sips++) + ".zip";
+    TransferredResourcesScanner scanner = RodaCoreFactory.getTransferredResourcesScanner();
+    try (InputStream sip = IngestBenchmark.class.getResourceAsStream(SIP_FILE)) {
+      scanner.createFile(null, name, sip);
+    }
+    scanner.updateTransferredResources(Optional.empty(), true);
+    index.commit(TransferredResource.class);
+    transferredResource = index.retrieve(TransferredResource.class, IdUtils.createUUID(name), new ArrayList<>());
+  }
+
+  @Benchmark
+  public Job ingest() throws RODAException {
+    SelectedItemsList<TransferredResource> sip = SelectedItemsList.create(TransferredResource.class,
+      transferredResource.getUUID());
+    if ("minimal".equals(plugin)) {
+      return TestsHelper.executeJob(MinimalIngestPlugin.class, new HashMap<>(), PluginType.SIP_TO_AIP, sip);
+    } else {
+      return TestsHelper.executeJob(EARKSIPToAIPPlugin.class, new HashMap<>(), PluginType.SIP_TO_AIP, sip);
+    }
+  }
+}
@@ -0,0 +1,92 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/roda
+ */
+package org.roda.core.storage.fs;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.roda.core.common.iterables.CloseableIterable;
+import org.roda.core.data.exceptions.GenericException;
+import org.roda.core.data.exceptions.NotFoundException;
+import org.roda.core.storage.Resource;
+
+/**
+ * Lists a folder with many files, as done when listing the files of a
+ * representation, and a tree of folders.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FSUtilsBenchmark {
+  private static final int FOLDERS = 10;
+
+  @Param({"100", "10000"})
+  private int files;
+
+  private Path basePath;
+  private Path flat;
+  private Path tree;
+
+  @Setup
+  public void setup() throws IOException {
+    basePath = Files.createTempDirectory(FSUtilsBenchmark.class.getSimpleName());
+    flat = Files.createDirectory(basePath.resolve("flat"));
+    tree = Files.createDirectory(basePath.resolve("tree"));
+    for (int i = 0; i < files; i++) {
+      Files.createFile(flat.resolve("file_" + i));
+    }
+    for (int i = 0; i < FOLDERS; i++) {
+      Path folder = Files.createDirectory(tree.resolve("folder_" + i));
+      for (int j = 0; j < files / FOLDERS; j++) {
+        Files.createFile(folder.resolve("file_" + j));
+      }
+    }
+  }
+
+  @TearDown
+  public void tearDown() throws NotFoundException, GenericException {
+    FSUtils.deletePath(basePath);
+  }
+
+  @Benchmark
+  public int listPath() throws NotFoundException, GenericException, IOException {
+    return count(FSUtils.listPath(basePath, flat));
+  }
+
+  @Benchmark
+  public int recursivelyListPath() throws NotFoundException, GenericException, IOException {
+    return count(FSUtils.recursivelyListPath(basePath, tree));
+  }
+
+  private static int count(CloseableIterable<Resource> resources) throws IOException {
+    int count = 0;
+    try (CloseableIterable<Resource> iterable = resources) {
+      for (Resource resource : iterable) {
+        count += resource.isDirectory() ? 0 : 1;
+      }
+    }
+    return count;
+  }
+}
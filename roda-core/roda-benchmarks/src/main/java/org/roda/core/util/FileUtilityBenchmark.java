@@ -0,0 +1,62 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/roda
+ */
+package org.roda.core.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Computes the checksums of a file with the algorithms used for fixity
+ * information, alone and all at once.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FileUtilityBenchmark {
+  @Param({"SHA-256", "MD5,SHA-1,SHA-256"})
+  private String algorithms;
+
+  @Param({"1048576"})
+  private int size;
+
+  private byte[] content;
+  private List<String> algorithmList;
+
+  @Setup
+  public void setup() {
+    content = new byte[size];
+    new Random(size).nextBytes(content);
+    algorithmList = Arrays.asList(algorithms.split(","));
+  }
+
+  @Benchmark
+  public Map<String, String> checksums() throws NoSuchAlgorithmException, IOException {
+    return FileUtility.checksums(new ByteArrayInputStream(content), algorithmList);
+  }
+}
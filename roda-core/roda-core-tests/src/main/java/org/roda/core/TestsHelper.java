@@ -7,6 +7,7 @@
  */
 package org.roda.core;
 
+import java.io.Closeable;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -17,6 +18,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 
+import org.apache.commons.io.IOUtils;
 import org.hamcrest.MatcherAssert;
 import org.hamcrest.core.Is;
 import org.roda.core.common.ReportAssertUtils;
@@ -41,6 +43,7 @@ import org.roda.core.data.v2.jobs.PluginType;
 import org.roda.core.data.v2.jobs.Report;
 import org.roda.core.index.IndexService;
 import org.roda.core.plugins.Plugin;
+import org.roda.core.storage.fs.FSUtils;
 import org.roda.core.util.IdUtils;
 import org.testng.AssertJUnit;
 
@@ -62,6 +65,17 @@ public final class TestsHelper {
     return createBaseTempDir(testClass, setAsRODAHome, new FileAttribute[] {});
   }
 
+  /**
+   * Stops the in-process fake servers (e.g. of clamd or Siegfried) used by a
+   * test and deletes its base temporary directory.
+   */
+  public static void deleteBaseTempDir(Path baseTempDir, Closeable... fakeServers) {
+    for (Closeable fakeServer : fakeServers) {
+      IOUtils.closeQuietly(fakeServer);
+    }
+    FSUtils.deletePathQuietly(baseTempDir);
+  }
+
   public static <T extends IsRODAObject, T1 extends Plugin<T>> Job executeJob(Class<T1> plugin, PluginType pluginType,
     SelectedItems<T> selectedItems)
     throws RequestNotValidException, GenericException, NotFoundException, AuthorizationDeniedException {
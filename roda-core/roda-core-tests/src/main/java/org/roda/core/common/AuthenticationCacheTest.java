@@ -0,0 +1,195 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/roda
+ */
+package org.roda.core.common;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+
+import org.roda.core.RodaCoreFactory;
+import org.roda.core.TestsHelper;
+import org.roda.core.data.common.RodaConstants;
+import org.roda.core.data.exceptions.AuthenticationDeniedException;
+import org.roda.core.data.exceptions.GenericException;
+import org.roda.core.data.exceptions.NotFoundException;
+import org.roda.core.data.v2.user.User;
+import org.roda.core.storage.fs.FSUtils;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+@Test(groups = {RodaConstants.TEST_GROUP_ALL, RodaConstants.TEST_GROUP_DEV, RodaConstants.TEST_GROUP_TRAVIS})
+public class AuthenticationCacheTest {
+  private static final String USERNAME = "alice";
+  private static final String PASSWORD = "secret";
+
+  private static Path basePath;
+  private static LdapUtility previousLdapUtility;
+  private FakeLdapUtility ldap;
+
+  @BeforeClass
+  public static void setUp() throws IOException {
+    basePath = TestsHelper.createBaseTempDir(AuthenticationCacheTest.class, true);
+    RodaCoreFactory.instantiateTest(false, false, false, false, false, false);
+    previousLdapUtility = UserUtility.getLdapUtility();
+  }
+
+  @AfterClass
+  public static void cleanup() throws NotFoundException, GenericException {
+    UserUtility.setLdapUtility(previousLdapUtility);
+    RodaCoreFactory.shutdown();
+    FSUtils.deletePath(basePath);
+  }
+
+  @BeforeMethod
+  public void setUpLdap() {
+    ldap = new FakeLdapUtility();
+    ldap.addUser(USERNAME, PASSWORD, "role1");
+    UserUtility.setLdapUtility(ldap);
+    AuthenticationCache.invalidateUser(USERNAME);
+  }
+
+  @Test
+  public void testCredentialsAreCached() throws AuthenticationDeniedException, GenericException {
+    User user = AuthenticationCache.getAuthenticatedUser(USERNAME, PASSWORD);
+    Assert.assertEquals(user.getName(), USERNAME);
+    Assert.assertEquals(AuthenticationCache.getAuthenticatedUser(USERNAME, PASSWORD).getName(), USERNAME);
+    Assert.assertEquals(ldap.binds, 1);
+
+    // a different password is always verified against LDAP
+    assertDenied(() -> AuthenticationCache.getAuthenticatedUser(USERNAME, "wrong"));
+    Assert.assertEquals(ldap.binds, 2);
+    AuthenticationCache.getAuthenticatedUser(USERNAME, PASSWORD);
+    Assert.assertEquals(ldap.binds, 2);
+
+    // a changed user binds again
+    AuthenticationCache.invalidateUser(USERNAME);
+    AuthenticationCache.getAuthenticatedUser(USERNAME, PASSWORD);
+    Assert.assertEquals(ldap.binds, 3);
+  }
+
+  @Test
+  public void testInactiveUserIsDenied() throws AuthenticationDeniedException, GenericException {
+    AuthenticationCache.getAuthenticatedUser(USERNAME, PASSWORD);
+    String token = AuthenticationCache.issueToken(ldap.getUser(USERNAME));
+
+    // the credentials are still cached, but not the user
+    ldap.users.get(USERNAME).setActive(false);
+    AuthenticationCache.invalidateUsers();
+    assertDenied(() -> AuthenticationCache.getAuthenticatedUser(USERNAME, PASSWORD));
+    assertDenied(() -> AuthenticationCache.getTokenUser(token));
+    Assert.assertEquals(ldap.binds, 1);
+
+    // neither are the credentials of an inactive user cached
+    assertDenied(() -> AuthenticationCache.getAuthenticatedUser(USERNAME, PASSWORD));
+    Assert.assertEquals(ldap.binds, 2);
+
+    // nor is the token accepted once the user is active again
+    ldap.users.get(USERNAME).setActive(true);
+    AuthenticationCache.invalidateUsers();
+    assertDenied(() -> AuthenticationCache.getTokenUser(token));
+  }
+
+  @Test
+  public void testUsersAreCachedUntilInvalidated() throws AuthenticationDeniedException, GenericException {
+    String token = AuthenticationCache.issueToken(AuthenticationCache.getAuthenticatedUser(USERNAME, PASSWORD));
+    User user = AuthenticationCache.getTokenUser(token);
+    Assert.assertEquals(user.getAllRoles(), Collections.singleton("role1"));
+    Assert.assertEquals(ldap.lookups, 0);
+
+    // the cached user is not changed by the callers
+    user.getAllRoles().add("role2");
+    Assert.assertEquals(AuthenticationCache.getTokenUser(token).getAllRoles(), Collections.singleton("role1"));
+
+    // e.g. a group of the user was changed
+    ldap.users.get(USERNAME).setAllRoles(new HashSet<>(Collections.singleton("role3")));
+    Assert.assertEquals(AuthenticationCache.getTokenUser(token).getAllRoles(), Collections.singleton("role1"));
+    AuthenticationCache.invalidateUsers();
+    Assert.assertEquals(AuthenticationCache.getTokenUser(token).getAllRoles(), Collections.singleton("role3"));
+    Assert.assertEquals(ldap.lookups, 1);
+    Assert.assertEquals(ldap.binds, 1);
+  }
+
+  @Test
+  public void testTokensAreRevoked() throws AuthenticationDeniedException, GenericException {
+    User user = AuthenticationCache.getAuthenticatedUser(USERNAME, PASSWORD);
+    String token = AuthenticationCache.issueToken(user);
+    String otherToken = AuthenticationCache.issueToken(user);
+    Assert.assertNotEquals(token, otherToken);
+    Assert.assertEquals(AuthenticationCache.getTokenUser(token).getName(), USERNAME);
+
+    AuthenticationCache.revokeToken(token);
+    assertDenied(() -> AuthenticationCache.getTokenUser(token));
+    Assert.assertEquals(AuthenticationCache.getTokenUser(otherToken).getName(), USERNAME);
+
+    // e.g. the password was changed
+    AuthenticationCache.invalidateUser(USERNAME);
+    assertDenied(() -> AuthenticationCache.getTokenUser(otherToken));
+    assertDenied(() -> AuthenticationCache.getTokenUser("unknown"));
+    assertDenied(() -> AuthenticationCache.getTokenUser(null));
+  }
+
+  @FunctionalInterface
+  private interface Authentication {
+    User authenticate() throws AuthenticationDeniedException, GenericException;
+  }
+
+  private static void assertDenied(Authentication authentication) throws GenericException {
+    try {
+      authentication.authenticate();
+      Assert.fail("Authentication should have been denied");
+    } catch (AuthenticationDeniedException e) {
+      // expected
+    }
+  }
+
+  /** LDAP with users in memory, counting binds and lookups */
+  private static class FakeLdapUtility extends LdapUtility {
+    private final Map<String, User> users = new HashMap<>();
+    private final Map<String, String> passwords = new HashMap<>();
+    private int binds = 0;
+    private int lookups = 0;
+
+    FakeLdapUtility() {
+      super(false, 0, null, null, null, null, null, null, null, null, null, null, null, null);
+    }
+
+    void addUser(String username, String password, String role) {
+      User user = new User(username);
+      user.setAllRoles(new HashSet<>(Collections.singleton(role)));
+      users.put(username, user);
+      passwords.put(username, password);
+    }
+
+    @Override
+    public User getAuthenticatedUser(String username, String password) throws AuthenticationDeniedException {
+      binds++;
+      if (!users.containsKey(username) || !passwords.get(username).equals(password)) {
+        throw new AuthenticationDeniedException("Invalid credentials");
+      }
+      return copy(users.get(username));
+    }
+
+    @Override
+    public User getUser(String name) {
+      lookups++;
+      return users.containsKey(name) ? copy(users.get(name)) : null;
+    }
+
+    private static User copy(User user) {
+      User copy = new User(user);
+      copy.setAllRoles(new HashSet<>(user.getAllRoles()));
+      return copy;
+    }
+  }
+}
@@ -0,0 +1,83 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/roda
+ */
+package org.roda.core.common;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Random;
+
+import org.roda.core.data.common.RodaConstants;
+import org.roda.core.data.exceptions.RequestNotValidException;
+import org.roda.core.storage.BinaryConsumesOutputStream;
+import org.roda.core.storage.DefaultBinary;
+import org.roda.core.storage.DefaultStoragePath;
+import org.roda.core.storage.fs.FSPathContentPayload;
+import org.roda.core.storage.fs.FSUtils;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+@Test(groups = {RodaConstants.TEST_GROUP_ALL, RodaConstants.TEST_GROUP_DEV, RodaConstants.TEST_GROUP_TRAVIS})
+public class ByteRangeTest {
+
+  @Test
+  public void testParse() {
+    Assert.assertEquals(ByteRange.parse("bytes=0-99", 1000), Arrays.asList(new ByteRange(0, 99)));
+    Assert.assertEquals(ByteRange.parse("bytes=900-", 1000), Arrays.asList(new ByteRange(900, 999)));
+    Assert.assertEquals(ByteRange.parse("bytes=-100", 1000), Arrays.asList(new ByteRange(900, 999)));
+    Assert.assertEquals(ByteRange.parse("bytes=990-2000", 1000), Arrays.asList(new ByteRange(990, 999)));
+
+    // ranges are coalesced and sorted
+    Assert.assertEquals(ByteRange.parse("bytes=500-599, 0-9, 5-19, 20-29", 1000),
+      Arrays.asList(new ByteRange(0, 29), new ByteRange(500, 599)));
+
+    // offsets beyond 2 GB
+    long size = 5L * 1024 * 1024 * 1024;
+    Assert.assertEquals(ByteRange.parse("bytes=4294967296-", size),
+      Arrays.asList(new ByteRange(4294967296L, size - 1)));
+
+    // not satisfiable
+    Assert.assertEquals(ByteRange.parse("bytes=1000-", 1000), Collections.emptyList());
+    Assert.assertEquals(ByteRange.parse("bytes=-0", 1000), Collections.emptyList());
+
+    // malformed, the whole content is sent
+    Assert.assertNull(ByteRange.parse(null, 1000));
+    Assert.assertNull(ByteRange.parse("items=0-1", 1000));
+    Assert.assertNull(ByteRange.parse("bytes=10-5", 1000));
+    Assert.assertNull(ByteRange.parse("bytes=a-b", 1000));
+  }
+
+  @Test
+  public void testConsumeFileRange() throws IOException, RequestNotValidException {
+    byte[] content = new byte[256 * 1024];
+    new Random(42).nextBytes(content);
+    Path file = Files.createTempFile("byte_range", ".bin");
+
+    try {
+      Files.write(file, content);
+      BinaryConsumesOutputStream stream = new BinaryConsumesOutputStream(new DefaultBinary(
+        DefaultStoragePath.parse("container", "file.bin"), new FSPathContentPayload(file), (long) content.length,
+        false, Collections.singletonMap("SHA-256", "ABCDEF")));
+
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      stream.consumeOutputStream(out, 100000L, 50000L);
+      Assert.assertEquals(out.toByteArray(), Arrays.copyOfRange(content, 100000, 150000));
+
+      out = new ByteArrayOutputStream();
+      stream.consumeOutputStream(out);
+      Assert.assertEquals(out.toByteArray(), content);
+
+      Assert.assertEquals(stream.getEntityTag(), "sha256-abcdef");
+    } finally {
+      FSUtils.deletePathQuietly(file);
+    }
+  }
+}
@@ -7,17 +7,26 @@
  */
 package org.roda.core.common;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
 import org.roda.core.data.common.RodaConstants;
 import org.roda.core.data.exceptions.GenericException;
 import org.roda.core.data.utils.JsonUtils;
+import org.roda.core.data.v2.ip.AIP;
+import org.roda.core.data.v2.ip.metadata.DescriptiveMetadata;
 import org.roda.core.data.v2.jobs.Report;
 import org.testng.Assert;
 import org.testng.AssertJUnit;
 import org.testng.annotations.Test;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.MappingIterator;
+
 @Test(groups = {RodaConstants.TEST_GROUP_ALL, RodaConstants.TEST_GROUP_DEV, RodaConstants.TEST_GROUP_TRAVIS})
 public class JsonUtilsTest {
 
@@ -45,4 +54,46 @@ public class JsonUtilsTest {
       AssertJUnit.assertNotNull(report);
     }
   }
+
+  @Test
+  public void testStreamedList() throws GenericException, IOException {
+    List<Report> list = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      Report report = new Report();
+      report.setId("report" + i);
+      list.add(report);
+    }
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    JsonUtils.writeObjectsToStream(list.iterator(), out);
+    List<Report> list2 = JsonUtils.getListFromJson(out.toString("UTF-8"), Report.class);
+    Assert.assertEquals(list2.size(), list.size());
+
+    List<String> ids = new ArrayList<>();
+    try (MappingIterator<Report> it = JsonUtils.readObjectsFromStream(new ByteArrayInputStream(out.toByteArray()),
+      Report.class)) {
+      it.forEachRemaining(report -> ids.add(report.getId()));
+    }
+    Assert.assertEquals(ids.size(), list.size());
+    Assert.assertEquals(ids.get(99), "report99");
+  }
+
+  @Test
+  public void testDescriptiveMetadataMixIn() {
+    DescriptiveMetadata metadata = new DescriptiveMetadata("dm", "aip", null, "ead", "2002");
+    AIP aip = new AIP();
+    aip.setDescriptiveMetadata(Arrays.asList(metadata));
+
+    // the AIP id is only kept when the descriptive metadata itself is written
+    Assert.assertTrue(JsonUtils.getJsonFromObject(metadata).contains("\"aipId\""));
+    Assert.assertFalse(JsonUtils.getJsonFromObject(aip).contains("\"aipId\""));
+
+    String json = JsonUtils.getJsonFromObject(aip, AIPMixIn.class);
+    Assert.assertFalse(json.contains("\"aipId\""));
+    Assert.assertFalse(json.contains("\"state\""));
+  }
+
+  @JsonIgnoreProperties({"state"})
+  private abstract static class AIPMixIn {
+  }
 }
@@ -0,0 +1,91 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/roda
+ */
+package org.roda.core.common;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.xmlbeans.XmlException;
+import org.roda.core.data.common.RodaConstants;
+import org.roda.core.data.exceptions.GenericException;
+import org.roda.core.data.v2.ip.metadata.Fixity;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import gov.loc.premis.v3.FixityComplexType;
+import gov.loc.premis.v3.ObjectCharacteristicsComplexType;
+
+@Test(groups = {RodaConstants.TEST_GROUP_ALL, RodaConstants.TEST_GROUP_DEV, RodaConstants.TEST_GROUP_TRAVIS})
+public class PremisV3StreamReaderTest {
+
+  private static List<Path> listPremisFiles() throws IOException, URISyntaxException {
+    Path corpora = Paths.get(PremisV3StreamReaderTest.class.getResource("/corpora").toURI());
+    try (Stream<Path> paths = Files.walk(corpora)) {
+      return paths.filter(p -> p.getFileName().toString().startsWith("urn:roda:premis:file:"))
+        .collect(Collectors.toList());
+    }
+  }
+
+  @Test
+  public void testStreamingMatchesXmlBeans() throws IOException, URISyntaxException, GenericException, XmlException {
+    List<Path> premisFiles = listPremisFiles();
+    Assert.assertFalse(premisFiles.isEmpty());
+
+    for (Path premisFile : premisFiles) {
+      PremisV3StreamReader.FileSummary summary;
+      gov.loc.premis.v3.File file;
+      try (InputStream inputStream = Files.newInputStream(premisFile)) {
+        summary = PremisV3StreamReader.readFile(inputStream);
+      }
+      try (InputStream inputStream = Files.newInputStream(premisFile)) {
+        file = PremisV3Utils.binaryToFile(inputStream);
+      }
+
+      if (file.getOriginalName() != null) {
+        Assert.assertEquals(summary.getOriginalName(), file.getOriginalName().getStringValue());
+      }
+
+      ObjectCharacteristicsComplexType occt = file.getObjectCharacteristicsArray(0);
+      Assert.assertEquals(summary.getSize(), occt.getSize());
+      Assert.assertEquals(summary.getFixities().size(), occt.getFixityArray().length);
+      for (int i = 0; i < occt.getFixityArray().length; i++) {
+        FixityComplexType expected = occt.getFixityArray(i);
+        Fixity actual = summary.getFixities().get(i);
+        Assert.assertEquals(actual.getMessageDigest(), expected.getMessageDigest());
+        Assert.assertEquals(actual.getMessageDigestAlgorithm(), expected.getMessageDigestAlgorithm().getStringValue());
+        Assert.assertEquals(actual.getMessageDigestOriginator(),
+          expected.getMessageDigestOriginator().getStringValue());
+      }
+
+      if (occt.getFormatArray().length > 0 && occt.getFormatArray(0).getFormatDesignation() != null) {
+        Assert.assertEquals(summary.getFormatName(),
+          occt.getFormatArray(0).getFormatDesignation().getFormatName().getStringValue());
+        Assert.assertEquals(summary.getFormatVersion(),
+          occt.getFormatArray(0).getFormatDesignation().getFormatVersion());
+      }
+    }
+  }
+
+  @Test(expectedExceptions = GenericException.class)
+  public void testRepresentationIsNotAFile() throws IOException, URISyntaxException, GenericException {
+    Path representation = Paths.get(PremisV3StreamReaderTest.class
+      .getResource("/corpora/aip/AIP_1/representations/representation_2/metadata/preservation/"
+        + "urn:roda:premis:representation:representation_2.xml")
+      .toURI());
+    try (InputStream inputStream = Files.newInputStream(representation)) {
+      PremisV3StreamReader.readFile(inputStream);
+    }
+  }
+}
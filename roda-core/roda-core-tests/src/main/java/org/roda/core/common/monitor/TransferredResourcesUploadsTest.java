@@ -0,0 +1,153 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/roda
+ */
+package org.roda.core.common.monitor;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import org.roda.core.data.common.RodaConstants;
+import org.roda.core.data.exceptions.NotFoundException;
+import org.roda.core.data.exceptions.RODAException;
+import org.roda.core.data.exceptions.RequestNotValidException;
+import org.roda.core.storage.fs.FSUtils;
+import org.roda.core.util.FileUtility;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+@Test(groups = {RodaConstants.TEST_GROUP_ALL, RodaConstants.TEST_GROUP_DEV, RodaConstants.TEST_GROUP_TRAVIS})
+public class TransferredResourcesUploadsTest {
+  private static final List<String> ALGORITHMS = Arrays.asList("MD5", "SHA-256");
+
+  private Path basePath;
+  private Path uploadsPath;
+  private TransferredResourcesUploads uploads;
+
+  @BeforeMethod
+  public void setUp() throws IOException {
+    basePath = Files.createTempDirectory("transferred_resources");
+    uploadsPath = Files.createTempDirectory("transferred_resources_uploads");
+    uploads = new TransferredResourcesUploads(basePath, uploadsPath, ALGORITHMS, 0L);
+  }
+
+  @AfterMethod
+  public void tearDown() {
+    FSUtils.deletePathQuietly(basePath);
+    FSUtils.deletePathQuietly(uploadsPath);
+  }
+
+  @Test
+  public void testResumeInterruptedUpload() throws RODAException, IOException, NoSuchAlgorithmException {
+    byte[] content = new byte[3 * 1024 * 1024 + 17];
+    new Random(42).nextBytes(content);
+    Path file = basePath.resolve("folder").resolve("sip.zip");
+
+    TransferredResourceUpload upload = uploads.create(file, content.length);
+    Assert.assertEquals(upload.getOffset(), 0L);
+
+    // the connection breaks after the first 1000000 bytes
+    upload = uploads.append(upload.getId(), 0L, new InterruptedInputStream(content, 1000000));
+    Assert.assertEquals(upload.getOffset(), 1000000L);
+    Assert.assertFalse(upload.isComplete());
+    Assert.assertFalse(FSUtils.exists(file));
+
+    // a new instance, e.g. after a restart, resumes from the bytes received
+    uploads = new TransferredResourcesUploads(basePath, uploadsPath, ALGORITHMS, 0L);
+    Assert.assertEquals(uploads.retrieve(upload.getId()).getOffset(), 1000000L);
+    upload = uploads.append(upload.getId(), 1000000L,
+      new ByteArrayInputStream(content, 1000000, content.length - 1000000));
+
+    Assert.assertTrue(upload.isComplete());
+    Assert.assertEquals(Files.readAllBytes(file), content);
+    Map<String, String> recorded = FSUtils.readContentDigests(file);
+    if (recorded != null) {
+      // the file system supports extended attributes
+      Assert.assertEquals(recorded, FileUtility.checksums(new ByteArrayInputStream(content), ALGORITHMS));
+    }
+
+    try {
+      uploads.retrieve(upload.getId());
+      Assert.fail("Completed upload should no longer exist");
+    } catch (NotFoundException e) {
+      // expected
+    }
+
+    try (Stream<Path> files = Files.list(file.getParent())) {
+      Assert.assertEquals(files.count(), 1L);
+    }
+  }
+
+  @Test
+  public void testAppendAtWrongOffset() throws RODAException {
+    TransferredResourceUpload upload = uploads.create(basePath.resolve("file.txt"), 10);
+    uploads.append(upload.getId(), 0L, new ByteArrayInputStream(new byte[4]));
+
+    try {
+      uploads.append(upload.getId(), 0L, new ByteArrayInputStream(new byte[6]));
+      Assert.fail("Append at wrong offset should fail");
+    } catch (RequestNotValidException e) {
+      // expected
+    }
+    Assert.assertEquals(uploads.retrieve(upload.getId()).getOffset(), 4L);
+  }
+
+  @Test
+  public void testPartialFilesAreNotTransferredResources() throws RODAException, IOException {
+    TransferredResourceUpload upload = uploads.create(basePath.resolve("file.txt"), 10);
+    try (Stream<Path> files = Files.list(basePath)) {
+      Path partial = files.findFirst().orElseThrow(IllegalStateException::new);
+      Assert.assertTrue(TransferredResourcesUploads.isPartial(partial));
+    }
+    Assert.assertFalse(TransferredResourcesUploads.isPartial(basePath.resolve("file.txt")));
+
+    uploads.delete(upload.getId());
+    try (Stream<Path> files = Files.list(basePath)) {
+      Assert.assertEquals(files.count(), 0L);
+    }
+  }
+
+  /**
+   * Returns the first bytes of the content and then fails, as a request whose
+   * client disconnected.
+   */
+  private static class InterruptedInputStream extends InputStream {
+    private final InputStream content;
+    private int available;
+
+    InterruptedInputStream(byte[] content, int available) {
+      this.content = new ByteArrayInputStream(content);
+      this.available = available;
+    }
+
+    @Override
+    public int read() throws IOException {
+      byte[] b = new byte[1];
+      return read(b, 0, 1) == -1 ? -1 : b[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      if (available == 0) {
+        throw new IOException("Connection reset");
+      }
+      int read = content.read(b, off, Math.min(len, available));
+      available -= read;
+      return read;
+    }
+  }
+}
@@ -0,0 +1,214 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/roda
+ */
+package org.roda.core.common.monitor;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Optional;
+
+import org.roda.core.RodaCoreFactory;
+import org.roda.core.TestsHelper;
+import org.roda.core.data.common.RodaConstants;
+import org.roda.core.data.exceptions.AuthorizationDeniedException;
+import org.roda.core.data.exceptions.GenericException;
+import org.roda.core.data.exceptions.IsStillUpdatingException;
+import org.roda.core.data.exceptions.NotFoundException;
+import org.roda.core.data.exceptions.RequestNotValidException;
+import org.roda.core.data.v2.index.filter.Filter;
+import org.roda.core.data.v2.ip.TransferredResource;
+import org.roda.core.index.IndexService;
+import org.roda.core.storage.fs.FSUtils;
+import org.roda.core.util.IdUtils;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+@Test(groups = {RodaConstants.TEST_GROUP_ALL, RodaConstants.TEST_GROUP_DEV, RodaConstants.TEST_GROUP_TRAVIS})
+public class TransferredResourcesWatcherTest {
+  // long enough for the watcher not to flush on its own during the tests
+  private static final long HOUR = 60 * 60 * 1000L;
+
+  private static Path basePath;
+  private static Path transfer;
+  private static Path checkpoint;
+  private static IndexService index;
+
+  private TransferredResourcesScanner scanner;
+  private TransferredResourcesWatcher watcher;
+
+  @BeforeClass
+  public static void setUp() throws IOException {
+    basePath = TestsHelper.createBaseTempDir(TransferredResourcesWatcherTest.class, true);
+    RodaCoreFactory.instantiateTest(true, false, false, false, false, false);
+    index = RodaCoreFactory.getIndexService();
+    transfer = basePath.resolve("transfer");
+    checkpoint = RodaCoreFactory.getDataPath().resolve(".transferred_resources_reindex.checkpoint");
+  }
+
+  @AfterClass
+  public static void tearDown() throws NotFoundException, GenericException {
+    RodaCoreFactory.shutdown();
+    FSUtils.deletePath(basePath);
+  }
+
+  @BeforeMethod
+  public void setUpWatcher() throws IOException {
+    Files.createDirectories(transfer);
+    scanner = new TransferredResourcesScanner(transfer, index, RodaCoreFactory.getNodeType());
+    // small batches, so that files and their folders are indexed apart
+    watcher = new TransferredResourcesWatcher(scanner, index, HOUR, HOUR, 2);
+  }
+
+  @AfterMethod
+  public void cleanup() throws IOException, GenericException, RequestNotValidException, AuthorizationDeniedException {
+    watcher.close();
+    FSUtils.deletePathQuietly(transfer);
+    Files.deleteIfExists(checkpoint);
+    index.delete(TransferredResource.class, Filter.ALL);
+    index.commit(TransferredResource.class);
+  }
+
+  @Test
+  public void testChangesAreIndexedWithFolderSizes()
+    throws IOException, NotFoundException, GenericException, RequestNotValidException {
+    Path a = Files.createDirectory(transfer.resolve("a"));
+    Path b = Files.createDirectory(a.resolve("b"));
+    Path f1 = write(a.resolve("f1.txt"), 3);
+    Path f2 = write(b.resolve("f2.txt"), 4);
+    changed(a, b, f1, f2);
+    watcher.flush();
+
+    Assert.assertEquals(size("a/f1.txt"), 3);
+    Assert.assertEquals(size("a/b/f2.txt"), 4);
+    Assert.assertEquals(size("a/b"), 4);
+    Assert.assertEquals(size("a"), 7);
+
+    // a file that grows grows its folders
+    write(f2, 10);
+    changed(f2);
+    watcher.flush();
+    Assert.assertEquals(size("a/b/f2.txt"), 10);
+    Assert.assertEquals(size("a/b"), 10);
+    Assert.assertEquals(size("a"), 13);
+
+    // a deleted folder takes its contents, and their size, with it
+    FSUtils.deletePath(b);
+    changed(f2, b);
+    watcher.flush();
+    assertNotIndexed("a/b");
+    assertNotIndexed("a/b/f2.txt");
+    Assert.assertEquals(size("a"), 3);
+    Assert.assertEquals(index.count(TransferredResource.class, Filter.ALL).longValue(), 2L);
+
+    // nothing changed
+    watcher.flush();
+    Assert.assertEquals(size("a"), 3);
+  }
+
+  @Test
+  public void testLostChangesReindexTheTransferArea() throws IOException, NotFoundException, GenericException {
+    Path a = Files.createDirectory(transfer.resolve("a"));
+    Path f1 = write(a.resolve("f1.txt"), 3);
+    changed(a, f1);
+    watcher.flush();
+    Assert.assertEquals(size("a"), 3);
+
+    // changes the watcher was not told about
+    Files.delete(f1);
+    write(a.resolve("f2.txt"), 5);
+    Path c = Files.createDirectory(transfer.resolve("c"));
+    write(c.resolve("f3.txt"), 6);
+
+    changed(c);
+    watcher.changesLost();
+    watcher.flush();
+    assertNotIndexed("a/f1.txt");
+    Assert.assertEquals(size("a/f2.txt"), 5);
+    Assert.assertEquals(size("a"), 5);
+    Assert.assertEquals(size("c/f3.txt"), 6);
+    Assert.assertEquals(size("c"), 6);
+    Assert.assertFalse(Files.exists(checkpoint));
+  }
+
+  @Test
+  public void testInterruptedReindexResumesFromCheckpoint() throws IOException, NotFoundException, GenericException,
+    IsStillUpdatingException, AuthorizationDeniedException {
+    Path a = Files.createDirectory(transfer.resolve("a"));
+    Path f1 = write(a.resolve("f1.txt"), 3);
+    Path b = Files.createDirectory(transfer.resolve("b"));
+    write(b.resolve("f2.txt"), 4);
+    scanner.reindexTransferredResources(Optional.empty(), true);
+    Assert.assertEquals(size("a"), 3);
+    Assert.assertEquals(size("b"), 4);
+    Assert.assertFalse(Files.exists(checkpoint));
+    Date scanDate = index
+      .retrieve(TransferredResource.class, IdUtils.getTransferredResourceUUID("a/f1.txt"), new ArrayList<>())
+      .getLastScanDate();
+
+    // a reindex stopped after indexing folder a, which was not modified since
+    long indexed = System.currentTimeMillis();
+    Path f3 = write(a.resolve("f3.txt"), 5);
+    setLastModified(indexed - HOUR, f1, f3, a);
+    write(b.resolve("f4.txt"), 6);
+    Files.write(checkpoint, Arrays.asList(Long.toString(scanDate.getTime()), "a\t" + indexed));
+
+    scanner.reindexTransferredResources(Optional.empty(), true);
+    assertNotIndexed("a/f3.txt");
+    Assert.assertEquals(size("a/f1.txt"), 3);
+    Assert.assertEquals(size("a"), 3);
+    Assert.assertEquals(size("b/f4.txt"), 6);
+    Assert.assertEquals(size("b"), 10);
+    Assert.assertFalse(Files.exists(checkpoint));
+
+    // folder a was modified after it was indexed, so it is indexed again
+    Files.write(checkpoint, Arrays.asList(Long.toString(scanDate.getTime()), "a\t" + (indexed - 2 * HOUR)));
+    scanner.reindexTransferredResources(Optional.empty(), true);
+    Assert.assertEquals(size("a/f3.txt"), 5);
+    Assert.assertEquals(size("a"), 8);
+    Assert.assertEquals(size("b"), 10);
+    Assert.assertFalse(Files.exists(checkpoint));
+  }
+
+  private void changed(Path... paths) {
+    for (Path path : paths) {
+      watcher.changed(path);
+    }
+  }
+
+  private static Path write(Path file, int size) throws IOException {
+    return Files.write(file, new byte[size]);
+  }
+
+  private static void setLastModified(long time, Path... paths) throws IOException {
+    for (Path path : paths) {
+      Files.setLastModifiedTime(path, FileTime.fromMillis(time));
+    }
+  }
+
+  private static long size(String relativePath) throws NotFoundException, GenericException {
+    return index.retrieve(TransferredResource.class, IdUtils.getTransferredResourceUUID(relativePath),
+      new ArrayList<>()).getSize();
+  }
+
+  private static void assertNotIndexed(String relativePath) throws GenericException {
+    try {
+      index.retrieve(TransferredResource.class, IdUtils.getTransferredResourceUUID(relativePath), new ArrayList<>());
+      Assert.fail(relativePath + " should not be indexed");
+    } catch (NotFoundException e) {
+      // expected
+    }
+  }
+}
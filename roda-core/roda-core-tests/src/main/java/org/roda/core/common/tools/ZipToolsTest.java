@@ -0,0 +1,183 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/roda
+ */
+package org.roda.core.common.tools;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.roda.core.data.common.RodaConstants;
+import org.roda.core.storage.StringContentPayload;
+import org.roda.core.storage.fs.FSPathContentPayload;
+import org.roda.core.storage.fs.FSUtils;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+@Test(groups = {RodaConstants.TEST_GROUP_ALL, RodaConstants.TEST_GROUP_DEV, RodaConstants.TEST_GROUP_TRAVIS})
+public class ZipToolsTest {
+  private Path basePath;
+
+  @BeforeMethod
+  public void setUp() throws IOException {
+    basePath = Files.createTempDirectory("zip_tools");
+  }
+
+  @AfterMethod
+  public void tearDown() {
+    FSUtils.deletePathQuietly(basePath);
+  }
+
+  @Test
+  public void testZipStoresCompressedContent() throws IOException {
+    String text = StringUtils.repeat("RODA - Repository of Authentic Digital Objects\n", 100000);
+    byte[] random = new byte[3 * 1024 * 1024];
+    new Random(42).nextBytes(random);
+    Path randomFile = basePath.resolve("random.bin");
+    Files.write(randomFile, random);
+
+    List<ZipEntryInfo> entries = new ArrayList<>();
+    entries.add(new ZipEntryInfo("data"));
+    entries.add(new ZipEntryInfo("data/text.txt", new StringContentPayload(text)));
+    entries.add(new ZipEntryInfo("data/random.bin", randomFile));
+    entries.add(new ZipEntryInfo("data/image.jpg", new StringContentPayload(text)));
+    entries.add(new ZipEntryInfo("data/empty.txt", new StringContentPayload("")));
+
+    Path zip = basePath.resolve("test.zip");
+    try (OutputStream out = Files.newOutputStream(zip)) {
+      ZipTools.zip(entries, out);
+    }
+
+    try (ZipFile zipFile = new ZipFile(zip.toFile())) {
+      Assert.assertEquals(zipFile.size(), entries.size());
+      Assert.assertTrue(zipFile.getEntry("data/").isDirectory());
+
+      ZipEntry textEntry = zipFile.getEntry("data/text.txt");
+      Assert.assertEquals(textEntry.getMethod(), ZipEntry.DEFLATED);
+      Assert.assertEquals(read(zipFile, textEntry), text.getBytes(StandardCharsets.UTF_8));
+
+      ZipEntry randomEntry = zipFile.getEntry("data/random.bin");
+      Assert.assertEquals(randomEntry.getMethod(), ZipEntry.STORED);
+      Assert.assertEquals(read(zipFile, randomEntry), random);
+
+      ZipEntry imageEntry = zipFile.getEntry("data/image.jpg");
+      Assert.assertEquals(imageEntry.getMethod(), ZipEntry.STORED);
+      Assert.assertEquals(read(zipFile, imageEntry), text.getBytes(StandardCharsets.UTF_8));
+
+      Assert.assertEquals(read(zipFile, zipFile.getEntry("data/empty.txt")).length, 0);
+    }
+
+    // also readable as a stream, from the local headers
+    int count = 0;
+    try (ZipInputStream zis = new ZipInputStream(Files.newInputStream(zip))) {
+      while (zis.getNextEntry() != null) {
+        IOUtils.toByteArray(zis);
+        count++;
+      }
+    }
+    Assert.assertEquals(count, entries.size());
+  }
+
+  @Test
+  public void testZip64WithManyEntries() throws IOException {
+    int total = 70000;
+    Path zip = basePath.resolve("many.zip");
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    try (ParallelZipWriter writer = new ParallelZipWriter(Files.newOutputStream(zip), executor, 8,
+      Collections.emptySet())) {
+      for (int i = 0; i < total; i++) {
+        writer.add(new ZipEntryInfo("entry-" + i + ".txt", new StringContentPayload(Integer.toString(i))));
+      }
+    } finally {
+      executor.shutdown();
+    }
+
+    try (ZipFile zipFile = new ZipFile(zip.toFile())) {
+      Assert.assertEquals(zipFile.size(), total);
+      ZipEntry last = zipFile.getEntry("entry-" + (total - 1) + ".txt");
+      Assert.assertEquals(new String(read(zipFile, last), StandardCharsets.UTF_8), Integer.toString(total - 1));
+    }
+  }
+
+  @Test
+  public void testZipStoresEntriesThatDoNotFitInTheSpoolArea() throws IOException {
+    Random random = new Random(42);
+    // hexadecimal text deflates to about half its size
+    String large = randomHex(random, 4 * 1024 * 1024);
+    String small = randomHex(random, 256 * 1024);
+    Path spoolDirectory = Files.createDirectory(basePath.resolve("spool"));
+
+    Path zip = zip(spoolDirectory, 2 * 1024 * 1024, large, small);
+    try (ZipFile zipFile = new ZipFile(zip.toFile())) {
+      ZipEntry largeEntry = zipFile.getEntry("entry-0.txt");
+      Assert.assertEquals(largeEntry.getMethod(), ZipEntry.STORED);
+      Assert.assertEquals(read(zipFile, largeEntry), large.getBytes(StandardCharsets.UTF_8));
+
+      // deflated in memory
+      ZipEntry smallEntry = zipFile.getEntry("entry-1.txt");
+      Assert.assertEquals(smallEntry.getMethod(), ZipEntry.DEFLATED);
+      Assert.assertEquals(read(zipFile, smallEntry), small.getBytes(StandardCharsets.UTF_8));
+    }
+
+    zip = zip(spoolDirectory, 8 * 1024 * 1024, large);
+    try (ZipFile zipFile = new ZipFile(zip.toFile())) {
+      ZipEntry largeEntry = zipFile.getEntry("entry-0.txt");
+      Assert.assertEquals(largeEntry.getMethod(), ZipEntry.DEFLATED);
+      Assert.assertEquals(read(zipFile, largeEntry), large.getBytes(StandardCharsets.UTF_8));
+    }
+
+    try (Stream<Path> spooled = Files.list(spoolDirectory)) {
+      Assert.assertEquals(spooled.count(), 0L);
+    }
+  }
+
+  private Path zip(Path spoolDirectory, long spoolMaxSize, String... contents) throws IOException {
+    Path zip = Files.createTempFile(basePath, "spool", ".zip");
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+
+    try (ParallelZipWriter writer = new ParallelZipWriter(Files.newOutputStream(zip), executor, 2,
+      Collections.emptySet(), new ParallelZipWriter.SpoolArea(spoolDirectory, spoolMaxSize))) {
+      for (int i = 0; i < contents.length; i++) {
+        writer.add(new ZipEntryInfo("entry-" + i + ".txt", new StringContentPayload(contents[i])));
+      }
+    } finally {
+      executor.shutdown();
+    }
+    return zip;
+  }
+
+  private static String randomHex(Random random, int bytes) {
+    byte[] content = new byte[bytes];
+    random.nextBytes(content);
+    return Hex.encodeHexString(content);
+  }
+
+  private static byte[] read(ZipFile zipFile, ZipEntry entry) throws IOException {
+    try (InputStream in = zipFile.getInputStream(entry)) {
+      return IOUtils.toByteArray(in);
+    }
+  }
+}
@@ -0,0 +1,94 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/roda
+ */
+package org.roda.core.index;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.configuration.BaseConfiguration;
+import org.apache.solr.client.solrj.SolrQuery;
+import org.apache.solr.client.solrj.response.QueryResponse;
+import org.roda.core.data.common.RodaConstants;
+import org.roda.core.data.exceptions.GenericException;
+import org.roda.core.data.exceptions.RequestNotValidException;
+import org.roda.core.index.utils.IndexResultCache;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.codahale.metrics.MetricRegistry;
+
+@Test(groups = {RodaConstants.TEST_GROUP_ALL, RodaConstants.TEST_GROUP_DEV, RodaConstants.TEST_GROUP_TRAVIS})
+public class IndexResultCacheTest {
+
+  private static IndexResultCache createCache(MetricRegistry metrics) {
+    BaseConfiguration configuration = new BaseConfiguration();
+    configuration.setProperty("core.index_result.cache.max_staleness_ms", 60000L);
+    configuration.setProperty("core.index_result.cache.max_staleness_ms." + RodaConstants.INDEX_JOB, 0L);
+    return new IndexResultCache(configuration, metrics);
+  }
+
+  private static SolrQuery createQuery(String q, int rows) {
+    SolrQuery query = new SolrQuery(q);
+    query.setRows(rows);
+    return query;
+  }
+
+  private static QueryResponse query(IndexResultCache cache, String collection, SolrQuery query,
+    AtomicInteger executions) throws GenericException, RequestNotValidException {
+    return cache.query(collection, query, () -> {
+      executions.incrementAndGet();
+      return new QueryResponse();
+    });
+  }
+
+  @Test
+  public void testCachedUntilInvalidated() throws GenericException, RequestNotValidException {
+    MetricRegistry metrics = new MetricRegistry();
+    IndexResultCache cache = createCache(metrics);
+    AtomicInteger executions = new AtomicInteger();
+
+    QueryResponse first = query(cache, RodaConstants.INDEX_AIP, createQuery("title:a", 10), executions);
+    QueryResponse second = query(cache, RodaConstants.INDEX_AIP, createQuery("title:a", 10), executions);
+    Assert.assertSame(second, first);
+    Assert.assertEquals(executions.get(), 1);
+
+    // other queries and collections are cached on their own
+    query(cache, RodaConstants.INDEX_AIP, createQuery("title:b", 10), executions);
+    query(cache, RodaConstants.INDEX_FILE, createQuery("title:a", 10), executions);
+    Assert.assertEquals(executions.get(), 3);
+
+    // commits of other collections do not invalidate
+    cache.invalidate(RodaConstants.INDEX_FILE);
+    query(cache, RodaConstants.INDEX_AIP, createQuery("title:a", 10), executions);
+    Assert.assertEquals(executions.get(), 3);
+
+    cache.invalidate(RodaConstants.INDEX_AIP);
+    QueryResponse third = query(cache, RodaConstants.INDEX_AIP, createQuery("title:a", 10), executions);
+    Assert.assertNotSame(third, first);
+    Assert.assertEquals(executions.get(), 4);
+
+    Assert.assertEquals(metrics.meter("IndexResultCache.hits").getCount(), 2);
+    Assert.assertEquals(metrics.meter("IndexResultCache.misses").getCount(), 4);
+    Assert.assertEquals(metrics.meter("IndexResultCache." + RodaConstants.INDEX_AIP + ".hits").getCount(), 2);
+  }
+
+  @Test
+  public void testNotCached() throws GenericException, RequestNotValidException {
+    IndexResultCache cache = createCache(new MetricRegistry());
+    AtomicInteger executions = new AtomicInteger();
+
+    // collection with no staleness allowed
+    query(cache, RodaConstants.INDEX_JOB, createQuery("*:*", 10), executions);
+    query(cache, RodaConstants.INDEX_JOB, createQuery("*:*", 10), executions);
+    Assert.assertEquals(executions.get(), 2);
+
+    // too many rows
+    query(cache, RodaConstants.INDEX_AIP, createQuery("*:*", 1000), executions);
+    query(cache, RodaConstants.INDEX_AIP, createQuery("*:*", 1000), executions);
+    Assert.assertEquals(executions.get(), 4);
+  }
+}
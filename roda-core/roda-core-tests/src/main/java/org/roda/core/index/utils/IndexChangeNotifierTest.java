@@ -0,0 +1,105 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/roda
+ */
+package org.roda.core.index.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+
+import org.apache.commons.configuration.BaseConfiguration;
+import org.roda.core.data.common.RodaConstants;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.codahale.metrics.MetricRegistry;
+
+@Test(groups = {RodaConstants.TEST_GROUP_ALL, RodaConstants.TEST_GROUP_DEV, RodaConstants.TEST_GROUP_TRAVIS})
+public class IndexChangeNotifierTest {
+  // long enough for the notifier not to notify on its own during the tests
+  private static final long INTERVAL = 60 * 60 * 1000L;
+
+  private IndexChangeNotifier notifier;
+  private List<Set<String>> notified;
+  private Consumer<Set<String>> listener;
+
+  @BeforeMethod
+  public void setUp() {
+    BaseConfiguration configuration = new BaseConfiguration();
+    configuration.setProperty("core.index.changes.interval_ms", INTERVAL);
+    notifier = new IndexChangeNotifier(configuration, new MetricRegistry());
+    notified = new ArrayList<>();
+    listener = notified::add;
+    notifier.addListener(listener);
+  }
+
+  @AfterMethod
+  public void tearDown() {
+    notifier.shutdown();
+  }
+
+  @Test
+  public void testChangesAreNotifiedAgainAfterTheNextInterval() {
+    notifier.changed("b");
+    notifier.changed("a");
+    notifier.changed("a");
+    long now = System.currentTimeMillis();
+
+    // changed during the last interval, so notified now and again at the end of
+    // the next one, when the changes are visible to searches
+    notifier.notifyListeners(now);
+    notifier.notifyListeners(now + INTERVAL);
+    notifier.notifyListeners(now + 2 * INTERVAL);
+    Set<String> changed = new TreeSet<>(Arrays.asList("a", "b"));
+    Assert.assertEquals(notified, Arrays.asList(changed, changed));
+  }
+
+  @Test
+  public void testSettledChangesAreNotifiedOnce() {
+    notifier.changed("a");
+    long now = System.currentTimeMillis();
+    notifier.notifyListeners(now + INTERVAL);
+    notifier.notifyListeners(now + 2 * INTERVAL);
+    Assert.assertEquals(notified, Collections.singletonList(Collections.singleton("a")));
+
+    notifier.changed("b");
+    now = System.currentTimeMillis();
+    notifier.notifyListeners(now);
+    notifier.changed("a");
+    notifier.notifyListeners(now + INTERVAL);
+    Assert.assertEquals(notified, Arrays.asList(Collections.singleton("a"), Collections.singleton("b"),
+      new TreeSet<>(Arrays.asList("a", "b"))));
+  }
+
+  @Test
+  public void testNothingIsNotifiedWithoutChangesOrListeners() {
+    long now = System.currentTimeMillis();
+    notifier.notifyListeners(now);
+    Assert.assertTrue(notified.isEmpty());
+
+    // a failing listener does not prevent the others from being notified
+    Consumer<Set<String>> failingListener = collections -> {
+      throw new IllegalStateException("listener failed");
+    };
+    notifier.addListener(failingListener);
+    notifier.changed("a");
+    notifier.notifyListeners(now);
+    Assert.assertEquals(notified, Collections.singletonList(Collections.singleton("a")));
+
+    notifier.removeListener(failingListener);
+    notifier.removeListener(listener);
+    notifier.changed("b");
+    notifier.notifyListeners(now + INTERVAL);
+    Assert.assertEquals(notified, Collections.singletonList(Collections.singleton("a")));
+  }
+}
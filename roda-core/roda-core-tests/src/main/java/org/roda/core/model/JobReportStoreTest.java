@@ -0,0 +1,208 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/roda
+ */
+package org.roda.core.model;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.roda.core.TestsHelper;
+import org.roda.core.data.common.RodaConstants;
+import org.roda.core.data.exceptions.GenericException;
+import org.roda.core.data.exceptions.NotFoundException;
+import org.roda.core.data.exceptions.RODAException;
+import org.roda.core.data.utils.JsonUtils;
+import org.roda.core.data.v2.jobs.Report;
+import org.roda.core.storage.StorageService;
+import org.roda.core.storage.fs.FileStorageService;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+@Test(groups = {RodaConstants.TEST_GROUP_ALL, RodaConstants.TEST_GROUP_DEV, RodaConstants.TEST_GROUP_TRAVIS})
+public class JobReportStoreTest {
+  private static final String JOB_ID = "job";
+
+  private Path basePath;
+  private StorageService storage;
+  private Path jobReportsPath;
+
+  @BeforeMethod
+  public void setUp() throws IOException, GenericException {
+    basePath = TestsHelper.createBaseTempDir(getClass(), false);
+    storage = new FileStorageService(basePath.resolve("storage"));
+    jobReportsPath = basePath.resolve("storage").resolve(RodaConstants.STORAGE_CONTAINER_JOB_REPORT).resolve(JOB_ID);
+  }
+
+  @AfterMethod
+  public void tearDown() {
+    TestsHelper.deleteBaseTempDir(basePath);
+  }
+
+  @Test
+  public void testAppendDeltasAndRetrieve() throws RODAException, IOException {
+    JobReportStore store = new JobReportStore(storage, 10, 8);
+    Report report = createReport("report", 2);
+    store.createOrUpdate(report);
+    addItems(report, 1);
+    store.createOrUpdate(report);
+    addItems(report, 1);
+    store.createOrUpdate(report);
+
+    assertSameReport(store.retrieve(JOB_ID, "report"), report);
+
+    // only the new items are written after the first record
+    List<JsonNode> records = readRecords();
+    Assert.assertEquals(records.size(), 3);
+    Assert.assertEquals(records.get(2).get("depth").asInt(), 2);
+    Assert.assertEquals(records.get(2).get("from").asInt(), 3);
+    Assert.assertEquals(records.get(2).get("items").size(), 1);
+
+    // and the chain of records is read after a restart
+    store.release(JOB_ID);
+    assertSameReport(new JobReportStore(storage, 10, 8).retrieve(JOB_ID, "report"), report);
+  }
+
+  @Test
+  public void testFullRecordAfterMaxDeltas() throws RODAException, IOException {
+    JobReportStore store = new JobReportStore(storage, 10, 2);
+    Report report = createReport("report", 1);
+    store.createOrUpdate(report);
+    for (int i = 0; i < 4; i++) {
+      addItems(report, 1);
+      store.createOrUpdate(report);
+    }
+
+    List<Integer> depths = readRecords().stream().map(record -> record.get("depth").asInt())
+      .collect(Collectors.toList());
+    Assert.assertEquals(depths, Arrays.asList(0, 1, 2, 0, 1));
+    Assert.assertEquals(readRecords().get(3).get("items").size(), 4);
+    assertSameReport(store.retrieve(JOB_ID, "report"), report);
+  }
+
+  @Test
+  public void testTruncatedRecordIsDiscarded() throws RODAException, IOException {
+    JobReportStore store = new JobReportStore(storage, 10, 8);
+    Report first = createReport("first", 2);
+    Report second = createReport("second", 1);
+    store.createOrUpdate(first);
+    store.createOrUpdate(second);
+    store.release(JOB_ID);
+
+    // a write interrupted by a crash
+    Files.write(getSegments().get(0), "{\"id\":\"third\",\"prev".getBytes(StandardCharsets.UTF_8),
+      StandardOpenOption.APPEND);
+
+    store = new JobReportStore(storage, 10, 8);
+    Assert.assertEquals(store.listIds(JOB_ID), Arrays.asList("first", "second"));
+    Report third = createReport("third", 3);
+    store.createOrUpdate(third);
+
+    assertSameReport(store.retrieve(JOB_ID, "first"), first);
+    assertSameReport(store.retrieve(JOB_ID, "second"), second);
+    assertSameReport(store.retrieve(JOB_ID, "third"), third);
+    Assert.assertEquals(readRecords().size(), 3);
+  }
+
+  @Test
+  public void testCompactionMovesLegacyReports() throws RODAException, IOException {
+    Report legacy = createReport("legacy", 2);
+    Files.createDirectories(jobReportsPath);
+    JsonUtils.writeObjectToFile(legacy, jobReportsPath.resolve("legacy" + RodaConstants.JOB_REPORT_FILE_EXTENSION));
+
+    JobReportStore store = new JobReportStore(storage, 10, 8);
+    Report report = createReport("report", 1);
+    store.createOrUpdate(report);
+    addItems(report, 2);
+    store.createOrUpdate(report);
+    assertSameReport(store.retrieve(JOB_ID, "legacy"), legacy);
+
+    store.compact(JOB_ID);
+    Assert.assertFalse(Files.exists(jobReportsPath.resolve("legacy" + RodaConstants.JOB_REPORT_FILE_EXTENSION)));
+    Assert.assertEquals(getSegments().size(), 1);
+    Assert.assertEquals(readRecords().size(), 2);
+    assertSameReport(store.retrieve(JOB_ID, "legacy"), legacy);
+    assertSameReport(store.retrieve(JOB_ID, "report"), report);
+
+    store.release(JOB_ID);
+    store = new JobReportStore(storage, 10, 8);
+    Assert.assertEquals(store.listIds(JOB_ID), Arrays.asList("legacy", "report"));
+    Assert.assertEquals(store.listIds(JOB_ID, 1, 10), Collections.singletonList("report"));
+    Assert.assertEquals(store.listIds(JOB_ID, 0, 1), Collections.singletonList("legacy"));
+    assertSameReport(store.retrieve(JOB_ID, "legacy"), legacy);
+    assertSameReport(store.retrieve(JOB_ID, "report"), report);
+  }
+
+  @Test
+  public void testDeleteSurvivesRestart() throws RODAException, IOException {
+    JobReportStore store = new JobReportStore(storage, 10, 8);
+    store.createOrUpdate(createReport("deleted", 1));
+    Report kept = createReport("kept", 1);
+    store.createOrUpdate(kept);
+    store.delete(JOB_ID, "deleted");
+    store.release(JOB_ID);
+
+    store = new JobReportStore(storage, 10, 8);
+    Assert.assertEquals(store.listIds(JOB_ID), Collections.singletonList("kept"));
+    assertSameReport(store.retrieve(JOB_ID, "kept"), kept);
+    try {
+      store.retrieve(JOB_ID, "deleted");
+      Assert.fail("Deleted report should not be found");
+    } catch (NotFoundException e) {
+      // expected
+    }
+  }
+
+  private static Report createReport(String id, int items) {
+    Report report = new Report();
+    report.setId(id);
+    report.setJobId(JOB_ID);
+    report.setTitle("Report " + id);
+    addItems(report, items);
+    return report;
+  }
+
+  private static void addItems(Report report, int items) {
+    for (int i = 0; i < items; i++) {
+      int number = report.getReports().size();
+      report.addReport(new Report().setTitle("Item " + number).setPluginDetails("Details of item " + number));
+    }
+  }
+
+  private static void assertSameReport(Report actual, Report expected) {
+    Assert.assertEquals(JsonUtils.getJsonFromObject(actual), JsonUtils.getJsonFromObject(expected));
+  }
+
+  private List<Path> getSegments() throws IOException {
+    try (Stream<Path> files = Files.list(jobReportsPath)) {
+      return files.filter(path -> path.getFileName().toString().startsWith("segment-")).sorted()
+        .collect(Collectors.toList());
+    }
+  }
+
+  private List<JsonNode> readRecords() throws IOException, GenericException {
+    List<JsonNode> records = new ArrayList<>();
+    for (Path segment : getSegments()) {
+      for (String line : Files.readAllLines(segment, StandardCharsets.UTF_8)) {
+        records.add(JsonUtils.parseJson(line));
+      }
+    }
+    return records;
+  }
+}
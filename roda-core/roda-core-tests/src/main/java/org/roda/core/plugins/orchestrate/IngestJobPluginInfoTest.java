@@ -0,0 +1,147 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/roda
+ */
+package org.roda.core.plugins.orchestrate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+
+import org.roda.core.data.common.RodaConstants;
+import org.roda.core.data.v2.jobs.PluginState;
+import org.roda.core.data.v2.jobs.Report;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+@Test(groups = {RodaConstants.TEST_GROUP_ALL, RodaConstants.TEST_GROUP_DEV, RodaConstants.TEST_GROUP_TRAVIS})
+public class IngestJobPluginInfoTest {
+  private IngestJobPluginInfo info;
+
+  @BeforeMethod
+  public void setUp() {
+    info = new IngestJobPluginInfo();
+    info.addReport(createReport("sip1", "aip1"), false);
+    info.addReport(createReport("sip2", "aip2"), false);
+    info.addReport(createItem("sip1", "aip1", "first step"), true);
+  }
+
+  @AfterMethod
+  public void tearDown() {
+    info.finalizeInfo();
+  }
+
+  @Test
+  public void testProcessedReportsAreSpilledAndReadBack() {
+    info.markAsProcessed("sip1");
+
+    Assert.assertEquals(info.getReportsFromBeingProcessed().keySet(), Collections.singleton("sip2"));
+    Assert.assertEquals(info.getAllReports().size(), 2);
+    Assert.assertEquals(info.getAllReports().keySet(), new HashSet<>(Arrays.asList("sip1", "sip2")));
+    Assert.assertTrue(info.getAllReports().containsKey("sip1"));
+    Assert.assertEquals(new HashSet<>(info.getAipIds()), new HashSet<>(Arrays.asList("aip1", "aip2")));
+
+    Report report = info.getAllReports().get("sip1").get("aip1");
+    Assert.assertEquals(report.getSourceObjectId(), "sip1");
+    Assert.assertEquals(report.getReports().size(), 1);
+    Assert.assertEquals(report.getReports().get(0).getPluginDetails(), "first step");
+
+    // a new report brings the processed ones back to memory
+    info.addReport(createItem("sip1", "aip1", "second step"), true);
+    Assert.assertEquals(info.getReportsFromBeingProcessed().keySet(), new HashSet<>(Arrays.asList("sip1", "sip2")));
+    Assert.assertEquals(info.getAllReports().size(), 2);
+    Assert.assertEquals(info.getAllReports().get("sip1").get("aip1").getReports().size(), 2);
+  }
+
+  @Test
+  public void testRemoveKeepsReportsOfFailedTransferredResource() {
+    info.getReportsFromBeingProcessed().get("sip1").get("aip1").setPluginState(PluginState.FAILURE);
+    info.remove("sip1");
+    info.markAllAsProcessed();
+
+    Assert.assertTrue(info.getReportsFromBeingProcessed().isEmpty());
+    Assert.assertEquals(info.getAipIds(), Collections.singletonList("aip2"));
+    Assert.assertEquals(info.getAllReports().get("sip1").get("aip1").getPluginState(), PluginState.FAILURE);
+    Assert.assertEquals(info.getAllReports().get("sip2").get("aip2").getPluginState(), PluginState.SUCCESS);
+
+    info.updateSourceObjectsProcessed();
+    Assert.assertEquals(info.getSourceObjectsProcessedWithFailure(), 1);
+    Assert.assertEquals(info.getSourceObjectsProcessedWithSuccess(), 1);
+  }
+
+  @Test
+  public void testReplaceTransferredResourceId() {
+    info.markAsProcessed("sip1");
+    info.replaceTransferredResourceId("sip1", "moved1");
+    info.replaceTransferredResourceId("sip2", "moved2");
+
+    Assert.assertEquals(info.getAllReports().keySet(), new HashSet<>(Arrays.asList("moved1", "moved2")));
+    Assert.assertFalse(info.getAllReports().containsKey("sip1"));
+    Assert.assertEquals(info.getTransferredResourceToAipIds().get("moved1"), Collections.singletonList("aip1"));
+    Assert.assertEquals(info.getAipIdToTransferredResourceIds().get("aip2"), Collections.singletonList("moved2"));
+
+    Report report = info.getAllReports().get("moved1").get("aip1");
+    Assert.assertEquals(report.getSourceObjectId(), "moved1");
+    Assert.assertEquals(report.getReports().get(0).getSourceObjectId(), "moved1");
+    Assert.assertNotNull(info.getReportsFromBeingProcessed().get("moved2"));
+  }
+
+  @Test
+  public void testUpdateMetaPluginInformation() {
+    info.markAsProcessed("sip1");
+    Report metaReport = new Report().setTitle("Ingest").setPlugin("plugin").setPluginName("Plugin")
+      .setPluginVersion("1.0");
+    info.updateMetaPluginInformation(metaReport);
+
+    for (Map<String, Report> reports : info.getAllReports().values()) {
+      for (Report report : reports.values()) {
+        Assert.assertEquals(report.getTitle(), "Ingest");
+        Assert.assertEquals(report.getPlugin(), "plugin");
+        Assert.assertEquals(report.getPluginName(), "Plugin");
+        Assert.assertEquals(report.getPluginVersion(), "1.0");
+      }
+    }
+  }
+
+  @Test
+  public void testDeserializedInstanceKeepsReportsBeingProcessed() throws IOException, ClassNotFoundException {
+    info.markAsProcessed("sip2");
+
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+      out.writeObject(info);
+    }
+    IngestJobPluginInfo copy;
+    try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+      copy = (IngestJobPluginInfo) in.readObject();
+    }
+
+    // only the reports kept in memory are serialized
+    Assert.assertEquals(copy.getAllReports().keySet(), Collections.singleton("sip1"));
+    copy.markAsProcessed("sip1");
+    Assert.assertEquals(copy.getAllReports().get("sip1").get("aip1").getReports().size(), 1);
+    copy.finalizeInfo();
+  }
+
+  private static Report createReport(String sourceObjectId, String outcomeObjectId) {
+    Report report = new Report();
+    report.setJobId("job");
+    report.setSourceAndOutcomeObjectId(sourceObjectId, outcomeObjectId);
+    return report.setPluginState(PluginState.SUCCESS);
+  }
+
+  private static Report createItem(String sourceObjectId, String outcomeObjectId, String details) {
+    return createReport(sourceObjectId, outcomeObjectId).setPluginDetails(details);
+  }
+}
@@ -0,0 +1,139 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/roda
+ */
+package org.roda.core.plugins.orchestrate.akka;
+
+import java.util.Arrays;
+
+import org.apache.commons.configuration.BaseConfiguration;
+import org.apache.commons.configuration.Configuration;
+import org.roda.core.data.common.RodaConstants;
+import org.roda.core.data.v2.index.select.SelectedItemsAll;
+import org.roda.core.data.v2.index.select.SelectedItemsList;
+import org.roda.core.data.v2.ip.AIP;
+import org.roda.core.data.v2.ip.TransferredResource;
+import org.roda.core.data.v2.jobs.Job;
+import org.roda.core.data.v2.jobs.PluginType;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+@Test(groups = {RodaConstants.TEST_GROUP_ALL, RodaConstants.TEST_GROUP_DEV, RodaConstants.TEST_GROUP_TRAVIS})
+public class JobSchedulerTest {
+
+  private static Job createLargeJob(String id, String username, String plugin, PluginType pluginType) {
+    Job job = new Job();
+    job.setId(id);
+    job.setUsername(username);
+    job.setPlugin(plugin);
+    job.setPluginType(pluginType);
+    job.setSourceObjects(SelectedItemsAll.create(AIP.class));
+    return job;
+  }
+
+  private static Job createSmallJob(String id, String username) {
+    Job job = createLargeJob(id, username, "ingest", PluginType.INGEST);
+    job.setSourceObjects(SelectedItemsList.create(TransferredResource.class, Arrays.asList("sip1", "sip2")));
+    return job;
+  }
+
+  private static String nextJob(JobScheduler scheduler) {
+    JobScheduler.WaitingJob job = scheduler.nextJob(j -> true);
+    return job == null ? null : job.getJob().getId();
+  }
+
+  private static String nextBlock(JobScheduler scheduler) {
+    JobScheduler.RunningJob job = scheduler.nextBlock();
+    return job == null ? null : job.getJob().getId();
+  }
+
+  @Test
+  public void testReservedJobsForSmallJobs() {
+    Configuration configuration = new BaseConfiguration();
+    configuration.setProperty("core.orchestrator.reserved_jobs_for_small_jobs", 1);
+    JobScheduler scheduler = new JobScheduler(configuration, 2, 2);
+    scheduler.queue(createLargeJob("reindex1", "admin", "reindex", PluginType.MISC), null);
+    scheduler.queue(createLargeJob("reindex2", "admin", "reindex", PluginType.MISC), null);
+    scheduler.queue(createSmallJob("ingest", "admin"), null);
+
+    Assert.assertEquals(nextJob(scheduler), "reindex1");
+    // the second slot is reserved for small jobs
+    Assert.assertEquals(nextJob(scheduler), "ingest");
+    Assert.assertNull(nextJob(scheduler));
+
+    scheduler.ended("reindex1");
+    Assert.assertEquals(nextJob(scheduler), "reindex2");
+  }
+
+  @Test
+  public void testPriorityAndFairShare() {
+    Configuration configuration = new BaseConfiguration();
+    configuration.setProperty("core.orchestrator.priority.urgent", 10);
+    JobScheduler scheduler = new JobScheduler(configuration, 2, 2);
+    scheduler.queue(createLargeJob("user1-a", "user1", "reindex", PluginType.MISC), null);
+    scheduler.queue(createLargeJob("user1-b", "user1", "reindex", PluginType.MISC), null);
+    scheduler.queue(createLargeJob("user2-a", "user2", "fixity", PluginType.AIP_TO_AIP), null);
+    scheduler.queue(createLargeJob("user2-urgent", "user2", "urgent", PluginType.AIP_TO_AIP), null);
+
+    Assert.assertEquals(nextJob(scheduler), "user2-urgent");
+    Assert.assertEquals(nextJob(scheduler), "user1-a");
+    Assert.assertNull(nextJob(scheduler));
+
+    // user1 already has a running job, so user2 goes first
+    scheduler.ended("user2-urgent");
+    Assert.assertEquals(nextJob(scheduler), "user2-a");
+  }
+
+  @Test
+  public void testBlocksArePreemptedAtBlockBoundaries() {
+    Configuration configuration = new BaseConfiguration();
+    configuration.setProperty("core.orchestrator.reserved_blocks_for_small_jobs", 1);
+    JobScheduler scheduler = new JobScheduler(configuration, 3, 4);
+    scheduler.queue(createLargeJob("reindex", "admin", "reindex", PluginType.MISC), null);
+    Assert.assertEquals(nextJob(scheduler), "reindex");
+    for (int i = 0; i < 10; i++) {
+      scheduler.blockReady("reindex");
+    }
+
+    // one block slot is reserved for small jobs
+    Assert.assertEquals(nextBlock(scheduler), "reindex");
+    Assert.assertEquals(nextBlock(scheduler), "reindex");
+    Assert.assertEquals(nextBlock(scheduler), "reindex");
+    Assert.assertNull(nextBlock(scheduler));
+
+    scheduler.queue(createSmallJob("ingest", "user1"), null);
+    Assert.assertEquals(nextJob(scheduler), "ingest");
+    scheduler.blockReady("ingest");
+    scheduler.blockReady("ingest");
+    Assert.assertEquals(nextBlock(scheduler), "ingest");
+    Assert.assertNull(nextBlock(scheduler));
+
+    // the slot freed by the large job goes to the small one
+    scheduler.blockDone("reindex");
+    Assert.assertEquals(nextBlock(scheduler), "ingest");
+
+    scheduler.ended("ingest");
+    Assert.assertEquals(nextBlock(scheduler), "reindex");
+    Assert.assertEquals(scheduler.getRunningBlocksCount(), 3);
+  }
+
+  @Test
+  public void testNothingIsReservedByDefault() {
+    JobScheduler scheduler = new JobScheduler(new BaseConfiguration(), 2, 3);
+    scheduler.queue(createLargeJob("reindex1", "admin", "reindex", PluginType.MISC), null);
+    scheduler.queue(createLargeJob("reindex2", "admin", "reindex", PluginType.MISC), null);
+    Assert.assertEquals(nextJob(scheduler), "reindex1");
+    Assert.assertEquals(nextJob(scheduler), "reindex2");
+
+    for (int i = 0; i < 4; i++) {
+      scheduler.blockReady("reindex1");
+    }
+    Assert.assertEquals(nextBlock(scheduler), "reindex1");
+    Assert.assertEquals(nextBlock(scheduler), "reindex1");
+    Assert.assertEquals(nextBlock(scheduler), "reindex1");
+    Assert.assertNull(nextBlock(scheduler));
+  }
+}
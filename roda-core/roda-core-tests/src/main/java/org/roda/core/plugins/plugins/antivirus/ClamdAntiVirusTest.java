@@ -0,0 +1,129 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/roda
+ */
+package org.roda.core.plugins.plugins.antivirus;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.roda.core.TestsHelper;
+import org.roda.core.data.common.RodaConstants;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+@Test(groups = {RodaConstants.TEST_GROUP_ALL, RodaConstants.TEST_GROUP_DEV, RodaConstants.TEST_GROUP_TRAVIS})
+public class ClamdAntiVirusTest {
+  private static final int POOL_SIZE = 2;
+  private static final int STREAM_MAX_LENGTH = 1024 * 1024;
+
+  private Path basePath;
+  private FakeClamd clamd;
+
+  @BeforeMethod
+  public void setUp() throws IOException {
+    basePath = TestsHelper.createBaseTempDir(getClass(), false);
+    clamd = new FakeClamd(STREAM_MAX_LENGTH);
+  }
+
+  @AfterMethod
+  public void tearDown() {
+    TestsHelper.deleteBaseTempDir(basePath, clamd);
+  }
+
+  private void createFiles(int count) throws IOException {
+    Path folder = Files.createDirectories(basePath.resolve("data").resolve("folder"));
+    for (int i = 0; i < count; i++) {
+      // larger than a chunk, to be sent in several
+      StringBuilder content = new StringBuilder();
+      for (int j = 0; j < 10000; j++) {
+        content.append("file ").append(i).append(" line ").append(j).append("\n");
+      }
+      Files.write(folder.resolve("file" + i + ".txt"), content.toString().getBytes(StandardCharsets.UTF_8));
+    }
+  }
+
+  @Test
+  public void testCleanFilesReusingConnections() throws IOException {
+    createFiles(20);
+    ClamdAntiVirus antiVirus = new ClamdAntiVirus(clamd.getHost(), clamd.getPort(), POOL_SIZE, 10000);
+
+    VirusCheckResult result = antiVirus.checkForVirus(basePath);
+    Assert.assertTrue(result.isClean(), result.getReport());
+    Assert.assertTrue(result.getReport().contains("Scanned files: 20"), result.getReport());
+
+    result = antiVirus.checkForVirus(basePath);
+    Assert.assertTrue(result.isClean(), result.getReport());
+
+    Assert.assertEquals(clamd.getStreams(), 40);
+    Assert.assertTrue(clamd.getConnections() <= POOL_SIZE, "Connections: " + clamd.getConnections());
+  }
+
+  @Test
+  public void testInfectedFile() throws IOException {
+    createFiles(5);
+    Path infected = basePath.resolve("data").resolve("infected.bin");
+    Files.write(infected, ("some content " + FakeClamd.SIGNATURE + " more content").getBytes(StandardCharsets.UTF_8));
+    ClamdAntiVirus antiVirus = new ClamdAntiVirus(clamd.getHost(), clamd.getPort(), POOL_SIZE, 10000);
+
+    VirusCheckResult result = antiVirus.checkForVirus(basePath);
+    Assert.assertFalse(result.isClean());
+    Assert.assertTrue(result.getReport().contains(infected + ": " + FakeClamd.SIGNATURE_NAME + " FOUND"),
+      result.getReport());
+    Assert.assertTrue(result.getReport().contains("Infected files: 1"), result.getReport());
+  }
+
+  @Test
+  public void testFilesLargerThanStreamMaxLength() throws IOException {
+    createFiles(2);
+    Path large = basePath.resolve("data").resolve("large.bin");
+    Files.write(large, new byte[STREAM_MAX_LENGTH + 1]);
+
+    // refused by clamd
+    ClamdAntiVirus antiVirus = new ClamdAntiVirus(clamd.getHost(), clamd.getPort(), POOL_SIZE, 10000, 0, false);
+    VirusCheckResult result = antiVirus.checkForVirus(basePath);
+    Assert.assertTrue(result.isClean(), result.getReport());
+    Assert.assertTrue(result.getReport().contains(large + ": not scanned"), result.getReport());
+    Assert.assertTrue(result.getReport().contains("Scanned files: 2"), result.getReport());
+    Assert.assertTrue(result.getReport().contains("Unscanned files: 1"), result.getReport());
+
+    // refused by clamd, failing the check by default
+    antiVirus = new ClamdAntiVirus(clamd.getHost(), clamd.getPort(), POOL_SIZE, 10000);
+    result = antiVirus.checkForVirus(basePath);
+    Assert.assertFalse(result.isClean(), result.getReport());
+    Assert.assertTrue(result.getReport().contains("Unscanned files: 1"), result.getReport());
+
+    // not even sent, failing the check
+    int streams = clamd.getStreams();
+    antiVirus = new ClamdAntiVirus(clamd.getHost(), clamd.getPort(), POOL_SIZE, 10000, STREAM_MAX_LENGTH, true);
+    result = antiVirus.checkForVirus(basePath);
+    Assert.assertFalse(result.isClean(), result.getReport());
+    Assert.assertTrue(result.getReport().contains("Scanned files: 2"), result.getReport());
+    Assert.assertTrue(result.getReport().contains("Infected files: 0"), result.getReport());
+    Assert.assertEquals(clamd.getStreams(), streams + 2);
+  }
+
+  @Test
+  public void testVersion() throws IOException {
+    ClamdAntiVirus antiVirus = new ClamdAntiVirus(clamd.getHost(), clamd.getPort(), POOL_SIZE, 10000);
+    Assert.assertEquals(antiVirus.getVersion(), FakeClamd.VERSION);
+
+    clamd.close();
+    Assert.assertEquals(antiVirus.getVersion(), "unknown");
+  }
+
+  @Test(expectedExceptions = RuntimeException.class)
+  public void testClamdNotAvailable() throws IOException {
+    createFiles(1);
+    ClamdAntiVirus antiVirus = new ClamdAntiVirus(clamd.getHost(), clamd.getPort(), POOL_SIZE, 10000);
+    clamd.close();
+    antiVirus.checkForVirus(basePath);
+  }
+}
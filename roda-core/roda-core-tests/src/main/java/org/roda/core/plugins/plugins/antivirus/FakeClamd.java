@@ -0,0 +1,176 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/roda
+ */
+package org.roda.core.plugins.plugins.antivirus;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.io.IOUtils;
+
+/**
+ * In-process fake of clamd, implementing the subset of its protocol used by
+ * {@link ClamdAntiVirus}: the IDSESSION, INSTREAM, VERSION, PING and END
+ * commands. Streams containing {@link #SIGNATURE} are reported as infected and
+ * streams larger than the stream max length are refused, as clamd does.
+ */
+public class FakeClamd implements Closeable {
+  public static final String SIGNATURE = "FAKE-CLAMD-TEST-SIGNATURE";
+  public static final String SIGNATURE_NAME = "Fake-Test-Signature";
+  public static final String VERSION = "ClamAV 0.0.0/0/Thu Jan  1 00:00:00 1970";
+
+  private final long streamMaxLength;
+  private final ServerSocket serverSocket;
+  private final Thread acceptor;
+  private final AtomicInteger connections = new AtomicInteger();
+  private final AtomicInteger streams = new AtomicInteger();
+
+  public FakeClamd() throws IOException {
+    this(0);
+  }
+
+  /**
+   * @param streamMaxLength
+   *          the maximum size of the streams, in bytes (0 for no limit)
+   */
+  public FakeClamd(long streamMaxLength) throws IOException {
+    this.streamMaxLength = streamMaxLength;
+    serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+    acceptor = new Thread(this::accept, "fake-clamd");
+    acceptor.setDaemon(true);
+    acceptor.start();
+  }
+
+  public String getHost() {
+    return serverSocket.getInetAddress().getHostAddress();
+  }
+
+  public int getPort() {
+    return serverSocket.getLocalPort();
+  }
+
+  /**
+   * @return the number of connections accepted so far
+   */
+  public int getConnections() {
+    return connections.get();
+  }
+
+  /**
+   * @return the number of streams scanned so far
+   */
+  public int getStreams() {
+    return streams.get();
+  }
+
+  private void accept() {
+    while (!serverSocket.isClosed()) {
+      try {
+        Socket socket = serverSocket.accept();
+        connections.incrementAndGet();
+        Thread handler = new Thread(() -> handle(socket), "fake-clamd-connection");
+        handler.setDaemon(true);
+        handler.start();
+      } catch (IOException e) {
+        // closed
+      }
+    }
+  }
+
+  private void handle(Socket socket) {
+    try (DataInputStream input = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+      OutputStream output = socket.getOutputStream()) {
+      boolean session = false;
+      int requestId = 0;
+      String command;
+
+      while ((command = readCommand(input)) != null) {
+        String reply;
+        if ("IDSESSION".equals(command)) {
+          session = true;
+          continue;
+        } else if ("END".equals(command)) {
+          break;
+        } else if ("PING".equals(command)) {
+          reply = "PONG";
+        } else if ("VERSION".equals(command)) {
+          reply = VERSION;
+        } else if ("INSTREAM".equals(command)) {
+          reply = scan(input);
+        } else {
+          reply = "UNKNOWN COMMAND";
+        }
+
+        if (session) {
+          reply = (++requestId) + ": " + reply;
+        }
+        output.write((reply + "\0").getBytes(StandardCharsets.US_ASCII));
+        output.flush();
+
+        if (!session || reply.endsWith("ERROR")) {
+          break;
+        }
+      }
+    } catch (IOException e) {
+      // connection closed by the client
+    } finally {
+      IOUtils.closeQuietly(socket);
+    }
+  }
+
+  private String readCommand(DataInputStream input) throws IOException {
+    int prefix = input.read();
+    if (prefix < 0) {
+      return null;
+    }
+
+    char terminator = prefix == 'n' ? '\n' : '\0';
+    ByteArrayOutputStream command = new ByteArrayOutputStream();
+    int b;
+    while ((b = input.read()) >= 0 && b != terminator) {
+      command.write(b);
+    }
+    return new String(command.toByteArray(), StandardCharsets.US_ASCII);
+  }
+
+  private String scan(DataInputStream input) throws IOException {
+    ByteArrayOutputStream content = new ByteArrayOutputStream();
+    int length;
+    while ((length = input.readInt()) > 0) {
+      byte[] chunk = new byte[length];
+      input.readFully(chunk);
+      content.write(chunk);
+    }
+    streams.incrementAndGet();
+
+    if (streamMaxLength > 0 && content.size() > streamMaxLength) {
+      return "INSTREAM size limit exceeded. ERROR";
+    }
+    String text = new String(content.toByteArray(), StandardCharsets.ISO_8859_1);
+    return "stream: " + (text.contains(SIGNATURE) ? SIGNATURE_NAME + " FOUND" : "OK");
+  }
+
+  @Override
+  public void close() throws IOException {
+    serverSocket.close();
+    // the socket might only be released once the acceptor stops waiting on it
+    try {
+      acceptor.join(10000);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,99 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/roda
+ */
+package org.roda.core.plugins.plugins.characterization;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.roda.core.util.Base64;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * In-process fake of a Siegfried server (sf -serve), answering the identify
+ * requests made by {@link SiegfriedServerIdentifier}. Files with the .txt
+ * extension are identified as PRONOM {@link #TXT_PUID}, the others are unknown.
+ */
+public class FakeSiegfried implements Closeable {
+  public static final String TXT_PUID = "x-fmt/111";
+
+  private final HttpServer server;
+  private final AtomicInteger requests = new AtomicInteger();
+
+  public FakeSiegfried() throws IOException {
+    server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    server.createContext("/identify/", this::identify);
+    server.start();
+  }
+
+  public String getUrl() {
+    return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort();
+  }
+
+  /**
+   * @return the number of identify requests answered so far
+   */
+  public int getRequests() {
+    return requests.get();
+  }
+
+  private void identify(HttpExchange exchange) throws IOException {
+    String encodedPath = exchange.getRequestURI().getPath().substring("/identify/".length());
+    Path path = Paths.get(new String(Base64.decode(encodedPath.toCharArray()), StandardCharsets.UTF_8));
+
+    List<Path> files;
+    try (Stream<Path> paths = Files.walk(path)) {
+      files = paths.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+    }
+
+    ObjectMapper mapper = new ObjectMapper();
+    ObjectNode output = mapper.createObjectNode();
+    output.put("siegfried", "0.0.0");
+    ArrayNode filesNode = output.putArray("files");
+    for (Path file : files) {
+      ObjectNode fileNode = filesNode.addObject();
+      fileNode.put("filename", file.toString());
+      fileNode.put("filesize", Files.size(file));
+      ObjectNode match = fileNode.putArray("matches").addObject();
+      match.put("ns", "pronom");
+      if (file.toString().endsWith(".txt")) {
+        match.put("id", TXT_PUID).put("format", "Plain Text File").put("version", "").put("mime", "text/plain");
+      } else {
+        match.put("id", "UNKNOWN").put("format", "").put("version", "").put("mime", "");
+      }
+    }
+    requests.incrementAndGet();
+
+    byte[] response = mapper.writeValueAsBytes(output);
+    exchange.getResponseHeaders().add("Content-Type", "application/json");
+    exchange.sendResponseHeaders(200, response.length);
+    try (OutputStream body = exchange.getResponseBody()) {
+      body.write(response);
+    }
+  }
+
+  @Override
+  public void close() {
+    server.stop(0);
+  }
+}
@@ -0,0 +1,81 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/roda
+ */
+package org.roda.core.plugins.plugins.characterization;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.roda.core.TestsHelper;
+import org.roda.core.data.common.RodaConstants;
+import org.roda.core.data.exceptions.RODAException;
+import org.roda.core.plugins.PluginException;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+@Test(groups = {RodaConstants.TEST_GROUP_ALL, RodaConstants.TEST_GROUP_DEV, RodaConstants.TEST_GROUP_TRAVIS})
+public class SiegfriedServerIdentifierTest {
+  private Path basePath;
+  private FakeSiegfried siegfried1;
+  private FakeSiegfried siegfried2;
+
+  @BeforeMethod
+  public void setUp() throws IOException {
+    basePath = TestsHelper.createBaseTempDir(getClass(), false);
+    siegfried1 = new FakeSiegfried();
+    siegfried2 = new FakeSiegfried();
+  }
+
+  @AfterMethod
+  public void tearDown() {
+    TestsHelper.deleteBaseTempDir(basePath, siegfried1, siegfried2);
+  }
+
+  @Test
+  public void testIdentifyRepresentation() throws IOException, RODAException {
+    Path folder = Files.createDirectories(basePath.resolve("folder"));
+    Files.write(basePath.resolve("file.txt"), "text".getBytes());
+    Files.write(folder.resolve("file.bin"), new byte[] {0, 1, 2});
+
+    SiegfriedIdentifier identifier = new SiegfriedServerIdentifier(
+      Arrays.asList(siegfried1.getUrl(), siegfried2.getUrl()), 10000);
+
+    for (int i = 0; i < 4; i++) {
+      List<JsonNode> files = new ArrayList<>();
+      try (InputStream output = identifier.identify(basePath)) {
+        SiegfriedPluginUtils.forEachFile(output, files::add);
+      }
+
+      Assert.assertEquals(files.size(), 2);
+      Assert.assertEquals(files.get(0).get("filename").asText(), basePath.resolve("file.txt").toString());
+      Assert.assertEquals(files.get(0).get("matches").get(0).get("id").asText(), FakeSiegfried.TXT_PUID);
+      Assert.assertEquals(files.get(1).get("filename").asText(), folder.resolve("file.bin").toString());
+    }
+
+    // requests are spread over the servers
+    Assert.assertEquals(siegfried1.getRequests(), 2);
+    Assert.assertEquals(siegfried2.getRequests(), 2);
+  }
+
+  @Test(expectedExceptions = PluginException.class)
+  public void testServerNotAvailable() throws PluginException {
+    SiegfriedIdentifier identifier = new SiegfriedServerIdentifier(Collections.singletonList(siegfried1.getUrl()),
+      10000);
+    siegfried1.close();
+    identifier.identify(basePath);
+  }
+}
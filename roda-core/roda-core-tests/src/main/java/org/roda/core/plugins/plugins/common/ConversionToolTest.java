@@ -0,0 +1,130 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/roda
+ */
+package org.roda.core.plugins.plugins.common;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.roda.core.TestsHelper;
+import org.roda.core.data.common.RodaConstants;
+import org.roda.core.util.CommandException;
+import org.roda.core.util.CommandUtility;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+@Test(groups = {RodaConstants.TEST_GROUP_ALL, RodaConstants.TEST_GROUP_DEV, RodaConstants.TEST_GROUP_TRAVIS})
+public class ConversionToolTest {
+  private Path basePath;
+  private Path input;
+
+  @BeforeMethod
+  public void setUp() throws IOException {
+    basePath = TestsHelper.createBaseTempDir(getClass(), false);
+    input = Files.write(basePath.resolve("input.txt"), "content".getBytes());
+  }
+
+  @AfterMethod
+  public void tearDown() {
+    TestsHelper.deleteBaseTempDir(basePath);
+  }
+
+  private List<String> createCommand(String... arguments) {
+    List<String> command = new ArrayList<>(FakeConversionWorker.getCommand());
+    command.addAll(Arrays.asList(arguments));
+    return command;
+  }
+
+  @Test
+  public void testWorkersAreReused() throws CommandException {
+    ConversionTool tool = new ConversionTool("fake", 1, 0, Collections.emptyList(), FakeConversionWorker.getCommand());
+    try {
+      Set<String> workers = new HashSet<>();
+      for (int i = 0; i < 5; i++) {
+        Path output = basePath.resolve("output" + i + ".txt");
+        workers.add(tool.execute(Arrays.asList("fake", input.toString(), output.toString())));
+        Assert.assertTrue(Files.exists(output));
+      }
+      Assert.assertEquals(workers.size(), 1);
+    } finally {
+      tool.shutdown();
+    }
+  }
+
+  @Test
+  public void testCommandUtilityExecutor() throws CommandException {
+    ConversionTool tool = new ConversionTool("fake", 1, 0, Collections.emptyList(), FakeConversionWorker.getCommand());
+    CommandUtility.setExecutor("fake", tool::execute);
+    try {
+      Path output = basePath.resolve("output.txt");
+      CommandUtility.execute("/usr/bin/fake", input.toString(), output.toString());
+      Assert.assertTrue(Files.exists(output));
+    } finally {
+      CommandUtility.removeExecutor("fake");
+      tool.shutdown();
+    }
+  }
+
+  @Test
+  public void testWorkerFailure() throws CommandException {
+    ConversionTool tool = new ConversionTool("fake", 1, 0, Collections.emptyList(), FakeConversionWorker.getCommand());
+    try {
+      Path output = basePath.resolve("output.txt");
+      String worker = tool.execute(Arrays.asList("fake", input.toString(), output.toString()));
+      try {
+        // output already exists
+        tool.execute(Arrays.asList("fake", input.toString(), output.toString()));
+        Assert.fail("Conversion should have failed");
+      } catch (CommandException e) {
+        Assert.assertEquals(e.getExitCode(), 1);
+      }
+      Assert.assertEquals(tool.execute(Arrays.asList("fake", input.toString(), output + ".2")), worker);
+    } finally {
+      tool.shutdown();
+    }
+  }
+
+  @Test
+  public void testTimeout() throws CommandException {
+    ConversionTool tool = new ConversionTool("fake", 1, 2000, Collections.emptyList(),
+      FakeConversionWorker.getCommand());
+    try {
+      String worker = tool.execute(Arrays.asList("fake", input.toString(), basePath.resolve("output.txt").toString()));
+      try {
+        tool.execute(Arrays.asList("fake", "sleep"));
+        Assert.fail("Conversion should have timed out");
+      } catch (CommandException e) {
+        Assert.assertTrue(e.getMessage().contains("timed out"), e.getMessage());
+      }
+
+      // the killed worker is replaced
+      String newWorker = tool.execute(
+        Arrays.asList("fake", input.toString(), basePath.resolve("output2.txt").toString()));
+      Assert.assertNotEquals(newWorker, worker);
+    } finally {
+      tool.shutdown();
+    }
+
+    // and commands without workers are killed too
+    ConversionTool processTool = new ConversionTool("fake", 1, 2000, Collections.emptyList(), Collections.emptyList());
+    try {
+      processTool.execute(createCommand("sleep"));
+      Assert.fail("Conversion should have timed out");
+    } catch (CommandException e) {
+      Assert.assertTrue(e.getMessage().contains("timed out"), e.getMessage());
+    }
+  }
+}
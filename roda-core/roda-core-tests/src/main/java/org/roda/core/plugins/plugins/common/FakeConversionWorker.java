@@ -0,0 +1,66 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/roda
+ */
+package org.roda.core.plugins.plugins.common;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Fake conversion tool, run as a {@link ConversionTool} worker when started
+ * without arguments or as a command otherwise. It copies the file given as
+ * first argument to the second, answering with the id of the process, or
+ * sleeps if the first argument is "sleep".
+ */
+public class FakeConversionWorker {
+  private static final String ID = UUID.randomUUID().toString();
+
+  public static void main(String[] args) throws IOException, InterruptedException {
+    if (args.length > 0) {
+      System.out.print(convert(Arrays.asList(args)));
+      return;
+    }
+
+    ObjectMapper mapper = new ObjectMapper();
+    BufferedReader input = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+    String line;
+    while ((line = input.readLine()) != null) {
+      List<?> arguments = mapper.readValue(line, List.class);
+      ObjectNode response = mapper.createObjectNode();
+      try {
+        response.put("output", convert(arguments)).put("exitCode", 0);
+      } catch (IOException e) {
+        response.put("output", e.getMessage()).put("exitCode", 1);
+      }
+      System.out.println(mapper.writeValueAsString(response));
+      System.out.flush();
+    }
+  }
+
+  private static String convert(List<?> arguments) throws IOException, InterruptedException {
+    if ("sleep".equals(arguments.get(0))) {
+      Thread.sleep(60000);
+    }
+    Files.copy(Paths.get(arguments.get(0).toString()), Paths.get(arguments.get(1).toString()));
+    return ID;
+  }
+
+  public static List<String> getCommand() {
+    return Arrays.asList(Paths.get(System.getProperty("java.home"), "bin", "java").toString(), "-cp",
+      System.getProperty("java.class.path"), FakeConversionWorker.class.getName());
+  }
+}
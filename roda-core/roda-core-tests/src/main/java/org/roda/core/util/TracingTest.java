@@ -0,0 +1,97 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/roda
+ */
+package org.roda.core.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.roda.core.data.common.RodaConstants;
+import org.roda.core.data.v2.jobs.JobLatency;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+@Test(groups = {RodaConstants.TEST_GROUP_ALL, RodaConstants.TEST_GROUP_DEV, RodaConstants.TEST_GROUP_TRAVIS})
+public class TracingTest {
+
+  @Test
+  public void testJobLatencyBreakdown() {
+    String jobId = IdUtils.createUUID();
+    List<String> ended = new ArrayList<>();
+    Tracing.SpanListener listener = (type, name, durationInNanos) -> ended.add(type.getLabel() + " " + name);
+    Tracing.addListener(listener);
+    try {
+      String previousJobId = Tracing.enterJob(jobId);
+      try (Tracing.Span object = Tracing.start(Tracing.SpanType.OBJECT, "SomePlugin")) {
+        for (int i = 0; i < 2; i++) {
+          try (Tracing.Span span = Tracing.start(Tracing.SpanType.STORAGE, "createBinary")) {
+            // do nothing
+          }
+        }
+      } finally {
+        Tracing.exitJob(previousJobId);
+      }
+      // not done for the job
+      try (Tracing.Span span = Tracing.start(Tracing.SpanType.INDEX, "AIP/select")) {
+        // do nothing
+      }
+    } finally {
+      Tracing.removeListener(listener);
+    }
+
+    Assert.assertEquals(ended,
+      Arrays.asList("storage createBinary", "storage createBinary", "object SomePlugin", "index AIP/select"));
+
+    List<JobLatency> breakdown = Tracing.removeLatencyBreakdown(jobId);
+    Assert.assertEquals(breakdown.size(), 2);
+    for (JobLatency latency : breakdown) {
+      if ("storage".equals(latency.getType())) {
+        Assert.assertEquals(latency.getName(), "createBinary");
+        Assert.assertEquals(latency.getCount(), 2);
+      } else {
+        Assert.assertEquals(latency.getType(), "object");
+        Assert.assertEquals(latency.getCount(), 1);
+      }
+    }
+    Assert.assertTrue(Tracing.getLatencyBreakdown(jobId).isEmpty());
+  }
+
+  @Test
+  public void testRecordedSpan() {
+    String jobId = IdUtils.createUUID();
+    String previousJobId = Tracing.enterJob(jobId);
+    try {
+      Tracing.record(Tracing.SpanType.STORAGE, "listContainers iteration", TimeUnit.MILLISECONDS.toNanos(5));
+      Tracing.record(Tracing.SpanType.STORAGE, "listContainers iteration", TimeUnit.MILLISECONDS.toNanos(3));
+    } finally {
+      Tracing.exitJob(previousJobId);
+    }
+
+    List<JobLatency> breakdown = Tracing.removeLatencyBreakdown(jobId);
+    Assert.assertEquals(breakdown.size(), 1);
+    Assert.assertEquals(breakdown.get(0).getName(), "listContainers iteration");
+    Assert.assertEquals(breakdown.get(0).getCount(), 2);
+    Assert.assertEquals(breakdown.get(0).getTotalMillis(), 8);
+    Assert.assertEquals(breakdown.get(0).getMaxMillis(), 5);
+  }
+
+  @Test
+  public void testDisabled() {
+    String jobId = IdUtils.createUUID();
+    Tracing.setEnabled(false);
+    String previousJobId = Tracing.enterJob(jobId);
+    try (Tracing.Span span = Tracing.start(Tracing.SpanType.COMMAND, "siegfried")) {
+      // do nothing
+    } finally {
+      Tracing.exitJob(previousJobId);
+      Tracing.setEnabled(true);
+    }
+    Assert.assertTrue(Tracing.removeLatencyBreakdown(jobId).isEmpty());
+  }
+}
@@ -85,14 +85,17 @@ import org.reflections.Reflections;
 import org.reflections.scanners.ResourcesScanner;
 import org.reflections.util.ClasspathHelper;
 import org.reflections.util.ConfigurationBuilder;
+import org.roda.core.common.HandlebarsUtility;
 import org.roda.core.common.LdapUtility;
 import org.roda.core.common.Messages;
 import org.roda.core.common.PremisV3Utils;
 import org.roda.core.common.RodaUtils;
 import org.roda.core.common.UserUtility;
 import org.roda.core.common.iterables.CloseableIterable;
+import org.roda.core.common.monitor.FolderWatcher;
 import org.roda.core.common.monitor.TransferUpdateStatus;
 import org.roda.core.common.monitor.TransferredResourcesScanner;
+import org.roda.core.common.validation.ValidationUtils;
 import org.roda.core.data.common.RodaConstants;
 import org.roda.core.data.common.RodaConstants.NodeType;
 import org.roda.core.data.common.RodaConstants.OrchestratorType;
@@ -133,6 +136,7 @@ import org.roda.core.index.schema.Field;
 import org.roda.core.index.schema.SolrBootstrapUtils;
 import org.roda.core.index.schema.SolrCollectionRegistry;
 import org.roda.core.index.utils.SolrUtils;
+import org.roda.core.index.utils.TracingSolrClient;
 import org.roda.core.migration.MigrationManager;
 import org.roda.core.model.ModelObserver;
 import org.roda.core.model.ModelService;
@@ -140,18 +144,22 @@ import org.roda.core.plugins.PluginManager;
 import org.roda.core.plugins.PluginManagerException;
 import org.roda.core.plugins.PluginOrchestrator;
 import org.roda.core.plugins.orchestrate.AkkaEmbeddedPluginOrchestrator;
+import org.roda.core.plugins.plugins.characterization.SiegfriedPluginUtils;
+import org.roda.core.plugins.plugins.common.ConversionCommandExecutor;
 import org.roda.core.storage.DefaultStoragePath;
 import org.roda.core.storage.Resource;
 import org.roda.core.storage.StorageService;
 import org.roda.core.storage.StorageServiceWrapper;
 import org.roda.core.storage.fs.FSUtils;
 import org.roda.core.storage.fs.FileStorageService;
+import org.roda.core.util.Tracing;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import ch.qos.logback.classic.LoggerContext;
 import ch.qos.logback.classic.joran.JoranConfigurator;
 import ch.qos.logback.core.joran.spi.JoranException;
+import io.prometheus.client.Histogram;
 import io.prometheus.client.dropwizard.DropwizardExports;
 import io.prometheus.client.exporter.HTTPServer;
 import io.prometheus.client.hotspot.DefaultExports;
@@ -216,6 +224,9 @@ public class RodaCoreFactory {
   // TransferredResources related objects
   private static TransferredResourcesScanner transferredResourcesScanner;
 
+  // Templates related objects
+  private static FolderWatcher templatesWatcher;
+
   // Configuration related objects
   private static CompositeConfiguration rodaConfiguration = null;
   private static List<String> configurationFiles = null;
@@ -288,6 +299,7 @@ public class RodaCoreFactory {
   private static boolean configSymbolicLinksAllowed;
 
   private static HTTPServer prometheusMetricsServer;
+  private static Histogram spanDurations;
 
   /** Private empty constructor */
   private RodaCoreFactory() {
@@ -469,6 +481,12 @@ public class RodaCoreFactory {
         instantiateDefaultObjects();
         LOGGER.debug("Finished instantiating default objects");
 
+        instantiateTemplates();
+        LOGGER.debug("Finished instantiating templates");
+
+        // execute the commands of conversion tools with their own limits
+        ConversionCommandExecutor.registerExecutables(rodaConfiguration);
+
         // instantiate plugin manager
         // 20160920 hsilva: this must be the last thing to be instantiated as
         // problems may araise when instantiating objects at the same time the
@@ -642,6 +660,7 @@ public class RodaCoreFactory {
 
   private static void initializeMetrics() {
     metricsRegistry = new MetricRegistry();
+    Tracing.setEnabled(rodaConfiguration.getBoolean("core.tracing.enabled", true));
     if (getSystemProperty("com.sun.management.jmxremote", null) != null) {
       jmxMetricsReporter = JmxReporter.forRegistry(metricsRegistry).inDomain("RODA").build();
       jmxMetricsReporter.start();
@@ -652,6 +671,7 @@ public class RodaCoreFactory {
 
       new DropwizardExports(metricsRegistry).register();
       DefaultExports.initialize();
+      initializeTracingMetrics();
 
       try {
         prometheusMetricsServer = new HTTPServer(prometheusMetricsPort);
@@ -662,6 +682,16 @@ public class RodaCoreFactory {
     }
   }
 
+  private static void initializeTracingMetrics() {
+    if (spanDurations == null) {
+      spanDurations = Histogram.build().name("roda_span_duration_seconds")
+        .help("Duration of the operations traced (storage, index, commands, lock waits, ingest steps, objects)")
+        .labelNames("type", "name").buckets(0.001, 0.005, 0.01, 0.05, 0.1, 0.5, 1, 5, 10, 60).register();
+      Tracing.addListener((type, name, durationInNanos) -> spanDurations.labels(type.getLabel(), name)
+        .observe(durationInNanos / 1.0E9));
+    }
+  }
+
   private static Path determineRodaHomePath() {
     Path rodaHomePath;
     if (System.getProperty(RodaConstants.INSTALL_FOLDER_SYSTEM_PROPERTY) != null) {
@@ -911,6 +941,25 @@ public class RodaCoreFactory {
     copyFilesFromClasspath(classpathPrefix, destinationDirectory, false);
   }
 
+  private static void instantiateTemplates() {
+    List<String> templateFolders = Arrays.asList(
+      getRodaConfigurationAsString("core", "notification", "template_path"), RodaConstants.METADATA_TEMPLATE_FOLDER,
+      RodaConstants.METADATA_REPRESENTATION_INFORMATION_TEMPLATE_FOLDER);
+    int compiled = HandlebarsUtility.precompileTemplates(templateFolders);
+    LOGGER.debug("Compiled {} templates", compiled);
+
+    // compile again the templates that are changed in the config folder
+    if (getRodaConfiguration().getBoolean("core.handlebars.watch", true)) {
+      try {
+        templatesWatcher = new FolderWatcher("Templates", configPath, 2, 2000L,
+          () -> HandlebarsUtility.precompileTemplates(templateFolders));
+        templatesWatcher.start();
+      } catch (IOException e) {
+        LOGGER.warn("Could not watch templates in {}, changes will be compiled when used", configPath, e);
+      }
+    }
+  }
+
   private static void instantiatePluginManager() {
     if (INSTANTIATE_PLUGIN_MANAGER) {
       try {
@@ -1053,7 +1102,7 @@ public class RodaCoreFactory {
         boolean writeIsAllowed = checkIfWriteIsAllowed(getNodeType());
 
         // instantiate solr
-        solr = instantiateSolr(solrHome, writeIsAllowed);
+        solr = new TracingSolrClient(instantiateSolr(solrHome, writeIsAllowed));
 
         if (writeIsAllowed) {
           SolrBootstrapUtils.bootstrapSchemas(solr);
@@ -1394,6 +1443,9 @@ public class RodaCoreFactory {
   public static void shutdown() {
     if (instantiated) {
       if (INSTANTIATE_SOLR) {
+        if (index != null) {
+          index.shutdown();
+        }
         try {
           solr.close();
         } catch (IOException e) {
@@ -1409,6 +1461,14 @@ public class RodaCoreFactory {
       if (INSTANTIATE_PLUGIN_ORCHESTRATOR) {
         pluginOrchestrator.shutdown();
       }
+      if (INSTANTIATE_SCANNER && transferredResourcesScanner != null) {
+        transferredResourcesScanner.stopWatching();
+      }
+      if (templatesWatcher != null) {
+        templatesWatcher.close();
+      }
+      SiegfriedPluginUtils.shutdown();
+      ConversionCommandExecutor.shutdown();
       if (nodeType == NodeType.TEST) {
         // final cleanup
         FSUtils.deletePathQuietly(workingDirectoryPath);
@@ -1587,6 +1647,11 @@ public class RodaCoreFactory {
 
       transferredResourcesScanner = new TransferredResourcesScanner(transferredResourcesFolderPath, getIndexService(),
         nodeType);
+
+      if (nodeType != NodeType.TEST
+        && getRodaConfiguration().getBoolean("core.transferred_resources.watch.enabled", true)) {
+        transferredResourcesScanner.startWatching();
+      }
     } catch (final Exception e) {
       LOGGER.error("Error starting Transferred Resources Scanner: " + e.getMessage(), e);
       instantiatedWithoutErrors = false;
@@ -1650,6 +1715,10 @@ public class RodaCoreFactory {
     return configPath;
   }
 
+  public static Path getExampleConfigPath() {
+    return exampleConfigPath;
+  }
+
   public static Path getDefaultPath() {
     return defaultPath;
   }
@@ -1896,6 +1965,7 @@ public class RodaCoreFactory {
     rodaPropertiesCache.clear();
     rodaSharedConfigurationPropertiesCache = null;
     RODA_SCHEMAS_CACHE.invalidateAll();
+    ValidationUtils.clearKnownValidCache();
     I18N_CACHE.invalidateAll();
     SHARED_PROPERTIES_CACHE.invalidateAll();
     processPreservationEventTypeProperties();
@@ -0,0 +1,235 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/roda
+ */
+package org.roda.core.common;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.lang3.StringUtils;
+import org.roda.core.RodaCoreFactory;
+import org.roda.core.data.exceptions.AuthenticationDeniedException;
+import org.roda.core.data.exceptions.GenericException;
+import org.roda.core.data.v2.user.User;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+/**
+ * Caches the authentication of API requests, so that clients making many
+ * requests do not need an LDAP bind (with its password hash verification) and
+ * the resolution of roles and groups for each one of them:
+ * <ul>
+ * <li>credentials verified against LDAP are remembered for a short time, as
+ * salted hashes;</li>
+ * <li>users may get bearer tokens, which are accepted instead of
+ * credentials;</li>
+ * <li>users, with their roles and groups, are cached.</li>
+ * </ul>
+ * Changes to users and groups invalidate the cached information (see
+ * {@link #invalidateUser(String)} and {@link #invalidateUsers()}).
+ */
+public final class AuthenticationCache {
+  private static final int SALT_LENGTH = 16;
+  private static final int TOKEN_LENGTH = 32;
+  private static final SecureRandom RANDOM = new SecureRandom();
+
+  private static final long CREDENTIALS_TTL_SECONDS = getConfigurationLong(300, "credentials_ttl_seconds");
+  private static final long TOKEN_TTL_SECONDS = getConfigurationLong(3600, "token_ttl_seconds");
+  private static final long MAXIMUM_SIZE = getConfigurationLong(10000, "cache_size");
+
+  /** username > verified credentials */
+  private static final Cache<String, VerifiedCredentials> CREDENTIALS = CacheBuilder.newBuilder()
+    .maximumSize(MAXIMUM_SIZE).expireAfterWrite(CREDENTIALS_TTL_SECONDS, TimeUnit.SECONDS).build();
+  /** username > user, with its roles and groups */
+  private static final Cache<String, User> USERS = CacheBuilder.newBuilder().maximumSize(MAXIMUM_SIZE)
+    .expireAfterWrite(CREDENTIALS_TTL_SECONDS, TimeUnit.SECONDS).build();
+  /** token digest > username */
+  private static final Cache<String, String> TOKENS = CacheBuilder.newBuilder().maximumSize(MAXIMUM_SIZE)
+    .expireAfterWrite(TOKEN_TTL_SECONDS, TimeUnit.SECONDS).build();
+
+  /**
+   * Incremented on each invalidation, so that an authentication running at
+   * the same time as a change is not cached
+   */
+  private static final AtomicLong GENERATION = new AtomicLong();
+
+  private AuthenticationCache() {
+    // do nothing
+  }
+
+  private static long getConfigurationLong(long defaultValue, String key) {
+    if (RodaCoreFactory.getRodaConfiguration() == null) {
+      return defaultValue;
+    }
+    return RodaCoreFactory.getRodaConfiguration().getLong("core.api.auth." + key, defaultValue);
+  }
+
+  /**
+   * Authenticates an active user, only binding to LDAP if the same credentials
+   * were not verified recently.
+   *
+   * @see LdapUtility#getAuthenticatedUser(String, String)
+   */
+  public static User getAuthenticatedUser(final String username, final String password)
+    throws AuthenticationDeniedException, GenericException {
+    if (StringUtils.isBlank(username) || StringUtils.isBlank(password)) {
+      throw new AuthenticationDeniedException("Username and password cannot be blank!");
+    }
+
+    VerifiedCredentials verified = CREDENTIALS.getIfPresent(username);
+    if (verified != null && verified.matches(password)) {
+      User user = getUser(username);
+      if (!user.isActive()) {
+        CREDENTIALS.invalidate(username);
+        throw new AuthenticationDeniedException("User '" + username + "' is not active");
+      }
+      return user;
+    }
+
+    long generation = GENERATION.get();
+    User user = UserUtility.getLdapUtility().getAuthenticatedUser(username, password);
+    if (!user.isActive()) {
+      throw new AuthenticationDeniedException("User '" + username + "' is not active");
+    }
+    synchronized (GENERATION) {
+      if (generation == GENERATION.get()) {
+        CREDENTIALS.put(username, new VerifiedCredentials(password));
+        USERS.put(username, copy(user));
+      }
+    }
+    return user;
+  }
+
+  /**
+   * Issues a new bearer token for the user, valid for
+   * {@link #getTokenTimeToLive()} seconds or until the user is changed.
+   */
+  public static String issueToken(final User user) {
+    byte[] tokenBytes = new byte[TOKEN_LENGTH];
+    RANDOM.nextBytes(tokenBytes);
+    String token = Base64.getUrlEncoder().withoutPadding().encodeToString(tokenBytes);
+    TOKENS.put(getTokenDigest(token), user.getName());
+    return token;
+  }
+
+  public static long getTokenTimeToLive() {
+    return TOKEN_TTL_SECONDS;
+  }
+
+  /**
+   * @return the (active) user to which the token was issued
+   * @throws AuthenticationDeniedException
+   *           if the token is unknown, expired or was revoked
+   */
+  public static User getTokenUser(final String token) throws AuthenticationDeniedException, GenericException {
+    String username = StringUtils.isBlank(token) ? null : TOKENS.getIfPresent(getTokenDigest(token));
+    if (username == null) {
+      throw new AuthenticationDeniedException("Invalid or expired token");
+    }
+
+    User user = getUser(username);
+    if (!user.isActive()) {
+      TOKENS.invalidate(getTokenDigest(token));
+      throw new AuthenticationDeniedException("User '" + username + "' is not active");
+    }
+    return user;
+  }
+
+  public static void revokeToken(final String token) {
+    if (StringUtils.isNotBlank(token)) {
+      TOKENS.invalidate(getTokenDigest(token));
+    }
+  }
+
+  /**
+   * Forgets the credentials, tokens and roles of a user, e.g. because its
+   * password was changed or the user was updated or deleted.
+   */
+  public static void invalidateUser(final String username) {
+    synchronized (GENERATION) {
+      GENERATION.incrementAndGet();
+      CREDENTIALS.invalidate(username);
+      USERS.invalidate(username);
+      TOKENS.asMap().values().removeIf(username::equals);
+    }
+  }
+
+  /**
+   * Forgets the roles and groups of all users, e.g. because a group was
+   * changed.
+   */
+  public static void invalidateUsers() {
+    synchronized (GENERATION) {
+      GENERATION.incrementAndGet();
+      USERS.invalidateAll();
+    }
+  }
+
+  private static User getUser(final String username) throws AuthenticationDeniedException, GenericException {
+    try {
+      return copy(USERS.get(username, () -> {
+        User user = UserUtility.getLdapUtility().getUser(username);
+        if (user == null) {
+          throw new AuthenticationDeniedException("User '" + username + "' does not exist");
+        }
+        return user;
+      }));
+    } catch (ExecutionException | UncheckedExecutionException e) {
+      if (e.getCause() instanceof AuthenticationDeniedException) {
+        throw (AuthenticationDeniedException) e.getCause();
+      }
+      throw new GenericException("Error getting user " + username, e.getCause());
+    }
+  }
+
+  /** Cached users are copied, as callers may change them. */
+  private static User copy(final User user) {
+    User copy = new User(user);
+    copy.setAllRoles(copy(user.getAllRoles()));
+    copy.setDirectRoles(copy(user.getDirectRoles()));
+    copy.setGroups(copy(user.getGroups()));
+    return copy;
+  }
+
+  private static Set<String> copy(final Set<String> values) {
+    return values == null ? null : new HashSet<>(values);
+  }
+
+  private static String getTokenDigest(final String token) {
+    return Hashing.sha256().hashString(token, StandardCharsets.UTF_8).toString();
+  }
+
+  private static class VerifiedCredentials {
+    private final byte[] salt;
+    private final byte[] hash;
+
+    VerifiedCredentials(final String password) {
+      salt = new byte[SALT_LENGTH];
+      RANDOM.nextBytes(salt);
+      hash = hash(password);
+    }
+
+    private byte[] hash(final String password) {
+      return Hashing.sha256().newHasher().putBytes(salt).putString(password, StandardCharsets.UTF_8).hash()
+        .asBytes();
+    }
+
+    boolean matches(final String password) {
+      return MessageDigest.isEqual(hash, hash(password));
+    }
+  }
+}
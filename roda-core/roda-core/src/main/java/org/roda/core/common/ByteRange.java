@@ -0,0 +1,160 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/roda
+ */
+package org.roda.core.common;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * A satisfiable byte range of a resource, as requested by the HTTP
+ * {@code Range} header (RFC 7233).
+ */
+public class ByteRange implements Serializable {
+  private static final long serialVersionUID = 4410856426271006577L;
+
+  private static final String BYTES_UNIT = "bytes=";
+
+  /**
+   * Requests with more ranges than this are served as a whole, so that a
+   * client cannot make the server seek all over a large file.
+   */
+  public static final int MAX_RANGES = 64;
+
+  private final long from;
+  private final long to;
+
+  public ByteRange(long from, long to) {
+    this.from = from;
+    this.to = to;
+  }
+
+  /**
+   * @return the position of the first byte, inclusive
+   */
+  public long getFrom() {
+    return from;
+  }
+
+  /**
+   * @return the position of the last byte, inclusive
+   */
+  public long getTo() {
+    return to;
+  }
+
+  public long getLength() {
+    return to - from + 1;
+  }
+
+  /**
+   * @return the value of the {@code Content-Range} header for this range
+   */
+  public String toContentRange(long size) {
+    return String.format("bytes %d-%d/%d", from, to, size);
+  }
+
+  /**
+   * Parses the value of an HTTP {@code Range} header against a resource with
+   * the given size. Overlapping and adjacent ranges are coalesced.
+   *
+   * @return {@code null} if the header is absent or malformed, and the whole
+   *         resource should be sent, or the satisfiable ranges, which are empty
+   *         if none of the requested ranges can be satisfied.
+   */
+  public static List<ByteRange> parse(String header, long size) {
+    if (StringUtils.isBlank(header) || !header.trim().startsWith(BYTES_UNIT) || size < 0) {
+      return null;
+    }
+
+    String[] specs = header.trim().substring(BYTES_UNIT.length()).split(",");
+    if (specs.length > MAX_RANGES) {
+      return null;
+    }
+
+    List<ByteRange> ranges = new ArrayList<>();
+    for (String spec : specs) {
+      String[] positions = spec.trim().split("-", -1);
+      if (positions.length != 2) {
+        return null;
+      }
+
+      try {
+        if (positions[0].isEmpty()) {
+          // suffix range: the last n bytes
+          long suffix = Long.parseLong(positions[1]);
+          if (suffix > 0 && size > 0) {
+            ranges.add(new ByteRange(Math.max(0, size - suffix), size - 1));
+          }
+        } else {
+          long from = Long.parseLong(positions[0]);
+          long to = positions[1].isEmpty() ? Long.MAX_VALUE : Long.parseLong(positions[1]);
+          if (from < 0 || to < from) {
+            return null;
+          }
+          if (from < size) {
+            ranges.add(new ByteRange(from, Math.min(to, size - 1)));
+          }
+        }
+      } catch (NumberFormatException e) {
+        return null;
+      }
+    }
+
+    return coalesce(ranges);
+  }
+
+  private static List<ByteRange> coalesce(List<ByteRange> ranges) {
+    if (ranges.size() < 2) {
+      return ranges;
+    }
+
+    List<ByteRange> sorted = new ArrayList<>(ranges);
+    Collections.sort(sorted, Comparator.comparingLong(ByteRange::getFrom));
+
+    List<ByteRange> coalesced = new ArrayList<>();
+    ByteRange current = sorted.get(0);
+    for (ByteRange next : sorted.subList(1, sorted.size())) {
+      if (next.from <= current.to + 1) {
+        current = new ByteRange(current.from, Math.max(current.to, next.to));
+      } else {
+        coalesced.add(current);
+        current = next;
+      }
+    }
+    coalesced.add(current);
+    return coalesced;
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (!(obj instanceof ByteRange)) {
+      return false;
+    }
+    ByteRange other = (ByteRange) obj;
+    return from == other.from && to == other.to;
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * Long.hashCode(from) + Long.hashCode(to);
+  }
+
+  @Override
+  public String toString() {
+    return "ByteRange [from=" + from + ", to=" + to + "]";
+  }
+
+}
@@ -12,6 +12,12 @@ import java.io.OutputStream;
 
 public interface ConsumesSkipableOutputStream extends ConsumesOutputStream {
 
-  void consumeOutputStream(OutputStream output, int from, int len) throws IOException;
+  void consumeOutputStream(OutputStream output, long from, long len) throws IOException;
+
+  /**
+   * @return a strong entity tag that changes whenever the content changes, or
+   *         {@code null} if none is known
+   */
+  String getEntityTag();
 
 }
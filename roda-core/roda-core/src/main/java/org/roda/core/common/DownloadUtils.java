@@ -7,18 +7,14 @@
  */
 package org.roda.core.common;
 
-import java.io.BufferedOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.Date;
 import java.util.List;
 import java.util.stream.Collectors;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
 
-import org.apache.commons.io.IOUtils;
 import org.roda.core.common.iterables.CloseableIterable;
+import org.roda.core.common.tools.ParallelZipWriter;
 import org.roda.core.common.tools.ZipEntryInfo;
 import org.roda.core.common.tools.ZipTools;
 import org.roda.core.data.exceptions.AuthorizationDeniedException;
@@ -60,9 +56,8 @@ public class DownloadUtils {
         @Override
         public void consumeOutputStream(OutputStream out) throws IOException {
 
-          try (BufferedOutputStream bos = new BufferedOutputStream(out);
-            ZipOutputStream zos = new ZipOutputStream(bos);
-            CloseableIterable<Resource> resources = storage.listResourcesUnderDirectory(storagePath, true);) {
+          try (CloseableIterable<Resource> resources = storage.listResourcesUnderDirectory(storagePath, true);
+            ParallelZipWriter zip = ZipTools.createZipWriter(out)) {
             int basePathSize = storagePath.asList().size();
 
             for (Resource r : resources) {
@@ -72,18 +67,11 @@ public class DownloadUtils {
 
               if (r.isDirectory()) {
                 // adding a directory
-                entryPath += ZIP_PATH_DELIMITER;
-                zos.putNextEntry(new ZipEntry(entryPath));
-                zos.closeEntry();
+                zip.add(new ZipEntryInfo(entryPath));
               } else {
                 // adding a file
-                ZipEntry entry = new ZipEntry(entryPath);
-                zos.putNextEntry(entry);
                 Binary binary = storage.getBinary(r.getStoragePath());
-                try (InputStream inputStream = binary.getContent().createInputStream()) {
-                  IOUtils.copy(inputStream, zos);
-                }
-                zos.closeEntry();
+                zip.add(new ZipEntryInfo(entryPath, binary.getContent()));
               }
             }
           } catch (GenericException | RequestNotValidException | NotFoundException | AuthorizationDeniedException e) {
@@ -8,17 +8,46 @@
 package org.roda.core.common;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Stream;
 
+import org.apache.commons.io.IOUtils;
+import org.roda.core.RodaCoreFactory;
+import org.roda.core.data.common.RodaConstants;
 import org.roda.core.data.exceptions.GenericException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import com.github.jknack.handlebars.Handlebars;
 import com.github.jknack.handlebars.Template;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 
+/**
+ * Executes Handlebars templates, e.g. of notifications and descriptive
+ * metadata. Compiled templates are kept in a bounded cache, keyed by the hash
+ * of their content, so a template is only compiled again when it changes.
+ */
 public class HandlebarsUtility {
+  private static final Logger LOGGER = LoggerFactory.getLogger(HandlebarsUtility.class);
+
   private static final Handlebars HANDLEBARS = new Handlebars();
+  private static final int DEFAULT_TEMPLATE_CACHE_SIZE = 500;
+  private static final Cache<HashCode, Template> TEMPLATE_CACHE = CacheBuilder.newBuilder()
+    .maximumSize(getTemplateCacheSize()).build();
+
   private static final String HELPER_FIELD = "field";
   private static final String HELPER_IF = "ifCond";
   private static final String CONDITION_AND = "&&";
@@ -63,13 +92,79 @@ public class HandlebarsUtility {
     return HANDLEBARS;
   }
 
+  private static int getTemplateCacheSize() {
+    if (RodaCoreFactory.getRodaConfiguration() == null) {
+      return DEFAULT_TEMPLATE_CACHE_SIZE;
+    }
+    return RodaCoreFactory.getRodaConfigurationAsInt(DEFAULT_TEMPLATE_CACHE_SIZE, "core", "handlebars", "cache_size");
+  }
+
   public static String executeHandlebars(String template, Map<String, ?> scopes) throws GenericException {
     try {
-      Template templ = getHandlebars().compileInline(template);
-      return templ.apply(scopes);
+      return getTemplate(template).apply(scopes);
     } catch (IOException e) {
       throw new GenericException(e);
     }
   }
 
+  /**
+   * @return the compiled template, from the cache if the same template was
+   *         already compiled
+   */
+  public static Template getTemplate(String template) throws GenericException {
+    HashCode hash = Hashing.sha256().hashString(template, StandardCharsets.UTF_8);
+    try {
+      return TEMPLATE_CACHE.get(hash, () -> getHandlebars().compileInline(template));
+    } catch (ExecutionException | UncheckedExecutionException e) {
+      throw new GenericException("Error compiling template", e.getCause());
+    }
+  }
+
+  /**
+   * Compiles the templates of the given configuration folders, so that they
+   * are cached before being used. Templates overridden in the configuration
+   * folder are compiled instead of the default ones.
+   *
+   * @param folders
+   *          folders relative to the configuration folder, e.g.
+   *          {@code mail/templates/}
+   * @return the number of compiled templates
+   */
+  public static int precompileTemplates(List<String> folders) {
+    int compiled = 0;
+    for (String folder : folders) {
+      String folderPrefix = folder.endsWith("/") ? folder : folder + "/";
+      for (String templateName : listTemplates(folder)) {
+        try (InputStream templateStream = RodaCoreFactory.getConfigurationFileAsStream(folderPrefix + templateName)) {
+          if (templateStream != null) {
+            getTemplate(IOUtils.toString(templateStream, RodaConstants.DEFAULT_ENCODING));
+            compiled++;
+          }
+        } catch (IOException | GenericException e) {
+          LOGGER.warn("Could not compile template {}{}", folderPrefix, templateName, e);
+        }
+      }
+    }
+    return compiled;
+  }
+
+  /**
+   * Lists the templates both in the configuration folder and in the default
+   * configuration (which is copied to the example configuration folder).
+   */
+  private static Set<String> listTemplates(String folder) {
+    Set<String> templateNames = new TreeSet<>();
+    for (Path basePath : Arrays.asList(RodaCoreFactory.getConfigPath(), RodaCoreFactory.getExampleConfigPath())) {
+      Path templatesPath = basePath == null ? null : basePath.resolve(folder);
+      if (templatesPath != null && Files.isDirectory(templatesPath)) {
+        try (Stream<Path> templates = Files.list(templatesPath)) {
+          templates.filter(Files::isRegularFile).forEach(path -> templateNames.add(path.getFileName().toString()));
+        } catch (IOException e) {
+          LOGGER.warn("Could not list templates of {}", templatesPath, e);
+        }
+      }
+    }
+    return templateNames;
+  }
+
 }
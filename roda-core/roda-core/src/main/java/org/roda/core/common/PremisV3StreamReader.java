@@ -0,0 +1,353 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/roda
+ */
+package org.roda.core.common;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.XMLConstants;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.commons.lang3.StringUtils;
+import org.roda.core.data.exceptions.GenericException;
+import org.roda.core.data.v2.ip.metadata.Fixity;
+
+/**
+ * Read-only, streaming (StAX) extraction of the PREMIS file object fields used
+ * by indexing and fixity checking. Unlike
+ * {@link PremisV3Utils#binaryToFile(InputStream)} it does not build the
+ * XMLBeans object tree, so large object characteristics extensions (e.g. JHOVE
+ * or FITS outputs) are skipped without being materialized. Anything that needs
+ * to modify a PREMIS file must keep using the XMLBeans model.
+ *
+ * Both ways of reading a PREMIS file are compared by
+ * {@code PremisV3UtilsBenchmark}, in the roda-benchmarks module.
+ */
+public final class PremisV3StreamReader {
+
+  public static final String PREMIS_V3_NAMESPACE = "http://www.loc.gov/premis/v3";
+
+  private static final String OBJECT = "object";
+  private static final String OBJECT_TYPE_FILE = "file";
+  private static final String OBJECT_CHARACTERISTICS = "objectCharacteristics";
+  private static final String ORIGINAL_NAME = "originalName";
+  private static final String SIZE = "size";
+  private static final String FIXITY = "fixity";
+  private static final String MESSAGE_DIGEST_ALGORITHM = "messageDigestAlgorithm";
+  private static final String MESSAGE_DIGEST = "messageDigest";
+  private static final String MESSAGE_DIGEST_ORIGINATOR = "messageDigestOriginator";
+  private static final String FORMAT = "format";
+  private static final String FORMAT_DESIGNATION = "formatDesignation";
+  private static final String FORMAT_NAME = "formatName";
+  private static final String FORMAT_VERSION = "formatVersion";
+  private static final String FORMAT_REGISTRY = "formatRegistry";
+  private static final String FORMAT_REGISTRY_NAME = "formatRegistryName";
+  private static final String FORMAT_REGISTRY_KEY = "formatRegistryKey";
+  private static final String CREATING_APPLICATION = "creatingApplication";
+  private static final String CREATING_APPLICATION_NAME = "creatingApplicationName";
+  private static final String CREATING_APPLICATION_VERSION = "creatingApplicationVersion";
+  private static final String DATE_CREATED_BY_APPLICATION = "dateCreatedByApplication";
+
+  private static final XMLInputFactory FACTORY = createFactory();
+
+  /** Private empty constructor */
+  private PremisV3StreamReader() {
+    // do nothing
+  }
+
+  private static XMLInputFactory createFactory() {
+    XMLInputFactory factory = XMLInputFactory.newInstance();
+    factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, Boolean.TRUE);
+    factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+    factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+    factory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
+    return factory;
+  }
+
+  /**
+   * Reads the summary of a PREMIS file object. Only the first
+   * objectCharacteristics block is taken into account, which is the same
+   * behaviour {@link PremisV3Utils} has when reading the XMLBeans model.
+   *
+   * @throws GenericException
+   *           if the XML is not well formed or the PREMIS object is not a file
+   */
+  public static FileSummary readFile(InputStream inputStream) throws GenericException, IOException {
+    XMLStreamReader reader = null;
+    try {
+      reader = FACTORY.createXMLStreamReader(inputStream);
+      FileSummary summary = new FileSummary();
+
+      // move to the root element
+      while (reader.hasNext() && reader.next() != XMLStreamConstants.START_ELEMENT) {
+        // skip prolog
+      }
+      checkFileObject(reader);
+
+      while (reader.hasNext()) {
+        int event = reader.next();
+        if (event == XMLStreamConstants.END_ELEMENT) {
+          // end of the root element
+          break;
+        } else if (event == XMLStreamConstants.START_ELEMENT) {
+          String name = reader.getLocalName();
+          if (OBJECT_CHARACTERISTICS.equals(name) && !summary.hasObjectCharacteristics) {
+            readObjectCharacteristics(reader, summary);
+          } else if (ORIGINAL_NAME.equals(name)) {
+            summary.originalName = readText(reader);
+            // originalName comes after objectCharacteristics, nothing else is needed
+            break;
+          } else {
+            skipElement(reader);
+          }
+        }
+      }
+
+      return summary;
+    } catch (XMLStreamException e) {
+      throw new GenericException("Error reading PREMIS file", e);
+    } finally {
+      closeQuietly(reader);
+    }
+  }
+
+  private static void checkFileObject(XMLStreamReader reader) throws GenericException {
+    if (reader.getEventType() != XMLStreamConstants.START_ELEMENT || !OBJECT.equals(reader.getLocalName())
+      || !PREMIS_V3_NAMESPACE.equals(reader.getNamespaceURI())) {
+      throw new GenericException("Trying to load a PREMIS file object but root element was not a PREMIS object");
+    }
+
+    String type = reader.getAttributeValue(XMLConstants.W3C_XML_SCHEMA_INSTANCE_NS_URI, "type");
+    String localType = type == null ? null : StringUtils.substringAfterLast(":" + type, ":");
+    if (!OBJECT_TYPE_FILE.equals(localType)) {
+      throw new GenericException("Trying to load a file but was a " + type);
+    }
+  }
+
+  private static void readObjectCharacteristics(XMLStreamReader reader, FileSummary summary)
+    throws XMLStreamException {
+    summary.hasObjectCharacteristics = true;
+    while (reader.hasNext()) {
+      int event = reader.next();
+      if (event == XMLStreamConstants.END_ELEMENT) {
+        break;
+      } else if (event == XMLStreamConstants.START_ELEMENT) {
+        String name = reader.getLocalName();
+        if (SIZE.equals(name)) {
+          String size = readText(reader).trim();
+          summary.size = StringUtils.isNumeric(size) && !size.isEmpty() ? Long.parseLong(size) : 0L;
+        } else if (FIXITY.equals(name)) {
+          summary.fixities.add(readFixity(reader));
+        } else if (FORMAT.equals(name)) {
+          readFormat(reader, summary);
+        } else if (CREATING_APPLICATION.equals(name) && !summary.hasCreatingApplication) {
+          readCreatingApplication(reader, summary);
+        } else {
+          skipElement(reader);
+        }
+      }
+    }
+  }
+
+  private static Fixity readFixity(XMLStreamReader reader) throws XMLStreamException {
+    Fixity fixity = new Fixity();
+    Map<String, String> children = readSimpleChildren(reader);
+    fixity.setMessageDigestAlgorithm(children.get(MESSAGE_DIGEST_ALGORITHM));
+    fixity.setMessageDigest(children.get(MESSAGE_DIGEST));
+    fixity.setMessageDigestOriginator(children.get(MESSAGE_DIGEST_ORIGINATOR));
+    return fixity;
+  }
+
+  private static void readFormat(XMLStreamReader reader, FileSummary summary) throws XMLStreamException {
+    boolean first = summary.formatCount++ == 0;
+    while (reader.hasNext()) {
+      int event = reader.next();
+      if (event == XMLStreamConstants.END_ELEMENT) {
+        break;
+      } else if (event == XMLStreamConstants.START_ELEMENT) {
+        String name = reader.getLocalName();
+        if (FORMAT_DESIGNATION.equals(name) && first) {
+          Map<String, String> children = readSimpleChildren(reader);
+          summary.hasFormatDesignation = true;
+          summary.formatName = children.get(FORMAT_NAME);
+          summary.formatVersion = children.get(FORMAT_VERSION);
+        } else if (FORMAT_REGISTRY.equals(name)) {
+          Map<String, String> children = readSimpleChildren(reader);
+          String registryName = children.get(FORMAT_REGISTRY_NAME);
+          if (registryName != null) {
+            summary.formatRegistries.putIfAbsent(registryName.toLowerCase(), children.get(FORMAT_REGISTRY_KEY));
+          }
+        } else {
+          skipElement(reader);
+        }
+      }
+    }
+  }
+
+  private static void readCreatingApplication(XMLStreamReader reader, FileSummary summary)
+    throws XMLStreamException {
+    Map<String, String> children = readSimpleChildren(reader);
+    summary.hasCreatingApplication = true;
+    summary.creatingApplicationName = children.get(CREATING_APPLICATION_NAME);
+    summary.creatingApplicationVersion = children.get(CREATING_APPLICATION_VERSION);
+    summary.dateCreatedByApplication = children.get(DATE_CREATED_BY_APPLICATION);
+  }
+
+  /**
+   * Reads the text of the direct children of the current element. Only the
+   * first occurrence of each child is kept. Leaves the reader at the end
+   * element of the current element.
+   */
+  private static Map<String, String> readSimpleChildren(XMLStreamReader reader) throws XMLStreamException {
+    Map<String, String> children = new LinkedHashMap<>();
+    while (reader.hasNext()) {
+      int event = reader.next();
+      if (event == XMLStreamConstants.END_ELEMENT) {
+        break;
+      } else if (event == XMLStreamConstants.START_ELEMENT) {
+        String name = reader.getLocalName();
+        String text = readText(reader);
+        children.putIfAbsent(name, text);
+      }
+    }
+    return children;
+  }
+
+  /**
+   * Reads the text content of the current element, ignoring the content of
+   * any nested element. Leaves the reader at the end element of the current
+   * element.
+   */
+  private static String readText(XMLStreamReader reader) throws XMLStreamException {
+    StringBuilder text = new StringBuilder();
+    while (reader.hasNext()) {
+      int event = reader.next();
+      if (event == XMLStreamConstants.END_ELEMENT) {
+        break;
+      } else if (event == XMLStreamConstants.START_ELEMENT) {
+        skipElement(reader);
+      } else if (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA
+        || event == XMLStreamConstants.SPACE) {
+        text.append(reader.getText());
+      }
+    }
+    return text.toString();
+  }
+
+  /**
+   * Skips the current element and all its descendants. Leaves the reader at
+   * the end element of the current element.
+   */
+  private static void skipElement(XMLStreamReader reader) throws XMLStreamException {
+    int depth = 1;
+    while (depth > 0 && reader.hasNext()) {
+      int event = reader.next();
+      if (event == XMLStreamConstants.START_ELEMENT) {
+        depth++;
+      } else if (event == XMLStreamConstants.END_ELEMENT) {
+        depth--;
+      }
+    }
+  }
+
+  private static void closeQuietly(XMLStreamReader reader) {
+    if (reader != null) {
+      try {
+        reader.close();
+      } catch (XMLStreamException e) {
+        // do nothing
+      }
+    }
+  }
+
+  /**
+   * Fields of a PREMIS file object needed for indexing and fixity checks.
+   */
+  public static final class FileSummary {
+    private String originalName = null;
+    private boolean hasObjectCharacteristics = false;
+    private long size = 0L;
+    private final List<Fixity> fixities = new ArrayList<>();
+    private int formatCount = 0;
+    private boolean hasFormatDesignation = false;
+    private String formatName = null;
+    private String formatVersion = null;
+    private final Map<String, String> formatRegistries = new LinkedHashMap<>();
+    private boolean hasCreatingApplication = false;
+    private String creatingApplicationName = null;
+    private String creatingApplicationVersion = null;
+    private String dateCreatedByApplication = null;
+
+    private FileSummary() {
+      // created by the reader
+    }
+
+    public String getOriginalName() {
+      return originalName;
+    }
+
+    public boolean hasObjectCharacteristics() {
+      return hasObjectCharacteristics;
+    }
+
+    public long getSize() {
+      return size;
+    }
+
+    public List<Fixity> getFixities() {
+      return fixities;
+    }
+
+    public boolean hasFormat() {
+      return formatCount > 0;
+    }
+
+    public boolean hasFormatDesignation() {
+      return hasFormatDesignation;
+    }
+
+    public String getFormatName() {
+      return formatName;
+    }
+
+    public String getFormatVersion() {
+      return formatVersion;
+    }
+
+    /**
+     * @return the key of the first format registry with the given name (case
+     *         insensitive), or <code>null</code> if not defined
+     */
+    public String getFormatRegistryKey(String registryName) {
+      return registryName == null ? null : formatRegistries.get(registryName.toLowerCase());
+    }
+
+    public boolean hasCreatingApplication() {
+      return hasCreatingApplication;
+    }
+
+    public String getCreatingApplicationName() {
+      return creatingApplicationName;
+    }
+
+    public String getCreatingApplicationVersion() {
+      return creatingApplicationVersion;
+    }
+
+    public String getDateCreatedByApplication() {
+      return dateCreatedByApplication;
+    }
+  }
+}
@@ -18,6 +18,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 
+import javax.xml.stream.XMLStreamException;
 import javax.xml.transform.Source;
 import javax.xml.transform.stream.StreamSource;
 import javax.xml.validation.Schema;
@@ -397,12 +398,13 @@ public final class PremisV3Utils {
     fdct.setFormatVersion("");
     Binary binary = model.getStorage().getBinary(ModelUtils.getFileStoragePath(originalFile));
 
-    if (binary.getContentDigest() != null && !binary.getContentDigest().isEmpty()) {
-      // use binary content digest information
-      for (Entry<String, String> entry : binary.getContentDigest().entrySet()) {
+    Map<String, String> contentDigest = binary.getContentDigest();
+    if (contentDigest != null && contentDigest.keySet().containsAll(fixityAlgorithms)) {
+      // use binary content digest information, e.g. computed on upload
+      for (String algorithm : fixityAlgorithms) {
         FixityComplexType premisFixity = occt.addNewFixity();
-        premisFixity.setMessageDigest(entry.getKey());
-        premisFixity.setMessageDigestAlgorithm(getStringPlusAuthority(entry.getValue()));
+        premisFixity.setMessageDigest(contentDigest.get(algorithm));
+        premisFixity.setMessageDigestAlgorithm(getStringPlusAuthority(algorithm));
         premisFixity.setMessageDigestOriginator(getStringPlusAuthority(FIXITY_ORIGINATOR));
       }
     } else {
@@ -434,42 +436,18 @@ public final class PremisV3Utils {
     return MetadataUtils.saveToContentPayload(document, true);
   }
 
-  public static List<Fixity> extractFixities(Binary premisFile) throws GenericException, XmlException, IOException {
-    List<Fixity> fixities = new ArrayList<>();
+  public static List<Fixity> extractFixities(Binary premisFile) throws GenericException, IOException {
     try (InputStream inputStream = premisFile.getContent().createInputStream()) {
-      gov.loc.premis.v3.File f = binaryToFile(inputStream);
-      if (f.getObjectCharacteristicsArray() != null && f.getObjectCharacteristicsArray().length > 0) {
-        ObjectCharacteristicsComplexType occt = f.getObjectCharacteristicsArray(0);
-        if (occt.getFixityArray() != null && occt.getFixityArray().length > 0) {
-          for (FixityComplexType fct : occt.getFixityArray()) {
-            Fixity fix = new Fixity();
-            fix.setMessageDigest(fct.getMessageDigest());
-            fix.setMessageDigestAlgorithm(fct.getMessageDigestAlgorithm().getStringValue());
-            fix.setMessageDigestOriginator(fct.getMessageDigestOriginator().getStringValue());
-            fixities.add(fix);
-          }
-        }
-      }
+      return PremisV3StreamReader.readFile(inputStream).getFixities();
     }
-
-    return fixities;
   }
 
-  public static String extractFixity(Binary premisFile, String fixityType)
-    throws IOException, GenericException, XmlException {
+  public static String extractFixity(Binary premisFile, String fixityType) throws IOException, GenericException {
     String fixityValue = null;
-    try (InputStream inputStream = premisFile.getContent().createInputStream()) {
-      gov.loc.premis.v3.File f = binaryToFile(inputStream);
-      if (f.getObjectCharacteristicsArray() != null && f.getObjectCharacteristicsArray().length > 0) {
-        ObjectCharacteristicsComplexType occt = f.getObjectCharacteristicsArray(0);
-        if (occt.getFixityArray() != null && occt.getFixityArray().length > 0) {
-          for (FixityComplexType fct : occt.getFixityArray()) {
-            if (fct.getMessageDigestAlgorithm().getStringValue().equalsIgnoreCase(fixityType)) {
-              fixityValue = fct.getMessageDigest();
-              break;
-            }
-          }
-        }
+    for (Fixity fixity : extractFixities(premisFile)) {
+      if (fixityType.equalsIgnoreCase(fixity.getMessageDigestAlgorithm())) {
+        fixityValue = fixity.getMessageDigest();
+        break;
       }
     }
 
@@ -613,36 +591,34 @@ public final class PremisV3Utils {
     SolrInputDocument doc = new SolrInputDocument();
 
     try (InputStream inputStream = premisBinary.getContent().createInputStream()) {
-      gov.loc.premis.v3.File premisFile = binaryToFile(inputStream);
+      PremisV3StreamReader.FileSummary premisFile = PremisV3StreamReader.readFile(inputStream);
       if (premisFile.getOriginalName() != null) {
-        doc.setField(RodaConstants.FILE_ORIGINALNAME, premisFile.getOriginalName().getStringValue());
+        doc.setField(RodaConstants.FILE_ORIGINALNAME, premisFile.getOriginalName());
         // TODO extension
       }
 
-      if (premisFile.getObjectCharacteristicsArray() != null && premisFile.getObjectCharacteristicsArray().length > 0) {
-        ObjectCharacteristicsComplexType occt = premisFile.getObjectCharacteristicsArray(0);
-        doc.setField(RodaConstants.FILE_SIZE, occt.getSize());
-        if (occt.getFixityArray() != null && occt.getFixityArray().length > 0) {
+      if (premisFile.hasObjectCharacteristics()) {
+        doc.setField(RodaConstants.FILE_SIZE, premisFile.getSize());
+        if (!premisFile.getFixities().isEmpty()) {
           List<String> hashes = new ArrayList<>();
-          for (FixityComplexType fct : occt.getFixityArray()) {
+          for (Fixity fixity : premisFile.getFixities()) {
             StringBuilder fixityPrint = new StringBuilder();
-            fixityPrint.append(fct.getMessageDigest());
+            fixityPrint.append(fixity.getMessageDigest());
             fixityPrint.append(" (");
-            fixityPrint.append(fct.getMessageDigestAlgorithm().getStringValue());
-            if (StringUtils.isNotBlank(fct.getMessageDigestOriginator().getStringValue())) {
+            fixityPrint.append(fixity.getMessageDigestAlgorithm());
+            if (StringUtils.isNotBlank(fixity.getMessageDigestOriginator())) {
               fixityPrint.append(", "); //
-              fixityPrint.append(fct.getMessageDigestOriginator().getStringValue());
+              fixityPrint.append(fixity.getMessageDigestOriginator());
             }
             fixityPrint.append(")");
             hashes.add(fixityPrint.toString());
           }
           doc.addField(RodaConstants.FILE_HASH, hashes);
         }
-        if (occt.getFormatArray() != null && occt.getFormatArray().length > 0) {
-          FormatComplexType fct = occt.getFormatArray(0);
-          if (fct.getFormatDesignation() != null) {
-            String format = fct.getFormatDesignation().getFormatName().getStringValue();
-            String formatVersion = fct.getFormatDesignation().getFormatVersion();
+        if (premisFile.hasFormat()) {
+          if (premisFile.hasFormatDesignation()) {
+            String format = premisFile.getFormatName();
+            String formatVersion = premisFile.getFormatVersion();
             String formatDesignation = "";
 
             if (StringUtils.isNotBlank(format)) {
@@ -658,31 +634,34 @@ public final class PremisV3Utils {
             }
           }
 
-          FormatRegistryComplexType pronomRegistry = getFormatRegistry(premisFile,
-            RodaConstants.PRESERVATION_REGISTRY_PRONOM);
-          if (pronomRegistry != null && pronomRegistry.getFormatRegistryKey() != null) {
-            doc.addField(RodaConstants.FILE_PRONOM, pronomRegistry.getFormatRegistryKey().getStringValue());
+          String pronom = premisFile.getFormatRegistryKey(RodaConstants.PRESERVATION_REGISTRY_PRONOM);
+          if (pronom != null) {
+            doc.addField(RodaConstants.FILE_PRONOM, pronom);
           }
-          FormatRegistryComplexType mimeRegistry = getFormatRegistry(premisFile,
-            RodaConstants.PRESERVATION_REGISTRY_MIME);
-          if (mimeRegistry != null && mimeRegistry.getFormatRegistryKey() != null) {
-            doc.addField(RodaConstants.FILE_FORMAT_MIMETYPE, mimeRegistry.getFormatRegistryKey().getStringValue());
+          String mimetype = premisFile.getFormatRegistryKey(RodaConstants.PRESERVATION_REGISTRY_MIME);
+          if (mimetype != null) {
+            doc.addField(RodaConstants.FILE_FORMAT_MIMETYPE, mimetype);
           }
           // TODO extension
         }
-        if (occt.getCreatingApplicationArray() != null && occt.getCreatingApplicationArray().length > 0) {
-          CreatingApplicationComplexType cact = occt.getCreatingApplicationArray(0);
-          if (cact.getCreatingApplicationName() != null) {
-            doc.addField(RodaConstants.FILE_CREATING_APPLICATION_NAME,
-              cact.getCreatingApplicationName().getStringValue());
+        if (premisFile.hasCreatingApplication()) {
+          if (premisFile.getCreatingApplicationName() != null) {
+            doc.addField(RodaConstants.FILE_CREATING_APPLICATION_NAME, premisFile.getCreatingApplicationName());
           }
-          doc.addField(RodaConstants.FILE_CREATING_APPLICATION_VERSION, cact.getCreatingApplicationVersion());
-          doc.addField(RodaConstants.FILE_DATE_CREATED_BY_APPLICATION, cact.getDateCreatedByApplication());
+          doc.addField(RodaConstants.FILE_CREATING_APPLICATION_VERSION, premisFile.getCreatingApplicationVersion());
+          doc.addField(RodaConstants.FILE_DATE_CREATED_BY_APPLICATION, premisFile.getDateCreatedByApplication());
         }
       }
 
-    } catch (XmlException | IOException e) {
+    } catch (IOException e) {
       LOGGER.error("Error updating Solr document", e);
+    } catch (GenericException e) {
+      // malformed PREMIS is only logged, as it was when parsed with XMLBeans
+      if (e.getCause() instanceof XMLStreamException) {
+        LOGGER.error("Error updating Solr document", e);
+      } else {
+        throw e;
+      }
     }
 
     return doc;
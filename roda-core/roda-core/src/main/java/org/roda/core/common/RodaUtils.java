@@ -16,9 +16,12 @@ import java.io.Reader;
 import java.io.StringReader;
 import java.io.StringWriter;
 import java.io.Writer;
+import java.net.URISyntaxException;
+import java.net.URL;
 import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.nio.file.SimpleFileVisitor;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.text.ParseException;
@@ -274,6 +277,46 @@ public class RodaUtils {
     }
   }
 
+  /**
+   * Identifies the stylesheet that
+   * {@link #applyMetadataStylesheet(Binary, String, String, String, Map)} uses
+   * for a metadata type and version. The returned value changes when a
+   * stylesheet is added to, or changed in, the configuration folder, so it can
+   * be used as part of cache keys of the transformation results.
+   */
+  public static String getMetadataStylesheetVersion(String basePath, String metadataType, String metadataVersion) {
+    URL stylesheet = null;
+
+    if (metadataType != null) {
+      String lowerCaseMetadataType = metadataType.toLowerCase();
+      if (metadataVersion != null) {
+        stylesheet = RodaCoreFactory.getConfigurationFile(
+          basePath + lowerCaseMetadataType + RodaConstants.METADATA_VERSION_SEPARATOR + metadataVersion + ".xslt");
+      }
+      if (stylesheet == null) {
+        stylesheet = RodaCoreFactory.getConfigurationFile(basePath + lowerCaseMetadataType + ".xslt");
+      }
+    }
+
+    if (stylesheet == null) {
+      stylesheet = RodaCoreFactory.getConfigurationFile(basePath + "plain.xslt");
+    }
+
+    if (stylesheet == null) {
+      return "";
+    }
+
+    String version = stylesheet.toString();
+    if ("file".equals(stylesheet.getProtocol())) {
+      try {
+        version += "@" + Files.getLastModifiedTime(Paths.get(stylesheet.toURI())).toMillis();
+      } catch (IOException | URISyntaxException e) {
+        LOGGER.debug("Could not get last modified time of stylesheet {}", stylesheet, e);
+      }
+    }
+    return version;
+  }
+
   protected static XsltExecutable createMetadataTransformer(String basePath, String metadataType,
     String metadataVersion) throws SaxonApiException, GenericException {
     InputStream transformerStream = null;
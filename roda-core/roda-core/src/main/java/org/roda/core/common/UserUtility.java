@@ -7,14 +7,15 @@
  */
 package org.roda.core.common;
 
-import java.io.IOException;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.TreeSet;
 import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import javax.servlet.http.HttpServletRequest;
 
@@ -24,7 +25,9 @@ import org.roda.core.data.exceptions.AuthorizationDeniedException;
 import org.roda.core.data.exceptions.GenericException;
 import org.roda.core.data.exceptions.NotFoundException;
 import org.roda.core.data.exceptions.RequestNotValidException;
+import org.roda.core.data.v2.index.IndexResult;
 import org.roda.core.data.v2.index.IsIndexed;
+import org.roda.core.data.v2.index.filter.Filter;
 import org.roda.core.data.v2.index.select.SelectedItems;
 import org.roda.core.data.v2.index.select.SelectedItemsFilter;
 import org.roda.core.data.v2.index.select.SelectedItemsList;
@@ -40,7 +43,6 @@ import org.roda.core.data.v2.user.User;
 import org.roda.core.index.IndexService;
 import org.roda.core.index.schema.SolrCollection;
 import org.roda.core.index.utils.IndexUtils;
-import org.roda.core.index.utils.IterableIndexResult;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -52,6 +54,7 @@ public class UserUtility {
   private static final String REGISTER_ACTIVE_PROPERTY = "ui.register.active";
   private static final String REGISTER_DEFAULT_GROUPS = "ui.register.defaultGroups";
   private static final String REGISTER_DEFAULT_ROLES = "ui.register.defaultRoles";
+  private static final int DENIED_OBJECTS_TO_REPORT = 10;
 
   private static LdapUtility ldapUtility;
 
@@ -279,6 +282,22 @@ public class UserUtility {
     return user.getName().equals(RodaConstants.ADMIN);
   }
 
+  /**
+   * Identifies the set of index objects a user is allowed to read, i.e. two
+   * users with the same fingerprint get the same results from any index query
+   * filtered by permissions. The administrator, who is not filtered, and the
+   * absence of a user have fingerprints of their own.
+   */
+  public static String getPermissionFingerprint(User user) {
+    if (user == null) {
+      return "";
+    } else if (isAdministrator(user)) {
+      return RodaConstants.ADMIN;
+    } else {
+      return user.getId() + "|" + String.join(",", new TreeSet<>(user.getGroups()));
+    }
+  }
+
   public static void checkAIPPermissions(User user, IndexedAIP aip, PermissionType permissionType)
     throws AuthorizationDeniedException {
 
@@ -419,18 +438,9 @@ public class UserUtility {
       return;
     }
 
-    IndexService index = RodaCoreFactory.getIndexService();
     if (selected instanceof SelectedItemsFilter) {
       SelectedItemsFilter<IndexedAIP> selectedItems = (SelectedItemsFilter<IndexedAIP>) selected;
-      try (IterableIndexResult<IndexedAIP> result = index.findAll(IndexedAIP.class, selectedItems.getFilter(),
-        RodaConstants.AIP_PERMISSIONS_FIELDS_TO_RETURN)) {
-
-        for (IndexedAIP aip : result) {
-          checkAIPPermissions(user, aip, permission);
-        }
-      } catch (IOException e) {
-        LOGGER.error("Error getting AIPs to check permissions", e);
-      }
+      checkFilterPermissions(user, IndexedAIP.class, selectedItems.getFilter(), permission);
     } else if (selected instanceof SelectedItemsList) {
       SelectedItemsList<IndexedAIP> selectedItems = (SelectedItemsList<IndexedAIP>) selected;
       List<IndexedAIP> aips = IndexUtils.getIndexedAIPsFromObjectIds(selectedItems);
@@ -450,18 +460,9 @@ public class UserUtility {
       return;
     }
 
-    IndexService index = RodaCoreFactory.getIndexService();
     if (selected instanceof SelectedItemsFilter) {
       SelectedItemsFilter<IndexedDIP> selectedItems = (SelectedItemsFilter<IndexedDIP>) selected;
-      try (IterableIndexResult<IndexedDIP> findAll = index.findAll(IndexedDIP.class, selectedItems.getFilter(),
-        RodaConstants.DIP_PERMISSIONS_FIELDS_TO_RETURN)) {
-
-        for (IndexedDIP dip : findAll) {
-          checkDIPPermissions(user, dip, permission);
-        }
-      } catch (IOException e) {
-        LOGGER.error("Error getting DIPs to check permissions", e);
-      }
+      checkFilterPermissions(user, IndexedDIP.class, selectedItems.getFilter(), permission);
     } else if (selected instanceof SelectedItemsList) {
       SelectedItemsList<IndexedDIP> selectedItems = (SelectedItemsList<IndexedDIP>) selected;
       List<IndexedDIP> dips = IndexUtils.getIndexedDIPsFromObjectIds(selectedItems);
@@ -500,25 +501,9 @@ public class UserUtility {
     Class<T> classToReturn = SelectedItemsUtils.parseClass(selected.getSelectedClass());
     IndexService index = RodaCoreFactory.getIndexService();
     if (selected instanceof SelectedItemsFilter) {
+      // the permissions of the AIP are also indexed with its representations and files
       SelectedItemsFilter<T> selectedItems = (SelectedItemsFilter<T>) selected;
-      try (IterableIndexResult<T> findAll = index.findAll(classToReturn, selectedItems.getFilter(),
-        fieldsToRequestIndex)) {
-
-        for (T obj : findAll) {
-          String aipId = toAIP.apply(obj);
-          IndexedAIP aip;
-          try {
-            aip = index.retrieve(IndexedAIP.class, aipId, RodaConstants.AIP_PERMISSIONS_FIELDS_TO_RETURN);
-            checkAIPPermissions(user, aip, permission);
-          } catch (NotFoundException e) {
-            // conservative approach
-            throw new AuthorizationDeniedException(
-              "Could not verify permissions of object [" + classToReturn.getSimpleName() + "] " + obj.getUUID(), e);
-          }
-        }
-      } catch (IOException e) {
-        LOGGER.error("Error getting objects to check permissions", e);
-      }
+      checkFilterPermissions(user, classToReturn, selectedItems.getFilter(), permission);
     } else if (selected instanceof SelectedItemsList) {
       SelectedItemsList<T> selectedItems = (SelectedItemsList<T>) selected;
 
@@ -547,6 +532,25 @@ public class UserUtility {
     }
   }
 
+  /**
+   * Checks the permissions of all the objects matching a filter with a single
+   * index query, which counts the objects the user does not have the permission
+   * on. As before, only active objects are checked.
+   */
+  private static <T extends IsIndexed> void checkFilterPermissions(User user, Class<T> classToReturn, Filter filter,
+    PermissionType permission) throws AuthorizationDeniedException, GenericException, RequestNotValidException {
+    IndexResult<T> denied = RodaCoreFactory.getIndexService().findWithoutPermission(classToReturn, filter, user, true,
+      permission, DENIED_OBJECTS_TO_REPORT);
+
+    if (denied.getTotalCount() > 0) {
+      List<String> deniedIds = denied.getResults().stream().map(IsIndexed::getUUID).collect(Collectors.toList());
+      LOGGER.debug("User '{}' does not have permissions to {} {} objects [{}], e.g. {}", user.getId(), permission,
+        denied.getTotalCount(), classToReturn.getSimpleName(), deniedIds);
+      throw new AuthorizationDeniedException("The user '" + user.getId() + "' does not have permissions to "
+        + permission + " " + denied.getTotalCount() + " of the selected objects, e.g. " + deniedIds);
+    }
+  }
+
   public static void checkRepresentationPermissions(User user, SelectedItems<IndexedRepresentation> selected,
     PermissionType permission) throws AuthorizationDeniedException, GenericException, RequestNotValidException {
     checkObjectPermissions(user, selected, rep -> rep.getAipId(), permission,
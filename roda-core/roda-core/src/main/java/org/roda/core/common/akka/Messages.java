@@ -115,6 +115,71 @@ public class Messages {
     }
   }
 
+  public static JobsManagerBlockReady newJobsManagerBlockReady(String jobId) {
+    return INSTANCE.new JobsManagerBlockReady(jobId);
+  }
+
+  public final class JobsManagerBlockReady extends AbstractMessage {
+    private static final long serialVersionUID = 3530311532592325402L;
+
+    private String jobId;
+
+    public JobsManagerBlockReady(String jobId) {
+      super();
+      this.jobId = jobId;
+    }
+
+    public String getJobId() {
+      return jobId;
+    }
+
+    @Override
+    public String toString() {
+      return "JobsManagerBlockReady [jobId=" + jobId + "]";
+    }
+  }
+
+  public static JobsManagerBlockGranted newJobsManagerBlockGranted() {
+    return INSTANCE.new JobsManagerBlockGranted();
+  }
+
+  public final class JobsManagerBlockGranted extends AbstractMessage {
+    private static final long serialVersionUID = -1843327496372046522L;
+
+    public JobsManagerBlockGranted() {
+      super();
+    }
+
+    @Override
+    public String toString() {
+      return "JobsManagerBlockGranted []";
+    }
+  }
+
+  public static JobsManagerBlockDone newJobsManagerBlockDone(String jobId) {
+    return INSTANCE.new JobsManagerBlockDone(jobId);
+  }
+
+  public final class JobsManagerBlockDone extends AbstractMessage {
+    private static final long serialVersionUID = 6280727446315305398L;
+
+    private String jobId;
+
+    public JobsManagerBlockDone(String jobId) {
+      super();
+      this.jobId = jobId;
+    }
+
+    public String getJobId() {
+      return jobId;
+    }
+
+    @Override
+    public String toString() {
+      return "JobsManagerBlockDone [jobId=" + jobId + "]";
+    }
+  }
+
   public static JobsManagerAcquireLock newJobsManagerAcquireLock(List<String> lites, boolean waitForLockIfLocked,
     int secondsToExpire, String requestUuid) {
     return INSTANCE.new JobsManagerAcquireLock(lites, waitForLockIfLocked, secondsToExpire, requestUuid);
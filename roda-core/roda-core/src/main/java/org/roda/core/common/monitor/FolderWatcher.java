@@ -0,0 +1,151 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/roda
+ */
+package org.roda.core.common.monitor;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Watches a folder, and its sub-folders up to a maximum depth, and runs the
+ * given action once changes stop arriving for the debounce time, so that files
+ * still being copied are not processed.
+ */
+public class FolderWatcher implements Closeable {
+  private static final Logger LOGGER = LoggerFactory.getLogger(FolderWatcher.class);
+
+  private final String name;
+  private final Path folder;
+  private final int maxDepth;
+  private final long debounceInMillis;
+  private final Runnable onChange;
+
+  private final WatchService watchService;
+  private final Map<WatchKey, Path> watchedFolders = new ConcurrentHashMap<>();
+  private final AtomicBoolean changed = new AtomicBoolean(false);
+  private final Thread watchThread;
+  private final ScheduledExecutorService debouncer;
+  private volatile long lastChange = 0;
+
+  /**
+   * @param maxDepth
+   *          the depth of the sub-folders to watch, 0 to watch only the folder
+   *          itself
+   */
+  public FolderWatcher(String name, Path folder, int maxDepth, long debounceInMillis, Runnable onChange)
+    throws IOException {
+    this.name = name;
+    this.folder = folder;
+    this.maxDepth = maxDepth;
+    this.debounceInMillis = debounceInMillis;
+    this.onChange = onChange;
+    this.watchService = FileSystems.getDefault().newWatchService();
+    this.watchThread = new Thread(this::watch, name + "Watcher");
+    this.watchThread.setDaemon(true);
+    this.debouncer = Executors.newSingleThreadScheduledExecutor(
+      new ThreadFactoryBuilder().setNameFormat(name + "WatcherDebouncer").setDaemon(true).build());
+  }
+
+  public void start() throws IOException {
+    register(folder);
+    watchThread.start();
+    debouncer.scheduleWithFixedDelay(this::runIfQuiet, debounceInMillis, debounceInMillis, TimeUnit.MILLISECONDS);
+    LOGGER.info("Watching {} folders of {} ({})", watchedFolders.size(), folder, name);
+  }
+
+  private void register(Path path) throws IOException {
+    if (!path.equals(folder) && folder.relativize(path).getNameCount() > maxDepth) {
+      return;
+    }
+
+    WatchKey key = path.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+      StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+    watchedFolders.put(key, path);
+
+    try (Stream<Path> children = Files.list(path)) {
+      for (Path child : (Iterable<Path>) children::iterator) {
+        if (Files.isDirectory(child, LinkOption.NOFOLLOW_LINKS)) {
+          register(child);
+        }
+      }
+    }
+  }
+
+  private void watch() {
+    while (true) {
+      WatchKey key;
+      try {
+        key = watchService.take();
+      } catch (InterruptedException | ClosedWatchServiceException e) {
+        return;
+      }
+
+      Path watchedFolder = watchedFolders.get(key);
+      for (WatchEvent<?> event : key.pollEvents()) {
+        if (watchedFolder != null && event.kind() == StandardWatchEventKinds.ENTRY_CREATE) {
+          Path path = watchedFolder.resolve((Path) event.context());
+          if (Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)) {
+            try {
+              register(path);
+            } catch (IOException e) {
+              LOGGER.debug("Could not watch new folder {}", path, e);
+            }
+          }
+        }
+      }
+      lastChange = System.currentTimeMillis();
+      changed.set(true);
+
+      if (!key.reset()) {
+        // the folder was deleted
+        watchedFolders.remove(key);
+      }
+    }
+  }
+
+  private void runIfQuiet() {
+    if (changed.get() && System.currentTimeMillis() - lastChange >= debounceInMillis && changed.compareAndSet(true,
+      false)) {
+      try {
+        onChange.run();
+      } catch (RuntimeException e) {
+        LOGGER.error("Error processing changes of {} ({})", folder, name, e);
+      }
+    }
+  }
+
+  @Override
+  public void close() {
+    debouncer.shutdownNow();
+    try {
+      watchService.close();
+    } catch (IOException e) {
+      LOGGER.debug("Error closing watch service of {}", folder, e);
+    }
+  }
+}
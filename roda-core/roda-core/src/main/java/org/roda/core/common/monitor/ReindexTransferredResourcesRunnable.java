@@ -8,6 +8,8 @@
 package org.roda.core.common.monitor;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
 import java.nio.file.FileVisitOption;
 import java.nio.file.FileVisitResult;
 import java.nio.file.FileVisitor;
@@ -15,11 +17,24 @@ import java.nio.file.Files;
 import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardOpenOption;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 
 import org.roda.core.RodaCoreFactory;
 import org.roda.core.data.common.RodaConstants;
@@ -34,28 +49,59 @@ import org.roda.core.index.utils.SolrUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Reindexes all the transferred resources of a folder, or of the whole
+ * transfer area, walking its sub-folders in parallel and sending the resources
+ * to the index in batches.
+ *
+ * The progress of a reindex of the whole transfer area is checkpointed after
+ * each of its top-level folders, so that a reindex interrupted, e.g. by a
+ * restart, resumes where it stopped. A top-level folder already indexed is
+ * walked again, without indexing it, to check that nothing in it was modified
+ * after it was indexed, and is indexed again otherwise.
+ */
 public class ReindexTransferredResourcesRunnable implements Runnable {
   private static final Logger LOGGER = LoggerFactory.getLogger(ReindexTransferredResourcesRunnable.class);
 
+  private static final String CHECKPOINT_FILE = ".transferred_resources_reindex.checkpoint";
+  private static final char CHECKPOINT_SEPARATOR = '\t';
+
   private Path basePath;
   private Optional<String> folderRelativePath;
   private IndexService index;
+  private final int threads;
+  private final int batchSize;
+  private final Consumer<Path> folderVisitor;
 
   public ReindexTransferredResourcesRunnable(IndexService index, Path basePath, Optional<String> folderRelativePath) {
+    this(index, basePath, folderRelativePath, folder -> {
+    });
+  }
+
+  /**
+   * @param folderVisitor
+   *          called with every folder walked, e.g. to watch it.
+   */
+  public ReindexTransferredResourcesRunnable(IndexService index, Path basePath, Optional<String> folderRelativePath,
+    Consumer<Path> folderVisitor) {
     this.basePath = basePath;
+    this.folderVisitor = folderVisitor;
     this.index = index;
     this.folderRelativePath = folderRelativePath;
+    this.threads = RodaCoreFactory.getRodaConfigurationAsInt(4, "core", "transferred_resources", "reindex", "threads");
+    this.batchSize = RodaCoreFactory.getRodaConfigurationAsInt(1000, "core", "transferred_resources", "reindex",
+      "batch_size");
   }
 
   @Override
   public void run() {
 
     long start = System.currentTimeMillis();
-    Date lastScanDate = new Date();
     RodaCoreFactory.setTransferredResourcesScannerUpdateStatus(folderRelativePath, true);
 
     try {
-      EnumSet<FileVisitOption> opts = EnumSet.of(FileVisitOption.FOLLOW_LINKS);
       Path path;
       if (folderRelativePath.isPresent()) {
         Path resolvedBasePath = basePath.resolve(Paths.get(folderRelativePath.get()));
@@ -70,64 +116,11 @@ public class ReindexTransferredResourcesRunnable implements Runnable {
         path = basePath;
       }
 
-      LOGGER.info("Start indexing transferred resources {}", path);
-      Files.walkFileTree(path, opts, Integer.MAX_VALUE, new FileVisitor<Path>() {
-
-        ArrayDeque<BasicFileAttributes> actualDirectoryAttributesStack = new ArrayDeque<>();
-        ArrayDeque<Long> fileSizeStack = new ArrayDeque<>();
-
-        @Override
-        public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
-          actualDirectoryAttributesStack.push(attrs);
-          fileSizeStack.push(0L);
-          return FileVisitResult.CONTINUE;
-        }
-
-        @Override
-        public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
-          try {
-            long size = Files.size(file);
-            long actualSize = fileSizeStack.pop();
-            fileSizeStack.push(actualSize + size);
-            TransferredResource resource = TransferredResourcesScanner.createTransferredResource(file, attrs, size,
-              basePath, lastScanDate);
-            index.create(TransferredResource.class, resource);
-          } catch (NoSuchFileException | AuthorizationDeniedException e) {
-            // can be a broken symlink (do nothing)
-            // can be unauthorized action (do nothing)
-          }
-
-          return FileVisitResult.CONTINUE;
-        }
-
-        @Override
-        public FileVisitResult visitFileFailed(Path file, IOException exc) {
-          return FileVisitResult.CONTINUE;
-        }
-
-        @Override
-        public FileVisitResult postVisitDirectory(Path dir, IOException exc) {
-          if (!dir.equals(basePath)) {
-            BasicFileAttributes actualDirectoryAttributes = actualDirectoryAttributesStack.pop();
-            long fileSize = fileSizeStack.pop();
-            TransferredResource resource = TransferredResourcesScanner.createTransferredResource(dir,
-              actualDirectoryAttributes, fileSize, basePath, lastScanDate);
-
-            if (!fileSizeStack.isEmpty()) {
-              long actualSize = fileSizeStack.pop();
-              fileSizeStack.push(actualSize + fileSize);
-            }
+      Checkpoint checkpoint = path.equals(basePath) ? loadCheckpoint(getCheckpointPath()) : null;
+      Date lastScanDate = checkpoint != null ? checkpoint.lastScanDate : new Date();
 
-            try {
-              index.create(TransferredResource.class, resource);
-            } catch (AuthorizationDeniedException e) {
-              // do nothing & carry on
-            }
-          }
-
-          return FileVisitResult.CONTINUE;
-        }
-      });
+      LOGGER.info("Start indexing transferred resources {}", path);
+      walkFolder(path, lastScanDate, checkpoint);
 
       index.commit(TransferredResource.class);
 
@@ -144,11 +137,293 @@ public class ReindexTransferredResourcesRunnable implements Runnable {
 
       index.delete(TransferredResource.class, filter);
       index.commit(TransferredResource.class);
+      if (checkpoint != null) {
+        checkpoint.delete();
+      }
       LOGGER.info("End indexing Transferred Resources. Time elapsed: {} seconds",
         (System.currentTimeMillis() - start) / 1000);
-      RodaCoreFactory.setTransferredResourcesScannerUpdateStatus(folderRelativePath, false);
     } catch (IOException | GenericException | RuntimeException | AuthorizationDeniedException e) {
       LOGGER.error("Error reindexing Transferred Resources", e);
+    } finally {
+      RodaCoreFactory.setTransferredResourcesScannerUpdateStatus(folderRelativePath, false);
+    }
+  }
+
+  private Path getCheckpointPath() {
+    return RodaCoreFactory.getDataPath() != null ? RodaCoreFactory.getDataPath().resolve(CHECKPOINT_FILE) : null;
+  }
+
+  /**
+   * Indexes the files of the folder and, in parallel, its sub-folders.
+   */
+  private void walkFolder(Path folder, Date lastScanDate, Checkpoint checkpoint)
+    throws IOException, AuthorizationDeniedException, GenericException {
+    ExecutorService executor = Executors.newFixedThreadPool(threads,
+      new ThreadFactoryBuilder().setNameFormat("ReindexThread-%d").setDaemon(true).build());
+    Batch batch = new Batch();
+    List<Future<Long>> subFolders = new ArrayList<>();
+    long size = 0;
+
+    folderVisitor.accept(folder);
+    try {
+      try (DirectoryStream<Path> children = Files.newDirectoryStream(folder)) {
+        for (Path child : children) {
+          if (TransferredResourcesUploads.isPartial(child)) {
+            continue;
+          } else if (Files.isDirectory(child)) {
+            subFolders.add(executor.submit(() -> {
+              if (checkpoint != null && checkpoint.isUnchanged(child)) {
+                return 0L;
+              }
+              return walkSubFolder(child, lastScanDate, checkpoint);
+            }));
+          } else {
+            try {
+              BasicFileAttributes attrs = Files.readAttributes(child, BasicFileAttributes.class);
+              size += attrs.size();
+              batch.add(TransferredResourcesScanner.createTransferredResource(child, attrs, attrs.size(), basePath,
+                lastScanDate));
+            } catch (NoSuchFileException e) {
+              // can be a broken symlink (do nothing)
+            }
+          }
+        }
+      }
+
+      for (Future<Long> subFolder : subFolders) {
+        size += subFolder.get();
+      }
+
+      if (!folder.equals(basePath)) {
+        batch.add(TransferredResourcesScanner.createTransferredResource(folder,
+          Files.readAttributes(folder, BasicFileAttributes.class), size, basePath, lastScanDate));
+      }
+      batch.flush();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new GenericException("Interrupted while indexing transferred resources", e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      } else if (cause instanceof AuthorizationDeniedException) {
+        throw (AuthorizationDeniedException) cause;
+      }
+      throw new GenericException("Error indexing transferred resources", cause);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Indexes the sub-folder and all its descendants.
+   *
+   * @return the size of the sub-folder
+   */
+  private long walkSubFolder(Path subFolder, Date lastScanDate, Checkpoint checkpoint)
+    throws IOException, AuthorizationDeniedException {
+    long start = System.currentTimeMillis();
+    Batch batch = new Batch();
+    ArrayDeque<Long> subFolderSize = new ArrayDeque<>();
+
+    EnumSet<FileVisitOption> opts = EnumSet.of(FileVisitOption.FOLLOW_LINKS);
+    Files.walkFileTree(subFolder, opts, Integer.MAX_VALUE, new FileVisitor<Path>() {
+
+      ArrayDeque<BasicFileAttributes> actualDirectoryAttributesStack = new ArrayDeque<>();
+      ArrayDeque<Long> fileSizeStack = new ArrayDeque<>();
+
+      @Override
+      public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+        folderVisitor.accept(dir);
+        actualDirectoryAttributesStack.push(attrs);
+        fileSizeStack.push(0L);
+        return FileVisitResult.CONTINUE;
+      }
+
+      @Override
+      public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+        if (TransferredResourcesUploads.isPartial(file)) {
+          return FileVisitResult.CONTINUE;
+        }
+
+        try {
+          long size = Files.size(file);
+          long actualSize = fileSizeStack.pop();
+          fileSizeStack.push(actualSize + size);
+          batch.add(
+            TransferredResourcesScanner.createTransferredResource(file, attrs, size, basePath, lastScanDate));
+        } catch (NoSuchFileException | AuthorizationDeniedException e) {
+          // can be a broken symlink (do nothing)
+          // can be unauthorized action (do nothing)
+        }
+
+        return FileVisitResult.CONTINUE;
+      }
+
+      @Override
+      public FileVisitResult visitFileFailed(Path file, IOException exc) {
+        return FileVisitResult.CONTINUE;
+      }
+
+      @Override
+      public FileVisitResult postVisitDirectory(Path dir, IOException exc) {
+        BasicFileAttributes actualDirectoryAttributes = actualDirectoryAttributesStack.pop();
+        long fileSize = fileSizeStack.pop();
+        TransferredResource resource = TransferredResourcesScanner.createTransferredResource(dir,
+          actualDirectoryAttributes, fileSize, basePath, lastScanDate);
+
+        if (!fileSizeStack.isEmpty()) {
+          long actualSize = fileSizeStack.pop();
+          fileSizeStack.push(actualSize + fileSize);
+        } else {
+          subFolderSize.push(fileSize);
+        }
+
+        try {
+          batch.add(resource);
+        } catch (AuthorizationDeniedException e) {
+          // do nothing & carry on
+        }
+
+        return FileVisitResult.CONTINUE;
+      }
+    });
+
+    batch.flush();
+    if (checkpoint != null) {
+      checkpoint.done(subFolder, start);
+    }
+    return subFolderSize.isEmpty() ? 0L : subFolderSize.pop();
+  }
+
+  private final class Batch {
+    private final List<TransferredResource> resources = new ArrayList<>();
+
+    private void add(TransferredResource resource) throws AuthorizationDeniedException {
+      resources.add(resource);
+      if (resources.size() >= batchSize) {
+        flush();
+      }
+    }
+
+    private void flush() throws AuthorizationDeniedException {
+      index.createAll(TransferredResource.class, resources);
+      resources.clear();
+    }
+  }
+
+  /**
+   * The scan date and the top-level folders already indexed by a reindex of the
+   * whole transfer area, stored in a file with the scan date in the first line
+   * and a folder, and the time its indexing started, in each of the following
+   * ones.
+   */
+  private final class Checkpoint {
+    private final Path file;
+    private final Date lastScanDate;
+    private final Map<String, Long> done;
+
+    private Checkpoint(Path file, Date lastScanDate, Map<String, Long> done) {
+      this.file = file;
+      this.lastScanDate = lastScanDate;
+      this.done = done;
+    }
+
+    /**
+     * Whether the top-level folder was indexed and nothing in it was created,
+     * deleted or modified since then, walking it to compare the modification
+     * times of its files and folders.
+     */
+    private boolean isUnchanged(Path folder) throws IOException {
+      Long indexed = done.get(folder.getFileName().toString());
+      if (indexed == null) {
+        return false;
+      }
+
+      AtomicBoolean unchanged = new AtomicBoolean(true);
+      Files.walkFileTree(folder, EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE,
+        new SimpleFileVisitor<Path>() {
+          @Override
+          public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+            folderVisitor.accept(dir);
+            return visit(attrs);
+          }
+
+          @Override
+          public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+            return visit(attrs);
+          }
+
+          @Override
+          public FileVisitResult visitFileFailed(Path file, IOException exc) {
+            return FileVisitResult.CONTINUE;
+          }
+
+          private FileVisitResult visit(BasicFileAttributes attrs) {
+            if (attrs.lastModifiedTime().toMillis() >= indexed) {
+              unchanged.set(false);
+              return FileVisitResult.TERMINATE;
+            }
+            return FileVisitResult.CONTINUE;
+          }
+        });
+
+      if (!unchanged.get()) {
+        LOGGER.info("Transferred resources folder {} was modified after it was indexed, indexing it again", folder);
+      }
+      return unchanged.get();
+    }
+
+    private void done(Path folder, long indexed) {
+      String name = folder.getFileName().toString();
+      done.put(name, indexed);
+      try {
+        synchronized (this) {
+          Files.write(file, Collections.singletonList(name + CHECKPOINT_SEPARATOR + indexed), StandardCharsets.UTF_8,
+            StandardOpenOption.APPEND);
+        }
+      } catch (IOException e) {
+        LOGGER.warn("Could not update reindex checkpoint file {}", file, e);
+      }
+    }
+
+    private void delete() {
+      try {
+        Files.deleteIfExists(file);
+      } catch (IOException e) {
+        LOGGER.warn("Could not delete reindex checkpoint file {}", file, e);
+      }
+    }
+  }
+
+  private Checkpoint loadCheckpoint(Path file) {
+    if (file == null) {
+      return null;
+    }
+
+    try {
+      if (Files.exists(file)) {
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        if (!lines.isEmpty()) {
+          Map<String, Long> done = new ConcurrentHashMap<>();
+          for (String line : lines.subList(1, lines.size())) {
+            int separator = line.lastIndexOf(CHECKPOINT_SEPARATOR);
+            if (separator > 0) {
+              done.put(line.substring(0, separator), Long.parseLong(line.substring(separator + 1)));
+            }
+          }
+          LOGGER.info("Resuming interrupted reindex of transferred resources, {} folders already indexed",
+            done.size());
+          return new Checkpoint(file, new Date(Long.parseLong(lines.get(0))), done);
+        }
+      }
+
+      Date lastScanDate = new Date();
+      Files.write(file, Collections.singletonList(Long.toString(lastScanDate.getTime())), StandardCharsets.UTF_8);
+      return new Checkpoint(file, lastScanDate, new ConcurrentHashMap<>());
+    } catch (IOException | NumberFormatException e) {
+      LOGGER.warn("Could not use reindex checkpoint file {}", file, e);
+      return null;
     }
   }
-}
\ No newline at end of file
+}
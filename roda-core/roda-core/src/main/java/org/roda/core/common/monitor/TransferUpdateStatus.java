@@ -57,6 +57,13 @@ public class TransferUpdateStatus {
     return ret;
   }
 
+  /**
+   * @return true if the transfer area, or any of its folders, is being updated
+   */
+  public boolean isUpdatingAny() {
+    return isUpdatingBaseStatus || !isUpdatingFolderStatus.isEmpty();
+  }
+
   public void setUpdatingStatus(Optional<String> folderRelativePath, boolean isUpdatingStatus) {
     if (folderRelativePath.isPresent()) {
       if (isUpdatingStatus) {
@@ -0,0 +1,96 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/roda
+ */
+package org.roda.core.common.monitor;
+
+import java.io.Serializable;
+import java.util.Date;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+/**
+ * A resumable upload of a file into the transfer area (see
+ * {@link TransferredResourcesUploads}).
+ */
+public class TransferredResourceUpload implements Serializable {
+  private static final long serialVersionUID = -2297539043437398157L;
+
+  private String id;
+  private String relativePath;
+  private long length;
+  private long offset;
+  private Date creationDate;
+
+  public TransferredResourceUpload() {
+    // do nothing
+  }
+
+  public TransferredResourceUpload(String id, String relativePath, long length, Date creationDate) {
+    this.id = id;
+    this.relativePath = relativePath;
+    this.length = length;
+    this.offset = 0L;
+    this.creationDate = creationDate;
+  }
+
+  public String getId() {
+    return id;
+  }
+
+  public void setId(String id) {
+    this.id = id;
+  }
+
+  /**
+   * @return the path of the uploaded file, relative to the transfer area.
+   */
+  public String getRelativePath() {
+    return relativePath;
+  }
+
+  public void setRelativePath(String relativePath) {
+    this.relativePath = relativePath;
+  }
+
+  public long getLength() {
+    return length;
+  }
+
+  public void setLength(long length) {
+    this.length = length;
+  }
+
+  /**
+   * @return the number of bytes received so far.
+   */
+  public long getOffset() {
+    return offset;
+  }
+
+  public void setOffset(long offset) {
+    this.offset = offset;
+  }
+
+  public Date getCreationDate() {
+    return creationDate;
+  }
+
+  public void setCreationDate(Date creationDate) {
+    this.creationDate = creationDate;
+  }
+
+  @JsonIgnore
+  public boolean isComplete() {
+    return offset == length;
+  }
+
+  @Override
+  public String toString() {
+    return "TransferredResourceUpload [id=" + id + ", relativePath=" + relativePath + ", length=" + length
+      + ", offset=" + offset + ", creationDate=" + creationDate + "]";
+  }
+}
@@ -7,6 +7,7 @@
  */
 package org.roda.core.common.monitor;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.*;
@@ -15,6 +16,8 @@ import java.util.*;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+import org.apache.commons.configuration.Configuration;
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.roda.core.RodaCoreFactory;
 import org.roda.core.common.iterables.CloseableIterable;
@@ -38,10 +41,13 @@ public class TransferredResourcesScanner {
   private static final Logger LOGGER = LoggerFactory.getLogger(TransferredResourcesScanner.class);
   private static final List<String> fieldsToReturn = Arrays.asList(RodaConstants.INDEX_UUID,
     RodaConstants.TRANSFERRED_RESOURCE_RELATIVEPATH);
+  private static final String UPLOADS_FOLDER = "transferred-resources-uploads";
 
   private final Path basePath;
   private IndexService index;
   private NodeType nodeType;
+  private TransferredResourcesWatcher watcher = null;
+  private TransferredResourcesUploads uploads = null;
 
   public TransferredResourcesScanner(Path basePath, IndexService index, NodeType nodeType) {
     this.basePath = basePath;
@@ -49,6 +55,47 @@ public class TransferredResourcesScanner {
     this.nodeType = nodeType;
   }
 
+  /**
+   * Starts keeping the index up to date with the changes to the transfer area
+   * notified by the file system, reindexing it first if configured to.
+   */
+  public void startWatching() {
+    if (watcher != null || !RodaCoreFactory.checkIfWriteIsAllowed(nodeType)) {
+      return;
+    }
+
+    Configuration configuration = RodaCoreFactory.getRodaConfiguration();
+    boolean reindexOnStartup = configuration.getBoolean("core.transferred_resources.watch.reindex_on_startup",
+      true);
+    try {
+      watcher = new TransferredResourcesWatcher(this, index,
+        configuration.getLong("core.transferred_resources.watch.debounce_ms", 1000L),
+        configuration.getLong("core.transferred_resources.watch.max_delay_ms", 10000L),
+        configuration.getInt("core.transferred_resources.watch.batch_size", 1000));
+      // the startup reindex registers the folders as it walks them, so that
+      // the transfer area is walked only once
+      watcher.start(!reindexOnStartup);
+    } catch (IOException e) {
+      LOGGER.error("Could not watch the transfer area, it will only be updated when reindexed", e);
+      stopWatching();
+      return;
+    }
+
+    if (reindexOnStartup) {
+      Thread threadReindex = new Thread(
+        new ReindexTransferredResourcesRunnable(index, basePath, Optional.empty(), watcher::register),
+        "ReindexThread");
+      threadReindex.start();
+    }
+  }
+
+  public void stopWatching() {
+    if (watcher != null) {
+      IOUtils.closeQuietly(watcher);
+      watcher = null;
+    }
+  }
+
   public void commit() throws GenericException, AuthorizationDeniedException {
     index.commit(TransferredResource.class);
   }
@@ -117,6 +164,83 @@ public class TransferredResourcesScanner {
     }
   }
 
+  /**
+   * Creates a resumable upload of a file with the given length (see
+   * {@link TransferredResourcesUploads}).
+   */
+  public TransferredResourceUpload createUpload(String parentUUID, String fileName, long length)
+    throws GenericException, NotFoundException, AlreadyExistsException, RequestNotValidException,
+    AuthorizationDeniedException, IsStillUpdatingException {
+    RodaCoreFactory.checkIfWriteIsAllowedAndIfFalseThrowException(nodeType);
+
+    if (StringUtils.isBlank(fileName) || fileName.contains("/") || fileName.contains("\\")) {
+      throw new RequestNotValidException("Invalid file name: " + fileName);
+    }
+
+    Path parentPath;
+    if (StringUtils.isNotBlank(parentUUID)) {
+      TransferredResource parent = index.retrieve(TransferredResource.class, parentUUID, fieldsToReturn);
+      parentPath = basePath.resolve(parent.getRelativePath());
+    } else {
+      parentPath = basePath;
+    }
+
+    TransferredResourceUpload upload = getUploads().create(parentPath.resolve(fileName), length);
+    if (upload.isComplete()) {
+      // nothing to receive
+      upload = appendToUpload(upload.getId(), 0L, new ByteArrayInputStream(new byte[0]));
+    }
+    return upload;
+  }
+
+  public TransferredResourceUpload retrieveUpload(String uploadId) throws NotFoundException, GenericException {
+    return getUploads().retrieve(uploadId);
+  }
+
+  /**
+   * Appends the content to the upload, indexing the uploaded file when it
+   * completes.
+   */
+  public TransferredResourceUpload appendToUpload(String uploadId, long offset, InputStream content)
+    throws GenericException, NotFoundException, AlreadyExistsException, RequestNotValidException,
+    AuthorizationDeniedException, IsStillUpdatingException {
+    RodaCoreFactory.checkIfWriteIsAllowedAndIfFalseThrowException(nodeType);
+
+    TransferredResourceUpload upload = getUploads().append(uploadId, offset, content);
+    if (upload.isComplete()) {
+      Path file = basePath.resolve(upload.getRelativePath());
+      try {
+        BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+        index.create(TransferredResource.class,
+          createTransferredResource(file, attrs, attrs.size(), basePath, new Date()));
+      } catch (IOException e) {
+        throw new GenericException("Cannot index uploaded file", e);
+      }
+    }
+    return upload;
+  }
+
+  public void deleteUpload(String uploadId)
+    throws GenericException, NotFoundException, AuthorizationDeniedException, IsStillUpdatingException {
+    RodaCoreFactory.checkIfWriteIsAllowedAndIfFalseThrowException(nodeType);
+    getUploads().delete(uploadId);
+  }
+
+  private synchronized TransferredResourcesUploads getUploads() {
+    if (uploads == null) {
+      List<String> algorithms = RodaCoreFactory.getRodaConfigurationAsList("core", "transferred_resources", "upload",
+        "digest_algorithms");
+      if (algorithms.isEmpty()) {
+        algorithms = RodaCoreFactory.getFixityAlgorithms();
+      }
+      long expiration = RodaCoreFactory.getRodaConfiguration()
+        .getLong("core.transferred_resources.upload.expiration_hours", 24L) * 60 * 60 * 1000;
+      uploads = new TransferredResourcesUploads(basePath, RodaCoreFactory.getDataPath().resolve(UPLOADS_FOLDER),
+        algorithms, expiration);
+    }
+    return uploads;
+  }
+
   public InputStream retrieveFile(String path) throws NotFoundException, RequestNotValidException, GenericException {
     InputStream ret;
     Path p = basePath.resolve(path);
@@ -216,8 +340,27 @@ public class TransferredResourcesScanner {
     index.commit(TransferredResource.class);
   }
 
+  /**
+   * Brings the index of the transferred resources of a folder, or of the whole
+   * transfer area, up to date: by indexing the changes collected so far, if the
+   * transfer area is being watched, or by reindexing the folder otherwise.
+   */
   public Optional<String> updateTransferredResources(Optional<String> folderRelativePath, boolean waitToFinish)
     throws IsStillUpdatingException, GenericException, AuthorizationDeniedException {
+    return updateTransferredResources(folderRelativePath, waitToFinish, false);
+  }
+
+  /**
+   * Reindexes the transferred resources of a folder, or of the whole transfer
+   * area, walking all its files.
+   */
+  public Optional<String> reindexTransferredResources(Optional<String> folderRelativePath, boolean waitToFinish)
+    throws IsStillUpdatingException, GenericException, AuthorizationDeniedException {
+    return updateTransferredResources(folderRelativePath, waitToFinish, true);
+  }
+
+  private Optional<String> updateTransferredResources(Optional<String> folderRelativePath, boolean waitToFinish,
+    boolean reindex) throws IsStillUpdatingException, GenericException, AuthorizationDeniedException {
     RodaCoreFactory.checkIfWriteIsAllowedAndIfFalseThrowException(nodeType);
     boolean isWithin;
     Path resolvedBasePath;
@@ -236,7 +379,9 @@ public class TransferredResourcesScanner {
     }
     if (isWithin) {
       if (!RodaCoreFactory.getTransferredResourcesScannerUpdateStatus(folderRelativePath)) {
-        if (index != null) {
+        if (watcher != null && !reindex) {
+          watcher.flush();
+        } else if (index != null) {
           ReindexTransferredResourcesRunnable reindexRunnable = new ReindexTransferredResourcesRunnable(index, basePath,
                   folderRelativePath);
 
@@ -0,0 +1,347 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/roda
+ */
+package org.roda.core.common.monitor;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import org.roda.core.data.exceptions.AlreadyExistsException;
+import org.roda.core.data.exceptions.GenericException;
+import org.roda.core.data.exceptions.IsStillUpdatingException;
+import org.roda.core.data.exceptions.NotFoundException;
+import org.roda.core.data.exceptions.RequestNotValidException;
+import org.roda.core.data.utils.JsonUtils;
+import org.roda.core.storage.fs.FSUtils;
+import org.roda.core.util.IdUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Resumable uploads of files into the transfer area, following the tus
+ * protocol (https://tus.io): an upload is created with the length of the file,
+ * its content is then appended in one or more chunks, each starting at the
+ * offset received so far, and the upload completes when all bytes arrive.
+ *
+ * The content is written to a partial file next to the final one, which is
+ * renamed when the upload completes, and the configured digests are computed
+ * as the bytes arrive. Those digests are recorded with the file (see
+ * {@link FSUtils#writeContentDigests(Path, Map)}) so that ingest does not
+ * compute them again. The state of each upload is kept in the uploads folder,
+ * so uploads can be resumed after a restart.
+ */
+public class TransferredResourcesUploads {
+  private static final Logger LOGGER = LoggerFactory.getLogger(TransferredResourcesUploads.class);
+
+  private static final String STATE_SUFFIX = ".json";
+  private static final String PARTIAL_SUFFIX = ".part";
+  private static final String ID_REGEX = "[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}";
+  private static final Pattern ID_PATTERN = Pattern.compile(ID_REGEX);
+  private static final Pattern PARTIAL_PATTERN = Pattern.compile("\\..+\\." + ID_REGEX + "\\" + PARTIAL_SUFFIX);
+  private static final int BUFFER_SIZE = 1024 * 1024;
+
+  private final Path basePath;
+  private final Path uploadsPath;
+  private final List<String> algorithms;
+  private final long expirationInMillis;
+  private final Map<String, Digester> digesters = new ConcurrentHashMap<>();
+
+  /**
+   * @param basePath
+   *          the transfer area.
+   * @param uploadsPath
+   *          the folder where the state of the uploads is kept.
+   * @param algorithms
+   *          the digest algorithms to compute, e.g. SHA-256.
+   * @param expirationInMillis
+   *          the time after which an upload that received no more bytes is
+   *          deleted, or 0 to keep it until it completes.
+   */
+  public TransferredResourcesUploads(Path basePath, Path uploadsPath, List<String> algorithms,
+    long expirationInMillis) {
+    this.basePath = basePath;
+    this.uploadsPath = uploadsPath;
+    this.algorithms = new ArrayList<>(algorithms);
+    this.expirationInMillis = expirationInMillis;
+  }
+
+  public TransferredResourceUpload create(Path file, long length)
+    throws AlreadyExistsException, RequestNotValidException, GenericException {
+    if (length < 0) {
+      throw new RequestNotValidException("Invalid upload length: " + length);
+    }
+    if (!file.normalize().startsWith(basePath) || file.normalize().equals(basePath)) {
+      throw new RequestNotValidException("Invalid upload path: " + file);
+    }
+    if (FSUtils.exists(file)) {
+      throw new AlreadyExistsException(file.toString());
+    }
+
+    deleteExpired();
+
+    TransferredResourceUpload upload = new TransferredResourceUpload(IdUtils.createUUID(),
+      basePath.relativize(file.normalize()).toString(), length, new Date());
+    try {
+      Files.createDirectories(uploadsPath);
+      Files.createDirectories(file.getParent());
+      Files.createFile(getPartialPath(upload));
+      JsonUtils.writeObjectToFile(upload, getStatePath(upload.getId()));
+    } catch (IOException e) {
+      throw new GenericException("Could not create upload of " + file, e);
+    }
+
+    LOGGER.debug("Created upload {}", upload);
+    return upload;
+  }
+
+  public TransferredResourceUpload retrieve(String id) throws NotFoundException, GenericException {
+    if (!ID_PATTERN.matcher(id).matches()) {
+      throw new NotFoundException("Upload not found: " + id);
+    }
+
+    Path statePath = getStatePath(id);
+    if (!FSUtils.exists(statePath)) {
+      throw new NotFoundException("Upload not found: " + id);
+    }
+
+    TransferredResourceUpload upload = JsonUtils.readObjectFromFile(statePath, TransferredResourceUpload.class);
+    try {
+      upload.setOffset(Files.size(getPartialPath(upload)));
+    } catch (IOException e) {
+      throw new NotFoundException("Upload content not found: " + id, e);
+    }
+    return upload;
+  }
+
+  /**
+   * Appends the content to the upload, completing it if all its bytes were
+   * received. If the content ends before expected, e.g. because the client
+   * disconnected, the bytes received so far are kept and the upload can be
+   * resumed from the new offset.
+   *
+   * @param offset
+   *          the offset at which the content starts, which must be the number
+   *          of bytes received so far.
+   *
+   * @return the upload with its new offset.
+   *
+   * @throws IsStillUpdatingException
+   *           if the upload is receiving another chunk.
+   * @throws AlreadyExistsException
+   *           if the upload is complete but a file with its name was created
+   *           meanwhile.
+   */
+  public TransferredResourceUpload append(String id, long offset, InputStream content)
+    throws NotFoundException, RequestNotValidException, IsStillUpdatingException, AlreadyExistsException,
+    GenericException {
+    TransferredResourceUpload upload = retrieve(id);
+    Digester digester = digesters.computeIfAbsent(id, k -> new Digester());
+    if (!digester.lock.tryLock()) {
+      throw new IsStillUpdatingException("Upload " + id + " is receiving another chunk");
+    }
+
+    try {
+      Path partialPath = getPartialPath(upload);
+      try (FileChannel channel = FileChannel.open(partialPath, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+        long size = channel.size();
+        if (offset != size) {
+          throw new RequestNotValidException("Upload offset " + offset + " does not match the " + size
+            + " bytes received so far");
+        }
+
+        // digests are lost on restarts and might miss bytes of failed writes
+        digester.catchUp(channel, size);
+
+        channel.position(size);
+        byte[] buffer = new byte[BUFFER_SIZE];
+        long remaining = upload.getLength() - size;
+        int read;
+        while (remaining > 0 && (read = read(content, buffer, (int) Math.min(buffer.length, remaining))) > 0) {
+          ByteBuffer bytes = ByteBuffer.wrap(buffer, 0, read);
+          while (bytes.hasRemaining()) {
+            channel.write(bytes);
+          }
+          digester.update(buffer, read);
+          remaining -= read;
+        }
+        channel.force(false);
+        upload.setOffset(channel.position());
+      } catch (IOException e) {
+        throw new GenericException("Could not write upload " + id, e);
+      }
+
+      if (upload.isComplete()) {
+        complete(upload, digester);
+      }
+      return upload;
+    } finally {
+      digester.lock.unlock();
+    }
+  }
+
+  private int read(InputStream content, byte[] buffer, int length) {
+    try {
+      return content.read(buffer, 0, length);
+    } catch (IOException e) {
+      LOGGER.debug("Upload content ended before expected", e);
+      return -1;
+    }
+  }
+
+  private void complete(TransferredResourceUpload upload, Digester digester)
+    throws AlreadyExistsException, GenericException {
+    Path file = basePath.resolve(upload.getRelativePath());
+    try {
+      Files.move(getPartialPath(upload), file);
+    } catch (FileAlreadyExistsException e) {
+      throw new AlreadyExistsException(file.toString());
+    } catch (IOException e) {
+      throw new GenericException("Could not complete upload " + upload.getId(), e);
+    }
+
+    FSUtils.writeContentDigests(file, digester.digest());
+    FSUtils.deletePathQuietly(getStatePath(upload.getId()));
+    digesters.remove(upload.getId());
+    LOGGER.debug("Completed upload {}", upload);
+  }
+
+  public void delete(String id) throws NotFoundException, IsStillUpdatingException, GenericException {
+    TransferredResourceUpload upload = retrieve(id);
+    Digester digester = digesters.computeIfAbsent(id, k -> new Digester());
+    if (!digester.lock.tryLock()) {
+      throw new IsStillUpdatingException("Upload " + id + " is receiving another chunk");
+    }
+
+    try {
+      FSUtils.deletePathQuietly(getPartialPath(upload));
+      FSUtils.deletePathQuietly(getStatePath(id));
+      digesters.remove(id);
+    } finally {
+      digester.lock.unlock();
+    }
+  }
+
+  private void deleteExpired() {
+    if (expirationInMillis <= 0 || !FSUtils.exists(uploadsPath)) {
+      return;
+    }
+
+    long expired = System.currentTimeMillis() - expirationInMillis;
+    try (Stream<Path> states = Files.list(uploadsPath)) {
+      states.filter(path -> path.getFileName().toString().endsWith(STATE_SUFFIX)).forEach(statePath -> {
+        String fileName = statePath.getFileName().toString();
+        String id = fileName.substring(0, fileName.length() - STATE_SUFFIX.length());
+        try {
+          TransferredResourceUpload upload = JsonUtils.readObjectFromFile(statePath, TransferredResourceUpload.class);
+          Path partialPath = getPartialPath(upload);
+          long lastModified = FSUtils.exists(partialPath) ? Files.getLastModifiedTime(partialPath).toMillis()
+            : upload.getCreationDate().getTime();
+          if (lastModified < expired) {
+            LOGGER.info("Deleting expired upload {}", upload);
+            delete(id);
+          }
+        } catch (IOException | NotFoundException | GenericException | IsStillUpdatingException e) {
+          LOGGER.debug("Could not delete expired upload {}", id, e);
+        }
+      });
+    } catch (IOException e) {
+      LOGGER.warn("Could not list uploads", e);
+    }
+  }
+
+  private Path getStatePath(String id) {
+    return uploadsPath.resolve(id + STATE_SUFFIX);
+  }
+
+  /**
+   * @return true if the path is the partial file of an upload, which is not a
+   *         transferred resource until the upload completes.
+   */
+  public static boolean isPartial(Path path) {
+    return path.getFileName() != null && PARTIAL_PATTERN.matcher(path.getFileName().toString()).matches();
+  }
+
+  private Path getPartialPath(TransferredResourceUpload upload) {
+    Path file = basePath.resolve(upload.getRelativePath());
+    return file.resolveSibling("." + file.getFileName() + "." + upload.getId() + PARTIAL_SUFFIX);
+  }
+
+  private final class Digester {
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<String, MessageDigest> digests = new LinkedHashMap<>();
+    private long position = 0;
+
+    private Digester() {
+      reset();
+    }
+
+    private void reset() {
+      digests.clear();
+      for (String algorithm : algorithms) {
+        try {
+          digests.put(algorithm, MessageDigest.getInstance(algorithm));
+        } catch (NoSuchAlgorithmException e) {
+          LOGGER.warn("Unknown digest algorithm {}, it will not be computed on upload", algorithm);
+        }
+      }
+      position = 0;
+    }
+
+    private void update(byte[] bytes, int length) {
+      for (MessageDigest digest : digests.values()) {
+        digest.update(bytes, 0, length);
+      }
+      position += length;
+    }
+
+    private void catchUp(FileChannel channel, long size) throws IOException {
+      if (position > size) {
+        reset();
+      }
+
+      ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+      while (position < size) {
+        buffer.clear();
+        int read = channel.read(buffer, position);
+        if (read <= 0) {
+          break;
+        }
+        update(buffer.array(), read);
+      }
+    }
+
+    private Map<String, String> digest() {
+      Map<String, String> ret = new HashMap<>();
+      for (Map.Entry<String, MessageDigest> entry : digests.entrySet()) {
+        StringBuilder hex = new StringBuilder();
+        for (byte b : entry.getValue().digest()) {
+          hex.append(String.format("%02X", b));
+        }
+        ret.put(entry.getKey(), hex.toString());
+      }
+      return ret;
+    }
+  }
+}
@@ -0,0 +1,423 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/roda
+ */
+package org.roda.core.common.monitor;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.roda.core.data.common.RodaConstants;
+import org.roda.core.data.exceptions.AuthorizationDeniedException;
+import org.roda.core.data.exceptions.GenericException;
+import org.roda.core.data.exceptions.IsStillUpdatingException;
+import org.roda.core.data.exceptions.NotFoundException;
+import org.roda.core.data.exceptions.RequestNotValidException;
+import org.roda.core.data.v2.index.filter.Filter;
+import org.roda.core.data.v2.index.filter.SimpleFilterParameter;
+import org.roda.core.data.v2.ip.TransferredResource;
+import org.roda.core.index.IndexService;
+import org.roda.core.util.IdUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Keeps the transferred resources index up to date with the changes notified
+ * by the file system (e.g. inotify) on the transfer area.
+ *
+ * Changed paths are collected and coalesced until no change happens for the
+ * debounce time, or until the oldest change waited for the maximum delay, and
+ * are then indexed in batches. The sizes of the folders are updated with the
+ * difference between the new and the indexed sizes of the changed resources.
+ * When the file system loses events (overflow), the whole transfer area is
+ * reindexed. While the transfer area, or any of its folders, is being
+ * reindexed, changes are only collected, as the reindex would delete the
+ * resources indexed meanwhile.
+ */
+public class TransferredResourcesWatcher implements Closeable {
+  private static final Logger LOGGER = LoggerFactory.getLogger(TransferredResourcesWatcher.class);
+
+  private static final List<String> SIZE_FIELDS = Arrays.asList(RodaConstants.INDEX_UUID,
+    RodaConstants.TRANSFERRED_RESOURCE_SIZE);
+
+  private final TransferredResourcesScanner scanner;
+  private final Path basePath;
+  private final IndexService index;
+  private final long debounceInMillis;
+  private final long maxDelayInMillis;
+  private final int batchSize;
+
+  private final WatchService watchService;
+  private final Map<WatchKey, Path> watchedFolders = new ConcurrentHashMap<>();
+  private final Set<Path> pending = ConcurrentHashMap.newKeySet();
+  private final AtomicBoolean overflow = new AtomicBoolean(false);
+  private Thread watchThread;
+  private final ScheduledExecutorService flusher;
+  private volatile long lastChange = 0;
+  private volatile long firstPendingChange = 0;
+
+  public TransferredResourcesWatcher(TransferredResourcesScanner scanner, IndexService index, long debounceInMillis,
+    long maxDelayInMillis, int batchSize) throws IOException {
+    this.scanner = scanner;
+    this.basePath = scanner.getBasePath();
+    this.index = index;
+    this.debounceInMillis = debounceInMillis;
+    this.maxDelayInMillis = maxDelayInMillis;
+    this.batchSize = batchSize;
+    this.watchService = FileSystems.getDefault().newWatchService();
+    this.flusher = Executors.newSingleThreadScheduledExecutor(
+      new ThreadFactoryBuilder().setNameFormat("TransferredResourcesWatcherFlusher").setDaemon(true).build());
+  }
+
+  /**
+   * Starts watching the transfer area, in the background.
+   *
+   * @param registerFolders
+   *          whether to walk the transfer area registering all its folders, or
+   *          to leave it to the caller, e.g. a reindex that is about to walk it
+   *          anyway, through {@link #register(Path)}.
+   */
+  public void start(boolean registerFolders) {
+    if (registerFolders) {
+      watchThread = new Thread(() -> {
+        try {
+          registerAll(basePath, false);
+          LOGGER.info("Watching {} folders of the transfer area {}", watchedFolders.size(), basePath);
+        } catch (IOException e) {
+          LOGGER.error("Could not watch all the folders of the transfer area {}", basePath, e);
+        }
+        watch();
+      }, "TransferredResourcesWatcher");
+    } else {
+      watchThread = new Thread(this::watch, "TransferredResourcesWatcher");
+    }
+    watchThread.setDaemon(true);
+    watchThread.start();
+    flusher.scheduleWithFixedDelay(this::flushIfQuiet, debounceInMillis, debounceInMillis, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Registers a folder, but not its sub-folders.
+   */
+  public void register(Path folder) {
+    try {
+      registerFolder(folder);
+    } catch (IOException e) {
+      LOGGER.debug("Could not watch folder {}", folder, e);
+    }
+  }
+
+  private void registerFolder(Path folder) throws IOException {
+    WatchKey key = folder.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+      StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+    watchedFolders.put(key, folder);
+  }
+
+  /**
+   * Registers the folder and all its sub-folders.
+   *
+   * @param addContents
+   *          whether to add the contents of the folders to the pending changes,
+   *          as they might have been created before the folders were
+   *          registered.
+   */
+  private void registerAll(Path folder, boolean addContents) throws IOException {
+    Files.walkFileTree(folder, new SimpleFileVisitor<Path>() {
+      @Override
+      public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+        registerFolder(dir);
+        if (addContents) {
+          addPending(dir);
+        }
+        return FileVisitResult.CONTINUE;
+      }
+
+      @Override
+      public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+        if (addContents) {
+          addPending(file);
+        }
+        return FileVisitResult.CONTINUE;
+      }
+
+      @Override
+      public FileVisitResult visitFileFailed(Path file, IOException exc) {
+        return FileVisitResult.CONTINUE;
+      }
+    });
+  }
+
+  private void addPending(Path path) {
+    if (TransferredResourcesUploads.isPartial(path)) {
+      return;
+    }
+    if (pending.isEmpty()) {
+      firstPendingChange = System.currentTimeMillis();
+    }
+    pending.add(path);
+  }
+
+  private void watch() {
+    while (true) {
+      WatchKey key;
+      try {
+        key = watchService.take();
+      } catch (InterruptedException | ClosedWatchServiceException e) {
+        return;
+      }
+
+      Path folder = watchedFolders.get(key);
+      for (WatchEvent<?> event : key.pollEvents()) {
+        if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+          changesLost();
+        } else if (folder != null) {
+          Path path = folder.resolve((Path) event.context());
+          changed(path);
+          if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE
+            && Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)) {
+            try {
+              registerAll(path, true);
+            } catch (IOException e) {
+              LOGGER.debug("Could not watch new folder {}", path, e);
+            }
+          }
+        }
+      }
+      lastChange = System.currentTimeMillis();
+
+      if (!key.reset()) {
+        // the folder was deleted
+        watchedFolders.remove(key);
+      }
+    }
+  }
+
+  /**
+   * Collects a file or folder created, modified or deleted, to be indexed by
+   * the next {@link #flush()}.
+   */
+  void changed(Path path) {
+    addPending(path);
+  }
+
+  /**
+   * Makes the next {@link #flush()} reindex the whole transfer area, as the
+   * changes were lost.
+   */
+  void changesLost() {
+    LOGGER.warn("Transfer area changes were lost, the whole transfer area will be reindexed");
+    overflow.set(true);
+  }
+
+  private void flushIfQuiet() {
+    long now = System.currentTimeMillis();
+    boolean hasChanges = overflow.get() || !pending.isEmpty();
+    if (hasChanges && (now - lastChange >= debounceInMillis || now - firstPendingChange >= maxDelayInMillis)) {
+      flush();
+    }
+  }
+
+  /**
+   * Indexes all the changes collected so far, unless the transfer area is
+   * being reindexed.
+   */
+  public synchronized void flush() {
+    if (TransferUpdateStatus.getInstance().isUpdatingAny()) {
+      return;
+    }
+
+    try {
+      if (overflow.getAndSet(false)) {
+        pending.clear();
+        try {
+          scanner.reindexTransferredResources(Optional.empty(), true);
+        } catch (IsStillUpdatingException e) {
+          overflow.set(true);
+        }
+        return;
+      }
+
+      List<Path> paths = new ArrayList<>();
+      for (Path path : pending) {
+        if (pending.remove(path)) {
+          paths.add(path);
+        }
+      }
+
+      for (int i = 0; i < paths.size(); i += batchSize) {
+        index(paths.subList(i, Math.min(i + batchSize, paths.size())));
+      }
+    } catch (GenericException | RequestNotValidException | AuthorizationDeniedException | RuntimeException e) {
+      LOGGER.error("Error indexing transfer area changes", e);
+    }
+  }
+
+  private void index(List<Path> paths) throws GenericException, RequestNotValidException, AuthorizationDeniedException {
+    Date scanDate = new Date();
+    Set<Path> deleted = new HashSet<>();
+    Map<Path, Long> newSizes = new HashMap<>();
+    Map<Path, BasicFileAttributes> attributes = new HashMap<>();
+
+    // paths sorted by depth, so deleted folders come before their contents
+    Set<Path> sorted = new TreeSet<>((a, b) -> a.getNameCount() != b.getNameCount()
+      ? Integer.compare(a.getNameCount(), b.getNameCount()) : a.compareTo(b));
+    for (Path path : paths) {
+      if (path.startsWith(basePath) && !path.equals(basePath)) {
+        sorted.add(path);
+      }
+    }
+
+    for (Path path : sorted) {
+      if (hasAncestorIn(path, deleted)) {
+        // already handled by the deletion of the folder
+        continue;
+      }
+
+      try {
+        BasicFileAttributes attrs = Files.readAttributes(path, BasicFileAttributes.class);
+        attributes.put(path, attrs);
+        if (!attrs.isDirectory()) {
+          newSizes.put(path, attrs.size());
+        }
+      } catch (NoSuchFileException e) {
+        deleted.add(path);
+      } catch (IOException e) {
+        LOGGER.debug("Could not read attributes of {}", path, e);
+      }
+    }
+
+    // the difference between the new and the indexed size of each resource is
+    // added to the size of all its folders
+    Map<Path, Long> indexedSizes = retrieveIndexedSizes(union(newSizes.keySet(), deleted));
+    Map<Path, Long> folderSizeChanges = new HashMap<>();
+    for (Path path : union(newSizes.keySet(), deleted)) {
+      long change = newSizes.getOrDefault(path, 0L) - indexedSizes.getOrDefault(path, 0L);
+      if (change != 0) {
+        for (Path folder = path.getParent(); folder != null && !folder.equals(basePath)
+          && folder.startsWith(basePath); folder = folder.getParent()) {
+          folderSizeChanges.merge(folder, change, Long::sum);
+        }
+      }
+    }
+
+    Set<Path> folders = new HashSet<>(folderSizeChanges.keySet());
+    attributes.forEach((path, attrs) -> {
+      if (attrs.isDirectory()) {
+        folders.add(path);
+      }
+    });
+    folders.removeAll(deleted);
+    Map<Path, Long> indexedFolderSizes = retrieveIndexedSizes(folders);
+
+    List<TransferredResource> resources = new ArrayList<>();
+    for (Map.Entry<Path, Long> file : newSizes.entrySet()) {
+      resources.add(TransferredResourcesScanner.createTransferredResource(file.getKey(),
+        attributes.get(file.getKey()), file.getValue(), basePath, scanDate));
+    }
+
+    for (Path folder : folders) {
+      try {
+        BasicFileAttributes attrs = attributes.containsKey(folder) ? attributes.get(folder)
+          : Files.readAttributes(folder, BasicFileAttributes.class);
+        long size = Math.max(0L,
+          indexedFolderSizes.getOrDefault(folder, 0L) + folderSizeChanges.getOrDefault(folder, 0L));
+        resources.add(TransferredResourcesScanner.createTransferredResource(folder, attrs, size, basePath, scanDate));
+      } catch (IOException e) {
+        // deleted meanwhile, its deletion is pending
+      }
+    }
+
+    index.createAll(TransferredResource.class, resources);
+
+    if (!deleted.isEmpty()) {
+      List<String> deletedUUIDs = new ArrayList<>();
+      for (Path path : deleted) {
+        String relativePath = basePath.relativize(path).toString();
+        deletedUUIDs.add(IdUtils.getTransferredResourceUUID(basePath.relativize(path)));
+        index.delete(TransferredResource.class,
+          new Filter(new SimpleFilterParameter(RodaConstants.TRANSFERRED_RESOURCE_ANCESTORS, relativePath)));
+      }
+      index.delete(TransferredResource.class, deletedUUIDs);
+    }
+
+    index.commit(TransferredResource.class);
+    LOGGER.debug("Indexed {} changed and {} deleted transferred resources", resources.size(), deleted.size());
+  }
+
+  private static boolean hasAncestorIn(Path path, Set<Path> folders) {
+    for (Path parent = path.getParent(); parent != null; parent = parent.getParent()) {
+      if (folders.contains(parent)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static Set<Path> union(Set<Path> a, Set<Path> b) {
+    Set<Path> ret = new HashSet<>(a);
+    ret.addAll(b);
+    return ret;
+  }
+
+  private Map<Path, Long> retrieveIndexedSizes(Set<Path> paths) throws GenericException {
+    Map<String, Path> pathsByUUID = new HashMap<>();
+    for (Path path : paths) {
+      pathsByUUID.put(IdUtils.getTransferredResourceUUID(basePath.relativize(path)), path);
+    }
+
+    Map<Path, Long> ret = new HashMap<>();
+    if (!pathsByUUID.isEmpty()) {
+      try {
+        for (TransferredResource resource : index.retrieve(TransferredResource.class,
+          new ArrayList<>(pathsByUUID.keySet()), SIZE_FIELDS)) {
+          ret.put(pathsByUUID.get(resource.getUUID()), resource.getSize());
+        }
+      } catch (NotFoundException e) {
+        // none is indexed
+      }
+    }
+    return ret;
+  }
+
+  @Override
+  public void close() throws IOException {
+    flusher.shutdownNow();
+    watchService.close();
+    if (watchThread != null) {
+      watchThread.interrupt();
+    }
+  }
+}
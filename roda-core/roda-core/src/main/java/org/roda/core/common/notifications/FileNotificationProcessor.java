@@ -7,10 +7,13 @@
  */
 package org.roda.core.common.notifications;
 
+import org.roda.core.common.iterables.CloseableIterable;
 import org.roda.core.data.common.RodaConstants;
 import org.roda.core.data.exceptions.RODAException;
 import org.roda.core.data.utils.JsonUtils;
+import org.roda.core.data.v2.common.OptionalWithCause;
 import org.roda.core.data.v2.jobs.Job;
+import org.roda.core.data.v2.jobs.Report;
 import org.roda.core.data.v2.notifications.Notification;
 import org.roda.core.data.v2.notifications.NotificationState;
 import org.roda.core.model.ModelService;
@@ -50,13 +53,24 @@ public class FileNotificationProcessor implements NotificationProcessor {
         Path trimmedDropPath = Paths.get(dropPath.substring(7));
 
         if (FSUtils.isDirectory(trimmedDropPath)) {
-          try (DirectResourceAccess jobAccess = model.getStorage().getDirectAccess(ModelUtils.getJobStoragePath(job.getId()));
-               DirectResourceAccess jobReportAccess = model.getStorage().getDirectAccess(ModelUtils.getJobReportsStoragePath(job.getId()))) {
+          try (DirectResourceAccess jobAccess = model.getStorage()
+            .getDirectAccess(ModelUtils.getJobStoragePath(job.getId()));
+            CloseableIterable<OptionalWithCause<Report>> jobReports = model.listJobReports(job.getId())) {
 
             Path jobPath = FSUtils.createDirectory(trimmedDropPath, job.getId());
 
             FSUtils.copy(jobAccess.getPath(), jobPath.resolve(job.getId() + RodaConstants.JOB_FILE_EXTENSION), true);
-            FSUtils.copy(jobReportAccess.getPath(), jobPath.resolve(RodaConstants.RODA_OBJECT_REPORTS), true);
+
+            Path jobReportsPath = FSUtils.createDirectory(jobPath, RodaConstants.RODA_OBJECT_REPORTS);
+            for (OptionalWithCause<Report> jobReport : jobReports) {
+              if (jobReport.isPresent()) {
+                Report report = jobReport.get();
+                JsonUtils.writeObjectToFile(report,
+                  jobReportsPath.resolve(report.getId() + RodaConstants.JOB_REPORT_FILE_EXTENSION));
+              } else {
+                throw jobReport.getCause();
+              }
+            }
 
             FSUtils.createFile(jobPath, ".ready");
 
@@ -0,0 +1,579 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/roda
+ */
+package org.roda.core.common.tools;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.CountingOutputStream;
+import org.roda.core.storage.fs.FSUtils;
+
+/**
+ * Writes a ZIP archive whose entries are compressed in parallel, each one by a
+ * worker of the given executor, and written to the output in the order they
+ * were added.
+ *
+ * Each entry is either STORED or DEFLATED: content that is already compressed,
+ * known by the file extension or by how little its first bytes deflate, is
+ * stored as is. ZIP64 records are written when the archive, or any of its
+ * entries, exceeds the limits of the original format.
+ *
+ * The content payload of stored entries is read twice, once to compute the
+ * CRC and again to be written to the archive. Deflated content is kept in
+ * memory, or in a temporary file of the {@link SpoolArea} if large, until it is
+ * written. The temporary space needed is, at most, the deflated size of the
+ * entries compressed ahead of the one being written; once the spool area is
+ * full, entries that would need more of it are stored instead of deflated.
+ */
+public class ParallelZipWriter implements Closeable {
+
+  private static final int LOCAL_FILE_HEADER_SIGNATURE = 0x04034b50;
+  private static final int CENTRAL_FILE_HEADER_SIGNATURE = 0x02014b50;
+  private static final int ZIP64_END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06064b50;
+  private static final int ZIP64_END_OF_CENTRAL_DIRECTORY_LOCATOR_SIGNATURE = 0x07064b50;
+  private static final int END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06054b50;
+  private static final int ZIP64_EXTRA_FIELD_ID = 0x0001;
+
+  private static final int METHOD_STORED = 0;
+  private static final int METHOD_DEFLATED = 8;
+  private static final int VERSION_DEFAULT = 20;
+  private static final int VERSION_ZIP64 = 45;
+  private static final int FLAG_UTF8 = 0x0800;
+  private static final int DIRECTORY_ATTRIBUTE = 0x10;
+
+  private static final long ZIP64_MAGIC = 0xFFFFFFFFL;
+  private static final int ZIP64_MAGIC_COUNT = 0xFFFF;
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+  /** Deflated content larger than this is kept in a temporary file */
+  private static final int IN_MEMORY_THRESHOLD = 1024 * 1024;
+  /** Content is stored if its first block does not deflate below this ratio */
+  private static final double COMPRESSIBLE_RATIO = 0.9;
+
+  private final CountingOutputStream out;
+  private final ExecutorService executor;
+  private final int maxPendingEntries;
+  private final Set<String> storedExtensions;
+  private final int level;
+  private final long dosTime;
+  private final SpoolArea spoolArea;
+
+  private final Deque<Future<CompressedEntry>> pending = new ArrayDeque<>();
+  private final List<CentralDirectoryEntry> centralDirectory = new ArrayList<>();
+  private boolean closed = false;
+  private boolean failed = false;
+
+  /**
+   * @param maxPendingEntries
+   *          the maximum number of entries compressed ahead of the one being
+   *          written, which bounds the memory and temporary files in use
+   * @param storedExtensions
+   *          lower case extensions of files that are stored without trying to
+   *          compress them
+   */
+  public ParallelZipWriter(OutputStream out, ExecutorService executor, int maxPendingEntries,
+    Set<String> storedExtensions) {
+    this(out, executor, maxPendingEntries, storedExtensions, new SpoolArea(null, Long.MAX_VALUE));
+  }
+
+  /**
+   * @param spoolArea
+   *          where the deflated content of large entries is kept until it is
+   *          written, possibly shared by several writers
+   */
+  public ParallelZipWriter(OutputStream out, ExecutorService executor, int maxPendingEntries,
+    Set<String> storedExtensions, SpoolArea spoolArea) {
+    this.spoolArea = spoolArea;
+    this.out = new CountingOutputStream(new BufferedOutputStream(out, BUFFER_SIZE));
+    this.executor = executor;
+    this.maxPendingEntries = Math.max(1, maxPendingEntries);
+    this.storedExtensions = storedExtensions;
+    this.level = Deflater.DEFAULT_COMPRESSION;
+    this.dosTime = toDosTime(LocalDateTime.now());
+  }
+
+  /**
+   * Adds an entry to the archive. The entry is compressed in the background and
+   * this method only blocks when too many entries are waiting to be written.
+   */
+  public void add(ZipEntryInfo entry) throws IOException {
+    if (closed) {
+      throw new IOException("ZIP writer is already closed");
+    }
+
+    pending.add(executor.submit(() -> compress(entry)));
+    while (pending.size() > maxPendingEntries) {
+      writeNextEntry();
+    }
+  }
+
+  /**
+   * Writes the remaining entries and the central directory, and closes the
+   * underlying output stream. If writing an entry failed before, the archive is
+   * left incomplete.
+   */
+  @Override
+  public void close() throws IOException {
+    if (closed) {
+      return;
+    }
+    closed = true;
+
+    try {
+      while (!failed && !pending.isEmpty()) {
+        writeNextEntry();
+      }
+      if (!failed) {
+        writeCentralDirectory();
+        out.flush();
+      }
+    } finally {
+      discardPending();
+      out.close();
+    }
+  }
+
+  private void writeNextEntry() throws IOException {
+    try {
+      writeEntry(pending.poll());
+    } catch (IOException e) {
+      failed = true;
+      throw e;
+    }
+  }
+
+  private void discardPending() {
+    for (Future<CompressedEntry> future : pending) {
+      try {
+        future.get().discard();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } catch (ExecutionException e) {
+        // nothing to discard
+      }
+    }
+    pending.clear();
+  }
+
+  private CompressedEntry compress(ZipEntryInfo info) throws IOException {
+    CompressedEntry entry = new CompressedEntry(info);
+    if (info.isDirectory()) {
+      return entry;
+    }
+
+    String extension = FilenameUtils.getExtension(info.getName()).toLowerCase();
+    boolean deflate = !storedExtensions.contains(extension);
+    CRC32 crc = new CRC32();
+    byte[] buffer = new byte[BUFFER_SIZE];
+
+    try (InputStream in = info.getPayload().createInputStream()) {
+      if (deflate) {
+        deflate = deflate(entry, in, crc, buffer);
+      }
+
+      if (!deflate) {
+        // stored: only the CRC and size are needed now
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+          crc.update(buffer, 0, read);
+          entry.size += read;
+        }
+        entry.method = METHOD_STORED;
+        entry.compressedSize = entry.size;
+      }
+    }
+
+    entry.crc = crc.getValue();
+    return entry;
+  }
+
+  /**
+   * Deflates the content into the entry spool, or stores it if deflating does
+   * not make it smaller. Gives up, returning {@code false} after having read
+   * only the first block of content, if that block does not compress well. The
+   * size and CRC of that block are kept, and the caller goes on reading the
+   * rest.
+   */
+  private boolean deflate(CompressedEntry entry, InputStream in, CRC32 crc, byte[] buffer) throws IOException {
+    Deflater deflater = new Deflater(level, true);
+    byte[] deflated = new byte[BUFFER_SIZE];
+    Spool spool = new Spool();
+
+    try {
+      boolean probed = false;
+      int read;
+      while ((read = IOUtils.read(in, buffer)) > 0) {
+        crc.update(buffer, 0, read);
+        entry.size += read;
+        deflater.setInput(buffer, 0, read);
+        while (!deflater.needsInput()) {
+          spool.write(deflated, 0, deflater.deflate(deflated, 0, deflated.length, Deflater.NO_FLUSH));
+        }
+
+        if (!probed) {
+          probed = true;
+          int length;
+          do {
+            length = deflater.deflate(deflated, 0, deflated.length, Deflater.SYNC_FLUSH);
+            spool.write(deflated, 0, length);
+          } while (length == deflated.length);
+          if (spool.size() > entry.size * COMPRESSIBLE_RATIO) {
+            spool.discard();
+            return false;
+          }
+        }
+      }
+
+      deflater.finish();
+      while (!deflater.finished()) {
+        spool.write(deflated, 0, deflater.deflate(deflated));
+      }
+    } catch (SpoolAreaFullException e) {
+      // the caller reads the rest of the content and stores it
+      spool.discard();
+      return false;
+    } catch (IOException | RuntimeException e) {
+      spool.discard();
+      throw e;
+    } finally {
+      deflater.end();
+    }
+
+    if (spool.size() >= entry.size) {
+      // deflating made it bigger, store it
+      spool.discard();
+      entry.method = METHOD_STORED;
+      entry.compressedSize = entry.size;
+      return true;
+    }
+
+    entry.method = METHOD_DEFLATED;
+    entry.compressedSize = spool.size();
+    entry.spool = spool;
+    return true;
+  }
+
+  private void writeEntry(Future<CompressedEntry> future) throws IOException {
+    CompressedEntry entry;
+    try {
+      entry = future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while compressing ZIP entries");
+    } catch (ExecutionException e) {
+      throw e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e.getCause());
+    }
+
+    try {
+      long offset = out.getByteCount();
+      byte[] name = entry.info.getName().getBytes(StandardCharsets.UTF_8);
+      boolean zip64 = entry.size >= ZIP64_MAGIC || entry.compressedSize >= ZIP64_MAGIC;
+
+      writeInt(LOCAL_FILE_HEADER_SIGNATURE);
+      writeShort(zip64 ? VERSION_ZIP64 : VERSION_DEFAULT);
+      writeShort(FLAG_UTF8);
+      writeShort(entry.method);
+      writeInt(dosTime);
+      writeInt(entry.crc);
+      writeInt(zip64 ? ZIP64_MAGIC : entry.compressedSize);
+      writeInt(zip64 ? ZIP64_MAGIC : entry.size);
+      writeShort(name.length);
+      writeShort(zip64 ? 20 : 0);
+      out.write(name);
+      if (zip64) {
+        writeShort(ZIP64_EXTRA_FIELD_ID);
+        writeShort(16);
+        writeLong(entry.size);
+        writeLong(entry.compressedSize);
+      }
+
+      long dataOffset = out.getByteCount();
+      if (entry.spool != null) {
+        entry.spool.writeTo(out);
+      } else if (!entry.info.isDirectory()) {
+        try (InputStream in = entry.info.getPayload().createInputStream()) {
+          IOUtils.copyLarge(in, out, 0, entry.compressedSize, new byte[BUFFER_SIZE]);
+        }
+      }
+
+      if (out.getByteCount() - dataOffset != entry.compressedSize) {
+        throw new IOException("Content of ZIP entry " + entry.info.getName() + " changed while it was being written");
+      }
+
+      centralDirectory.add(new CentralDirectoryEntry(entry, name, offset));
+    } finally {
+      entry.discard();
+    }
+  }
+
+  private void writeCentralDirectory() throws IOException {
+    long centralDirectoryOffset = out.getByteCount();
+
+    for (CentralDirectoryEntry cd : centralDirectory) {
+      CompressedEntry entry = cd.entry;
+      boolean sizeOverflow = entry.size >= ZIP64_MAGIC;
+      boolean compressedSizeOverflow = entry.compressedSize >= ZIP64_MAGIC;
+      boolean offsetOverflow = cd.offset >= ZIP64_MAGIC;
+      int extraLength = (sizeOverflow ? 8 : 0) + (compressedSizeOverflow ? 8 : 0) + (offsetOverflow ? 8 : 0);
+      boolean zip64 = extraLength > 0;
+
+      writeInt(CENTRAL_FILE_HEADER_SIGNATURE);
+      writeShort(VERSION_ZIP64);
+      writeShort(zip64 ? VERSION_ZIP64 : VERSION_DEFAULT);
+      writeShort(FLAG_UTF8);
+      writeShort(entry.method);
+      writeInt(dosTime);
+      writeInt(entry.crc);
+      writeInt(compressedSizeOverflow ? ZIP64_MAGIC : entry.compressedSize);
+      writeInt(sizeOverflow ? ZIP64_MAGIC : entry.size);
+      writeShort(cd.name.length);
+      writeShort(zip64 ? extraLength + 4 : 0);
+      // comment length, disk number start, internal attributes
+      writeShort(0);
+      writeShort(0);
+      writeShort(0);
+      writeInt(entry.info.isDirectory() ? DIRECTORY_ATTRIBUTE : 0);
+      writeInt(offsetOverflow ? ZIP64_MAGIC : cd.offset);
+      out.write(cd.name);
+      if (zip64) {
+        writeShort(ZIP64_EXTRA_FIELD_ID);
+        writeShort(extraLength);
+        if (sizeOverflow) {
+          writeLong(entry.size);
+        }
+        if (compressedSizeOverflow) {
+          writeLong(entry.compressedSize);
+        }
+        if (offsetOverflow) {
+          writeLong(cd.offset);
+        }
+      }
+    }
+
+    long centralDirectoryEnd = out.getByteCount();
+    long centralDirectorySize = centralDirectoryEnd - centralDirectoryOffset;
+    int entries = centralDirectory.size();
+
+    if (entries >= ZIP64_MAGIC_COUNT || centralDirectoryOffset >= ZIP64_MAGIC || centralDirectorySize >= ZIP64_MAGIC) {
+      writeInt(ZIP64_END_OF_CENTRAL_DIRECTORY_SIGNATURE);
+      writeLong(44);
+      writeShort(VERSION_ZIP64);
+      writeShort(VERSION_ZIP64);
+      writeInt(0);
+      writeInt(0);
+      writeLong(entries);
+      writeLong(entries);
+      writeLong(centralDirectorySize);
+      writeLong(centralDirectoryOffset);
+
+      writeInt(ZIP64_END_OF_CENTRAL_DIRECTORY_LOCATOR_SIGNATURE);
+      writeInt(0);
+      writeLong(centralDirectoryEnd);
+      writeInt(1);
+    }
+
+    writeInt(END_OF_CENTRAL_DIRECTORY_SIGNATURE);
+    writeShort(0);
+    writeShort(0);
+    writeShort(Math.min(entries, ZIP64_MAGIC_COUNT));
+    writeShort(Math.min(entries, ZIP64_MAGIC_COUNT));
+    writeInt(Math.min(centralDirectorySize, ZIP64_MAGIC));
+    writeInt(Math.min(centralDirectoryOffset, ZIP64_MAGIC));
+    writeShort(0);
+  }
+
+  private void writeShort(int value) throws IOException {
+    out.write(value & 0xFF);
+    out.write((value >>> 8) & 0xFF);
+  }
+
+  private void writeInt(long value) throws IOException {
+    writeShort((int) (value & 0xFFFF));
+    writeShort((int) ((value >>> 16) & 0xFFFF));
+  }
+
+  private void writeLong(long value) throws IOException {
+    writeInt(value & ZIP64_MAGIC);
+    writeInt(value >>> 32);
+  }
+
+  private static long toDosTime(LocalDateTime time) {
+    if (time.getYear() < 1980) {
+      return (1 << 21) | (1 << 16);
+    }
+    return ((long) (time.getYear() - 1980) << 25) | (time.getMonthValue() << 21) | (time.getDayOfMonth() << 16)
+      | (time.getHour() << 11) | (time.getMinute() << 5) | (time.getSecond() >> 1);
+  }
+
+  private static final class CompressedEntry {
+    private final ZipEntryInfo info;
+    private int method = METHOD_STORED;
+    private long crc = 0;
+    private long size = 0;
+    private long compressedSize = 0;
+    private Spool spool = null;
+
+    private CompressedEntry(ZipEntryInfo info) {
+      this.info = info;
+    }
+
+    private void discard() {
+      if (spool != null) {
+        spool.discard();
+        spool = null;
+      }
+    }
+  }
+
+  private static final class CentralDirectoryEntry {
+    private final CompressedEntry entry;
+    private final byte[] name;
+    private final long offset;
+
+    private CentralDirectoryEntry(CompressedEntry entry, byte[] name, long offset) {
+      this.entry = entry;
+      this.name = name;
+      this.offset = offset;
+    }
+  }
+
+  /**
+   * The folder where the deflated content of large entries is kept until it is
+   * written, and the maximum number of bytes kept there at once.
+   */
+  public static final class SpoolArea {
+    private final Path directory;
+    private final long maxSize;
+    private final AtomicLong size = new AtomicLong(0);
+
+    /**
+     * @param directory
+     *          the folder of the temporary files, or {@code null} for the
+     *          default temporary-file folder
+     */
+    public SpoolArea(Path directory, long maxSize) {
+      this.directory = directory;
+      this.maxSize = maxSize;
+    }
+
+    private Path createFile() throws IOException {
+      return directory != null ? Files.createTempFile(directory, "roda-zip-", ".deflated")
+        : Files.createTempFile("roda-zip-", ".deflated");
+    }
+
+    private boolean reserve(long bytes) {
+      long current;
+      do {
+        current = size.get();
+        if (current + bytes > maxSize) {
+          return false;
+        }
+      } while (!size.compareAndSet(current, current + bytes));
+      return true;
+    }
+
+    private void release(long bytes) {
+      size.addAndGet(-bytes);
+    }
+  }
+
+  private static final class SpoolAreaFullException extends IOException {
+    private static final long serialVersionUID = 2807063385318470815L;
+  }
+
+  /**
+   * Deflated bytes of an entry, in memory until they exceed
+   * {@link ParallelZipWriter#IN_MEMORY_THRESHOLD} and in a temporary file of the
+   * spool area afterwards.
+   */
+  private final class Spool {
+    private ByteArrayOutputStream memory = new ByteArrayOutputStream();
+    private Path file = null;
+    private OutputStream fileOutput = null;
+    private long size = 0;
+    private long reserved = 0;
+
+    /**
+     * @throws SpoolAreaFullException
+     *           if the bytes would not fit in the spool area
+     */
+    private void write(byte[] bytes, int offset, int length) throws IOException {
+      if (length <= 0) {
+        return;
+      }
+
+      if (fileOutput != null || size + length > IN_MEMORY_THRESHOLD) {
+        long needed = fileOutput != null ? length : size + length;
+        if (!spoolArea.reserve(needed)) {
+          throw new SpoolAreaFullException();
+        }
+        reserved += needed;
+      }
+
+      if (fileOutput == null && size + length > IN_MEMORY_THRESHOLD) {
+        file = spoolArea.createFile();
+        fileOutput = new BufferedOutputStream(Files.newOutputStream(file), BUFFER_SIZE);
+        memory.writeTo(fileOutput);
+        memory = null;
+      }
+
+      if (fileOutput != null) {
+        fileOutput.write(bytes, offset, length);
+      } else {
+        memory.write(bytes, offset, length);
+      }
+      size += length;
+    }
+
+    private long size() {
+      return size;
+    }
+
+    private void writeTo(OutputStream out) throws IOException {
+      if (fileOutput != null) {
+        fileOutput.close();
+        Files.copy(file, out);
+      } else {
+        memory.writeTo(out);
+      }
+    }
+
+    private void discard() {
+      IOUtils.closeQuietly(fileOutput);
+      if (file != null) {
+        FSUtils.deletePathQuietly(file);
+        file = null;
+      }
+      spoolArea.release(reserved);
+      reserved = 0;
+      memory = null;
+    }
+  }
+}
@@ -20,6 +20,8 @@ import org.roda.core.storage.fs.FSPathContentPayload;
  * 
  */
 public class ZipEntryInfo {
+  private static final String DIRECTORY_SUFFIX = "/";
+
   private final String name;
 
   private final ContentPayload payload;
@@ -46,6 +48,15 @@ public class ZipEntryInfo {
     this.payload = payload;
   }
 
+  /**
+   * Create a new zip entry info for a directory
+   * 
+   * @param name
+   */
+  public ZipEntryInfo(String name) {
+    this(name.endsWith(DIRECTORY_SUFFIX) ? name : name + DIRECTORY_SUFFIX, (ContentPayload) null);
+  }
+
   /**
    * Get zip entry name
    * 
@@ -59,4 +70,8 @@ public class ZipEntryInfo {
     return payload;
   }
 
+  public boolean isDirectory() {
+    return payload == null;
+  }
+
 }
@@ -8,13 +8,19 @@
 package org.roda.core.common.tools;
 
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
 
-import org.apache.commons.io.IOUtils;
+import org.roda.core.RodaCoreFactory;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 /**
  * Tools to handle Zips
@@ -24,10 +30,64 @@ import org.apache.commons.io.IOUtils;
  */
 public class ZipTools {
 
+  /**
+   * Extensions of formats whose content is already compressed, and which are
+   * stored in ZIP files without trying to compress them again. Other formats
+   * are still stored if their content does not compress.
+   */
+  private static final List<String> DEFAULT_STORED_EXTENSIONS = Arrays.asList("7z", "aac", "bz2", "docx", "epub",
+    "flac", "gif", "gz", "heic", "j2k", "jp2", "jpeg", "jpf", "jpg", "jpx", "m4a", "m4v", "mkv", "mov", "mp3", "mp4",
+    "odp", "ods", "odt", "ogg", "pdf", "png", "pptx", "rar", "tgz", "webm", "webp", "xlsx", "xz", "zip");
+
+  /** Maximum size of the deflated content kept in temporary files */
+  private static final long DEFAULT_SPOOL_MAX_SIZE_MB = 4096;
+
+  private static ExecutorService executor = null;
+  private static int threads = 0;
+  private static Set<String> storedExtensions = null;
+  private static ParallelZipWriter.SpoolArea spoolArea = null;
+
   private ZipTools() {
     // do nothing
   }
 
+  private static synchronized ExecutorService getExecutor() {
+    if (executor == null) {
+      threads = Runtime.getRuntime().availableProcessors();
+      storedExtensions = new HashSet<>(DEFAULT_STORED_EXTENSIONS);
+      Path spoolDirectory = null;
+      long spoolMaxSize = DEFAULT_SPOOL_MAX_SIZE_MB;
+
+      if (RodaCoreFactory.getRodaConfiguration() != null) {
+        threads = RodaCoreFactory.getRodaConfigurationAsInt(threads, "core", "zip", "threads");
+        List<String> extensions = RodaCoreFactory.getRodaConfigurationAsList("core", "zip", "stored_extensions");
+        if (!extensions.isEmpty()) {
+          storedExtensions = extensions.stream().map(String::toLowerCase).collect(Collectors.toSet());
+        }
+        spoolDirectory = RodaCoreFactory.getWorkingDirectory();
+        spoolMaxSize = RodaCoreFactory.getRodaConfiguration().getLong("core.zip.spool_max_size_mb",
+          DEFAULT_SPOOL_MAX_SIZE_MB);
+      }
+
+      spoolArea = new ParallelZipWriter.SpoolArea(spoolDirectory, spoolMaxSize * 1024 * 1024);
+
+      threads = Math.max(1, threads);
+      executor = Executors.newFixedThreadPool(threads,
+        new ThreadFactoryBuilder().setNameFormat("zip-%d").setDaemon(true).build());
+    }
+    return executor;
+  }
+
+  /**
+   * Creates a ZIP writer that compresses its entries in parallel, using the
+   * threads shared by all ZIP files being created. Closing the writer closes
+   * the output stream.
+   */
+  public static ParallelZipWriter createZipWriter(OutputStream out) {
+    ExecutorService zipExecutor = getExecutor();
+    return new ParallelZipWriter(out, zipExecutor, 2 * threads, storedExtensions, spoolArea);
+  }
+
   /**
    * Zip a list of files into an output stream
    * 
@@ -36,33 +96,10 @@ public class ZipTools {
    * @throws IOException
    */
   public static void zip(List<ZipEntryInfo> files, OutputStream out) throws IOException {
-    ZipOutputStream zos = new ZipOutputStream(out);
-
-    for (ZipEntryInfo file : files) {
-      ZipEntry entry = new ZipEntry(file.getName());
-      zos.putNextEntry(entry);
-      InputStream inputStream = file.getPayload().createInputStream();
-      sendToZip(inputStream, zos);
-      IOUtils.closeQuietly(inputStream);
-      zos.closeEntry();
-    }
-
-    IOUtils.closeQuietly(zos);
-    IOUtils.closeQuietly(out);
-  }
-
-  private static void sendToZip(InputStream in, ZipOutputStream zos) throws IOException {
-    byte[] buffer = new byte[4096];
-    int retval;
-
-    do {
-      retval = in.read(buffer, 0, 4096);
-      if (retval != -1) {
-        zos.write(buffer, 0, retval);
+    try (ParallelZipWriter zip = createZipWriter(out)) {
+      for (ZipEntryInfo file : files) {
+        zip.add(file);
       }
-    } while (retval != -1);
-
-    in.close();
-
+    }
   }
 }
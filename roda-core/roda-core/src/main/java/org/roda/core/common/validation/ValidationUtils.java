@@ -11,13 +11,18 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
-import javax.xml.parsers.SAXParserFactory;
 import javax.xml.transform.Source;
 import javax.xml.transform.sax.SAXSource;
 import javax.xml.transform.stream.StreamSource;
@@ -27,7 +32,6 @@ import javax.xml.validation.Validator;
 import org.apache.commons.io.input.BOMInputStream;
 import org.apache.commons.lang3.StringUtils;
 import org.roda.core.RodaCoreFactory;
-import org.roda.core.common.RodaEntityResolver;
 import org.roda.core.data.common.RodaConstants;
 import org.roda.core.data.exceptions.AuthorizationDeniedException;
 import org.roda.core.data.exceptions.GenericException;
@@ -45,6 +49,7 @@ import org.roda.core.model.ModelService;
 import org.roda.core.model.utils.ModelUtils;
 import org.roda.core.storage.Binary;
 import org.roda.core.storage.ContentPayload;
+import org.roda.core.util.FileUtility;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.xml.sax.InputSource;
@@ -52,7 +57,10 @@ import org.xml.sax.SAXException;
 import org.xml.sax.SAXParseException;
 import org.xml.sax.XMLReader;
 import org.xml.sax.helpers.DefaultHandler;
-import org.xml.sax.helpers.XMLReaderFactory;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 /**
  * 
@@ -71,11 +79,97 @@ import org.xml.sax.helpers.XMLReaderFactory;
 public class ValidationUtils {
   private static final Logger LOGGER = LoggerFactory.getLogger(ValidationUtils.class);
 
+  private static final String PREMIS_SCHEMA = "premis-v2-0";
+
+  /**
+   * Metadata already found valid, keyed by the schema (type & version) and the
+   * digest of the content, so that unchanged files are not validated again
+   */
+  private static final Cache<String, Boolean> KNOWN_VALID = CacheBuilder.newBuilder().maximumSize(50000).build();
+
+  private static ExecutorService executor = null;
+
   /** Private empty constructor */
   private ValidationUtils() {
     // do nothing
   }
 
+  private static synchronized ExecutorService getExecutor() {
+    if (executor == null) {
+      int threads = Runtime.getRuntime().availableProcessors();
+      if (RodaCoreFactory.getRodaConfiguration() != null) {
+        threads = RodaCoreFactory.getRodaConfigurationAsInt(threads, "core", "validation", "threads");
+      }
+      executor = Executors.newFixedThreadPool(Math.max(1, threads),
+        new ThreadFactoryBuilder().setNameFormat("metadata-validation-%d").setDaemon(true).build());
+    }
+    return executor;
+  }
+
+  /**
+   * Forgets the metadata known to be valid, e.g. because schemas may have
+   * changed.
+   */
+  public static void clearKnownValidCache() {
+    KNOWN_VALID.invalidateAll();
+  }
+
+  /**
+   * Runs the validations in parallel.
+   * 
+   * @return the validation reports, in the same order as the validations
+   */
+  private static List<ValidationReport> runValidations(List<Callable<ValidationReport>> validations)
+    throws GenericException {
+    List<ValidationReport> reports = new ArrayList<>();
+
+    if (validations.size() == 1) {
+      try {
+        reports.add(validations.get(0).call());
+      } catch (Exception e) {
+        throw new GenericException("Error validating metadata", e);
+      }
+    } else if (!validations.isEmpty()) {
+      List<Future<ValidationReport>> futures = new ArrayList<>();
+      ExecutorService validationExecutor = getExecutor();
+      for (Callable<ValidationReport> validation : validations) {
+        futures.add(validationExecutor.submit(validation));
+      }
+
+      try {
+        for (Future<ValidationReport> future : futures) {
+          reports.add(future.get());
+        }
+      } catch (InterruptedException e) {
+        futures.forEach(future -> future.cancel(true));
+        Thread.currentThread().interrupt();
+        throw new GenericException("Interrupted while validating metadata", e);
+      } catch (ExecutionException e) {
+        futures.forEach(future -> future.cancel(true));
+        throw new GenericException("Error validating metadata", e.getCause());
+      }
+    }
+
+    return reports;
+  }
+
+  /**
+   * @return the key of the content in the known valid cache, or {@code null}
+   *         if the content digest could not be calculated
+   */
+  private static String getKnownValidKey(ContentPayload payload, String metadataType, String metadataVersion) {
+    try (InputStream inputStream = payload.createInputStream()) {
+      return metadataType + "|" + metadataVersion + "|" + FileUtility.checksum(inputStream, "SHA-256");
+    } catch (IOException | NoSuchAlgorithmException e) {
+      LOGGER.debug("Could not calculate digest of metadata", e);
+      return null;
+    }
+  }
+
+  private static boolean isKnownValid(String knownValidKey) {
+    return knownValidKey != null && KNOWN_VALID.getIfPresent(knownValidKey) != null;
+  }
+
   public static Pair<ValidationReport, List<Pair<String, String>>> isAIPMetadataValid(
     boolean forceDescriptiveMetadataType, boolean validateDescriptiveMetadata, String fallbackMetadataType,
     String fallbackMetadataVersion, ModelService model, AIP aip)
@@ -84,41 +178,45 @@ public class ValidationUtils {
     report.setValid(true);
     List<DescriptiveMetadata> descriptiveMetadata = aip.getDescriptiveMetadata();
     List<Pair<String, String>> schemasInfo = new ArrayList<>();
+    List<Binary> binaries = new ArrayList<>();
+    List<Callable<ValidationReport>> validations = new ArrayList<>();
+
     for (DescriptiveMetadata dm : descriptiveMetadata) {
       StoragePath storagePath = ModelUtils.getDescriptiveMetadataStoragePath(dm);
       Binary binary = model.getStorage().getBinary(storagePath);
+      binaries.add(binary);
 
-      if (forceDescriptiveMetadataType) {
-        if (validateDescriptiveMetadata) {
-          ValidationReport dmReport = validateDescriptiveBinary(binary.getContent(), fallbackMetadataType,
-            fallbackMetadataVersion, false);
-          consolidateReports(report, dmReport);
-          if (schemasInfo.isEmpty()) {
-            schemasInfo.add(Pair.of(fallbackMetadataType, fallbackMetadataVersion));
-          }
+      if (validateDescriptiveMetadata) {
+        boolean useFallback = forceDescriptiveMetadataType || dm.getType() == null;
+        String metadataType = useFallback ? fallbackMetadataType : dm.getType();
+        String metadataVersion = useFallback ? fallbackMetadataVersion : dm.getVersion();
+        validations.add(() -> validateDescriptiveBinary(binary.getContent(), metadataType, metadataVersion, false));
+
+        Pair<String, String> pair = Pair.of(metadataType, metadataVersion);
+        if (!schemasInfo.contains(pair)) {
+          schemasInfo.add(pair);
         }
+      }
+    }
+
+    // validate all files of the AIP at the same time
+    for (ValidationReport dmReport : runValidations(validations)) {
+      consolidateReports(report, dmReport);
+    }
+
+    if (forceDescriptiveMetadataType) {
+      for (int i = 0; i < descriptiveMetadata.size(); i++) {
+        DescriptiveMetadata dm = descriptiveMetadata.get(i);
 
         // XXX review why should a validation method update data
         Map<String, String> properties = new HashMap<>();
         properties.put(RodaConstants.VERSION_ACTION, RodaConstants.VersionAction.METADATA_TYPE_FORCED.toString());
 
-        model.updateDescriptiveMetadata(aip.getId(), dm.getId(), binary.getContent(), fallbackMetadataType,
+        model.updateDescriptiveMetadata(aip.getId(), dm.getId(), binaries.get(i).getContent(), fallbackMetadataType,
           fallbackMetadataVersion, properties);
         report.setValid(true);
 
-        LOGGER.debug("{} valid for metadata type {}", storagePath, fallbackMetadataType);
-
-      } else if (validateDescriptiveMetadata) {
-        String metadataType = dm.getType() != null ? dm.getType() : fallbackMetadataType;
-        String metadataVersion = dm.getType() != null ? dm.getVersion() : fallbackMetadataVersion;
-        ValidationReport dmReport = validateDescriptiveBinary(binary.getContent(), metadataType, metadataVersion,
-          false);
-        consolidateReports(report, dmReport);
-
-        Pair<String, String> pair = Pair.of(metadataType, metadataVersion);
-        if (!schemasInfo.contains(pair)) {
-          schemasInfo.add(pair);
-        }
+        LOGGER.debug("{} valid for metadata type {}", binaries.get(i).getStoragePath(), fallbackMetadataType);
       }
     }
 
@@ -141,16 +239,11 @@ public class ValidationUtils {
 
   public static ValidationReport isXMLValid(ContentPayload xmlPayload) {
     ValidationReport ret = new ValidationReport();
-
-    SAXParserFactory factory = SAXParserFactory.newInstance();
-    factory.setValidating(false);
-    factory.setNamespaceAware(true);
-
     RodaErrorHandler errorHandler = new RodaErrorHandler();
+    XMLReader xmlReader = null;
 
     try (Reader reader = new InputStreamReader(new BOMInputStream(xmlPayload.createInputStream()))) {
-      XMLReader xmlReader = XMLReaderFactory.createXMLReader();
-      xmlReader.setEntityResolver(new RodaEntityResolver());
+      xmlReader = XMLValidationPool.borrowReader();
       InputSource inputSource = new InputSource(reader);
 
       xmlReader.setErrorHandler(errorHandler);
@@ -167,6 +260,10 @@ public class ValidationUtils {
     } catch (IOException e) {
       ret.setValid(false);
       ret.setMessage(e.getMessage());
+    } finally {
+      if (xmlReader != null) {
+        XMLValidationPool.returnReader(xmlReader);
+      }
     }
 
     return ret;
@@ -187,9 +284,17 @@ public class ValidationUtils {
     boolean valid = true;
     List<ValidationIssue> issues = new ArrayList<>();
     List<DescriptiveMetadata> descriptiveMetadata = model.retrieveAIP(aipId).getDescriptiveMetadata();
+    List<Callable<ValidationReport>> validations = new ArrayList<>();
 
     for (DescriptiveMetadata dm : descriptiveMetadata) {
-      ValidationReport report = isDescriptiveMetadataValid(model, dm, failIfNoSchema);
+      StoragePath storagePath = ModelUtils.getDescriptiveMetadataStoragePath(dm.getAipId(), dm.getRepresentationId(),
+        dm.getId());
+      Binary binary = model.getStorage().getBinary(storagePath);
+      validations.add(() -> validateDescriptiveBinary(binary.getContent(), dm.getType(), dm.getVersion(),
+        failIfNoSchema));
+    }
+
+    for (ValidationReport report : runValidations(validations)) {
       valid &= report.isValid();
       issues.addAll(report.getIssues());
     }
@@ -270,17 +375,24 @@ public class ValidationUtils {
 
     try {
       if (xmlSchema.isPresent()) {
+        String knownValidKey = getKnownValidKey(descriptiveMetadataPayload, descriptiveMetadataType,
+          descriptiveMetadataVersion);
+        if (isKnownValid(knownValidKey)) {
+          ret.setValid(true);
+          return ret;
+        }
+
         RodaErrorHandler errorHandler = new RodaErrorHandler();
+        Validator validator = XMLValidationPool.borrowValidator(xmlSchema.get());
+        XMLReader xmlReader = null;
 
         try (InputStreamReader inputStreamReader = new InputStreamReader(
           new BOMInputStream(descriptiveMetadataPayload.createInputStream()))) {
 
-          XMLReader xmlReader = XMLReaderFactory.createXMLReader();
-          xmlReader.setEntityResolver(new RodaEntityResolver());
+          xmlReader = XMLValidationPool.borrowReader();
           InputSource inputSource = new InputSource(inputStreamReader);
           Source source = new SAXSource(xmlReader, inputSource);
 
-          Validator validator = xmlSchema.get().newValidator();
           validator.setErrorHandler(errorHandler);
           validator.validate(source);
           ret.setValid(errorHandler.getErrors().isEmpty());
@@ -293,6 +405,15 @@ public class ValidationUtils {
           for (SAXParseException saxParseException : errorHandler.getErrors()) {
             ret.addIssue(convertSAXParseException(saxParseException));
           }
+        } finally {
+          XMLValidationPool.returnValidator(xmlSchema.get(), validator);
+          if (xmlReader != null) {
+            XMLValidationPool.returnReader(xmlReader);
+          }
+        }
+
+        if (ret.isValid() && knownValidKey != null) {
+          KNOWN_VALID.put(knownValidKey, Boolean.TRUE);
         }
       } else {
         if (failIfNoSchema) {
@@ -325,12 +446,18 @@ public class ValidationUtils {
    */
   public static ValidationReport validatePreservationBinary(Binary binary, boolean failIfNoSchema) {
     ValidationReport report = new ValidationReport();
-    Optional<Schema> xmlSchema = RodaCoreFactory.getRodaSchema("premis-v2-0", null);
+    Optional<Schema> xmlSchema = RodaCoreFactory.getRodaSchema(PREMIS_SCHEMA, null);
 
     if (xmlSchema.isPresent()) {
+      String knownValidKey = getKnownValidKey(binary.getContent(), PREMIS_SCHEMA, null);
+      if (isKnownValid(knownValidKey)) {
+        report.setValid(true);
+        return report;
+      }
+
+      Validator validator = XMLValidationPool.borrowValidator(xmlSchema.get());
       try (InputStream inputStream = binary.getContent().createInputStream()) {
         Source xmlFile = new StreamSource(inputStream);
-        Validator validator = xmlSchema.get().newValidator();
         RodaErrorHandler errorHandler = new RodaErrorHandler();
         validator.setErrorHandler(errorHandler);
         try {
@@ -349,6 +476,12 @@ public class ValidationUtils {
       } catch (IOException e) {
         report.setValid(false);
         report.setMessage(e.getMessage());
+      } finally {
+        XMLValidationPool.returnValidator(xmlSchema.get(), validator);
+      }
+
+      if (report.isValid() && knownValidKey != null) {
+        KNOWN_VALID.put(knownValidKey, Boolean.TRUE);
       }
     } else if (failIfNoSchema) {
       report.setValid(false);
@@ -0,0 +1,70 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/roda
+ */
+package org.roda.core.common.validation;
+
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+
+import javax.xml.validation.Schema;
+import javax.xml.validation.Validator;
+
+import org.roda.core.common.RodaEntityResolver;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+import org.xml.sax.helpers.XMLReaderFactory;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+
+/**
+ * Pools of schema {@link Validator}s and of {@link XMLReader}s. Both are
+ * expensive to create and not thread-safe, so each one is used by a single
+ * validation at a time and then returned to the pool to be reused.
+ */
+final class XMLValidationPool {
+  private static final int MAX_POOLED = Math.max(4, 2 * Runtime.getRuntime().availableProcessors());
+  private static final DefaultHandler NO_OP_HANDLER = new DefaultHandler();
+
+  // weak keys are compared by identity, and the pool of a schema that is no
+  // longer cached (e.g. after a configuration change) is discarded with it
+  private static final LoadingCache<Schema, Queue<Validator>> VALIDATORS = CacheBuilder.newBuilder().weakKeys()
+    .build(CacheLoader.from(schema -> new ArrayBlockingQueue<>(MAX_POOLED)));
+  private static final Queue<XMLReader> READERS = new ArrayBlockingQueue<>(MAX_POOLED);
+
+  private XMLValidationPool() {
+    // do nothing
+  }
+
+  static Validator borrowValidator(Schema schema) {
+    Validator validator = VALIDATORS.getUnchecked(schema).poll();
+    return validator != null ? validator : schema.newValidator();
+  }
+
+  static void returnValidator(Schema schema, Validator validator) {
+    validator.reset();
+    VALIDATORS.getUnchecked(schema).offer(validator);
+  }
+
+  static XMLReader borrowReader() throws SAXException {
+    XMLReader reader = READERS.poll();
+    if (reader == null) {
+      reader = XMLReaderFactory.createXMLReader();
+    }
+    // validators may replace the entity resolver of the reader they use
+    reader.setEntityResolver(new RodaEntityResolver());
+    return reader;
+  }
+
+  static void returnReader(XMLReader reader) {
+    reader.setErrorHandler(NO_OP_HANDLER);
+    reader.setContentHandler(NO_OP_HANDLER);
+    READERS.offer(reader);
+  }
+}
@@ -7,6 +7,7 @@
  */
 package org.roda.core.events;
 
+import org.roda.core.common.AuthenticationCache;
 import org.roda.core.data.exceptions.AlreadyExistsException;
 import org.roda.core.data.exceptions.AuthorizationDeniedException;
 import org.roda.core.data.exceptions.EmailAlreadyExistsException;
@@ -59,6 +60,8 @@ public abstract class AbstractEventsHandler implements EventsHandler {
           e1);
       }
     }
+
+    AuthenticationCache.invalidateUser(user.getName());
   }
 
   @Override
@@ -78,6 +81,8 @@ public abstract class AbstractEventsHandler implements EventsHandler {
           e1);
       }
     }
+
+    AuthenticationCache.invalidateUser(user.getName());
   }
 
   @Override
@@ -98,6 +103,8 @@ public abstract class AbstractEventsHandler implements EventsHandler {
     } catch (GenericException | AuthorizationDeniedException e) {
       LOGGER.error("Error handling user deleted event", e);
     }
+
+    AuthenticationCache.invalidateUser(id);
   }
 
   public void handleGroupCreated(ModelService model, Group group) {
@@ -115,6 +122,8 @@ public abstract class AbstractEventsHandler implements EventsHandler {
           e1);
       }
     }
+
+    AuthenticationCache.invalidateUsers();
   }
 
   public void handleGroupUpdated(ModelService model, Group group) {
@@ -132,6 +141,8 @@ public abstract class AbstractEventsHandler implements EventsHandler {
           e1);
       }
     }
+
+    AuthenticationCache.invalidateUsers();
   }
 
   public void handleGroupDeleted(ModelService model, String id) {
@@ -146,6 +157,8 @@ public abstract class AbstractEventsHandler implements EventsHandler {
     } catch (GenericException | AuthorizationDeniedException e) {
       LOGGER.error("Error handling delete group event", e);
     }
+
+    AuthenticationCache.invalidateUsers();
   }
 
 }
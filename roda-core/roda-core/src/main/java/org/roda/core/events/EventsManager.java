@@ -7,6 +7,7 @@
  */
 package org.roda.core.events;
 
+import org.roda.core.common.AuthenticationCache;
 import org.roda.core.data.common.RodaConstants.NodeType;
 import org.roda.core.data.v2.user.Group;
 import org.roda.core.data.v2.user.User;
@@ -36,6 +37,8 @@ public class EventsManager implements EventsNotifier {
 
   @Override
   public void notifyUserUpdated(ModelService model, User user, User updatedUser, String password) {
+    // the password, roles or state of the user may have changed
+    AuthenticationCache.invalidateUser(updatedUser.getName());
     if (enabled) {
       eventsNotifier.notifyUserUpdated(model, user, updatedUser, password);
     }
@@ -43,6 +46,7 @@ public class EventsManager implements EventsNotifier {
 
   @Override
   public void notifyMyUserUpdated(ModelService model, User user, User updatedUser, String password) {
+    AuthenticationCache.invalidateUser(updatedUser.getName());
     if (enabled) {
       eventsNotifier.notifyMyUserUpdated(model, user, updatedUser, password);
     }
@@ -50,6 +54,7 @@ public class EventsManager implements EventsNotifier {
 
   @Override
   public void notifyUserDeleted(ModelService model, String userID) {
+    AuthenticationCache.invalidateUser(userID);
     if (enabled) {
       eventsNotifier.notifyUserDeleted(model, userID);
     }
@@ -57,6 +62,8 @@ public class EventsManager implements EventsNotifier {
 
   @Override
   public void notifyGroupCreated(ModelService model, Group group) {
+    // the roles of the group members may have changed
+    AuthenticationCache.invalidateUsers();
     if (enabled) {
       eventsNotifier.notifyGroupCreated(model, group);
     }
@@ -64,6 +71,7 @@ public class EventsManager implements EventsNotifier {
 
   @Override
   public void notifyGroupUpdated(ModelService model, Group group, Group updatedGroup) {
+    AuthenticationCache.invalidateUsers();
     if (enabled) {
       eventsNotifier.notifyGroupUpdated(model, group, updatedGroup);
     }
@@ -71,6 +79,7 @@ public class EventsManager implements EventsNotifier {
 
   @Override
   public void notifyGroupDeleted(ModelService model, String id) {
+    AuthenticationCache.invalidateUsers();
     if (enabled) {
       eventsNotifier.notifyGroupDeleted(model, id);
     }
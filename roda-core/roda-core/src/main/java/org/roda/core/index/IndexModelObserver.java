@@ -8,7 +8,6 @@
 package org.roda.core.index;
 
 import java.io.IOException;
-import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -29,7 +28,6 @@ import org.roda.core.data.exceptions.GenericException;
 import org.roda.core.data.exceptions.NotFoundException;
 import org.roda.core.data.exceptions.RequestNotValidException;
 import org.roda.core.data.exceptions.ReturnWithExceptions;
-import org.roda.core.data.utils.JsonUtils;
 import org.roda.core.data.v2.IsModelObject;
 import org.roda.core.data.v2.common.OptionalWithCause;
 import org.roda.core.data.v2.index.IsIndexed;
@@ -76,9 +74,6 @@ import org.roda.core.index.utils.IterableIndexResult;
 import org.roda.core.index.utils.SolrUtils;
 import org.roda.core.model.ModelObserver;
 import org.roda.core.model.ModelService;
-import org.roda.core.model.utils.ModelUtils;
-import org.roda.core.storage.Resource;
-import org.roda.core.storage.StorageService;
 import org.roda.core.util.IdUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -781,27 +776,16 @@ public class IndexModelObserver implements ModelObserver {
 
   private ReturnWithExceptions<Void, ModelObserver> indexJobReports(Job job) {
     ReturnWithExceptions<Void, ModelObserver> ret = new ReturnWithExceptions<>(this);
-    StorageService storage = model.getStorage();
-    try (CloseableIterable<Resource> listResourcesUnderDirectory = storage
-      .listResourcesUnderDirectory(ModelUtils.getJobReportsStoragePath(job.getId()), true)) {
-
-      if (listResourcesUnderDirectory != null) {
-        for (Resource resource : listResourcesUnderDirectory) {
-          if (!resource.isDirectory()) {
-            try (
-              InputStream inputStream = storage.getBinary(resource.getStoragePath()).getContent().createInputStream()) {
-              Report objectFromJson = JsonUtils.getObjectFromJson(inputStream, Report.class);
-              jobReportCreatedOrUpdated(objectFromJson, job).addTo(ret);
-            } catch (NotFoundException | GenericException | AuthorizationDeniedException | RequestNotValidException
-              | IOException e) {
-              LOGGER.error("Error getting report json from binary", e);
-              ret.add(e);
-            }
-          }
+    try (CloseableIterable<OptionalWithCause<Report>> jobReports = model.listJobReports(job.getId())) {
+      for (OptionalWithCause<Report> jobReport : jobReports) {
+        if (jobReport.isPresent()) {
+          jobReportCreatedOrUpdated(jobReport.get(), job).addTo(ret);
+        } else {
+          LOGGER.error("Error getting job report", jobReport.getCause());
+          ret.add(jobReport.getCause());
         }
       }
-    } catch (NotFoundException | GenericException | AuthorizationDeniedException | RequestNotValidException
-      | IOException e) {
+    } catch (GenericException | RequestNotValidException | IOException e) {
       LOGGER.error("Error reindexing job reports", e);
       ret.add(e);
     }
@@ -997,6 +981,21 @@ public class IndexModelObserver implements ModelObserver {
     return SolrUtils.delete(index, RiskIncidence.class, Arrays.asList(riskIncidenceId), this, commit);
   }
 
+  @Override
+  public ReturnWithExceptions<Void, ModelObserver> riskIncidencesCreated(List<RiskIncidence> riskIncidences,
+    boolean commit) {
+    ReturnWithExceptions<Void, ModelObserver> ret = SolrUtils.createAll(index, RiskIncidence.class, riskIncidences,
+      this);
+    if (commit && ret.isEmpty()) {
+      try {
+        SolrUtils.commit(index, RiskIncidence.class);
+      } catch (GenericException e) {
+        ret.add(e);
+      }
+    }
+    return ret;
+  }
+
   @Override
   public ReturnWithExceptions<Void, ModelObserver> representationInformationCreatedOrUpdated(
     RepresentationInformation ri, boolean commit) {
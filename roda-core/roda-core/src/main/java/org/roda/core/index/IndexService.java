@@ -14,6 +14,7 @@ import java.io.InputStreamReader;
 import java.io.Serializable;
 import java.nio.file.NoSuchFileException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
 import java.util.Iterator;
 import java.util.List;
@@ -56,6 +57,7 @@ import org.roda.core.data.v2.ip.IndexedAIP;
 import org.roda.core.data.v2.ip.IndexedDIP;
 import org.roda.core.data.v2.ip.IndexedFile;
 import org.roda.core.data.v2.ip.IndexedRepresentation;
+import org.roda.core.data.v2.ip.Permissions.PermissionType;
 import org.roda.core.data.v2.ip.Representation;
 import org.roda.core.data.v2.ip.StoragePath;
 import org.roda.core.data.v2.ip.TransferredResource;
@@ -72,6 +74,9 @@ import org.roda.core.data.v2.risks.IndexedRisk;
 import org.roda.core.data.v2.risks.Risk;
 import org.roda.core.data.v2.risks.RiskIncidence;
 import org.roda.core.data.v2.user.User;
+import org.roda.core.index.utils.IndexChangeNotifier;
+import org.roda.core.index.utils.IndexCommitCoordinator;
+import org.roda.core.index.utils.IndexResultCache;
 import org.roda.core.index.utils.IndexResultIterator;
 import org.roda.core.index.utils.IterableIndexResult;
 import org.roda.core.index.utils.SolrUtils;
@@ -96,6 +101,8 @@ public class IndexService {
   private final ModelService model;
   private final IndexModelObserver observer;
   private final NodeType nodeType;
+  private final IndexCommitCoordinator commitCoordinator;
+  private final IndexChangeNotifier changeNotifier;
 
   public IndexService(SolrClient index, ModelService model, MetricRegistry metricRegistry,
     Configuration rodaConfiguration, NodeType nodeType) {
@@ -108,6 +115,24 @@ public class IndexService {
     model.addModelObserver(observer);
 
     configIterableIndexResult(metricRegistry, rodaConfiguration);
+    SolrUtils.injectResultCache(new IndexResultCache(rodaConfiguration, metricRegistry));
+    commitCoordinator = new IndexCommitCoordinator(index, rodaConfiguration, metricRegistry);
+    SolrUtils.injectCommitCoordinator(commitCoordinator);
+    changeNotifier = new IndexChangeNotifier(rodaConfiguration, metricRegistry);
+    SolrUtils.injectChangeNotifier(changeNotifier);
+  }
+
+  /**
+   * Runs the commits already requested, to be called before closing the Solr
+   * client.
+   */
+  public void shutdown() {
+    commitCoordinator.shutdown();
+    changeNotifier.shutdown();
+  }
+
+  public IndexChangeNotifier getChangeNotifier() {
+    return changeNotifier;
   }
 
   private void configIterableIndexResult(MetricRegistry metricRegistry, Configuration rodaConfiguration) {
@@ -197,6 +222,12 @@ public class IndexService {
     return SolrUtils.count(getSolrClient(), returnClass, filter, user, justActive);
   }
 
+  public <T extends IsIndexed> IndexResult<T> findWithoutPermission(Class<T> returnClass, Filter filter, User user,
+    boolean justActive, PermissionType permission, int maxResults) throws GenericException, RequestNotValidException {
+    return SolrUtils.findWithoutPermission(getSolrClient(), returnClass, filter, user, justActive, permission,
+      maxResults);
+  }
+
   public <T extends IsIndexed> T retrieve(Class<T> returnClass, String id, List<String> fieldsToReturn)
     throws NotFoundException, GenericException {
     return SolrUtils.retrieve(getSolrClient(), returnClass, id, fieldsToReturn);
@@ -471,6 +502,7 @@ public class IndexService {
     String query = RodaConstants.LOG_DATETIME + ":[* TO " + dateString + "]";
     getSolrClient().deleteByQuery(RodaConstants.INDEX_ACTION_LOG, query);
     getSolrClient().commit(RodaConstants.INDEX_ACTION_LOG);
+    SolrUtils.collectionCommitted(RodaConstants.INDEX_ACTION_LOG);
   }
 
   public <T extends IsRODAObject> void reindexAll(StorageService storage, Class<T> objectClass)
@@ -481,7 +513,7 @@ public class IndexService {
     if (AIP.class.equals(objectClass)) {
       reindexAIPs();
     } else if (TransferredResource.class.equals(objectClass)) {
-      RodaCoreFactory.getTransferredResourcesScanner().updateTransferredResources(Optional.empty(), true);
+      RodaCoreFactory.getTransferredResourcesScanner().reindexTransferredResources(Optional.empty(), true);
     } else {
       StoragePath containerPath = ModelUtils.getContainerPath(objectClass);
       try (CloseableIterable<Resource> listResourcesUnderDirectory = storage.listResourcesUnderContainer(containerPath,
@@ -552,6 +584,7 @@ public class IndexService {
     try {
       getSolrClient().deleteByQuery(indexName, "*:*");
       getSolrClient().commit(indexName);
+      SolrUtils.collectionCommitted(indexName);
     } catch (SolrServerException | IOException e) {
       LOGGER.error("Error cleaning up index {}", indexName, e);
       throw new GenericException("Error cleaning up index " + indexName, e);
@@ -574,6 +607,7 @@ public class IndexService {
       getSolrClient().deleteByQuery(indexName,
         RodaConstants.PRESERVATION_EVENT_OBJECT_CLASS + ":" + PreservationMetadataEventClass.REPOSITORY.toString());
       getSolrClient().commit(indexName);
+      SolrUtils.collectionCommitted(indexName);
     } catch (SolrServerException | IOException e) {
       LOGGER.error("Error cleaning up index {}", indexName, e);
       throw new GenericException("Error cleaning up index " + indexName, e);
@@ -588,6 +622,7 @@ public class IndexService {
       getSolrClient().deleteByQuery(indexName, "*:* -" + RodaConstants.PRESERVATION_EVENT_OBJECT_CLASS + ":"
         + PreservationMetadataEventClass.REPOSITORY.toString());
       getSolrClient().commit(indexName);
+      SolrUtils.collectionCommitted(indexName);
     } catch (SolrServerException | IOException e) {
       LOGGER.error("Error cleaning up index {}", indexName, e);
       throw new GenericException("Error cleaning up index " + indexName, e);
@@ -683,6 +718,13 @@ public class IndexService {
     SolrUtils.create(getSolrClient(), classToCreate, instance, this);
   }
 
+  public <T extends IsIndexed, M extends IsModelObject> void createAll(Class<T> classToCreate, Collection<M> instances)
+    throws AuthorizationDeniedException {
+    RodaCoreFactory.checkIfWriteIsAllowedAndIfFalseThrowException(nodeType);
+
+    SolrUtils.createAll(getSolrClient(), classToCreate, instances, this);
+  }
+
   public SolrClient getSolrClient() {
     return solrClient;
   }
@@ -22,6 +22,7 @@ import org.roda.core.data.utils.JsonUtils;
 import org.roda.core.data.v2.index.select.SelectedItems;
 import org.roda.core.data.v2.jobs.Job;
 import org.roda.core.data.v2.jobs.Job.JOB_STATE;
+import org.roda.core.data.v2.jobs.JobLatency;
 import org.roda.core.data.v2.jobs.JobStats;
 import org.roda.core.data.v2.jobs.PluginType;
 import org.roda.core.index.IndexingAdditionalInfo;
@@ -78,6 +79,7 @@ public class JobCollection extends AbstractSolrCollection<Job, Job> {
     fields.add(new Field(RodaConstants.JOB_PLUGIN_PARAMETERS, Field.TYPE_STRING).setIndexed(false).setDocValues(false));
     fields.add(new Field(RodaConstants.JOB_SOURCE_OBJECTS, Field.TYPE_STRING).setIndexed(false).setDocValues(false));
     fields.add(new Field(RodaConstants.JOB_OUTCOME_OBJECTS_CLASS, Field.TYPE_STRING));
+    fields.add(new Field(RodaConstants.JOB_LATENCY_BREAKDOWN, Field.TYPE_STRING).setIndexed(false).setDocValues(false));
     fields.add(new Field(RodaConstants.JOB_SOURCE_OBJECTS_COUNT, Field.TYPE_INT));
     fields.add(new Field(RodaConstants.JOB_SOURCE_OBJECTS_WAITING_TO_BE_PROCESSED, Field.TYPE_INT));
     fields.add(new Field(RodaConstants.JOB_SOURCE_OBJECTS_BEING_PROCESSED, Field.TYPE_INT));
@@ -132,6 +134,7 @@ public class JobCollection extends AbstractSolrCollection<Job, Job> {
     doc.addField(RodaConstants.JOB_PLUGIN_PARAMETERS, JsonUtils.getJsonFromObject(job.getPluginParameters()));
     doc.addField(RodaConstants.JOB_SOURCE_OBJECTS, JsonUtils.getJsonFromObject(job.getSourceObjects()));
     doc.addField(RodaConstants.JOB_OUTCOME_OBJECTS_CLASS, job.getOutcomeObjectsClass());
+    doc.addField(RodaConstants.JOB_LATENCY_BREAKDOWN, JsonUtils.getJsonFromObject(job.getLatencyBreakdown()));
     doc.addField(RodaConstants.JOB_HAS_FAILURES,
       jobStats.getSourceObjectsProcessedWithFailure() > 0
         || (jobStats.getSourceObjectsCount() > jobStats.getSourceObjectsProcessedWithSuccess()
@@ -193,6 +196,16 @@ public class JobCollection extends AbstractSolrCollection<Job, Job> {
     }
     job.setOutcomeObjectsClass(SolrUtils.objectToString(doc.get(RodaConstants.JOB_OUTCOME_OBJECTS_CLASS), null));
 
+    try {
+      if ((fieldsToReturn.isEmpty() || fieldsToReturn.contains(RodaConstants.JOB_LATENCY_BREAKDOWN))
+        && doc.containsKey(RodaConstants.JOB_LATENCY_BREAKDOWN)) {
+        job.setLatencyBreakdown(JsonUtils.getListFromJson(
+          SolrUtils.objectToString(doc.get(RodaConstants.JOB_LATENCY_BREAKDOWN), "[]"), JobLatency.class));
+      }
+    } catch (GenericException e) {
+      LOGGER.error("Error parsing latency breakdown of job", e);
+    }
+
     return job;
   }
 
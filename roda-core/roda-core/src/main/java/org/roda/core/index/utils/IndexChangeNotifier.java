@@ -0,0 +1,115 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/roda
+ */
+package org.roda.core.index.utils;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.apache.commons.configuration.Configuration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Tells listeners (e.g. the sessions of the web interface showing lists of
+ * objects) which collections changed, so that they only search the index again
+ * when needed instead of polling it.
+ *
+ * Changes are gathered and notified at most once per interval. As documents
+ * only become visible to searches after a commit (that Solr also does on its
+ * own, see autoSoftCommit in solrconfig.xml), a collection changed during an
+ * interval is notified again at the end of the next one, by then its changes
+ * are visible. The interval should thus not be shorter than the autoSoftCommit
+ * time.
+ */
+public class IndexChangeNotifier {
+  private static final Logger LOGGER = LoggerFactory.getLogger(IndexChangeNotifier.class);
+  private static final String CONFIG_PREFIX = "core.index.changes";
+
+  private final long intervalInMillis;
+  private final ScheduledExecutorService executor;
+  private final List<Consumer<Set<String>>> listeners = new CopyOnWriteArrayList<>();
+  // collection > time of its last change
+  private final Map<String, Long> changes = new HashMap<>();
+
+  private final Meter notifications;
+
+  public IndexChangeNotifier(Configuration configuration, MetricRegistry metricRegistry) {
+    this.intervalInMillis = Math.max(100L, configuration.getLong(CONFIG_PREFIX + ".interval_ms", 2000L));
+    this.executor = Executors.newSingleThreadScheduledExecutor(
+      new ThreadFactoryBuilder().setNameFormat("index-changes-%d").setDaemon(true).build());
+    this.executor.scheduleAtFixedRate(() -> notifyListeners(System.currentTimeMillis()), intervalInMillis,
+      intervalInMillis, TimeUnit.MILLISECONDS);
+
+    this.notifications = metricRegistry
+      .meter(MetricRegistry.name(IndexChangeNotifier.class.getSimpleName(), "notifications"));
+  }
+
+  public void changed(String collection) {
+    synchronized (changes) {
+      changes.put(collection, System.currentTimeMillis());
+    }
+  }
+
+  /**
+   * Adds a listener, called with the names of the collections that changed.
+   * Listeners are called by a single thread, so they must not block.
+   */
+  public void addListener(Consumer<Set<String>> listener) {
+    listeners.add(listener);
+  }
+
+  public void removeListener(Consumer<Set<String>> listener) {
+    listeners.remove(listener);
+  }
+
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+
+  void notifyListeners(long now) {
+    Set<String> collections = new TreeSet<>();
+    long settled = now - intervalInMillis;
+    synchronized (changes) {
+      Iterator<Map.Entry<String, Long>> iterator = changes.entrySet().iterator();
+      while (iterator.hasNext()) {
+        Map.Entry<String, Long> change = iterator.next();
+        collections.add(change.getKey());
+        // changed during the last interval, so notify it again
+        if (change.getValue() <= settled) {
+          iterator.remove();
+        }
+      }
+    }
+
+    if (!collections.isEmpty() && !listeners.isEmpty()) {
+      notifications.mark();
+      Set<String> changedCollections = Collections.unmodifiableSet(collections);
+      for (Consumer<Set<String>> listener : listeners) {
+        try {
+          listener.accept(changedCollections);
+        } catch (RuntimeException e) {
+          LOGGER.error("Error notifying changes of collections {}", changedCollections, e);
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,176 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/roda
+ */
+package org.roda.core.index.utils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.apache.commons.configuration.Configuration;
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.SolrServerException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Merges the commit requests of each collection into (soft) commits.
+ *
+ * Instead of committing, a caller gets a ticket for the next commit of the
+ * collection, which is done at most the configured delay after the first
+ * request it covers, and waits for it. As a ticket is only given to requests
+ * done before its commit starts, the commit covers all the writes done by
+ * the caller before requesting it (read-your-writes), while concurrent jobs
+ * share commits instead of flooding Solr with overlapping ones. Commits of
+ * the same collection are never run in parallel.
+ *
+ * The rate of requests, the rate and duration of commits, the time callers
+ * wait for them and the rate of waits that timed out are available in the
+ * metrics registry.
+ */
+public class IndexCommitCoordinator {
+  private static final Logger LOGGER = LoggerFactory.getLogger(IndexCommitCoordinator.class);
+  private static final String CONFIG_PREFIX = "core.index.commit";
+
+  private final SolrClient index;
+  private final long maxDelayInMillis;
+  private final long timeoutInMillis;
+  private final ScheduledExecutorService executor;
+  private final ConcurrentMap<String, CollectionCommits> collections = new ConcurrentHashMap<>();
+
+  private final Meter requests;
+  private final Timer commits;
+  private final Timer waits;
+  private final Meter timeouts;
+
+  public IndexCommitCoordinator(SolrClient index, Configuration configuration, MetricRegistry metricRegistry) {
+    this.index = index;
+    this.maxDelayInMillis = Math.max(0L, configuration.getLong(CONFIG_PREFIX + ".max_delay_ms", 100L));
+    this.timeoutInMillis = configuration.getLong(CONFIG_PREFIX + ".timeout_ms", 60000L);
+
+    this.executor = Executors.newScheduledThreadPool(configuration.getInt(CONFIG_PREFIX + ".threads", 4),
+      new ThreadFactoryBuilder().setNameFormat("index-commit-%d").setDaemon(true).build());
+
+    String className = IndexCommitCoordinator.class.getSimpleName();
+    this.requests = metricRegistry.meter(MetricRegistry.name(className, "commitRequests"));
+    this.commits = metricRegistry.timer(MetricRegistry.name(className, "commits"));
+    this.waits = metricRegistry.timer(MetricRegistry.name(className, "commitWaits"));
+    this.timeouts = metricRegistry.meter(MetricRegistry.name(className, "commitTimeouts"));
+  }
+
+  /**
+   * Waits until all the writes done so far to the collections are visible to
+   * searches. Errors are logged, as commits are also done by Solr on its own.
+   *
+   * @return whether the writes are visible, i.e. {@code false} if the commit
+   *         failed or did not end within the timeout, in which case callers
+   *         relying on reading their own writes may not find them
+   */
+  public boolean commit(String... collectionsToCommit) {
+    List<CompletableFuture<Void>> tickets = new ArrayList<>();
+    for (String collection : collectionsToCommit) {
+      requests.mark();
+      tickets.add(collections.computeIfAbsent(collection, CollectionCommits::new).request());
+    }
+
+    CompletableFuture<Void> all = CompletableFuture.allOf(tickets.toArray(new CompletableFuture[] {}));
+    try (Timer.Context context = waits.time()) {
+      all.get(timeoutInMillis, TimeUnit.MILLISECONDS);
+      return true;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      LOGGER.warn("Interrupted while waiting for the commit of collections {}", Arrays.toString(collectionsToCommit));
+    } catch (ExecutionException e) {
+      LOGGER.error("Error commiting into collections: {}", Arrays.toString(collectionsToCommit), e.getCause());
+    } catch (TimeoutException e) {
+      timeouts.mark();
+      LOGGER.warn("Timed out waiting {}ms for the commit of collections {}", timeoutInMillis,
+        Arrays.toString(collectionsToCommit));
+    }
+    return false;
+  }
+
+  /**
+   * Runs the commits already requested and stops accepting new ones.
+   */
+  public void shutdown() {
+    executor.shutdown();
+    try {
+      if (!executor.awaitTermination(timeoutInMillis, TimeUnit.MILLISECONDS)) {
+        executor.shutdownNow();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      executor.shutdownNow();
+    }
+  }
+
+  private class CollectionCommits {
+    private final String collection;
+    private final Object commitLock = new Object();
+    private CompletableFuture<Void> next = null;
+
+    CollectionCommits(String collection) {
+      this.collection = collection;
+    }
+
+    CompletableFuture<Void> request() {
+      CompletableFuture<Void> ticket;
+      synchronized (this) {
+        if (next != null) {
+          return next;
+        }
+        next = new CompletableFuture<>();
+        ticket = next;
+        try {
+          executor.schedule(this::run, maxDelayInMillis, TimeUnit.MILLISECONDS);
+          return ticket;
+        } catch (RejectedExecutionException e) {
+          // shutting down, so commit right away
+        }
+      }
+      run();
+      return ticket;
+    }
+
+    private void run() {
+      synchronized (commitLock) {
+        CompletableFuture<Void> ticket;
+        // requests done while the previous commit was running are covered
+        synchronized (this) {
+          ticket = next;
+          next = null;
+        }
+
+        if (ticket != null) {
+          try (Timer.Context context = commits.time()) {
+            index.commit(collection, false, true, true);
+            SolrUtils.collectionCommitted(collection);
+            ticket.complete(null);
+          } catch (SolrServerException | IOException | RuntimeException e) {
+            ticket.completeExceptionally(e);
+          }
+        }
+      }
+    }
+  }
+}
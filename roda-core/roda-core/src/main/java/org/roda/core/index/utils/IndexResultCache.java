@@ -0,0 +1,154 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/roda
+ */
+package org.roda.core.index.utils;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.configuration.Configuration;
+import org.apache.solr.client.solrj.SolrQuery;
+import org.apache.solr.client.solrj.response.QueryResponse;
+import org.roda.core.data.exceptions.GenericException;
+import org.roda.core.data.exceptions.RequestNotValidException;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.RatioGauge;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Application level cache of index query responses, which survives the Solr
+ * cache flushes done on every (soft) commit.
+ *
+ * Responses are keyed by collection and by all the query parameters, which
+ * include the filter, sorter, sublist, facets, fields and the permission
+ * filter of the user. Each collection has a generation that is incremented
+ * whenever RODA commits it, as only then are added or deleted documents
+ * visible to searches, making all its cached responses obsolete. Writes
+ * between commits keep the cache, so it still hits while ingest is indexing.
+ * As Solr also commits on its own, responses are never served older than the
+ * maximum staleness configured for their collection.
+ */
+public class IndexResultCache {
+  private static final String CONFIG_PREFIX = "core.index_result.cache";
+  private static final String MAX_STALENESS_PREFIX = CONFIG_PREFIX + ".max_staleness_ms";
+
+  private final boolean enabled;
+  private final int maxRows;
+  private final long defaultMaxStalenessInMillis;
+  private final Configuration configuration;
+  private final MetricRegistry metricRegistry;
+  private final Cache<String, Entry> cache;
+  private final ConcurrentMap<String, AtomicLong> generations = new ConcurrentHashMap<>();
+  private final ConcurrentMap<String, Long> maxStalenessInMillis = new ConcurrentHashMap<>();
+  private final ConcurrentMap<String, Meter> hits = new ConcurrentHashMap<>();
+  private final ConcurrentMap<String, Meter> misses = new ConcurrentHashMap<>();
+  private final Meter allHits;
+  private final Meter allMisses;
+
+  public IndexResultCache(Configuration configuration, MetricRegistry metricRegistry) {
+    this.configuration = configuration;
+    this.metricRegistry = metricRegistry;
+    this.enabled = configuration.getBoolean(CONFIG_PREFIX + ".enabled", true);
+    this.maxRows = configuration.getInt(CONFIG_PREFIX + ".max_rows", 100);
+    this.defaultMaxStalenessInMillis = configuration.getLong(MAX_STALENESS_PREFIX, 2000L);
+
+    long maxStalenessOfAll = Math.max(defaultMaxStalenessInMillis, 1L);
+    Iterator<String> keys = configuration.getKeys(MAX_STALENESS_PREFIX);
+    while (keys.hasNext()) {
+      maxStalenessOfAll = Math.max(maxStalenessOfAll, configuration.getLong(keys.next(), 0L));
+    }
+    this.cache = CacheBuilder.newBuilder().maximumSize(configuration.getLong(CONFIG_PREFIX + ".max_size", 1000L))
+      .expireAfterWrite(maxStalenessOfAll, TimeUnit.MILLISECONDS).build();
+
+    String className = IndexResultCache.class.getSimpleName();
+    this.allHits = metricRegistry.meter(MetricRegistry.name(className, "hits"));
+    this.allMisses = metricRegistry.meter(MetricRegistry.name(className, "misses"));
+    metricRegistry.gauge(MetricRegistry.name(className, "hitRatio"), () -> new RatioGauge() {
+      @Override
+      protected Ratio getRatio() {
+        return Ratio.of(allHits.getCount(), allHits.getCount() + allMisses.getCount());
+      }
+    });
+  }
+
+  /**
+   * Returns the cached response of the query, or executes it and caches its
+   * response if it is not cached, obsolete or too old.
+   */
+  public QueryResponse query(String collection, SolrQuery query, Query execution)
+    throws GenericException, RequestNotValidException {
+    long maxStaleness = getMaxStalenessInMillis(collection);
+    Integer rows = query.getRows();
+    if (!enabled || maxStaleness <= 0 || rows == null || rows > maxRows) {
+      return execution.execute();
+    }
+
+    String key = collection + "?" + query.toString();
+    long generation = getGeneration(collection).get();
+    Entry entry = cache.getIfPresent(key);
+
+    if (entry != null && entry.generation == generation
+      && System.currentTimeMillis() - entry.timestamp <= maxStaleness) {
+      allHits.mark();
+      getMeter(hits, collection, "hits").mark();
+      return entry.response;
+    }
+
+    allMisses.mark();
+    getMeter(misses, collection, "misses").mark();
+    // the generation read before querying makes the response obsolete if the
+    // collection changes while it is being queried
+    QueryResponse response = execution.execute();
+    cache.put(key, new Entry(generation, response));
+    return response;
+  }
+
+  /**
+   * Makes all cached responses of the collection obsolete, to be called when
+   * the collection is committed.
+   */
+  public void invalidate(String collection) {
+    getGeneration(collection).incrementAndGet();
+  }
+
+  private AtomicLong getGeneration(String collection) {
+    return generations.computeIfAbsent(collection, c -> new AtomicLong());
+  }
+
+  private long getMaxStalenessInMillis(String collection) {
+    return maxStalenessInMillis.computeIfAbsent(collection,
+      c -> configuration.getLong(MAX_STALENESS_PREFIX + "." + c, defaultMaxStalenessInMillis));
+  }
+
+  private Meter getMeter(ConcurrentMap<String, Meter> meters, String collection, String name) {
+    return meters.computeIfAbsent(collection,
+      c -> metricRegistry.meter(MetricRegistry.name(IndexResultCache.class.getSimpleName(), c, name)));
+  }
+
+  @FunctionalInterface
+  public interface Query {
+    QueryResponse execute() throws GenericException, RequestNotValidException;
+  }
+
+  private static final class Entry {
+    private final long generation;
+    private final long timestamp;
+    private final QueryResponse response;
+
+    private Entry(long generation, QueryResponse response) {
+      this.generation = generation;
+      this.timestamp = System.currentTimeMillis();
+      this.response = response;
+    }
+  }
+}
@@ -18,6 +18,7 @@ import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Date;
 import java.util.EnumMap;
 import java.util.HashMap;
@@ -140,6 +141,9 @@ public class SolrUtils {
     RodaConstants.AIP_LEVEL, RodaConstants.AIP_DATE_INITIAL, RodaConstants.AIP_DATE_FINAL));
 
   private static Map<String, List<String>> liteFieldsForEachClass = new HashMap<>();
+  private static IndexResultCache resultCache = null;
+  private static IndexCommitCoordinator commitCoordinator = null;
+  private static IndexChangeNotifier changeNotifier = null;
 
   public static final String COMMON = "common";
   public static final String CONF = "conf";
@@ -165,6 +169,40 @@ public class SolrUtils {
       .getTotalCount();
   }
 
+  /**
+   * Finds the objects matching the filter on which the user does not have the
+   * given permission, in a single query.
+   *
+   * @param maxResults
+   *          the maximum number of objects to return, the total count is always
+   *          set in the result
+   */
+  public static <T extends IsIndexed> IndexResult<T> findWithoutPermission(SolrClient index, Class<T> classToRetrieve,
+    Filter filter, User user, boolean justActive, PermissionType permission, int maxResults)
+    throws GenericException, RequestNotValidException {
+    List<String> fieldsToReturn = Arrays.asList(RodaConstants.INDEX_UUID);
+    SolrQuery query = new SolrQuery();
+    query.setParam("q.op", DEFAULT_QUERY_PARSER_OPERATOR);
+    query.setQuery(parseFilter(filter));
+    query.setRows(maxResults);
+    query.setFields(RodaConstants.INDEX_UUID);
+
+    StringBuilder fq = new StringBuilder("*:* NOT ");
+    appendPermissionFilterQuery(fq, user, permission);
+    query.addFilterQuery(fq.toString());
+    String stateFilterQuery = getFilterQueries(null, justActive, classToRetrieve);
+    if (!stateFilterQuery.isEmpty()) {
+      query.addFilterQuery(stateFilterQuery);
+    }
+
+    try {
+      QueryResponse response = query(index, classToRetrieve, query);
+      return queryResponseToIndexResult(response, classToRetrieve, Facets.NONE, fieldsToReturn);
+    } catch (NotSupportedException e) {
+      throw new GenericException("Could not query index", e);
+    }
+  }
+
   public static <T extends IsIndexed> T retrieve(SolrClient index, Class<T> classToRetrieve, String id, User user,
     List<String> fieldsToReturn) throws NotFoundException, GenericException, AuthorizationDeniedException {
     T ret = retrieve(index, classToRetrieve, id, fieldsToReturn);
@@ -215,11 +253,61 @@ public class SolrUtils {
     return find(index, classToRetrieve, filter, sorter, sublist, null, fieldsToReturn);
   }
 
+  public static void injectResultCache(IndexResultCache cache) {
+    resultCache = cache;
+  }
+
+  public static void injectCommitCoordinator(IndexCommitCoordinator coordinator) {
+    commitCoordinator = coordinator;
+  }
+
+  public static void injectChangeNotifier(IndexChangeNotifier notifier) {
+    changeNotifier = notifier;
+  }
+
+  /**
+   * Tells the index change listeners that documents of the collection were
+   * added or deleted.
+   */
+  public static void collectionChanged(String collection) {
+    if (changeNotifier != null) {
+      changeNotifier.changed(collection);
+    }
+  }
+
+  /**
+   * Makes the cached responses of the collection obsolete, as its changes are
+   * now visible to searches, and tells the index change listeners that it
+   * changed.
+   */
+  public static void collectionCommitted(String collection) {
+    if (resultCache != null) {
+      resultCache.invalidate(collection);
+    }
+    collectionChanged(collection);
+  }
+
+  private static <T extends IsIndexed> QueryResponse cachedQuery(SolrClient index, Class<T> classToRetrieve,
+    SolrQuery query) throws GenericException, RequestNotValidException {
+    if (resultCache == null) {
+      return query(index, classToRetrieve, query);
+    }
+
+    try {
+      return resultCache.query(SolrCollectionRegistry.getIndexName(classToRetrieve), query,
+        () -> query(index, classToRetrieve, query));
+    } catch (NotSupportedException e) {
+      throw new GenericException("Could not query index", e);
+    }
+  }
+
   private static <T extends IsIndexed> QueryResponse query(SolrClient index, Class<T> classToRetrieve, SolrQuery query)
     throws GenericException, RequestNotValidException {
 
     // NOTE: work-around https://issues.apache.org/jira/browse/SOLR-12858
-    METHOD method = index instanceof EmbeddedSolrServer ? METHOD.GET : METHOD.POST;
+    SolrClient solrClient = index instanceof TracingSolrClient ? ((TracingSolrClient) index).getWrappedSolrClient()
+      : index;
+    METHOD method = solrClient instanceof EmbeddedSolrServer ? METHOD.GET : METHOD.POST;
 
     try {
       return index.query(SolrCollectionRegistry.getIndexName(classToRetrieve), query, method);
@@ -248,7 +336,7 @@ public class SolrUtils {
     parseAndConfigureFacets(facets, query);
 
     try {
-      QueryResponse response = query(index, classToRetrieve, query);
+      QueryResponse response = cachedQuery(index, classToRetrieve, query);
       ret = queryResponseToIndexResult(response, classToRetrieve, facets, fieldsToReturn);
     } catch (NotSupportedException e) {
       throw new GenericException("Could not query index", e);
@@ -334,7 +422,7 @@ public class SolrUtils {
     }
 
     try {
-      QueryResponse response = query(index, classToRetrieve, query);
+      QueryResponse response = cachedQuery(index, classToRetrieve, query);
       ret = queryResponseToIndexResult(response, classToRetrieve, facets, fieldsToReturn);
     } catch (NotSupportedException e) {
       throw new GenericException("Could not query index", e);
@@ -1116,21 +1204,14 @@ public class SolrUtils {
    * Roda user > Apache Solr filter query
    * ____________________________________________________________________________________________________________________
    */
-  private static <T extends IsIndexed> String getFilterQueries(User user, boolean justActive,
+  static <T extends IsIndexed> String getFilterQueries(User user, boolean justActive,
     Class<T> classToRetrieve) {
 
     StringBuilder fq = new StringBuilder();
 
     // TODO find a better way to define admin super powers
     if (user != null && !RodaConstants.ADMIN.equals(user.getName())) {
-      fq.append("(");
-      String usersKey = RodaConstants.INDEX_PERMISSION_USERS_PREFIX + PermissionType.READ;
-      appendExactMatch(fq, usersKey, user.getId(), true, false);
-
-      String groupsKey = RodaConstants.INDEX_PERMISSION_GROUPS_PREFIX + PermissionType.READ;
-      appendValuesUsingOROperatorForQuery(fq, groupsKey, new ArrayList<>(user.getGroups()), true);
-
-      fq.append(")");
+      appendPermissionFilterQuery(fq, user, PermissionType.READ);
     }
 
     if (justActive && SolrCollection.hasStateFilter(classToRetrieve)) {
@@ -1140,6 +1221,17 @@ public class SolrUtils {
     return fq.toString();
   }
 
+  private static void appendPermissionFilterQuery(StringBuilder fq, User user, PermissionType permission) {
+    fq.append("(");
+    String usersKey = RodaConstants.INDEX_PERMISSION_USERS_PREFIX + permission;
+    appendExactMatch(fq, usersKey, user.getId(), true, false);
+
+    String groupsKey = RodaConstants.INDEX_PERMISSION_GROUPS_PREFIX + permission;
+    appendValuesUsingOROperatorForQuery(fq, groupsKey, new ArrayList<>(user.getGroups()), true);
+
+    fq.append(")");
+  }
+
   private static void appendValuesUsingOROperatorForQuery(StringBuilder ret, String key, List<String> values,
     boolean prependWithOrIfNeeded) {
     if (!values.isEmpty()) {
@@ -1165,6 +1257,10 @@ public class SolrUtils {
    * ____________________________________________________________________________________________________________________
    */
   private static void commit(SolrClient index, String... collections) {
+    if (commitCoordinator != null) {
+      commitCoordinator.commit(collections);
+      return;
+    }
 
     boolean waitFlush = false;
     boolean waitSearcher = true;
@@ -1173,6 +1269,7 @@ public class SolrUtils {
     for (String collection : collections) {
       try {
         index.commit(collection, waitFlush, waitSearcher, softCommit);
+        collectionCommitted(collection);
       } catch (SolrServerException | IOException | SolrException e) {
         LOGGER.error("Error commiting into collection: {}", collection, e);
       }
@@ -1204,6 +1301,7 @@ public class SolrUtils {
     if (instance != null) {
       try {
         index.add(classToCreate, instance);
+        collectionChanged(classToCreate);
       } catch (SolrServerException | IOException | SolrException e) {
         LOGGER.error("Error adding document to index", e);
         ret.add(e);
@@ -1220,7 +1318,9 @@ public class SolrUtils {
       try {
         SolrInputDocument solrDocument = SolrCollectionRegistry.toSolrDocument(indexClass, object, utils);
         if (solrDocument != null) {
-          index.add(SolrCollectionRegistry.getIndexName(indexClass), solrDocument);
+          String collection = SolrCollectionRegistry.getIndexName(indexClass);
+          index.add(collection, solrDocument);
+          collectionChanged(collection);
         }
 
       } catch (GenericException | NotSupportedException | RequestNotValidException | NotFoundException
@@ -1264,6 +1364,37 @@ public class SolrUtils {
     return ret;
   }
 
+  /**
+   * Adds all the instances to the index with a single request.
+   */
+  public static <T extends IsIndexed, M extends IsModelObject, S extends Object> ReturnWithExceptions<Void, S> createAll(
+    SolrClient index, Class<T> classToCreate, Collection<M> instances, S source) {
+    ReturnWithExceptions<Void, S> ret = new ReturnWithExceptions<>(source);
+    if (instances.isEmpty()) {
+      return ret;
+    }
+
+    try {
+      List<SolrInputDocument> documents = new ArrayList<>();
+      for (M instance : instances) {
+        SolrInputDocument document = SolrCollectionRegistry.toSolrDocument(classToCreate, instance);
+        if (document != null) {
+          documents.add(document);
+        }
+      }
+
+      String collection = SolrCollectionRegistry.getIndexName(classToCreate);
+      index.add(collection, documents);
+      collectionChanged(collection);
+    } catch (NotSupportedException | GenericException | RequestNotValidException | NotFoundException
+      | AuthorizationDeniedException | SolrServerException | IOException | SolrException e) {
+      LOGGER.error("Error adding documents to index", e);
+      ret.add(e);
+    }
+
+    return ret;
+  }
+
   public static <T extends IsIndexed, S extends Object> ReturnWithExceptions<Void, S> update(SolrClient index,
     Class<T> classToCreate, String uuid, Map<String, Object> fields, S source) {
     ReturnWithExceptions<Void, S> ret = new ReturnWithExceptions<>();
@@ -1557,7 +1688,9 @@ public class SolrUtils {
     Class<T> classToDelete, List<String> ids, S source, boolean commit) {
     ReturnWithExceptions<Void, S> ret = new ReturnWithExceptions<>();
     try {
-      index.deleteById(SolrCollectionRegistry.getIndexName(classToDelete), ids);
+      String collection = SolrCollectionRegistry.getIndexName(classToDelete);
+      index.deleteById(collection, ids);
+      collectionChanged(collection);
       if (commit) {
         commit(index, classToDelete);
       }
@@ -1578,7 +1711,9 @@ public class SolrUtils {
     Class<T> classToDelete, Filter filter, S source, boolean commit) {
     ReturnWithExceptions<Void, S> ret = new ReturnWithExceptions<>();
     try {
-      index.deleteByQuery(SolrCollectionRegistry.getIndexName(classToDelete), parseFilter(filter));
+      String collection = SolrCollectionRegistry.getIndexName(classToDelete);
+      index.deleteByQuery(collection, parseFilter(filter));
+      collectionChanged(collection);
 
       if (commit) {
         commit(index, classToDelete);
@@ -1596,6 +1731,7 @@ public class SolrUtils {
     throws GenericException, RequestNotValidException {
     try {
       index.deleteByQuery(classToDelete, parseFilter(filter));
+      collectionChanged(classToDelete);
     } catch (SolrServerException | SolrException | IOException e) {
       throw new GenericException("Could not delete items", e);
     }
@@ -0,0 +1,55 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/roda
+ */
+package org.roda.core.index.utils;
+
+import java.io.IOException;
+
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.SolrRequest;
+import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.client.solrj.beans.DocumentObjectBinder;
+import org.apache.solr.common.util.NamedList;
+import org.roda.core.util.Tracing;
+
+/**
+ * Solr client tracing the time spent in each request (queries, updates, real
+ * time gets, commits) made by the index, by collection and request path.
+ */
+public class TracingSolrClient extends SolrClient {
+  private static final long serialVersionUID = 4286470542478066370L;
+
+  private final SolrClient solrClient;
+
+  public TracingSolrClient(SolrClient solrClient) {
+    super();
+    this.solrClient = solrClient;
+  }
+
+  public SolrClient getWrappedSolrClient() {
+    return solrClient;
+  }
+
+  @Override
+  public NamedList<Object> request(SolrRequest request, String collection) throws SolrServerException, IOException {
+    String requestCollection = collection == null ? request.getCollection() : collection;
+    String name = (requestCollection == null ? "" : requestCollection) + request.getPath();
+    try (Tracing.Span span = Tracing.start(Tracing.SpanType.INDEX, name)) {
+      return solrClient.request(request, collection);
+    }
+  }
+
+  @Override
+  public DocumentObjectBinder getBinder() {
+    return solrClient.getBinder();
+  }
+
+  @Override
+  public void close() throws IOException {
+    solrClient.close();
+  }
+}
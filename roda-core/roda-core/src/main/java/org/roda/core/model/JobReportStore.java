@@ -0,0 +1,689 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/roda
+ */
+package org.roda.core.model;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.roda.core.RodaCoreFactory;
+import org.roda.core.data.common.RodaConstants;
+import org.roda.core.data.exceptions.AuthorizationDeniedException;
+import org.roda.core.data.exceptions.GenericException;
+import org.roda.core.data.exceptions.NotFoundException;
+import org.roda.core.data.exceptions.RequestNotValidException;
+import org.roda.core.data.utils.JsonUtils;
+import org.roda.core.data.v2.jobs.Report;
+import org.roda.core.model.utils.ModelUtils;
+import org.roda.core.storage.DirectResourceAccess;
+import org.roda.core.storage.StorageService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Stores the reports of each job in append-only segment files, instead of one
+ * file per report that is rewritten on every update.
+ *
+ * Each line of a segment is a record of a report: its fields without the
+ * report items, and the items changed since the previous record of the same
+ * report (which the record points to). As a record with all the items is
+ * written every few updates, a report is rebuilt with a few reads. An index,
+ * kept in memory while the job is in use, maps the report ids to their last
+ * record. When the job finishes, its segments are compacted into a single one,
+ * with one record per report, and the index is persisted next to it so that
+ * the reports of finished jobs are read without scanning the segment.
+ *
+ * Reports stored one per file, by previous versions, are still read and are
+ * moved into the segment when the job is compacted.
+ *
+ * The segments are accessed directly in the folder of the job reports,
+ * through {@link StorageService#getDirectAccess}, as appending to a file and
+ * reading a record at an offset are not possible with the binaries of the
+ * storage service, which are replaced as a whole. So, the storage service must
+ * give direct access to its files, as the file system one does.
+ */
+final class JobReportStore {
+  private static final Logger LOGGER = LoggerFactory.getLogger(JobReportStore.class);
+
+  private static final HashFunction HASH_FUNCTION = Hashing.murmur3_128();
+
+  private static final String SEGMENT_PREFIX = "segment-";
+  private static final String SEGMENT_EXTENSION = ".jsonl";
+  private static final String INDEX_FILE = "segments.index";
+  private static final String TEMPORARY_EXTENSION = ".tmp";
+  private static final int OFFSET_BITS = 40;
+  private static final long OFFSET_MASK = (1L << OFFSET_BITS) - 1;
+  private static final long LEGACY = -1L;
+
+  private static final String FIELD_ID = "id";
+  private static final String FIELD_DELETED = "deleted";
+  private static final String FIELD_PREVIOUS = "previous";
+  private static final String FIELD_DEPTH = "depth";
+  private static final String FIELD_FROM = "from";
+  private static final String FIELD_REPORT = "report";
+  private static final String FIELD_ITEMS = "items";
+  private static final String REPORT_ITEMS = "reports";
+
+  private final StorageService storage;
+  private final int maxOpenJobs;
+  private final int maxDeltas;
+  private final ConcurrentMap<String, JobReports> jobs = new ConcurrentHashMap<>();
+  private final ExecutorService compactions = Executors.newSingleThreadExecutor(
+    new ThreadFactoryBuilder().setNameFormat("job-report-compaction-%d").setDaemon(true).build());
+
+  JobReportStore(StorageService storage) {
+    this(storage, getConfigurationAsInt(50, "max_open_jobs"), getConfigurationAsInt(8, "max_deltas"));
+  }
+
+  JobReportStore(StorageService storage, int maxOpenJobs, int maxDeltas) {
+    this.storage = storage;
+    this.maxOpenJobs = maxOpenJobs;
+    this.maxDeltas = maxDeltas;
+  }
+
+  Report retrieve(String jobId, String reportId)
+    throws RequestNotValidException, GenericException, NotFoundException {
+    return apply(jobId, reports -> reports.retrieve(reportId));
+  }
+
+  void createOrUpdate(Report report) throws RequestNotValidException, GenericException {
+    try {
+      apply(report.getJobId(), reports -> {
+        reports.append(report);
+        return null;
+      });
+    } catch (NotFoundException e) {
+      throw new GenericException("Error storing job report " + report.getId(), e);
+    }
+  }
+
+  void delete(String jobId, String reportId) throws RequestNotValidException, GenericException, NotFoundException {
+    apply(jobId, reports -> {
+      reports.delete(reportId);
+      return null;
+    });
+  }
+
+  /**
+   * @return the ids of the reports of the job, in the order they were created
+   */
+  List<String> listIds(String jobId) throws RequestNotValidException, GenericException {
+    return listIds(jobId, 0, Integer.MAX_VALUE);
+  }
+
+  /**
+   * @return up to {@code limit} ids of the reports of the job, in the order
+   *         they were created, skipping the first {@code start} ones
+   */
+  List<String> listIds(String jobId, int start, int limit) throws RequestNotValidException, GenericException {
+    try {
+      return apply(jobId, reports -> {
+        List<String> ids = new ArrayList<>(Math.max(0, Math.min(limit, reports.index.size() - start)));
+        Iterator<String> iterator = reports.index.keySet().iterator();
+        for (int i = 0; i < start && iterator.hasNext(); i++) {
+          iterator.next();
+        }
+        while (ids.size() < limit && iterator.hasNext()) {
+          ids.add(iterator.next());
+        }
+        return ids;
+      });
+    } catch (NotFoundException e) {
+      throw new GenericException("Error listing reports of job " + jobId, e);
+    }
+  }
+
+  /**
+   * Compacts the segments of the job in the background, if they were changed
+   * since the last compaction, and then releases the job.
+   */
+  void compactAsync(String jobId) {
+    compactions.execute(() -> {
+      try {
+        compact(jobId);
+        release(jobId);
+      } catch (RequestNotValidException | GenericException | NotFoundException e) {
+        LOGGER.error("Error compacting reports of job {}", jobId, e);
+      }
+    });
+  }
+
+  void compact(String jobId) throws RequestNotValidException, GenericException, NotFoundException {
+    apply(jobId, reports -> {
+      reports.compact();
+      return null;
+    });
+  }
+
+  /**
+   * Releases the job, e.g. because its reports are going to be deleted.
+   */
+  void release(String jobId) {
+    jobs.computeIfPresent(jobId, (id, reports) -> {
+      reports.close();
+      return null;
+    });
+  }
+
+  private static int getConfigurationAsInt(int defaultValue, String key) {
+    if (RodaCoreFactory.getRodaConfiguration() == null) {
+      return defaultValue;
+    }
+    return RodaCoreFactory.getRodaConfigurationAsInt(defaultValue, "core", "job_reports", key);
+  }
+
+  private <R> R apply(String jobId, JobReportsFunction<R> function)
+    throws RequestNotValidException, GenericException, NotFoundException {
+    while (true) {
+      JobReports reports = open(jobId);
+      synchronized (reports) {
+        // the job may have been released while waiting for it
+        if (!reports.closed) {
+          reports.lastAccess = System.nanoTime();
+          try {
+            return function.apply(reports);
+          } catch (IOException e) {
+            throw new GenericException("Error accessing reports of job " + jobId, e);
+          }
+        }
+      }
+    }
+  }
+
+  private JobReports open(String jobId) throws RequestNotValidException, GenericException {
+    JobReports reports = jobs.get(jobId);
+    if (reports == null) {
+      releaseLeastRecentlyUsed();
+      Path directory;
+      try (DirectResourceAccess access = storage.getDirectAccess(ModelUtils.getJobReportsStoragePath(jobId))) {
+        directory = access.getPath();
+      } catch (IOException | AuthorizationDeniedException | NotFoundException e) {
+        throw new GenericException("Error accessing reports of job " + jobId, e);
+      }
+
+      JobReports loaded;
+      try {
+        loaded = new JobReports(directory);
+      } catch (IOException e) {
+        throw new GenericException("Error loading reports of job " + jobId, e);
+      }
+
+      // the job may have been opened meanwhile
+      reports = jobs.putIfAbsent(jobId, loaded);
+      if (reports == null) {
+        reports = loaded;
+      }
+    }
+    return reports;
+  }
+
+  private void releaseLeastRecentlyUsed() {
+    while (jobs.size() >= maxOpenJobs) {
+      String leastRecentlyUsed = null;
+      long oldestAccess = Long.MAX_VALUE;
+      for (Map.Entry<String, JobReports> entry : jobs.entrySet()) {
+        if (entry.getValue().lastAccess < oldestAccess) {
+          oldestAccess = entry.getValue().lastAccess;
+          leastRecentlyUsed = entry.getKey();
+        }
+      }
+      if (leastRecentlyUsed == null) {
+        return;
+      }
+      release(leastRecentlyUsed);
+    }
+  }
+
+  private static long position(int segment, long offset) {
+    return ((long) segment << OFFSET_BITS) | offset;
+  }
+
+  private static int segment(long position) {
+    return (int) (position >>> OFFSET_BITS);
+  }
+
+  private static long offset(long position) {
+    return position & OFFSET_MASK;
+  }
+
+  private static long hash(JsonNode item) throws GenericException {
+    return HASH_FUNCTION.hashBytes(JsonUtils.getJsonBytesFromNode(item)).asLong();
+  }
+
+  private static long prefixHash(long[] hashes, int length) {
+    Hasher hasher = HASH_FUNCTION.newHasher();
+    for (int i = 0; i < length; i++) {
+      hasher.putLong(hashes[i]);
+    }
+    return hasher.hash().asLong();
+  }
+
+  @FunctionalInterface
+  private interface JobReportsFunction<R> {
+    R apply(JobReports reports) throws IOException, GenericException, NotFoundException;
+  }
+
+  /** The last record of a report. */
+  private static class Entry {
+    private long position = LEGACY;
+    private int depth = 0;
+    /** number of items of the report, or -1 if not known */
+    private int count = -1;
+    private long prefixHash = 0;
+    private long lastHash = 0;
+  }
+
+  /**
+   * The reports of a job. Not thread-safe, all methods are called while
+   * holding its lock.
+   */
+  private class JobReports {
+    private final Path directory;
+    private final Map<String, Entry> index = new LinkedHashMap<>();
+    private final Map<Integer, FileChannel> channels = new HashMap<>();
+    private int segment = 0;
+    private long size = 0;
+    private boolean compacted = false;
+    private boolean closed = false;
+    private volatile long lastAccess = System.nanoTime();
+
+    JobReports(Path directory) throws IOException, GenericException {
+      this.directory = directory;
+      if (!Files.isDirectory(directory)) {
+        return;
+      }
+
+      loadLegacyReports();
+      TreeMap<Integer, Path> segments = listSegments();
+      if (!segments.isEmpty()) {
+        segment = segments.lastKey();
+      }
+
+      int firstSegmentToScan = 0;
+      long firstOffsetToScan = 0;
+      Path indexFile = directory.resolve(INDEX_FILE);
+      if (Files.exists(indexFile)) {
+        try (BufferedReader reader = Files.newBufferedReader(indexFile, StandardCharsets.UTF_8)) {
+          String[] header = reader.readLine().split("\t");
+          int indexedSegment = Integer.parseInt(header[0]);
+          if (segments.containsKey(indexedSegment)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+              String[] fields = line.split("\t");
+              index.computeIfAbsent(fields[0], id -> new Entry()).position = Long.parseLong(fields[1]);
+            }
+            firstSegmentToScan = indexedSegment;
+            firstOffsetToScan = Long.parseLong(header[1]);
+            compacted = index.values().stream().allMatch(entry -> entry.position != LEGACY);
+          }
+        } catch (RuntimeException e) {
+          LOGGER.warn("Ignoring invalid index of job reports {}", indexFile, e);
+          index.clear();
+          loadLegacyReports();
+          firstSegmentToScan = 0;
+          firstOffsetToScan = 0;
+        }
+      }
+
+      for (Map.Entry<Integer, Path> entry : segments.entrySet()) {
+        if (entry.getKey() < firstSegmentToScan) {
+          // left behind by a compaction that did not finish
+          Files.deleteIfExists(entry.getValue());
+        } else {
+          long offset = entry.getKey() == firstSegmentToScan ? firstOffsetToScan : 0;
+          long end = scan(entry.getKey(), entry.getValue(), offset);
+          compacted = compacted && end == offset && entry.getKey() == firstSegmentToScan;
+          if (entry.getKey() == segment) {
+            size = end;
+          }
+        }
+      }
+    }
+
+    private void loadLegacyReports() throws IOException {
+      try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory,
+        "*" + RodaConstants.JOB_REPORT_FILE_EXTENSION)) {
+        for (Path path : stream) {
+          String fileName = path.getFileName().toString();
+          index.put(fileName.substring(0, fileName.length() - RodaConstants.JOB_REPORT_FILE_EXTENSION.length()),
+            new Entry());
+        }
+      }
+    }
+
+    private TreeMap<Integer, Path> listSegments() throws IOException {
+      TreeMap<Integer, Path> segments = new TreeMap<>();
+      try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+        for (Path path : stream) {
+          String fileName = path.getFileName().toString();
+          if (fileName.startsWith(SEGMENT_PREFIX) && fileName.endsWith(SEGMENT_EXTENSION)) {
+            segments.put(Integer.parseInt(
+              fileName.substring(SEGMENT_PREFIX.length(), fileName.length() - SEGMENT_EXTENSION.length())), path);
+          } else if (fileName.endsWith(TEMPORARY_EXTENSION)) {
+            Files.delete(path);
+          }
+        }
+      }
+      return segments;
+    }
+
+    /**
+     * Applies the records of the segment, from the offset on, to the index.
+     *
+     * @return the offset after the last complete record
+     */
+    private long scan(int segmentNumber, Path path, long fromOffset) throws IOException, GenericException {
+      long offset = fromOffset;
+      try (InputStream input = new BufferedInputStream(Files.newInputStream(path))) {
+        long skipped = 0;
+        while (skipped < fromOffset) {
+          long n = input.skip(fromOffset - skipped);
+          if (n <= 0) {
+            return skipped;
+          }
+          skipped += n;
+        }
+
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int b;
+        while ((b = input.read()) != -1) {
+          if (b != '\n') {
+            line.write(b);
+            continue;
+          }
+
+          JsonNode record = JsonUtils.parseJson(line.toByteArray());
+          String id = record.get(FIELD_ID).asText();
+          if (record.path(FIELD_DELETED).asBoolean(false)) {
+            index.remove(id);
+          } else {
+            Entry entry = index.computeIfAbsent(id, key -> new Entry());
+            entry.position = position(segmentNumber, offset);
+            entry.depth = record.path(FIELD_DEPTH).asInt(0);
+            entry.count = -1;
+          }
+          offset += line.size() + 1;
+          line.reset();
+        }
+      }
+      // an incomplete record, from an interrupted write, is overwritten
+      return offset;
+    }
+
+    Report retrieve(String reportId) throws IOException, GenericException, NotFoundException {
+      Entry entry = index.get(reportId);
+      if (entry == null) {
+        throw new NotFoundException("Could not find job report " + reportId);
+      }
+
+      if (entry.position == LEGACY) {
+        return JsonUtils.readObjectFromFile(getLegacyPath(reportId), Report.class);
+      }
+
+      List<JsonNode> records = new ArrayList<>();
+      long position = entry.position;
+      while (position >= 0) {
+        JsonNode record = JsonUtils.parseJson(read(position));
+        records.add(record);
+        position = record.path(FIELD_PREVIOUS).asLong(-1);
+      }
+      Collections.reverse(records);
+
+      List<JsonNode> items = new ArrayList<>();
+      for (JsonNode record : records) {
+        int from = Math.min(record.path(FIELD_FROM).asInt(0), items.size());
+        items = new ArrayList<>(items.subList(0, from));
+        record.path(FIELD_ITEMS).forEach(items::add);
+      }
+
+      ObjectNode report = (ObjectNode) records.get(records.size() - 1).get(FIELD_REPORT);
+      report.putArray(REPORT_ITEMS).addAll(items);
+      return JsonUtils.getObjectFromNode(report, Report.class);
+    }
+
+    void append(Report report) throws IOException, GenericException {
+      ObjectNode node = JsonUtils.getNodeFromObject(report);
+      JsonNode itemsNode = node.remove(REPORT_ITEMS);
+      List<JsonNode> items = new ArrayList<>();
+      if (itemsNode != null) {
+        itemsNode.forEach(items::add);
+      }
+
+      long[] hashes = new long[items.size()];
+      for (int i = 0; i < hashes.length; i++) {
+        hashes[i] = hash(items.get(i));
+      }
+
+      // only the items after the ones that did not change are written
+      Entry entry = index.get(report.getId());
+      int from = 0;
+      if (entry != null && entry.position != LEGACY && entry.count > 0 && entry.depth < maxDeltas
+        && hashes.length >= entry.count - 1 && prefixHash(hashes, entry.count - 1) == entry.prefixHash) {
+        boolean lastUnchanged = hashes.length >= entry.count && hashes[entry.count - 1] == entry.lastHash;
+        from = lastUnchanged ? entry.count : entry.count - 1;
+      }
+
+      ObjectNode record = JsonNodeFactory.instance.objectNode();
+      record.put(FIELD_ID, report.getId());
+      record.put(FIELD_PREVIOUS, from > 0 ? entry.position : -1);
+      record.put(FIELD_DEPTH, from > 0 ? entry.depth + 1 : 0);
+      record.put(FIELD_FROM, from);
+      record.set(FIELD_REPORT, node);
+      record.putArray(FIELD_ITEMS).addAll(items.subList(from, items.size()));
+      long position = write(record);
+
+      Entry updated = entry != null ? entry : new Entry();
+      updated.position = position;
+      updated.depth = from > 0 ? updated.depth + 1 : 0;
+      updated.count = hashes.length;
+      updated.prefixHash = prefixHash(hashes, Math.max(0, hashes.length - 1));
+      updated.lastHash = hashes.length > 0 ? hashes[hashes.length - 1] : 0;
+      index.put(report.getId(), updated);
+    }
+
+    void delete(String reportId) throws IOException, GenericException, NotFoundException {
+      Entry entry = index.remove(reportId);
+      if (entry == null) {
+        throw new NotFoundException("Could not find job report " + reportId);
+      }
+
+      Files.deleteIfExists(getLegacyPath(reportId));
+      if (entry.position != LEGACY) {
+        ObjectNode record = JsonNodeFactory.instance.objectNode();
+        record.put(FIELD_ID, reportId);
+        record.put(FIELD_DELETED, true);
+        write(record);
+      }
+    }
+
+    /**
+     * Writes all the reports into a new segment, with the index of their
+     * records, and then removes the previous segments and legacy reports.
+     */
+    void compact() throws IOException, GenericException, NotFoundException {
+      if (compacted || index.isEmpty()) {
+        return;
+      }
+
+      int newSegment = segment + 1;
+      Path segmentPath = getSegmentPath(newSegment);
+      Path temporarySegmentPath = directory.resolve(segmentPath.getFileName() + TEMPORARY_EXTENSION);
+      Path temporaryIndexPath = directory.resolve(INDEX_FILE + TEMPORARY_EXTENSION);
+      Map<String, Long> positions = new LinkedHashMap<>();
+      long offset = 0;
+
+      try (OutputStream output = new BufferedOutputStream(Files.newOutputStream(temporarySegmentPath))) {
+        for (String reportId : index.keySet()) {
+          ObjectNode node = JsonUtils.getNodeFromObject(retrieve(reportId));
+          JsonNode items = node.remove(REPORT_ITEMS);
+          ObjectNode record = JsonNodeFactory.instance.objectNode();
+          record.put(FIELD_ID, reportId);
+          record.put(FIELD_PREVIOUS, -1);
+          record.put(FIELD_DEPTH, 0);
+          record.put(FIELD_FROM, 0);
+          record.set(FIELD_REPORT, node);
+          record.putArray(FIELD_ITEMS).addAll(items != null ? (ArrayNode) items : JsonNodeFactory.instance.arrayNode());
+
+          byte[] line = JsonUtils.getJsonBytesFromNode(record);
+          output.write(line);
+          output.write('\n');
+          positions.put(reportId, position(newSegment, offset));
+          offset += line.length + 1;
+        }
+      }
+
+      try (BufferedWriter writer = Files.newBufferedWriter(temporaryIndexPath, StandardCharsets.UTF_8)) {
+        writer.write(newSegment + "\t" + offset + "\n");
+        for (Map.Entry<String, Long> position : positions.entrySet()) {
+          writer.write(position.getKey() + "\t" + position.getValue() + "\n");
+        }
+      }
+
+      closeChannels();
+      Files.move(temporarySegmentPath, segmentPath, StandardCopyOption.ATOMIC_MOVE);
+      Files.move(temporaryIndexPath, directory.resolve(INDEX_FILE), StandardCopyOption.ATOMIC_MOVE,
+        StandardCopyOption.REPLACE_EXISTING);
+
+      for (Path oldSegment : listSegments().headMap(newSegment).values()) {
+        Files.delete(oldSegment);
+      }
+      Iterator<Map.Entry<String, Entry>> entries = index.entrySet().iterator();
+      while (entries.hasNext()) {
+        Map.Entry<String, Entry> entry = entries.next();
+        if (entry.getValue().position == LEGACY) {
+          Files.deleteIfExists(getLegacyPath(entry.getKey()));
+        }
+        entry.getValue().position = positions.get(entry.getKey());
+        entry.getValue().depth = 0;
+      }
+
+      segment = newSegment;
+      size = offset;
+      compacted = true;
+    }
+
+    void close() {
+      synchronized (this) {
+        closed = true;
+        closeChannels();
+      }
+    }
+
+    private long write(ObjectNode record) throws IOException, GenericException {
+      byte[] bytes = JsonUtils.getJsonBytesFromNode(record);
+      ByteBuffer buffer = ByteBuffer.allocate(bytes.length + 1);
+      buffer.put(bytes).put((byte) '\n');
+      buffer.flip();
+
+      Files.createDirectories(directory);
+      FileChannel channel = getChannel(segment);
+      long position = position(segment, size);
+      long writePosition = size;
+      while (buffer.hasRemaining()) {
+        writePosition += channel.write(buffer, writePosition);
+      }
+      size = writePosition;
+      compacted = false;
+      return position;
+    }
+
+    private byte[] read(long position) throws IOException {
+      FileChannel channel = getChannel(segment(position));
+      ByteArrayOutputStream line = new ByteArrayOutputStream();
+      ByteBuffer buffer = ByteBuffer.allocate(8192);
+      long readPosition = offset(position);
+      while (true) {
+        buffer.clear();
+        int read = channel.read(buffer, readPosition);
+        if (read <= 0) {
+          throw new IOException("Incomplete job report record at " + position);
+        }
+        for (int i = 0; i < read; i++) {
+          if (buffer.get(i) == '\n') {
+            line.write(buffer.array(), 0, i);
+            return line.toByteArray();
+          }
+        }
+        line.write(buffer.array(), 0, read);
+        readPosition += read;
+      }
+    }
+
+    private FileChannel getChannel(int segmentNumber) throws IOException {
+      FileChannel channel = channels.get(segmentNumber);
+      if (channel == null) {
+        Path path = getSegmentPath(segmentNumber);
+        if (segmentNumber == segment) {
+          channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+            StandardOpenOption.WRITE);
+          // discard an incomplete record, from an interrupted write
+          if (channel.size() > size) {
+            channel.truncate(size);
+          }
+        } else {
+          channel = FileChannel.open(path, StandardOpenOption.READ);
+        }
+        channels.put(segmentNumber, channel);
+      }
+      return channel;
+    }
+
+    private void closeChannels() {
+      for (FileChannel channel : channels.values()) {
+        try {
+          channel.close();
+        } catch (IOException e) {
+          LOGGER.warn("Error closing job report segment", e);
+        }
+      }
+      channels.clear();
+    }
+
+    private Path getSegmentPath(int segmentNumber) {
+      return directory.resolve(SEGMENT_PREFIX + segmentNumber + SEGMENT_EXTENSION);
+    }
+
+    private Path getLegacyPath(String reportId) {
+      return directory.resolve(reportId + RodaConstants.JOB_REPORT_FILE_EXTENSION);
+    }
+  }
+}
@@ -213,6 +213,10 @@ public abstract class ModelObservable {
     return notifyObserversSafely(observer -> observer.riskIncidenceDeleted(riskIncidenceId, commit));
   }
 
+  public ReturnWithExceptionsWrapper notifyRiskIncidencesCreated(List<RiskIncidence> riskIncidences, boolean commit) {
+    return notifyObserversSafely(observer -> observer.riskIncidencesCreated(riskIncidences, commit));
+  }
+
   public ReturnWithExceptionsWrapper notifyRepresentationInformationCreatedOrUpdated(RepresentationInformation ri,
     boolean commit) {
     return notifyObserversSafely(observer -> observer.representationInformationCreatedOrUpdated(ri, commit));
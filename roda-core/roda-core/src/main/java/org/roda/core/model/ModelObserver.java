@@ -111,6 +111,9 @@ public interface ModelObserver {
 
   public ReturnWithExceptions<Void, ModelObserver> riskIncidenceDeleted(String riskIncidenceId, boolean commit);
 
+  public ReturnWithExceptions<Void, ModelObserver> riskIncidencesCreated(List<RiskIncidence> riskIncidences,
+    boolean commit);
+
   public ReturnWithExceptions<Void, ModelObserver> representationInformationCreatedOrUpdated(
     RepresentationInformation ri, boolean commit);
 
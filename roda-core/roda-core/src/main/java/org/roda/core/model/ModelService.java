@@ -35,6 +35,7 @@ import java.util.stream.Collectors;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.roda.core.RodaCoreFactory;
+import org.roda.core.common.AuthenticationCache;
 import org.roda.core.common.PremisV3Utils;
 import org.roda.core.common.UserUtility;
 import org.roda.core.common.dips.DIPUtils;
@@ -119,6 +120,8 @@ import org.roda.core.util.IdUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.collect.Iterators;
+
 /**
  * Class that "relates" Model & Storage
  * 
@@ -134,6 +137,7 @@ public class ModelService extends ModelObservable {
   private final StorageService storage;
   private final EventsManager eventsManager;
   private final NodeType nodeType;
+  private final JobReportStore jobReports;
   private Object logFileLock = new Object();
   private String instanceId = "";
   private long entryLogLineNumber = -1;
@@ -144,6 +148,7 @@ public class ModelService extends ModelObservable {
     this.eventsManager = eventsManager;
     this.nodeType = nodeType;
     this.instanceId = instanceId;
+    this.jobReports = new JobReportStore(storage);
 
     if (RodaCoreFactory.checkIfWriteIsAllowed(nodeType)) {
       ensureAllContainersExist();
@@ -2151,6 +2156,7 @@ public class ModelService extends ModelObservable {
     User user = null;
     if (useModel) {
       user = UserUtility.getLdapUtility().resetUserPassword(username, password, resetPasswordToken);
+      AuthenticationCache.invalidateUser(username);
     }
 
     if (user != null && notify) {
@@ -2190,6 +2196,10 @@ public class ModelService extends ModelObservable {
 
     // index it
     notifyJobCreatedOrUpdated(job, false).failOnError();
+
+    if (job.isInFinalState()) {
+      jobReports.compactAsync(job.getId());
+    }
   }
 
   public Job retrieveJob(String jobId)
@@ -2216,23 +2226,22 @@ public class ModelService extends ModelObservable {
     // remove it from storage
     storage.deleteResource(jobPath);
 
+    // remove its reports from storage (they should be removed from index
+    // beforehand)
+    jobReports.release(jobId);
+    try {
+      storage.deleteResource(ModelUtils.getJobReportsStoragePath(jobId));
+    } catch (NotFoundException e) {
+      // do nothing
+    }
+
     // remove it from index
     notifyJobDeleted(jobId).failOnError();
   }
 
   public Report retrieveJobReport(String jobId, String jobReportId)
     throws RequestNotValidException, GenericException, NotFoundException, AuthorizationDeniedException {
-    StoragePath jobReportPath = ModelUtils.getJobReportStoragePath(jobId, jobReportId);
-    Binary binary = storage.getBinary(jobReportPath);
-    Report ret;
-
-    try (InputStream inputStream = binary.getContent().createInputStream()) {
-      ret = JsonUtils.getObjectFromJson(inputStream, Report.class);
-    } catch (IOException e) {
-      throw new GenericException("Error reading job report", e);
-    }
-
-    return ret;
+    return jobReports.retrieve(jobId, jobReportId);
   }
 
   public Report retrieveJobReport(String jobId, String sourceObjectId, String outcomeObjectId)
@@ -2253,17 +2262,15 @@ public class ModelService extends ModelObservable {
       if (!newId.equals(jobReport.getId())) {
         String oldId = jobReport.getId();
         jobReport.setId(newId);
-        storage.deleteResource(ModelUtils.getJobReportStoragePath(jobReport.getJobId(), oldId));
+        jobReports.delete(jobReport.getJobId(), oldId);
         notifyJobReportDeleted(oldId);
       }
 
-      String jobReportAsJson = JsonUtils.getJsonFromObject(jobReport);
-      StoragePath jobReportPath = ModelUtils.getJobReportStoragePath(jobReport.getJobId(), jobReport.getId());
-      storage.updateBinaryContent(jobReportPath, new StringContentPayload(jobReportAsJson), false, true);
+      jobReports.createOrUpdate(jobReport);
 
       // index it
       notifyJobReportCreatedOrUpdated(jobReport, cachedJob).failOnError();
-    } catch (GenericException | RequestNotValidException | AuthorizationDeniedException | NotFoundException e) {
+    } catch (GenericException | RequestNotValidException | NotFoundException e) {
       LOGGER.error("Error creating/updating job report in storage", e);
     }
   }
@@ -2272,15 +2279,52 @@ public class ModelService extends ModelObservable {
     throws NotFoundException, GenericException, AuthorizationDeniedException, RequestNotValidException {
     RodaCoreFactory.checkIfWriteIsAllowedAndIfFalseThrowException(nodeType);
 
-    StoragePath jobReportPath = ModelUtils.getJobReportStoragePath(jobId, jobReportId);
-
     // remove it from storage
-    storage.deleteResource(jobReportPath);
+    jobReports.delete(jobId, jobReportId);
 
     // remove it from index
     notifyJobReportDeleted(jobReportId).failOnError();
   }
 
+  /**
+   * Lists the reports of a job, in the order they were created. The reports
+   * are read while iterating, but the ids of all of them are listed upfront,
+   * see {@link #listJobReports(String, int, int)} for jobs with many reports.
+   */
+  public CloseableIterable<OptionalWithCause<Report>> listJobReports(String jobId)
+    throws RequestNotValidException, GenericException {
+    return listJobReports(jobReports.listIds(jobId), jobId);
+  }
+
+  /**
+   * Lists up to {@code limit} reports of a job, in the order they were
+   * created, skipping the first {@code start} ones.
+   */
+  public CloseableIterable<OptionalWithCause<Report>> listJobReports(String jobId, int start, int limit)
+    throws RequestNotValidException, GenericException {
+    return listJobReports(jobReports.listIds(jobId, start, limit), jobId);
+  }
+
+  private CloseableIterable<OptionalWithCause<Report>> listJobReports(List<String> jobReportIds, String jobId) {
+    return new CloseableIterable<OptionalWithCause<Report>>() {
+      @Override
+      public Iterator<OptionalWithCause<Report>> iterator() {
+        return Iterators.transform(jobReportIds.iterator(), jobReportId -> {
+          try {
+            return OptionalWithCause.of(jobReports.retrieve(jobId, jobReportId));
+          } catch (RODAException e) {
+            return OptionalWithCause.empty(e);
+          }
+        });
+      }
+
+      @Override
+      public void close() {
+        // nothing to do
+      }
+    };
+  }
+
   public void updateAIPPermissions(String aipId, Permissions permissions, String updatedBy)
     throws GenericException, NotFoundException, RequestNotValidException, AuthorizationDeniedException {
     RodaCoreFactory.checkIfWriteIsAllowedAndIfFalseThrowException(nodeType);
@@ -2433,6 +2477,38 @@ public class ModelService extends ModelObservable {
     return riskIncidence;
   }
 
+  /**
+   * Creates many risk incidences at once. Each incidence is still stored on its
+   * own, but they are all indexed with a single request.
+   *
+   * @return the risk incidences that were created, i.e. without the ones that
+   *         could not be stored
+   */
+  public List<RiskIncidence> createRiskIncidences(List<RiskIncidence> riskIncidences, boolean commit)
+    throws AuthorizationDeniedException, GenericException {
+    RodaCoreFactory.checkIfWriteIsAllowedAndIfFalseThrowException(nodeType);
+
+    List<RiskIncidence> created = new ArrayList<>();
+    Date detectedOn = new Date();
+    for (RiskIncidence riskIncidence : riskIncidences) {
+      try {
+        riskIncidence.setId(IdUtils.createUUID());
+        riskIncidence.setDetectedOn(detectedOn);
+
+        String riskIncidenceAsJson = JsonUtils.getJsonFromObject(riskIncidence);
+        StoragePath riskIncidencePath = ModelUtils.getRiskIncidenceStoragePath(riskIncidence.getId());
+        storage.createBinary(riskIncidencePath, new StringContentPayload(riskIncidenceAsJson), false);
+        created.add(riskIncidence);
+      } catch (GenericException | RequestNotValidException | AuthorizationDeniedException | NotFoundException
+        | AlreadyExistsException e) {
+        LOGGER.error("Error creating risk incidence in storage", e);
+      }
+    }
+
+    notifyRiskIncidencesCreated(created, commit).failOnError();
+    return created;
+  }
+
   public RiskIncidence updateRiskIncidence(RiskIncidence riskIncidence, boolean commit)
     throws GenericException, AuthorizationDeniedException {
     RodaCoreFactory.checkIfWriteIsAllowedAndIfFalseThrowException(nodeType);
@@ -2970,7 +3046,13 @@ public class ModelService extends ModelObservable {
     } else if (DescriptiveMetadata.class.equals(objectClass)) {
       ret = listDescriptiveMetadata();
     } else if (Report.class.equals(objectClass)) {
-      ret = ResourceParseUtils.convert(getStorage(), listReportResources(), objectClass);
+      ret = CloseableIterables.concat(listJobReportDirectories(), directory -> {
+        try {
+          return listJobReports(directory.getStoragePath().getName());
+        } catch (RODAException e) {
+          return CloseableIterables.fromList(Collections.singletonList(OptionalWithCause.<Report> empty(e)));
+        }
+      });
     } else {
       StoragePath containerPath = ModelUtils.getContainerPath(objectClass);
       final CloseableIterable<Resource> resourcesIterable = storage.listResourcesUnderContainer(containerPath, false);
@@ -3004,7 +3086,16 @@ public class ModelService extends ModelObservable {
       ret = ResourceParseUtils.convertLite(getStorage(), ResourceListUtils.listDescriptiveMetadataResources(storage),
         objectClass);
     } else if (Report.class.equals(objectClass)) {
-      ret = ResourceParseUtils.convertLite(getStorage(), listReportResources(), objectClass);
+      ret = CloseableIterables.concat(listJobReportDirectories(), directory -> {
+        String jobId = directory.getStoragePath().getName();
+        try {
+          return CloseableIterables.fromList(jobReports.listIds(jobId).stream()
+            .map(jobReportId -> OptionalWithCause.of(LiteRODAObjectFactory.get(Report.class, jobId, jobReportId)))
+            .collect(Collectors.toList()));
+        } catch (RODAException e) {
+          return CloseableIterables.fromList(Collections.singletonList(OptionalWithCause.<LiteRODAObject> empty(e)));
+        }
+      });
     } else {
       StoragePath containerPath = ModelUtils.getContainerPath(objectClass);
       final CloseableIterable<Resource> resourcesIterable = storage.listResourcesUnderContainer(containerPath, false);
@@ -3014,10 +3105,10 @@ public class ModelService extends ModelObservable {
     return ret;
   }
 
-  private CloseableIterable<Resource> listReportResources() throws RODAException {
+  private CloseableIterable<Resource> listJobReportDirectories() throws RODAException {
     CloseableIterable<Resource> resources = storage
-      .listResourcesUnderContainer(ModelUtils.getContainerPath(Report.class), true);
-    return CloseableIterables.filter(resources, resource -> !(resource instanceof Directory));
+      .listResourcesUnderContainer(ModelUtils.getContainerPath(Report.class), false);
+    return CloseableIterables.filter(resources, Resource::isDirectory);
   }
 
   private CloseableIterable<OptionalWithCause<RODAMember>> listMembers() {
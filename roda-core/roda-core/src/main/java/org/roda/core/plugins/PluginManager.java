@@ -7,20 +7,26 @@
  */
 package org.roda.core.plugins;
 
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.lang.reflect.Modifier;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.EnumMap;
+import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -39,6 +45,7 @@ import java.util.stream.Collectors;
 import org.apache.commons.configuration.ConfigurationException;
 import org.reflections.Reflections;
 import org.roda.core.RodaCoreFactory;
+import org.roda.core.common.monitor.FolderWatcher;
 import org.roda.core.data.common.RodaConstants;
 import org.roda.core.data.v2.IsRODAObject;
 import org.roda.core.data.v2.ip.AIP;
@@ -59,6 +66,8 @@ import org.roda.core.data.v2.risks.Risk;
 import org.roda.core.storage.fs.FSUtils;
 import org.roda.core.util.ClassLoaderUtility;
 import org.roda.core.util.CompoundClassLoader;
+import org.roda.core.util.FileUtility;
+import org.roda.core.util.PluginCatalogProcessor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -82,6 +91,7 @@ public class PluginManager {
   private static String RODA_PLUGIN_MANIFEST_KEY_DEPENDS = "RODA-Plugin-Depends";
 
   private Timer loadPluginsTimer = null;
+  private FolderWatcher externalPluginsWatcher = null;
   private Map<Path, JarPlugins> jarPluginCache = new HashMap<>();
   private Map<String, ClassLoader> jarPluginClassloaderCache = new HashMap<>();
   private Map<String, Plugin<? extends IsRODAObject>> internalPluginChache = new HashMap<>();
@@ -263,6 +273,10 @@ public class PluginManager {
       this.loadPluginsTimer.cancel();
     }
 
+    if (this.externalPluginsWatcher != null) {
+      this.externalPluginsWatcher.close();
+    }
+
     for (JarPlugins jarPlugins : this.jarPluginCache.values()) {
       for (Plugin<? extends IsRODAObject> plugin : jarPlugins.plugins) {
         if (plugin != null) {
@@ -276,15 +290,44 @@ public class PluginManager {
     // load, for the first time, all the plugins (internal & external)
     loadPlugins();
 
-    // schedule
-    LOGGER.debug("Starting plugin scanner timer...");
-    int timeInSeconds = RodaCoreFactory.getRodaConfiguration().getInt("core.plugins.external.scheduler.interval", 30);
-    this.loadPluginsTimer = new Timer("Plugin scanner timer", true);
-    this.loadPluginsTimer.schedule(new SearchPluginsTask(), timeInSeconds * 1000, timeInSeconds * 1000);
+    // watch the plugins folder for changes or, if not possible, schedule
+    if (!startExternalPluginsWatcher()) {
+      LOGGER.debug("Starting plugin scanner timer...");
+      int timeInSeconds = RodaCoreFactory.getRodaConfiguration().getInt("core.plugins.external.scheduler.interval",
+        30);
+      this.loadPluginsTimer = new Timer("Plugin scanner timer", true);
+      this.loadPluginsTimer.schedule(new SearchPluginsTask(), timeInSeconds * 1000, timeInSeconds * 1000);
+    }
 
     LOGGER.info("{} init OK", getClass().getSimpleName());
   }
 
+  private boolean startExternalPluginsWatcher() {
+    boolean watchEnabled = RodaCoreFactory.getRodaConfiguration().getBoolean("core.plugins.external.watch.enabled",
+      true);
+    if (!watchEnabled || !FSUtils.isDirectory(RODA_PLUGINS_PATH)) {
+      return false;
+    }
+
+    long debounceInMillis = RodaCoreFactory.getRodaConfiguration()
+      .getLong("core.plugins.external.watch.debounce_ms", 2000L);
+    try {
+      // plugins folder / plugin folder / dependencies folder
+      externalPluginsWatcher = new FolderWatcher("ExternalPlugins", RODA_PLUGINS_PATH, 2, debounceInMillis,
+        new SearchPluginsTask());
+      externalPluginsWatcher.start();
+      return true;
+    } catch (IOException | UnsupportedOperationException e) {
+      LOGGER.warn("Could not watch the plugins folder {}, it will be scanned periodically instead", RODA_PLUGINS_PATH,
+        e);
+      if (externalPluginsWatcher != null) {
+        externalPluginsWatcher.close();
+        externalPluginsWatcher = null;
+      }
+      return false;
+    }
+  }
+
   private <T extends IsRODAObject> PluginInfo getPluginInfo(Plugin<T> plugin) {
     return new PluginInfo(plugin.getClass().getName(), plugin.getName(), plugin.getVersion(), plugin.getDescription(),
       plugin.getType(), plugin.getCategories(), plugin.getParameters());
@@ -449,6 +492,20 @@ public class PluginManager {
     List<Path> pluginProperties) {
     List<URL> jarClasspath = new ArrayList<>(classpath);
 
+    // avoid opening jars that did not change since they were loaded
+    try {
+      BasicFileAttributes attrs = Files.readAttributes(jarPath, BasicFileAttributes.class);
+      JarPlugins cached = jarPluginCache.get(jarPath);
+      if (cached != null && cached.lastModified == attrs.lastModifiedTime().toMillis()
+        && cached.size == attrs.size()) {
+        LOGGER.trace("{} is already loaded", jarPath.getFileName());
+        return;
+      }
+    } catch (IOException e) {
+      LOGGER.warn("Could not read attributes of {}", jarPath, e);
+      return;
+    }
+
     try (JarFile jar = new JarFile(jarPath.toFile())) {
       // add own jar to classpath
       jarClasspath.add(jarPath.toUri().toURL());
@@ -529,13 +586,17 @@ public class PluginManager {
     BasicFileAttributes attrs;
     try {
       attrs = Files.readAttributes(p.jarPath, BasicFileAttributes.class);
-
-      if (jarPluginCache.containsKey(p.jarPath)
-        && attrs.lastModifiedTime().toMillis() == jarPluginCache.get(p.jarPath).lastModified) {
-        LOGGER.debug("{} is already loaded", p.jarPath.getFileName());
+      String hash = getJarHash(p.jarPath);
+      JarPlugins cached = jarPluginCache.get(p.jarPath);
+
+      if (cached != null && hash != null && hash.equals(cached.hash)) {
+        // e.g. the same jar was copied again
+        LOGGER.debug("{} is already loaded (content did not change)", p.jarPath.getFileName());
+        synchronized (jarPluginCache) {
+          cached.setFileInfo(attrs, hash);
+        }
       } else {
-        // The Plugin doesn't exist or the modification date is
-        // different.
+        // The Plugin doesn't exist or its content is different.
 
         // Let's create Plugin classloader
         ClassLoader classloader;
@@ -582,9 +643,9 @@ public class PluginManager {
                 JarPlugins jarPlugins = jarPluginCache.get(p.jarPath);
                 jarPlugins.plugins = new ArrayList<>();
                 jarPlugins.plugins.add(plugin);
-                jarPlugins.lastModified = attrs.lastModifiedTime().toMillis();
+                jarPlugins.setFileInfo(attrs, hash);
               } else {
-                jarPluginCache.put(p.jarPath, new JarPlugins(plugin, attrs.lastModifiedTime().toMillis()));
+                jarPluginCache.put(p.jarPath, new JarPlugins(plugin, attrs, hash));
               }
             }
           } catch (Exception | LinkageError e) {
@@ -592,6 +653,16 @@ public class PluginManager {
           }
         }
 
+        // remember jars without (valid) plugins so they are not inspected
+        // again until they change
+        synchronized (jarPluginCache) {
+          if (!jarPluginCache.containsKey(p.jarPath)) {
+            jarPluginCache.put(p.jarPath, new JarPlugins(null, attrs, hash));
+          } else {
+            jarPluginCache.get(p.jarPath).setFileInfo(attrs, hash);
+          }
+        }
+
         // Let's cache Plugin classloader
         jarPluginClassloaderCache.put(getPluginClassLoaderCacheKey(p.jarPath), classloader);
       }
@@ -601,29 +672,82 @@ public class PluginManager {
   }
 
   private void loadInternalPlugins() {
-    Reflections reflections = new Reflections(
-      RodaCoreFactory.getRodaConfigurationAsString("core", "plugins", "internal", "package"));
-    Set<Class<? extends AbstractPlugin>> plugins = reflections.getSubTypesOf(AbstractPlugin.class);
-    plugins.addAll(reflections.getSubTypesOf(AbstractAIPComponentsPlugin.class));
-
-    for (Class<? extends AbstractPlugin> plugin : plugins) {
-      String name = plugin.getName();
-      if (!Modifier.isAbstract(plugin.getModifiers()) && !blacklistedPlugins.contains(name)) {
+    String internalPackage = RodaCoreFactory.getRodaConfigurationAsString("core", "plugins", "internal", "package");
+    Set<String> pluginNames = getInternalPluginsFromCatalog(internalPackage);
+
+    if (pluginNames.isEmpty()) {
+      LOGGER.warn("No plugin catalog ({}) found in the classpath, scanning package '{}' for plugins",
+        PluginCatalogProcessor.CATALOG, internalPackage);
+      Reflections reflections = new Reflections(internalPackage);
+      Set<Class<? extends AbstractPlugin>> plugins = reflections.getSubTypesOf(AbstractPlugin.class);
+      plugins.addAll(reflections.getSubTypesOf(AbstractAIPComponentsPlugin.class));
+      for (Class<? extends AbstractPlugin> plugin : plugins) {
+        if (!Modifier.isAbstract(plugin.getModifiers())) {
+          pluginNames.add(plugin.getName());
+        }
+      }
+    }
+
+    for (String name : pluginNames) {
+      if (!blacklistedPlugins.contains(name)) {
         LOGGER.debug("Loading internal plugin '{}'", name);
         try {
-          Plugin<? extends IsRODAObject> p = (Plugin<?>) ClassLoaderUtility.createObject(plugin.getName());
+          Plugin<? extends IsRODAObject> p = (Plugin<?>) ClassLoaderUtility.createObject(name);
           p.init();
-          internalPluginChache.put(plugin.getName(), p);
+          internalPluginChache.put(name, p);
           processAndCachePluginInformation(p);
         } catch (ClassNotFoundException | InstantiationException | IllegalAccessException | PluginException
           | RuntimeException e) {
-          LOGGER.error("Unable to instantiate plugin '{}'", plugin.getName(), e);
+          LOGGER.error("Unable to instantiate plugin '{}'", name, e);
         }
       }
     }
     internalPluginStarted = true;
   }
 
+  /**
+   * Reads the plugin catalogs generated at build time by
+   * {@link PluginCatalogProcessor}, which avoids scanning the classpath.
+   * 
+   * @return the names of the catalogued plugins inside the given package (or
+   *         its sub-packages)
+   */
+  private Set<String> getInternalPluginsFromCatalog(String internalPackage) {
+    Set<String> pluginNames = new HashSet<>();
+    String prefix = internalPackage + ".";
+
+    try {
+      Enumeration<URL> catalogs = getClass().getClassLoader().getResources(PluginCatalogProcessor.CATALOG);
+      while (catalogs.hasMoreElements()) {
+        URL catalog = catalogs.nextElement();
+        LOGGER.debug("Reading plugin catalog {}", catalog);
+        try (BufferedReader reader = new BufferedReader(
+          new InputStreamReader(catalog.openStream(), StandardCharsets.UTF_8))) {
+          String line;
+          while ((line = reader.readLine()) != null) {
+            String name = line.trim();
+            if (!name.isEmpty() && !name.startsWith("#") && name.startsWith(prefix)) {
+              pluginNames.add(name);
+            }
+          }
+        }
+      }
+    } catch (IOException e) {
+      LOGGER.error("Error reading plugin catalogs", e);
+    }
+
+    return pluginNames;
+  }
+
+  private String getJarHash(Path jarPath) {
+    try (InputStream inputStream = Files.newInputStream(jarPath)) {
+      return FileUtility.checksum(inputStream, "SHA-256");
+    } catch (IOException | NoSuchAlgorithmException e) {
+      LOGGER.warn("Could not calculate hash of {}", jarPath, e);
+      return null;
+    }
+  }
+
   private <T extends IsRODAObject> void processAndCachePluginInformation(Plugin<T> plugin) {
 
     // cache plugin > objectClasses
@@ -739,10 +863,20 @@ public class PluginManager {
   protected class JarPlugins {
     protected List<Plugin<?>> plugins = new ArrayList<>();
     private long lastModified = 0;
+    private long size = 0;
+    private String hash = null;
+
+    JarPlugins(Plugin<?> plugin, BasicFileAttributes attrs, String hash) {
+      if (plugin != null) {
+        plugins.add(plugin);
+      }
+      setFileInfo(attrs, hash);
+    }
 
-    JarPlugins(Plugin<?> plugin, long lastModified) {
-      plugins.add(plugin);
-      this.lastModified = lastModified;
+    void setFileInfo(BasicFileAttributes attrs, String hash) {
+      this.lastModified = attrs.lastModifiedTime().toMillis();
+      this.size = attrs.size();
+      this.hash = hash;
     }
   }
 
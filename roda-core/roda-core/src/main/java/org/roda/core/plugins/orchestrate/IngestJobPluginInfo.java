@@ -7,11 +7,19 @@
  */
 package org.roda.core.plugins.orchestrate;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import org.apache.commons.lang3.StringUtils;
@@ -29,6 +37,8 @@ import org.roda.core.plugins.Plugin;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.collect.Iterators;
+
 public class IngestJobPluginInfo extends JobPluginInfo {
   private static final long serialVersionUID = -7993848868644990995L;
   private static final Logger LOGGER = LoggerFactory.getLogger(IngestJobPluginInfo.class);
@@ -36,10 +46,12 @@ public class IngestJobPluginInfo extends JobPluginInfo {
   private int stepsCompleted = 0;
   private int totalSteps = 0;
 
-  // transferredResourceId > map<aipId, report>
-  private Map<String, Map<String, Report>> allReports = new HashMap<>();
   // transferredResourceId > map<aipId, report>
   private Map<String, Map<String, Report>> reportsFromBeingProcessed = new HashMap<>();
+  // reports of the transferred resources whose processing has ended
+  private transient SpilledIngestReports processedReports = new SpilledIngestReports();
+  // view of the reports being processed and of the processed ones
+  private transient Map<String, Map<String, Report>> allReports = new AllReports();
   // transferredResourceId > list<aipId>
   private Map<String, List<String>> transferredResourceToAipIds = new HashMap<>();
   // aipId > list<transferredResourceId>
@@ -136,6 +148,12 @@ public class IngestJobPluginInfo extends JobPluginInfo {
     return ingestInfoUpdated;
   }
 
+  /**
+   * @return the reports of all the transferred resources, by transferred
+   *         resource id and AIP id. The reports of the transferred resources
+   *         that are no longer being processed are read from disk, so changes
+   *         to them are not kept.
+   */
   public Map<String, Map<String, Report>> getAllReports() {
     return allReports;
   }
@@ -197,8 +215,7 @@ public class IngestJobPluginInfo extends JobPluginInfo {
 
   public void addReport(Report report, boolean reportIsAnReportItem) {
     if (reportIsAnReportItem) {
-      reportsFromBeingProcessed.get(report.getSourceObjectId()).get(report.getOutcomeObjectId()).addReport(report,
-        false);
+      getReportsBeingProcessed(report.getSourceObjectId()).get(report.getOutcomeObjectId()).addReport(report, false);
     } else {
       String sourceObjectId = report.getSourceObjectId();
       String outcomeObjectId = report.getOutcomeObjectId();
@@ -228,23 +245,43 @@ public class IngestJobPluginInfo extends JobPluginInfo {
         transferredResourceToAipIds.computeIfAbsent(sourceObjectId, key -> new ArrayList<>()).add(outcomeObjectId);
       }
 
-      if (reportsFromBeingProcessed.get(sourceObjectId) != null) {
-        reportsFromBeingProcessed.get(sourceObjectId).put(outcomeObjectId, report);
-        allReports.get(sourceObjectId).put(outcomeObjectId, report);
-      } else {
-        Map<String, Report> innerReports = new HashMap<>();
-        innerReports.put(outcomeObjectId, report);
-        reportsFromBeingProcessed.put(sourceObjectId, innerReports);
-        allReports.put(sourceObjectId, innerReports);
-      }
+      getReportsBeingProcessed(sourceObjectId).put(outcomeObjectId, report);
     }
   }
 
+  /**
+   * Reports of a transferred resource being processed, brought back to memory if
+   * its processing had ended.
+   */
+  private Map<String, Report> getReportsBeingProcessed(String transferredResourceId) {
+    return reportsFromBeingProcessed.computeIfAbsent(transferredResourceId, id -> {
+      Map<String, Report> reports = processedReports.remove(id);
+      return reports != null ? new HashMap<>(reports) : new HashMap<>();
+    });
+  }
+
   public void remove(String transferredResourceId) {
-    reportsFromBeingProcessed.remove(transferredResourceId);
+    markAsProcessed(transferredResourceId);
     transferredResourceToAipIds.remove(transferredResourceId);
   }
 
+  /**
+   * Moves the reports of a transferred resource, whose last ingest step has
+   * completed, from memory to disk. They are still available through
+   * {@link #getAllReports()}.
+   */
+  public void markAsProcessed(String transferredResourceId) {
+    Map<String, Report> reports = reportsFromBeingProcessed.remove(transferredResourceId);
+    if (reports != null) {
+      processedReports.put(transferredResourceId, reports);
+    }
+  }
+
+  /** Marks all the transferred resources being processed as processed */
+  public void markAllAsProcessed() {
+    new ArrayList<>(reportsFromBeingProcessed.keySet()).forEach(this::markAsProcessed);
+  }
+
   public void updateCounters() {
     int beingProcessed = getBeingProcessedCounter();
     setSourceObjectsBeingProcessed(beingProcessed);
@@ -322,10 +359,16 @@ public class IngestJobPluginInfo extends JobPluginInfo {
     // 20161220 hsilva: preparing maps for garbage collection
     allReports = null;
     reportsFromBeingProcessed = null;
+    try {
+      processedReports.close();
+    } catch (IOException e) {
+      LOGGER.warn("Error deleting reports of processed transferred resources", e);
+    }
   }
 
   public void failOtherTransferredResourceAIPs(ModelService model, IndexService index, String transferredResourceId) {
-    for (Entry<String, Report> aipReportEntry : allReports.get(transferredResourceId).entrySet()) {
+    Map<String, Report> reports = allReports.getOrDefault(transferredResourceId, Collections.emptyMap());
+    for (Entry<String, Report> aipReportEntry : reports.entrySet()) {
       Report report = aipReportEntry.getValue();
       if (report.getPluginState() != PluginState.FAILURE) {
         List<Report> reportItems = report.getReports();
@@ -344,25 +387,38 @@ public class IngestJobPluginInfo extends JobPluginInfo {
         }
       }
     }
+
+    if (processedReports.contains(transferredResourceId)) {
+      processedReports.put(transferredResourceId, reports);
+    }
   }
 
   public void updateMetaPluginInformation(Report metaReport) {
-    this.getAllReports().forEach((k, v) -> {
-      v.forEach((id, report) -> {
-        report.setTitle(metaReport.getTitle());
-        report.setPlugin(metaReport.getPlugin());
-        report.setPluginName(metaReport.getPluginName());
-        report.setPluginVersion(metaReport.getPluginVersion());
-      });
-    });
+    Consumer<Report> update = report -> {
+      report.setTitle(metaReport.getTitle());
+      report.setPlugin(metaReport.getPlugin());
+      report.setPluginName(metaReport.getPluginName());
+      report.setPluginVersion(metaReport.getPluginVersion());
+    };
+    reportsFromBeingProcessed.values().forEach(reports -> reports.values().forEach(update));
+    processedReports.update(update);
   }
 
   public void replaceTransferredResourceId(String oldTransferredResourceId, String newTransferredResourceId) {
-    Map<String, Report> aipReports = allReports.remove(oldTransferredResourceId);
-    allReports.put(newTransferredResourceId, aipReports);
-
-    aipReports = reportsFromBeingProcessed.remove(oldTransferredResourceId);
-    reportsFromBeingProcessed.put(newTransferredResourceId, aipReports);
+    if (reportsFromBeingProcessed.containsKey(oldTransferredResourceId)) {
+      Map<String, Report> aipReports = reportsFromBeingProcessed.remove(oldTransferredResourceId);
+      reportsFromBeingProcessed.put(newTransferredResourceId, aipReports);
+    } else if (processedReports.contains(oldTransferredResourceId)) {
+      Map<String, Report> aipReports = processedReports.remove(oldTransferredResourceId);
+      for (Report report : aipReports.values()) {
+        report.setSourceAndOutcomeObjectId(newTransferredResourceId, report.getOutcomeObjectId());
+        if (!report.getReports().isEmpty()) {
+          report.getReports().get(0).setSourceAndOutcomeObjectId(newTransferredResourceId,
+            report.getOutcomeObjectId());
+        }
+      }
+      processedReports.put(newTransferredResourceId, aipReports);
+    }
 
     List<String> aipIds = transferredResourceToAipIds.remove(oldTransferredResourceId);
     transferredResourceToAipIds.put(newTransferredResourceId, aipIds);
@@ -375,6 +431,67 @@ public class IngestJobPluginInfo extends JobPluginInfo {
     }
   }
 
+  /**
+   * Reports being processed, kept in memory, followed by the ones already
+   * processed, read from disk when needed.
+   */
+  private class AllReports extends AbstractMap<String, Map<String, Report>> {
+
+    @Override
+    public Map<String, Report> get(Object key) {
+      Map<String, Report> reports = reportsFromBeingProcessed.get(key);
+      return reports != null || !(key instanceof String) ? reports : processedReports.get((String) key);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+      return reportsFromBeingProcessed.containsKey(key)
+        || (key instanceof String && processedReports.contains((String) key));
+    }
+
+    @Override
+    public Set<String> keySet() {
+      return new AbstractSet<String>() {
+        @Override
+        public Iterator<String> iterator() {
+          return Iterators.unmodifiableIterator(Iterators.concat(reportsFromBeingProcessed.keySet().iterator(),
+            processedReports.getTransferredResourceIds().iterator()));
+        }
+
+        @Override
+        public int size() {
+          return AllReports.this.size();
+        }
+      };
+    }
+
+    @Override
+    public Set<Entry<String, Map<String, Report>>> entrySet() {
+      return new AbstractSet<Entry<String, Map<String, Report>>>() {
+        @Override
+        public Iterator<Entry<String, Map<String, Report>>> iterator() {
+          return Iterators.transform(keySet().iterator(), id -> new SimpleImmutableEntry<>(id, get(id)));
+        }
+
+        @Override
+        public int size() {
+          return AllReports.this.size();
+        }
+      };
+    }
+
+    @Override
+    public int size() {
+      return reportsFromBeingProcessed.size() + processedReports.size();
+    }
+  }
+
+  private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+    in.defaultReadObject();
+    processedReports = new SpilledIngestReports();
+    allReports = new AllReports();
+  }
+
   @Override
   public int hashCode() {
     return super.hashCode();
@@ -44,13 +44,16 @@ import org.roda.core.data.v2.ip.IndexedRepresentation;
 import org.roda.core.data.v2.ip.Representation;
 import org.roda.core.data.v2.jobs.Job;
 import org.roda.core.data.v2.jobs.Job.JOB_STATE;
+import org.roda.core.data.v2.jobs.JobLatency;
 import org.roda.core.data.v2.jobs.JobStats;
 import org.roda.core.index.IndexService;
 import org.roda.core.index.utils.IterableIndexResult;
 import org.roda.core.model.ModelService;
 import org.roda.core.plugins.Plugin;
 import org.roda.core.plugins.plugins.PluginHelper;
+import org.roda.core.plugins.plugins.common.ConversionCommandExecutor;
 import org.roda.core.storage.fs.FSUtils;
+import org.roda.core.util.Tracing;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -125,6 +128,7 @@ public final class JobsHelper {
       if (jobFromModel.isInFinalState()) {
         jobFromModel.setEndDate(new Date());
       }
+      setLatencyBreakdown(jobFromModel);
 
       model.createOrUpdateJob(jobFromModel);
     } catch (NotFoundException | GenericException | RequestNotValidException | AuthorizationDeniedException e) {
@@ -146,6 +150,7 @@ public final class JobsHelper {
       if (jobFromModel.isInFinalState()) {
         jobFromModel.setEndDate(new Date());
       }
+      setLatencyBreakdown(jobFromModel);
 
       model.createOrUpdateJob(jobFromModel);
     } catch (NotFoundException | GenericException | RequestNotValidException | AuthorizationDeniedException e) {
@@ -192,6 +197,7 @@ public final class JobsHelper {
       LOGGER.debug("New job completionPercentage: {}", jobPluginInfo.getCompletionPercentage());
       Job job = PluginHelper.getJob(plugin, model);
       job = setJobCounters(job, jobPluginInfo);
+      setLatencyBreakdown(job);
 
       model.createOrUpdateJob(job);
     } catch (NotFoundException | GenericException | RequestNotValidException | AuthorizationDeniedException e) {
@@ -217,6 +223,19 @@ public final class JobsHelper {
     return job;
   }
 
+  /**
+   * Sets the time spent by the job so far in each kind of operation (see
+   * {@link Tracing}), forgetting it once the job is in a final state.
+   */
+  private static void setLatencyBreakdown(Job job) {
+    List<JobLatency> latencyBreakdown = job.isInFinalState() ? Tracing.removeLatencyBreakdown(job.getId())
+      : Tracing.getLatencyBreakdown(job.getId());
+    // empty if the job did not run in this process (e.g. before a restart)
+    if (!latencyBreakdown.isEmpty()) {
+      job.setLatencyBreakdown(latencyBreakdown);
+    }
+  }
+
   /**
    * Updates the job state
    */
@@ -453,6 +472,7 @@ public final class JobsHelper {
     } catch (NotFoundException | GenericException e) {
       LOGGER.error("Error while deleting job working directory (path='{}')", path);
     }
+    ConversionCommandExecutor.deleteScratchDirectory(jobId);
   }
 
 }
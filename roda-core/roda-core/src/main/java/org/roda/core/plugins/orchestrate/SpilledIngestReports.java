@@ -0,0 +1,162 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/roda
+ */
+package org.roda.core.plugins.orchestrate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import org.roda.core.RodaCoreFactory;
+import org.roda.core.data.exceptions.GenericException;
+import org.roda.core.data.utils.JsonUtils;
+import org.roda.core.data.v2.jobs.Report;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.RuntimeJsonMappingException;
+
+/**
+ * Reports of the transferred resources that are no longer being processed by an
+ * ingest, kept in an append-only temporary file instead of in memory. Only the
+ * position of the last record of each transferred resource is kept in memory.
+ *
+ * Reports are read from the file on each access, so changes made to them must
+ * be stored again with {@link #put(String, Map)}. Reports are written as JSON
+ * with {@link JsonUtils}, like the reports stored by the model. As the file is
+ * local and private to the ingest, I/O errors are thrown as
+ * {@link UncheckedIOException} and JSON errors as {@link IllegalStateException}.
+ */
+final class SpilledIngestReports implements Closeable {
+  private static final int LENGTH_BYTES = Integer.BYTES;
+
+  // transferredResourceId > position of its last record
+  private final Map<String, Long> positions = new LinkedHashMap<>();
+  private FileChannel channel = null;
+
+  synchronized void put(String transferredResourceId, Map<String, Report> reports) {
+    try {
+      ByteArrayOutputStream record = new ByteArrayOutputStream();
+      JsonUtils.writeObjectsToStream(reports.values().iterator(), record);
+      ByteBuffer buffer = ByteBuffer.allocate(LENGTH_BYTES + record.size());
+      buffer.putInt(record.size()).put(record.toByteArray()).flip();
+
+      FileChannel file = getChannel();
+      long position = file.size();
+      while (buffer.hasRemaining()) {
+        file.write(buffer, position + buffer.position());
+      }
+      positions.put(transferredResourceId, position);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Error storing reports of transferred resource " + transferredResourceId, e);
+    } catch (GenericException e) {
+      throw new IllegalStateException("Error storing reports of transferred resource " + transferredResourceId, e);
+    }
+  }
+
+  /**
+   * @return the reports of the transferred resource, by AIP id, or
+   *         <code>null</code> if they were not stored
+   */
+  synchronized Map<String, Report> get(String transferredResourceId) {
+    Long position = positions.get(transferredResourceId);
+    if (position == null) {
+      return null;
+    }
+
+    try {
+      ByteBuffer length = read(position, LENGTH_BYTES);
+      ByteBuffer record = read(position + LENGTH_BYTES, length.getInt());
+      Map<String, Report> ret = new LinkedHashMap<>();
+      try (MappingIterator<Report> reports = JsonUtils
+        .readObjectsFromStream(new ByteArrayInputStream(record.array()), Report.class)) {
+        while (reports.hasNext()) {
+          Report report = reports.next();
+          ret.put(report.getOutcomeObjectId(), report);
+        }
+      }
+      return ret;
+    } catch (IOException e) {
+      throw new UncheckedIOException("Error reading reports of transferred resource " + transferredResourceId, e);
+    } catch (GenericException | RuntimeJsonMappingException e) {
+      throw new IllegalStateException("Error reading reports of transferred resource " + transferredResourceId, e);
+    }
+  }
+
+  synchronized Map<String, Report> remove(String transferredResourceId) {
+    Map<String, Report> ret = get(transferredResourceId);
+    positions.remove(transferredResourceId);
+    return ret;
+  }
+
+  synchronized boolean contains(String transferredResourceId) {
+    return positions.containsKey(transferredResourceId);
+  }
+
+  /** Snapshot of the ids of the transferred resources, in the order they were stored */
+  synchronized Set<String> getTransferredResourceIds() {
+    return Collections.unmodifiableSet(new LinkedHashSet<>(positions.keySet()));
+  }
+
+  synchronized int size() {
+    return positions.size();
+  }
+
+  /** Changes all the stored reports */
+  synchronized void update(Consumer<Report> change) {
+    for (String transferredResourceId : getTransferredResourceIds()) {
+      Map<String, Report> reports = get(transferredResourceId);
+      reports.values().forEach(change);
+      put(transferredResourceId, reports);
+    }
+  }
+
+  /** Forgets all the reports, deleting the file */
+  @Override
+  public synchronized void close() throws IOException {
+    positions.clear();
+    if (channel != null) {
+      channel.close();
+      channel = null;
+    }
+  }
+
+  private FileChannel getChannel() throws IOException {
+    if (channel == null) {
+      Path directory = RodaCoreFactory.getWorkingDirectory();
+      Path file = directory != null ? Files.createTempFile(directory, "ingest-reports-", ".tmp")
+        : Files.createTempFile("ingest-reports-", ".tmp");
+      channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE,
+        StandardOpenOption.DELETE_ON_CLOSE);
+    }
+    return channel;
+  }
+
+  private ByteBuffer read(long position, int length) throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate(length);
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer, position + buffer.position()) < 0) {
+        throw new EOFException("Unexpected end of file at position " + position);
+      }
+    }
+    buffer.flip();
+    return buffer;
+  }
+}
@@ -8,7 +8,9 @@
 package org.roda.core.plugins.orchestrate.akka;
 
 import java.util.ArrayList;
+import java.util.LinkedList;
 import java.util.Optional;
+import java.util.Queue;
 
 import org.roda.core.common.akka.AkkaBaseActor;
 import org.roda.core.common.akka.Messages;
@@ -52,6 +54,8 @@ public class AkkaJobStateInfoActor extends AkkaBaseActor {
   boolean stopping = false;
   boolean errorDuringBeforeAll = false;
   private String jobId;
+  // blocks waiting for a slot to be granted by the jobs manager
+  private Queue<Messages.PluginExecuteIsReady> blocksWaitingForSlot = new LinkedList<>();
 
   // metrics
   // private Map<String, Histogram> stateMessagesMetrics;
@@ -97,6 +101,8 @@ public class AkkaJobStateInfoActor extends AkkaBaseActor {
       handleTerminated(msg);
     } else if (msg instanceof Messages.PluginExecuteIsReady) {
       handleExecuteIsReady(msg);
+    } else if (msg instanceof Messages.JobsManagerBlockGranted) {
+      handleBlockGranted(msg);
     } else if (msg instanceof Messages.JobInitEnded) {
       handleJobInitEnded(msg);
     } else if (msg instanceof Messages.PluginBeforeAllExecuteIsReady) {
@@ -207,13 +213,28 @@ public class AkkaJobStateInfoActor extends AkkaBaseActor {
       Messages.PluginExecuteIsReady message = (Messages.PluginExecuteIsReady) msg;
       markMessageProcessingAsStarted(message);
       jobInfo.setStarted(message.getPlugin());
-      // 20160819 hsilva: the following it's just for debugging purposes
-      message.setHasBeenForwarded();
-      workersRouter.tell(message, getSelf());
+      // the block is only sent to the workers when the jobs manager grants it a
+      // slot (see JobScheduler)
+      blocksWaitingForSlot.offer(message);
+      jobsManager.tell(Messages.newJobsManagerBlockReady(jobId), getSelf());
       markMessageProcessingAsEnded(message);
     }
   }
 
+  private void handleBlockGranted(Object msg) {
+    Messages.JobsManagerBlockGranted message = (Messages.JobsManagerBlockGranted) msg;
+    markMessageProcessingAsStarted(message);
+    Messages.PluginExecuteIsReady block = blocksWaitingForSlot.poll();
+    if (block != null && !stopping) {
+      // 20160819 hsilva: the following it's just for debugging purposes
+      block.setHasBeenForwarded();
+      workersRouter.tell(block, getSelf());
+    } else {
+      jobsManager.tell(Messages.newJobsManagerBlockDone(jobId), getSelf());
+    }
+    markMessageProcessingAsEnded(message);
+  }
+
   private void handleJobInitEnded(Object msg) {
     Messages.JobInitEnded message = (Messages.JobInitEnded) msg;
     markMessageProcessingAsStarted(message);
@@ -260,6 +281,7 @@ public class AkkaJobStateInfoActor extends AkkaBaseActor {
   private void handleExecuteIsDone(Object msg) {
     Messages.PluginExecuteIsDone message = (Messages.PluginExecuteIsDone) msg;
     markMessageProcessingAsStarted(message);
+    jobsManager.tell(Messages.newJobsManagerBlockDone(jobId), getSelf());
     jobInfo.setDone(message.getPlugin(), message.isWithError());
 
     if (message.isWithError()) {
@@ -12,10 +12,8 @@ import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.Queue;
 import java.util.concurrent.TimeUnit;
 
 import org.roda.core.RodaCoreFactory;
@@ -25,6 +23,7 @@ import org.roda.core.common.akka.Messages.JobsManagerAcquireLock;
 import org.roda.core.common.akka.Messages.JobsManagerReleaseAllLocks;
 import org.roda.core.common.akka.Messages.JobsManagerReleaseLock;
 import org.roda.core.data.v2.jobs.Job;
+import org.roda.core.plugins.orchestrate.JobsHelper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -47,9 +46,10 @@ public class AkkaJobsManager extends AkkaBaseActor {
 
   // state
   private int maxNumberOfJobsInParallel;
-  private Queue<JobWaiting> jobsWaiting;
-  private Map<String, ActorRef> jobsWaitingCreators;
+  private JobScheduler scheduler;
   private ActorRef jobsRouter;
+  // <jobId, JobStateInfoActor waiting for block slots>
+  private Map<String, ActorRef> jobsBlocksRequesters;
   // <Lite, LockInfo>
   private Map<String, LockInfo> objectsLocked;
   // <RequestUUID, List<Lite>>
@@ -63,6 +63,9 @@ public class AkkaJobsManager extends AkkaBaseActor {
   private Histogram jobsBeingExecutedHisto;
   private Histogram jobsWaitingToBeExecutedHisto;
   private Histogram jobsTimeInTheQueueInMilis;
+  private Counter blocksBeingExecuted;
+  private Counter blocksWaitingToBeExecuted;
+  private Histogram blocksTimeWaitingForSlotInMilis;
   private Counter lockRequestsWaitingToAcquireLock;
   private Histogram lockRequestsWaitingToAcquireLockHisto;
   private Counter objectsWaitingToAcquireLock;
@@ -72,13 +75,14 @@ public class AkkaJobsManager extends AkkaBaseActor {
   // parallelization
   private List<String> nonParallelizablePlugins;
   private boolean nonParallelizableJobIsRunning = false;
-  private int nonParallelizableJobsQueued = 0;
 
   public AkkaJobsManager(int maxNumberOfJobsInParallel) {
     super();
     this.maxNumberOfJobsInParallel = maxNumberOfJobsInParallel;
-    this.jobsWaiting = new LinkedList<>();
-    this.jobsWaitingCreators = new HashMap<>();
+    // each job has its own workers
+    this.scheduler = new JobScheduler(RodaCoreFactory.getRodaConfiguration(), maxNumberOfJobsInParallel,
+      maxNumberOfJobsInParallel * JobsHelper.getNumberOfJobsWorkers());
+    this.jobsBlocksRequesters = new HashMap<>();
     this.objectsLocked = new HashMap<>();
     this.requestUuidLites = new HashMap<>();
     this.waitingToAcquireLockRequests = new ArrayList<>();
@@ -92,8 +96,8 @@ public class AkkaJobsManager extends AkkaBaseActor {
 
     getContext().system().scheduler().schedule(Duration.create(0, TimeUnit.MILLISECONDS),
       Duration.create(2, TimeUnit.SECONDS), () -> {
-        if (jobsWaitingToBeExecuted.getCount() > 0 || !waitingToAcquireLockRequests.isEmpty()
-          || !objectsLocked.isEmpty()) {
+        if (jobsWaitingToBeExecuted.getCount() > 0 || blocksWaitingToBeExecuted.getCount() > 0
+          || !waitingToAcquireLockRequests.isEmpty() || !objectsLocked.isEmpty()) {
           sendTick();
         }
       }, getContext().system().dispatcher());
@@ -111,6 +115,10 @@ public class AkkaJobsManager extends AkkaBaseActor {
         handleTick(true);
       } else if (msg instanceof Messages.JobsManagerJobEnded) {
         handleJobEnded((Messages.JobsManagerJobEnded) msg);
+      } else if (msg instanceof Messages.JobsManagerBlockReady) {
+        handleBlockReady((Messages.JobsManagerBlockReady) msg);
+      } else if (msg instanceof Messages.JobsManagerBlockDone) {
+        handleBlockDone((Messages.JobsManagerBlockDone) msg);
       } else if (msg instanceof Messages.JobsManagerAcquireLock) {
         handleAcquireLock(((Messages.JobsManagerAcquireLock) msg).setSender(getSender()));
       } else if (msg instanceof Messages.JobsManagerReleaseLock) {
@@ -130,21 +138,9 @@ public class AkkaJobsManager extends AkkaBaseActor {
   }
 
   private void handleJob(Job job) {
-    if (jobIsNotParallelizable(job)) {
-      if (!nonParallelizableJobIsRunning && jobsWaitingToBeExecuted.getCount() == 0
-        && jobsBeingExecuted.getCount() < maxNumberOfJobsInParallel) {
-        nonParallelizableJobIsRunning = true;
-        sendJobForExecution(job);
-      } else {
-        queueJob(job, true);
-      }
-    } else {
-      if (jobsWaitingToBeExecuted.getCount() == 0 && jobsBeingExecuted.getCount() < maxNumberOfJobsInParallel) {
-        sendJobForExecution(job);
-      } else {
-        queueJob(job, false);
-      }
-    }
+    scheduler.queue(job, getSender());
+    updateJobsWaitingToBeExecuted(true);
+    log("Queued job", job.getId());
   }
 
   private boolean jobIsNotParallelizable(Job job) {
@@ -155,13 +151,6 @@ public class AkkaJobsManager extends AkkaBaseActor {
     return nonParallelizablePlugins.contains(plugin);
   }
 
-  private void sendJobForExecution(Job job) {
-    updateJobsBeingExecuted(true);
-    jobsTimeInTheQueueInMilis.update(0);
-    jobsRouter.tell(job, getSender());
-    log("Will execute job", job.getId());
-  }
-
   private void updateJobsBeingExecuted(boolean increment) {
     if (increment) {
       jobsBeingExecuted.inc();
@@ -171,16 +160,6 @@ public class AkkaJobsManager extends AkkaBaseActor {
     jobsBeingExecutedHisto.update(jobsBeingExecuted.getCount());
   }
 
-  private void queueJob(Job job, boolean jobIsJobParallelizable) {
-    if (jobIsJobParallelizable) {
-      nonParallelizableJobsQueued++;
-    }
-    jobsWaiting.offer(new JobWaiting(job));
-    jobsWaitingCreators.put(job.getId(), getSender());
-    updateJobsWaitingToBeExecuted(true);
-    log("Queued job", job.getId());
-  }
-
   private void updateJobsWaitingToBeExecuted(boolean increment) {
     if (increment) {
       jobsWaitingToBeExecuted.inc();
@@ -192,10 +171,10 @@ public class AkkaJobsManager extends AkkaBaseActor {
 
   private void handleTick(boolean decrementTicksWaitingCounter) {
     // jobs related
-    if (jobsWaitingToBeExecuted.getCount() > 0 && jobsBeingExecuted.getCount() < maxNumberOfJobsInParallel) {
-      dequeueJobs(
-        Math.min(jobsWaitingToBeExecuted.getCount(), maxNumberOfJobsInParallel - jobsBeingExecuted.getCount()));
-    }
+    dequeueJobs();
+
+    // blocks related
+    grantBlocks();
 
     // lock requests waiting related
     processWaitingToAcquireLockRequests();
@@ -208,45 +187,60 @@ public class AkkaJobsManager extends AkkaBaseActor {
     }
   }
 
-  private void dequeueJobs(long numberOfJobsToDequeue) {
-    List<JobWaiting> jobsToDequeued = new ArrayList<>();
-    boolean dequeueOneNonParallelizableJob = !nonParallelizableJobIsRunning;
+  private void dequeueJobs() {
+    // 20180104 hsilva: only one non-parallelizable job may be running
+    JobScheduler.WaitingJob jobToDequeue;
+    while ((jobToDequeue = scheduler
+      .nextJob(job -> !nonParallelizableJobIsRunning || !jobIsNotParallelizable(job))) != null) {
+      Job job = jobToDequeue.getJob();
+      if (jobIsNotParallelizable(job)) {
+        nonParallelizableJobIsRunning = true;
+      }
 
-    // 20180104 hsilva: Optimization 1 - if one non-parallelizable job is
-    // already running & all waiting are non-parallelizable, there is no point
-    // in doing the for cycle
-    if (nonParallelizableJobIsRunning && jobsWaiting.size() == nonParallelizableJobsQueued) {
-      return;
+      long timeInQueue = jobToDequeue.timeInQueueInMillis();
+      jobsTimeInTheQueueInMilis.update(timeInQueue);
+      getMetricRegistry()
+        .histogram(MetricRegistry.name(AkkaJobsManager.class.getSimpleName(), "jobsTimeInTheQueueInMilis",
+          String.valueOf(job.getPluginType())))
+        .update(timeInQueue);
+      updateJobsBeingExecuted(true);
+      updateJobsWaitingToBeExecuted(false);
+      jobsRouter.tell(job, jobToDequeue.getCreator());
+      LOGGER.info("Dequeued job '{}' after {} ms in the queue (max: {}| exec: {}| wait: {})", job.getId(),
+        timeInQueue, maxNumberOfJobsInParallel, jobsBeingExecuted.getCount(), jobsWaitingToBeExecuted.getCount());
     }
+  }
 
-    for (JobWaiting jobWaiting : jobsWaiting) {
-      boolean jobIsNotParallelizable = jobIsNotParallelizable(jobWaiting.job);
-      if (jobIsNotParallelizable) {
-        if (dequeueOneNonParallelizableJob) {
-          nonParallelizableJobsQueued--;
-          dequeueOneNonParallelizableJob = false;
-          nonParallelizableJobIsRunning = true;
-          jobsToDequeued.add(jobWaiting);
-        }
-      } else {
-        jobsToDequeued.add(jobWaiting);
-      }
+  private void handleBlockReady(Messages.JobsManagerBlockReady msg) {
+    if (scheduler.blockReady(msg.getJobId())) {
+      jobsBlocksRequesters.put(msg.getJobId(), getSender());
+      updateBlocksCounters();
+    } else {
+      // job not started by this manager, so its blocks are not scheduled
+      getSender().tell(Messages.newJobsManagerBlockGranted(), getSelf());
+    }
+  }
 
-      if (jobsToDequeued.size() == numberOfJobsToDequeue) {
-        break;
+  private void handleBlockDone(Messages.JobsManagerBlockDone msg) {
+    scheduler.blockDone(msg.getJobId());
+    updateBlocksCounters();
+  }
+
+  private void grantBlocks() {
+    JobScheduler.RunningJob job;
+    while ((job = scheduler.nextBlock()) != null) {
+      blocksTimeWaitingForSlotInMilis.update(job.getLastBlockWaitingTimeInMillis());
+      ActorRef requester = jobsBlocksRequesters.get(job.getJob().getId());
+      if (requester != null) {
+        requester.tell(Messages.newJobsManagerBlockGranted(), getSelf());
       }
     }
+    updateBlocksCounters();
+  }
 
-    for (JobWaiting jobToDequeue : jobsToDequeued) {
-      jobsWaiting.remove(jobToDequeue);
-      jobsTimeInTheQueueInMilis.update(jobToDequeue.timeInQueueInMillis());
-      Job job = jobToDequeue.job;
-      ActorRef jobCreator = jobsWaitingCreators.remove(job.getId());
-      updateJobsBeingExecuted(true);
-      updateJobsWaitingToBeExecuted(false);
-      jobsRouter.tell(job, jobCreator);
-      log("Dequeued job", job.getId());
-    }
+  private void updateBlocksCounters() {
+    blocksBeingExecuted.inc(scheduler.getRunningBlocksCount() - blocksBeingExecuted.getCount());
+    blocksWaitingToBeExecuted.inc(scheduler.getWaitingBlocksCount() - blocksWaitingToBeExecuted.getCount());
   }
 
   private void processWaitingToAcquireLockRequests() {
@@ -375,6 +369,12 @@ public class AkkaJobsManager extends AkkaBaseActor {
       nonParallelizableJobIsRunning = false;
     }
     updateJobsBeingExecuted(false);
+    jobsBlocksRequesters.remove(jobEnded.getJobId());
+    JobScheduler.RunningJob job = scheduler.ended(jobEnded.getJobId());
+    if (job != null) {
+      LOGGER.info("The end for job '{}' (its blocks waited {} ms for workers)", jobEnded.getJobId(),
+        job.getBlocksWaitingTimeInMillis());
+    }
     log("The end for job", jobEnded.getJobId());
   }
 
@@ -437,6 +437,11 @@ public class AkkaJobsManager extends AkkaBaseActor {
     jobsWaitingToBeExecutedHisto = metrics
       .histogram(MetricRegistry.name(className, "jobsWaitingToBeExecutedHistogram"));
     jobsTimeInTheQueueInMilis = metrics.histogram(MetricRegistry.name(className, "jobsTimeInTheQueueInMilis"));
+    // blocks related metrics
+    blocksBeingExecuted = metrics.counter(MetricRegistry.name(className, "blocksBeingExecuted"));
+    blocksWaitingToBeExecuted = metrics.counter(MetricRegistry.name(className, "blocksWaitingToBeExecuted"));
+    blocksTimeWaitingForSlotInMilis = metrics
+      .histogram(MetricRegistry.name(className, "blocksTimeWaitingForSlotInMilis"));
     // locks related metrics
     lockRequestsWaitingToAcquireLock = metrics
       .counter(MetricRegistry.name(className, LOCK_REQUESTS_WAITING_TO_ACQUIRE_LOCK));
@@ -458,21 +463,6 @@ public class AkkaJobsManager extends AkkaBaseActor {
     messagesProcessingTimeInMilis.update(new Date().getTime() - messageProcessingStart.getTime());
   }
 
-  private class JobWaiting {
-    public Job job;
-    private long queuedIn;
-
-    public JobWaiting(Job job) {
-      this.job = job;
-      this.queuedIn = new Date().getTime();
-    }
-
-    /** Time in milliseconds */
-    public long timeInQueueInMillis() {
-      return new Date().getTime() - queuedIn;
-    }
-  }
-
   private class LockInfo {
     public Date lockDate;
     public String requestUuid;
@@ -16,7 +16,9 @@ import org.roda.core.data.v2.LiteOptionalWithCause;
 import org.roda.core.index.IndexService;
 import org.roda.core.model.ModelService;
 import org.roda.core.plugins.Plugin;
+import org.roda.core.plugins.plugins.PluginHelper;
 import org.roda.core.storage.StorageService;
+import org.roda.core.util.Tracing;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -52,6 +54,7 @@ public class AkkaWorkerActor extends AkkaBaseActor {
     List<LiteOptionalWithCause> objectsToBeProcessed = message.getList();
     message.logProcessingStarted();
     Plugin<IsRODAObject> messagePlugin = message.getPlugin();
+    String previousJobId = Tracing.enterJob(PluginHelper.getJobId(messagePlugin));
     try {
       messagePlugin.execute(index, model, storage, objectsToBeProcessed);
       getSender().tell(Messages.newPluginExecuteIsDone(messagePlugin, false), getSelf());
@@ -61,6 +64,8 @@ public class AkkaWorkerActor extends AkkaBaseActor {
       // java.lang.NoSuchMethodError)
       LOGGER.error("Error executing plugin.execute()", e);
       getSender().tell(Messages.newPluginExecuteIsDone(messagePlugin, true, getErrorMessage(e)), getSelf());
+    } finally {
+      Tracing.exitJob(previousJobId);
     }
     message.logProcessingEnded();
   }
@@ -80,6 +85,7 @@ public class AkkaWorkerActor extends AkkaBaseActor {
     Messages.PluginAfterAllExecuteIsReady message = (Messages.PluginAfterAllExecuteIsReady) msg;
     message.logProcessingStarted();
     Plugin<?> plugin = message.getPlugin();
+    String previousJobId = Tracing.enterJob(PluginHelper.getJobId(plugin));
     try {
       plugin.afterAllExecute(index, model, storage);
       getSender().tell(Messages.newPluginAfterAllExecuteIsDone(plugin, false), getSelf());
@@ -89,6 +95,8 @@ public class AkkaWorkerActor extends AkkaBaseActor {
       // java.lang.NoSuchMethodError)
       LOGGER.error("Error executing plugin.afterAllExecute()", e);
       getSender().tell(Messages.newPluginAfterAllExecuteIsDone(plugin, true), getSelf());
+    } finally {
+      Tracing.exitJob(previousJobId);
     }
     message.logProcessingEnded();
   }
@@ -0,0 +1,323 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/roda
+ */
+package org.roda.core.plugins.orchestrate.akka;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.function.Predicate;
+
+import org.apache.commons.configuration.Configuration;
+import org.roda.core.data.v2.index.select.SelectedItems;
+import org.roda.core.data.v2.index.select.SelectedItemsList;
+import org.roda.core.data.v2.index.select.SelectedItemsNone;
+import org.roda.core.data.v2.jobs.Job;
+
+import akka.actor.ActorRef;
+
+/**
+ * Decides which waiting job starts next and, as jobs share a fixed number of
+ * block slots (blocks of objects being processed by workers at the same time),
+ * which running job processes its next block when a slot is freed.
+ *
+ * Both decisions follow the same policy:
+ * <ul>
+ * <li>jobs with higher priority go first (configured by plugin or plugin
+ * type);</li>
+ * <li>then the job whose user and plugin type use the smallest weighted share
+ * of the running jobs (or blocks) goes first, so that a user or a kind of job
+ * does not take all the slots;</li>
+ * <li>then the job that waits for longer goes first.</li>
+ * </ul>
+ * Some job and block slots can be reserved for small jobs (jobs without objects
+ * or with a short list of objects), so that they are not delayed by large ones.
+ * As slots are given block by block, a job with precedence gets the slots freed
+ * by the blocks of other jobs as they end (preemption at block boundaries).
+ *
+ * Not thread safe: it is only used by {@link AkkaJobsManager}.
+ */
+public class JobScheduler {
+  private static final String PREFIX = "core.orchestrator.";
+  private static final String USER_SHARE = "user:";
+  private static final String PLUGIN_TYPE_SHARE = "plugin_type:";
+
+  private final Configuration configuration;
+  private final int maxJobs;
+  private final int maxLargeJobs;
+  private final int maxBlocks;
+  private final int maxLargeJobsBlocks;
+  private final int smallJobMaxObjects;
+
+  private final List<WaitingJob> waitingJobs = new ArrayList<>();
+  private final Map<String, RunningJob> runningJobs = new HashMap<>();
+  private final Map<String, Integer> runningJobsPerShare = new HashMap<>();
+  private final Map<String, Integer> runningBlocksPerShare = new HashMap<>();
+  private int runningLargeJobs = 0;
+  private int runningBlocks = 0;
+  private int runningLargeJobsBlocks = 0;
+  private long sequence = 0;
+
+  /**
+   * @param maxBlocks
+   *          the number of blocks processed at the same time by all jobs when
+   *          not configured, i.e. the number of workers of all the jobs
+   */
+  public JobScheduler(Configuration configuration, int maxJobs, int maxBlocks) {
+    this.configuration = configuration;
+    this.maxJobs = maxJobs;
+    this.maxLargeJobs = maxJobs - Math.min(configuration.getInt(PREFIX + "reserved_jobs_for_small_jobs", 0),
+      maxJobs - 1);
+    this.maxBlocks = configuration.getInt(PREFIX + "max_blocks_in_parallel", maxBlocks);
+    this.maxLargeJobsBlocks = this.maxBlocks - Math.min(
+      configuration.getInt(PREFIX + "reserved_blocks_for_small_jobs", 0), this.maxBlocks - 1);
+    this.smallJobMaxObjects = configuration.getInt(PREFIX + "small_job_max_objects", 100);
+  }
+
+  public void queue(Job job, ActorRef creator) {
+    waitingJobs.add(new WaitingJob(job, creator));
+  }
+
+  /**
+   * @return the waiting job that should start now, already counted as running,
+   *         or <code>null</code> if none may start
+   */
+  public WaitingJob nextJob(Predicate<Job> canStart) {
+    if (runningJobs.size() >= maxJobs) {
+      return null;
+    }
+
+    WaitingJob next = null;
+    for (WaitingJob waitingJob : waitingJobs) {
+      if ((waitingJob.small || runningLargeJobs < maxLargeJobs) && canStart.test(waitingJob.job)
+        && (next == null || compare(waitingJob, next, runningJobsPerShare) < 0)) {
+        next = waitingJob;
+      }
+    }
+
+    if (next != null) {
+      waitingJobs.remove(next);
+      start(next);
+    }
+    return next;
+  }
+
+  private void start(WaitingJob job) {
+    RunningJob runningJob = new RunningJob(job);
+    runningJobs.put(job.job.getId(), runningJob);
+    increment(runningJobsPerShare, job.shares, 1);
+    if (!job.small) {
+      runningLargeJobs++;
+    }
+  }
+
+  /**
+   * Forgets a job, with its blocks waiting or being processed.
+   *
+   * @return the job, or <code>null</code> if it was not running
+   */
+  public RunningJob ended(String jobId) {
+    RunningJob job = runningJobs.remove(jobId);
+    if (job != null) {
+      increment(runningJobsPerShare, job.shares, -1);
+      if (!job.small) {
+        runningLargeJobs--;
+      }
+      releaseBlocks(job, job.runningBlocks);
+      job.blocksWaiting.clear();
+    }
+    return job;
+  }
+
+  /**
+   * Queues a block of a job, to be given a slot by {@link #nextBlock()}.
+   *
+   * @return false if the job is unknown
+   */
+  public boolean blockReady(String jobId) {
+    RunningJob job = runningJobs.get(jobId);
+    if (job == null) {
+      return false;
+    }
+    job.blocksWaiting.add(System.currentTimeMillis());
+    return true;
+  }
+
+  public void blockDone(String jobId) {
+    RunningJob job = runningJobs.get(jobId);
+    if (job != null && job.runningBlocks > 0) {
+      releaseBlocks(job, 1);
+    }
+  }
+
+  private void releaseBlocks(RunningJob job, int blocks) {
+    job.runningBlocks -= blocks;
+    runningBlocks -= blocks;
+    increment(runningBlocksPerShare, job.shares, -blocks);
+    if (!job.small) {
+      runningLargeJobsBlocks -= blocks;
+    }
+  }
+
+  /**
+   * @return the job whose next block should be processed now, with the block
+   *         already counted as running, or <code>null</code> if none may be
+   */
+  public RunningJob nextBlock() {
+    if (runningBlocks >= maxBlocks) {
+      return null;
+    }
+
+    RunningJob next = null;
+    for (RunningJob job : runningJobs.values()) {
+      if (!job.blocksWaiting.isEmpty() && (job.small || runningLargeJobsBlocks < maxLargeJobsBlocks)
+        && (next == null || compare(job, next, runningBlocksPerShare) < 0)) {
+        next = job;
+      }
+    }
+
+    if (next != null) {
+      long waitingTime = System.currentTimeMillis() - next.blocksWaiting.remove();
+      next.lastBlockWaitingTimeInMillis = waitingTime;
+      next.blocksWaitingTimeInMillis += waitingTime;
+      next.runningBlocks++;
+      runningBlocks++;
+      increment(runningBlocksPerShare, next.shares, 1);
+      if (!next.small) {
+        runningLargeJobsBlocks++;
+      }
+    }
+    return next;
+  }
+
+  public int getWaitingJobsCount() {
+    return waitingJobs.size();
+  }
+
+  public int getRunningJobsCount() {
+    return runningJobs.size();
+  }
+
+  public int getRunningBlocksCount() {
+    return runningBlocks;
+  }
+
+  public int getWaitingBlocksCount() {
+    return runningJobs.values().stream().mapToInt(job -> job.blocksWaiting.size()).sum();
+  }
+
+  private int compare(ScheduledJob a, ScheduledJob b, Map<String, Integer> usage) {
+    return Comparator.comparingInt((ScheduledJob job) -> -job.priority)
+      .thenComparingDouble(job -> job.getUsage(usage)).thenComparingLong(job -> job.order).compare(a, b);
+  }
+
+  private static void increment(Map<String, Integer> usage, Map<String, Double> shares, int value) {
+    for (String share : shares.keySet()) {
+      usage.merge(share, value, Integer::sum);
+    }
+  }
+
+  private int getPriority(Job job) {
+    return configuration.getInt(PREFIX + "priority." + job.getPlugin(),
+      configuration.getInt(PREFIX + "priority." + job.getPluginType(), 0));
+  }
+
+  private Map<String, Double> getShares(Job job) {
+    Map<String, Double> shares = new HashMap<>();
+    shares.put(USER_SHARE + job.getUsername(), getWeight("weight.user." + job.getUsername()));
+    shares.put(PLUGIN_TYPE_SHARE + job.getPluginType(), getWeight("weight.plugin_type." + job.getPluginType()));
+    return shares;
+  }
+
+  private double getWeight(String key) {
+    double weight = configuration.getDouble(PREFIX + key, 1.0);
+    return weight > 0 ? weight : 1.0;
+  }
+
+  private boolean isSmallJob(Job job) {
+    SelectedItems<?> sourceObjects = job.getSourceObjects();
+    return sourceObjects instanceof SelectedItemsNone
+      || (sourceObjects instanceof SelectedItemsList
+        && ((SelectedItemsList<?>) sourceObjects).getIds().size() <= smallJobMaxObjects);
+  }
+
+  private abstract class ScheduledJob {
+    protected final Job job;
+    protected final int priority;
+    protected final boolean small;
+    protected final long order;
+    /** share > weight */
+    protected final Map<String, Double> shares;
+
+    ScheduledJob(Job job, int priority, boolean small, long order, Map<String, Double> shares) {
+      this.job = job;
+      this.priority = priority;
+      this.small = small;
+      this.order = order;
+      this.shares = shares;
+    }
+
+    /** Largest weighted usage of the shares of the job */
+    double getUsage(Map<String, Integer> usage) {
+      double ret = 0;
+      for (Map.Entry<String, Double> share : shares.entrySet()) {
+        ret = Math.max(ret, usage.getOrDefault(share.getKey(), 0) / share.getValue());
+      }
+      return ret;
+    }
+
+    public Job getJob() {
+      return job;
+    }
+
+    public boolean isSmall() {
+      return small;
+    }
+  }
+
+  public final class WaitingJob extends ScheduledJob {
+    private final ActorRef creator;
+    private final long queuedIn = System.currentTimeMillis();
+
+    WaitingJob(Job job, ActorRef creator) {
+      super(job, getPriority(job), isSmallJob(job), sequence++, getShares(job));
+      this.creator = creator;
+    }
+
+    public ActorRef getCreator() {
+      return creator;
+    }
+
+    public long timeInQueueInMillis() {
+      return System.currentTimeMillis() - queuedIn;
+    }
+  }
+
+  public final class RunningJob extends ScheduledJob {
+    private final Queue<Long> blocksWaiting = new LinkedList<>();
+    private int runningBlocks = 0;
+    private long lastBlockWaitingTimeInMillis = 0;
+    private long blocksWaitingTimeInMillis = 0;
+
+    RunningJob(WaitingJob job) {
+      super(job.job, job.priority, job.small, job.order, job.shares);
+    }
+
+    public long getLastBlockWaitingTimeInMillis() {
+      return lastBlockWaitingTimeInMillis;
+    }
+
+    /** Total time the blocks of the job waited for a slot */
+    public long getBlocksWaitingTimeInMillis() {
+      return blocksWaitingTimeInMillis;
+    }
+  }
+}
@@ -116,6 +116,7 @@ import org.roda.core.storage.StorageService;
 import org.roda.core.storage.fs.FSUtils;
 import org.roda.core.storage.fs.FileStorageService;
 import org.roda.core.util.IdUtils;
+import org.roda.core.util.Tracing;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -142,7 +143,7 @@ public final class PluginHelper {
     List<T> list;
     Throwable exceptionOccurred = null;
 
-    try {
+    try (Tracing.Span span = Tracing.start(Tracing.SpanType.PLUGIN, plugin.getClass().getSimpleName())) {
       JobPluginInfo jobPluginInfo = PluginHelper.getInitialJobInformation(plugin, liteList.size());
       PluginHelper.updateJobInformationAsync(plugin, jobPluginInfo);
 
@@ -200,8 +201,9 @@ public final class PluginHelper {
     throws PluginException {
     Report report = PluginHelper.initPluginReport(plugin);
     Throwable exceptionOccurred = null;
+    String pluginName = plugin.getClass().getSimpleName();
 
-    try {
+    try (Tracing.Span span = Tracing.start(Tracing.SpanType.PLUGIN, pluginName)) {
       JobPluginInfo jobPluginInfo = PluginHelper.getInitialJobInformation(plugin, liteList.size());
       PluginHelper.updateJobInformationAsync(plugin, jobPluginInfo);
 
@@ -224,7 +226,9 @@ public final class PluginHelper {
         // need to pass them to the orchestrator (via throw)
         try {
           for (T object : list) {
-            perObjectLogic.process(index, model, storage, report, job, jobPluginInfo, plugin, object);
+            try (Tracing.Span objectSpan = Tracing.start(Tracing.SpanType.OBJECT, pluginName)) {
+              perObjectLogic.process(index, model, storage, report, job, jobPluginInfo, plugin, object);
+            }
           }
         } catch (Throwable e) {
           LOGGER.error("Unexpected exception during 'perObjectLogic' execution", e);
@@ -296,7 +300,7 @@ public final class PluginHelper {
     Report report = PluginHelper.initPluginReport(plugin);
     Throwable exceptionOccurred = null;
 
-    try {
+    try (Tracing.Span span = Tracing.start(Tracing.SpanType.PLUGIN, plugin.getClass().getSimpleName())) {
       JobPluginInfo jobPluginInfo = PluginHelper.getInitialJobInformation(plugin, 0);
       jobPluginInfo.setSourceObjectsCount(setSourceObjectsCount);
       PluginHelper.updateJobInformationAsync(plugin, jobPluginInfo);
@@ -948,8 +952,10 @@ public final class PluginHelper {
       return;
     }
     LOGGER.debug("Acquiring lock for: {} request: {}", lites, requestUuid);
-    RodaCoreFactory.getPluginOrchestrator().acquireObjectLock(lites, PluginHelper.getLockRequestTimeout(), true,
-      requestUuid);
+    try (Tracing.Span span = Tracing.start(Tracing.SpanType.LOCK, "acquire")) {
+      RodaCoreFactory.getPluginOrchestrator().acquireObjectLock(lites, PluginHelper.getLockRequestTimeout(), true,
+        requestUuid);
+    }
   }
 
   private static int getLockRequestTimeout() {
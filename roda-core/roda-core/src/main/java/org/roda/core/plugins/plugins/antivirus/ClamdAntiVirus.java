@@ -0,0 +1,416 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/roda
+ */
+package org.roda.core.plugins.plugins.antivirus;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.commons.configuration.Configuration;
+import org.apache.commons.io.IOUtils;
+import org.roda.core.RodaCoreFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * The Clam anti-virus, using a long-running clamd daemon.
+ *
+ * Files are streamed to clamd over TCP with the INSTREAM command, so clamd
+ * does not need access to the files and does not load its signature database
+ * for every scan. Connections are kept open in sessions (IDSESSION) and pooled,
+ * and the files of a path are scanned in parallel, one per connection.
+ *
+ * clamd refuses streams larger than its StreamMaxLength (25 MB by default), so
+ * it should be raised in clamd.conf to the size of the largest file to scan.
+ * Files larger than the configured stream_max_length, or refused by clamd, are
+ * reported as not scanned and make the check fail unless fail_unscanned is
+ * unset.
+ *
+ * Only the TCP socket of clamd (TCPSocket) is supported, as Java 8 cannot
+ * connect to its Unix socket (LocalSocket) without native libraries.
+ */
+public class ClamdAntiVirus implements AntiVirus {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ClamdAntiVirus.class);
+
+  private static final String CONFIG_PREFIX = "core.plugins.internal.virus_check.clamd.";
+  private static final int CHUNK_SIZE = 64 * 1024;
+  private static final String REPLY_OK = "OK";
+  private static final String REPLY_FOUND = "FOUND";
+  private static final String REPLY_ERROR = "ERROR";
+  private static final String REPLY_SIZE_LIMIT_EXCEEDED = "INSTREAM size limit exceeded. ERROR";
+  private static final long DEFAULT_STREAM_MAX_LENGTH = 25L * 1024 * 1024;
+
+  private static Clamd sharedClamd = null;
+
+  private final Clamd clamd;
+
+  /**
+   * Constructs a {@link ClamdAntiVirus} that connects to the clamd defined in
+   * the RODA configuration, sharing the connections with all the other
+   * instances.
+   */
+  public ClamdAntiVirus() {
+    this.clamd = getSharedClamd();
+  }
+
+  /**
+   * Constructs a {@link ClamdAntiVirus} with its own connections.
+   *
+   * @param poolSize
+   *          the maximum number of connections, i.e. of files scanned in
+   *          parallel.
+   */
+  public ClamdAntiVirus(String host, int port, int poolSize, int timeoutInMillis) {
+    this(host, port, poolSize, timeoutInMillis, DEFAULT_STREAM_MAX_LENGTH, true);
+  }
+
+  /**
+   * Constructs a {@link ClamdAntiVirus} with its own connections.
+   *
+   * @param poolSize
+   *          the maximum number of connections, i.e. of files scanned in
+   *          parallel.
+   * @param streamMaxLength
+   *          the StreamMaxLength of clamd, in bytes; larger files are not sent
+   *          to clamd (0 to send all files).
+   * @param failUnscanned
+   *          if files that were not scanned because of their size make the
+   *          check fail.
+   */
+  public ClamdAntiVirus(String host, int port, int poolSize, int timeoutInMillis, long streamMaxLength,
+    boolean failUnscanned) {
+    this.clamd = new Clamd(host, port, poolSize, timeoutInMillis, streamMaxLength, failUnscanned);
+  }
+
+  private static synchronized Clamd getSharedClamd() {
+    if (sharedClamd == null) {
+      Configuration configuration = RodaCoreFactory.getRodaConfiguration();
+      sharedClamd = new Clamd(configuration.getString(CONFIG_PREFIX + "host", "localhost"),
+        configuration.getInt(CONFIG_PREFIX + "port", 3310), configuration.getInt(CONFIG_PREFIX + "pool_size", 4),
+        configuration.getInt(CONFIG_PREFIX + "timeout", 60000),
+        configuration.getLong(CONFIG_PREFIX + "stream_max_length", DEFAULT_STREAM_MAX_LENGTH),
+        configuration.getBoolean(CONFIG_PREFIX + "fail_unscanned", true));
+    }
+    return sharedClamd;
+  }
+
+  /**
+   * Performs a virus check on the specified path.
+   *
+   * @param path
+   *          a path to scan.
+   *
+   * @return the results of the virus check as a {@link VirusCheckResult}.
+   *
+   * @throws RuntimeException
+   *           if some problem prevented the virus check from run a normal test.
+   * @see AntiVirus
+   */
+  @Override
+  public VirusCheckResult checkForVirus(Path path) throws RuntimeException {
+    LOGGER.debug("Executing virus scan in {} with clamd at {}", path, clamd);
+
+    List<Path> files;
+    try (Stream<Path> paths = Files.walk(path)) {
+      files = paths.filter(Files::isRegularFile).collect(Collectors.toList());
+    } catch (IOException e) {
+      throw new UncheckedIOException("Could not list files to scan in " + path, e);
+    }
+
+    List<Future<String>> replies = new ArrayList<>();
+    for (Path file : files) {
+      replies.add(clamd.executor.submit(() -> clamd.scan(file)));
+    }
+
+    boolean clean = true;
+    int infected = 0;
+    int unscanned = 0;
+    StringBuilder report = new StringBuilder();
+    try {
+      for (int i = 0; i < files.size(); i++) {
+        String reply = replies.get(i).get();
+        if (REPLY_SIZE_LIMIT_EXCEEDED.equals(reply)) {
+          unscanned++;
+          clean = clean && !clamd.failUnscanned;
+          report.append(files.get(i)).append(": not scanned, larger than the clamd StreamMaxLength\n");
+        } else if (!REPLY_OK.equals(reply)) {
+          clean = false;
+          if (reply.endsWith(REPLY_FOUND)) {
+            infected++;
+          }
+          report.append(files.get(i)).append(": ").append(reply).append("\n");
+        }
+      }
+    } catch (InterruptedException e) {
+      replies.forEach(reply -> reply.cancel(true));
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while scanning " + path, e);
+    } catch (ExecutionException e) {
+      replies.forEach(reply -> reply.cancel(true));
+      throw new IllegalStateException("Could not scan " + path + " with clamd at " + clamd, e.getCause());
+    }
+
+    report.append("\n----------- SCAN SUMMARY -----------\n");
+    report.append("Scanned files: ").append(files.size() - unscanned).append("\n");
+    report.append("Infected files: ").append(infected).append("\n");
+    if (unscanned > 0) {
+      LOGGER.warn("{} files in {} were not scanned, as they are larger than the clamd StreamMaxLength", unscanned,
+        path);
+      report.append("Unscanned files: ").append(unscanned).append("\n");
+    }
+
+    return new VirusCheckResult(clean, report.toString());
+  }
+
+  @Override
+  public String getVersion() {
+    try (ClamdConnection connection = new ClamdConnection(clamd.address, clamd.timeoutInMillis, false)) {
+      return connection.command("VERSION");
+    } catch (IOException e) {
+      LOGGER.warn("Could not get version of clamd at {}", clamd, e);
+      return "unknown";
+    }
+  }
+
+  private static final class Clamd {
+    private final InetSocketAddress address;
+    private final int timeoutInMillis;
+    private final BlockingQueue<ClamdConnection> idleConnections;
+    private final Semaphore connections;
+    private final ExecutorService executor;
+    private final long streamMaxLength;
+    private final boolean failUnscanned;
+
+    private Clamd(String host, int port, int poolSize, int timeoutInMillis, long streamMaxLength,
+      boolean failUnscanned) {
+      this.address = InetSocketAddress.createUnresolved(host, port);
+      this.timeoutInMillis = timeoutInMillis;
+      this.streamMaxLength = streamMaxLength;
+      this.failUnscanned = failUnscanned;
+      this.idleConnections = new ArrayBlockingQueue<>(poolSize);
+      this.connections = new Semaphore(poolSize);
+      this.executor = Executors.newFixedThreadPool(poolSize,
+        new ThreadFactoryBuilder().setNameFormat("clamd-scan-%d").setDaemon(true).build());
+    }
+
+    private String scan(Path file) throws IOException {
+      if (streamMaxLength > 0 && Files.size(file) > streamMaxLength) {
+        // clamd would refuse it after it was sent
+        return REPLY_SIZE_LIMIT_EXCEEDED;
+      }
+
+      try (InputStream inputStream = Files.newInputStream(file)) {
+        ClamdConnection connection = borrow();
+        String reply;
+        try {
+          reply = connection.instream(inputStream);
+        } catch (IOException e) {
+          invalidate(connection);
+          if (!connection.reused) {
+            throw e;
+          }
+
+          // clamd closes sessions that were idle for too long, retry once
+          LOGGER.debug("Pooled clamd connection failed, retrying with a new one", e);
+          try (InputStream retryInputStream = Files.newInputStream(file)) {
+            connection = borrow(false);
+            try {
+              reply = connection.instream(retryInputStream);
+            } catch (IOException e2) {
+              invalidate(connection);
+              throw e2;
+            }
+          }
+        }
+
+        if (reply.endsWith(REPLY_ERROR)) {
+          // e.g. the stream size limit was exceeded, clamd might have closed
+          invalidate(connection);
+        } else {
+          release(connection);
+        }
+        return reply;
+      }
+    }
+
+    private ClamdConnection borrow() throws IOException {
+      return borrow(true);
+    }
+
+    private ClamdConnection borrow(boolean reuse) throws IOException {
+      try {
+        connections.acquire();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException("Interrupted while waiting for a clamd connection");
+      }
+
+      ClamdConnection connection = reuse ? idleConnections.poll() : null;
+      if (connection == null) {
+        try {
+          connection = new ClamdConnection(address, timeoutInMillis, true);
+        } catch (IOException | RuntimeException e) {
+          connections.release();
+          throw e;
+        }
+      } else {
+        connection.reused = true;
+      }
+      return connection;
+    }
+
+    private void release(ClamdConnection connection) {
+      if (!idleConnections.offer(connection)) {
+        IOUtils.closeQuietly(connection);
+      }
+      connections.release();
+    }
+
+    private void invalidate(ClamdConnection connection) {
+      IOUtils.closeQuietly(connection);
+      connections.release();
+    }
+
+    @Override
+    public String toString() {
+      return address.getHostString() + ":" + address.getPort();
+    }
+  }
+
+  /**
+   * A connection to clamd, using the null terminated (z prefixed) commands.
+   */
+  private static final class ClamdConnection implements Closeable {
+    private final Socket socket;
+    private final DataOutputStream output;
+    private final InputStream input;
+    private final boolean session;
+    private int nextRequestId = 1;
+    private boolean reused = false;
+
+    private ClamdConnection(InetSocketAddress address, int timeoutInMillis, boolean session) throws IOException {
+      this.socket = new Socket();
+      try {
+        socket.connect(new InetSocketAddress(address.getHostString(), address.getPort()), timeoutInMillis);
+        socket.setSoTimeout(timeoutInMillis);
+        this.output = new DataOutputStream(socket.getOutputStream());
+        this.input = new BufferedInputStream(socket.getInputStream());
+        this.session = session;
+        if (session) {
+          send("IDSESSION");
+        }
+      } catch (IOException e) {
+        IOUtils.closeQuietly(socket);
+        throw e;
+      }
+    }
+
+    private void send(String command) throws IOException {
+      output.write(("z" + command + "\0").getBytes(StandardCharsets.US_ASCII));
+      output.flush();
+    }
+
+    private String command(String command) throws IOException {
+      send(command);
+      return readReply();
+    }
+
+    private String instream(InputStream inputStream) throws IOException {
+      try {
+        output.write("zINSTREAM\0".getBytes(StandardCharsets.US_ASCII));
+        byte[] buffer = new byte[CHUNK_SIZE];
+        int read;
+        while ((read = inputStream.read(buffer)) != -1) {
+          if (read > 0) {
+            output.writeInt(read);
+            output.write(buffer, 0, read);
+          }
+        }
+        output.writeInt(0);
+        output.flush();
+      } catch (IOException e) {
+        // clamd replies and closes the connection when the stream exceeds its
+        // StreamMaxLength, which is only known after sending the rest fails
+        try {
+          String reply = readReply();
+          if (reply.endsWith(REPLY_SIZE_LIMIT_EXCEEDED)) {
+            return REPLY_SIZE_LIMIT_EXCEEDED;
+          }
+        } catch (IOException e2) {
+          e.addSuppressed(e2);
+        }
+        throw e;
+      }
+
+      String reply = readReply();
+      // e.g. "stream: OK" or "stream: Eicar-Signature FOUND"
+      return reply.startsWith("stream: ") ? reply.substring("stream: ".length()) : reply;
+    }
+
+    private String readReply() throws IOException {
+      ByteArrayOutputStream reply = new ByteArrayOutputStream();
+      int b;
+      while ((b = input.read()) > 0) {
+        reply.write(b);
+      }
+      if (b < 0) {
+        throw new EOFException("clamd closed the connection");
+      }
+
+      String ret = new String(reply.toByteArray(), StandardCharsets.US_ASCII).trim();
+      if (session) {
+        // replies in a session are prefixed by the request id, e.g. "1: "
+        String prefix = (nextRequestId++) + ": ";
+        if (ret.startsWith(prefix)) {
+          ret = ret.substring(prefix.length());
+        } else {
+          throw new IOException("Unexpected clamd reply: " + ret);
+        }
+      }
+      return ret;
+    }
+
+    @Override
+    public void close() throws IOException {
+      try {
+        if (session && !socket.isClosed()) {
+          send("END");
+        }
+      } catch (IOException e) {
+        // closing anyway
+      } finally {
+        socket.close();
+      }
+    }
+  }
+}
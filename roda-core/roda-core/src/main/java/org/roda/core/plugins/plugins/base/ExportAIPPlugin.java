@@ -12,9 +12,11 @@ import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -67,10 +69,15 @@ public class ExportAIPPlugin extends AbstractPlugin<AIP> {
   public static final String PLUGIN_PARAM_EXPORT_FOLDER_PARAMETER = "outputFolder";
   public static final String PLUGIN_PARAM_EXPORT_TYPE = "exportType";
   public static final String PLUGIN_PARAM_EXPORT_REMOVE_IF_ALREADY_EXISTS = "removeIfAlreadyExists";
+  public static final String PLUGIN_PARAM_EXPORT_RESUME = "resumeExport";
+
+  private static final String ZIP_EXTENSION = ".zip";
+  private static final String PARTIAL_EXTENSION = ".part";
 
   private String outputFolder;
   private ExportType exportType;
   private boolean removeIfAlreadyExists;
+  private boolean resume = false;
 
   private static Map<String, PluginParameter> pluginParameters = new HashMap<>();
   static {
@@ -86,6 +93,12 @@ public class ExportAIPPlugin extends AbstractPlugin<AIP> {
       new PluginParameter(PLUGIN_PARAM_EXPORT_REMOVE_IF_ALREADY_EXISTS, "Overwrite files/folders",
         PluginParameterType.BOOLEAN, "true", true, false,
         "Overwrites files and folders if they already exist on the destination folder."));
+
+    pluginParameters.put(PLUGIN_PARAM_EXPORT_RESUME,
+      new PluginParameter(PLUGIN_PARAM_EXPORT_RESUME, "Resume previous export", PluginParameterType.BOOLEAN, "false",
+        false, false,
+        "Skips AIPs that already have a ZIP file on the destination folder, more recent than their last update, so "
+          + "that an interrupted ZIP export can be resumed."));
   }
 
   @Override
@@ -121,6 +134,7 @@ public class ExportAIPPlugin extends AbstractPlugin<AIP> {
     parameters.add(pluginParameters.get(PLUGIN_PARAM_EXPORT_FOLDER_PARAMETER));
     parameters.add(pluginParameters.get(PLUGIN_PARAM_EXPORT_TYPE));
     parameters.add(pluginParameters.get(PLUGIN_PARAM_EXPORT_REMOVE_IF_ALREADY_EXISTS));
+    parameters.add(pluginParameters.get(PLUGIN_PARAM_EXPORT_RESUME));
     return parameters;
   }
 
@@ -136,6 +150,10 @@ public class ExportAIPPlugin extends AbstractPlugin<AIP> {
         .parseBoolean(getParameterValues().get(PLUGIN_PARAM_EXPORT_REMOVE_IF_ALREADY_EXISTS));
     }
 
+    if (parameters.containsKey(PLUGIN_PARAM_EXPORT_RESUME)) {
+      resume = Boolean.parseBoolean(parameters.get(PLUGIN_PARAM_EXPORT_RESUME));
+    }
+
     if (parameters.containsKey(PLUGIN_PARAM_EXPORT_TYPE)) {
       try {
         exportType = ExportType.valueOf(parameters.get(PLUGIN_PARAM_EXPORT_TYPE));
@@ -238,27 +256,29 @@ public class ExportAIPPlugin extends AbstractPlugin<AIP> {
       LOGGER.debug("Exporting AIP {} to ZIP", aip.getId());
       OutputStream os = null;
       String error = null;
+      String details = "Export AIP ended successfully";
+      Path zip = outputPath.resolve(aip.getId() + ZIP_EXTENSION);
+      Path partialZip = outputPath.resolve(aip.getId() + ZIP_EXTENSION + PARTIAL_EXTENSION);
       try {
-        Path zip = outputPath.resolve(aip.getId() + ".zip");
-        if (FSUtils.exists(zip) && removeIfAlreadyExists) {
-          Files.delete(zip);
+        if (resume && isAlreadyExported(aip, zip)) {
+          details = "AIP was already exported to " + zip.toString();
         } else if (FSUtils.exists(zip) && !removeIfAlreadyExists) {
           error = "File " + zip.toString() + " already exists";
-        }
-        if (error == null) {
-          os = Files.newOutputStream(zip, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+        } else {
+          // only complete exports have the final name, a previous one is kept until then
+          os = Files.newOutputStream(partialZip, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
 
           Directory directory = storage.getDirectory(ModelUtils.getAIPStoragePath(aip.getId()));
           ConsumesOutputStream cos = DownloadUtils.download(storage, directory);
           cos.consumeOutputStream(os);
+          os.close();
+          Files.move(partialZip, zip, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
         }
       } catch (Exception e) {
         LOGGER.error("Error exporting AIP " + aip.getId() + ": " + e.getMessage());
         error = e.getMessage();
-      } finally {
-        if (os != null) {
-          IOUtils.closeQuietly(os);
-        }
+        IOUtils.closeQuietly(os);
+        FSUtils.deletePathQuietly(partialZip);
       }
 
       Report reportItem = PluginHelper.initPluginReportItem(this, aip.getId(), AIP.class, AIPState.ACTIVE);
@@ -267,7 +287,7 @@ public class ExportAIPPlugin extends AbstractPlugin<AIP> {
           .setPluginDetails("Export AIP did not end successfully: " + error);
         jobPluginInfo.incrementObjectsProcessedWithFailure();
       } else {
-        reportItem.setPluginState(PluginState.SUCCESS).setPluginDetails("Export AIP ended successfully");
+        reportItem.setPluginState(PluginState.SUCCESS).setPluginDetails(details);
         jobPluginInfo.incrementObjectsProcessedWithSuccess();
       }
       report.addReport(reportItem);
@@ -276,6 +296,14 @@ public class ExportAIPPlugin extends AbstractPlugin<AIP> {
     return report;
   }
 
+  private static boolean isAlreadyExported(AIP aip, Path zip) throws IOException {
+    if (!FSUtils.exists(zip)) {
+      return false;
+    }
+    Date updatedOn = aip.getUpdatedOn() != null ? aip.getUpdatedOn() : aip.getCreatedOn();
+    return updatedOn == null || Files.getLastModifiedTime(zip).toMillis() >= updatedOn.getTime();
+  }
+
   @Override
   public Report beforeAllExecute(IndexService index, ModelService model, StorageService storage)
     throws PluginException {
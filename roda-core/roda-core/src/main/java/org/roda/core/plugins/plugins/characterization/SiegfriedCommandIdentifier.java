@@ -0,0 +1,55 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/roda
+ */
+package org.roda.core.plugins.plugins.characterization;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.roda.core.plugins.PluginException;
+import org.roda.core.util.CommandException;
+import org.roda.core.util.CommandUtility;
+
+/**
+ * Siegfried identification running the sf command for each request
+ * (standalone mode), which loads the signature file every time.
+ */
+public class SiegfriedCommandIdentifier implements SiegfriedIdentifier {
+  private final String binary;
+  private final int multi;
+
+  /**
+   * @param multi
+   *          the number of files identified in parallel by each command, or 0
+   *          to use the Siegfried default.
+   */
+  public SiegfriedCommandIdentifier(String binary, int multi) {
+    this.binary = binary;
+    this.multi = multi;
+  }
+
+  @Override
+  public InputStream identify(Path path) throws PluginException {
+    List<String> command = new ArrayList<>(Arrays.asList(binary, "-json=true", "-z=false"));
+    if (multi > 0) {
+      command.add("-multi=" + multi);
+    }
+    command.add(path.toFile().getAbsolutePath());
+
+    try {
+      String output = CommandUtility.execute(command, false);
+      return new ByteArrayInputStream(output.getBytes(StandardCharsets.UTF_8));
+    } catch (CommandException e) {
+      throw new PluginException("Error while executing Siegfried: " + e.getMessage());
+    }
+  }
+}
@@ -0,0 +1,38 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/roda
+ */
+package org.roda.core.plugins.plugins.characterization;
+
+import java.io.InputStream;
+import java.nio.file.Path;
+
+import org.roda.core.plugins.PluginException;
+
+/**
+ * Format identification with Siegfried.
+ */
+public interface SiegfriedIdentifier {
+
+  /**
+   * Identifies a file or, recursively, all the files of a folder.
+   *
+   * @param path
+   *          the file or folder to identify.
+   * @return the Siegfried JSON output, to be read (and closed) by the caller
+   *         while the identification results are still arriving, if possible.
+   * @throws PluginException
+   *           if Siegfried could not be executed.
+   */
+  InputStream identify(Path path) throws PluginException;
+
+  /**
+   * Releases the resources (e.g. processes) held by this identifier.
+   */
+  default void shutdown() {
+    // do nothing
+  }
+}
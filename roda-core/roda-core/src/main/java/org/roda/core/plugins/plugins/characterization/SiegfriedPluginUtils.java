@@ -8,14 +8,22 @@
 package org.roda.core.plugins.plugins.characterization;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.roda.core.RodaCoreFactory;
 import org.roda.core.common.PremisV3Utils;
@@ -24,7 +32,6 @@ import org.roda.core.data.exceptions.AuthorizationDeniedException;
 import org.roda.core.data.exceptions.GenericException;
 import org.roda.core.data.exceptions.NotFoundException;
 import org.roda.core.data.exceptions.RequestNotValidException;
-import org.roda.core.data.utils.JsonUtils;
 import org.roda.core.data.v2.IsRODAObject;
 import org.roda.core.data.v2.ip.File;
 import org.roda.core.data.v2.ip.Representation;
@@ -38,14 +45,16 @@ import org.roda.core.storage.ContentPayload;
 import org.roda.core.storage.DirectResourceAccess;
 import org.roda.core.storage.StringContentPayload;
 import org.roda.core.storage.fs.FSUtils;
-import org.roda.core.util.Base64;
 import org.roda.core.util.CommandException;
 import org.roda.core.util.CommandUtility;
-import org.roda.core.util.HTTPUtility;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 public class SiegfriedPluginUtils {
   private static final Logger LOGGER = LoggerFactory.getLogger(SiegfriedPluginUtils.class);
@@ -54,34 +63,65 @@ public class SiegfriedPluginUtils {
     // do nothing
   }
 
-  private static List<String> getBatchCommand(Path sourceDirectory) {
-    List<String> command;
-    String siegfriedPath = RodaCoreFactory.getRodaConfigurationAsString("core", "tools", "siegfried", "binary");
-    command = new ArrayList<>(
-      Arrays.asList(siegfriedPath, "-json=true", "-z=false", sourceDirectory.toFile().getAbsolutePath()));
-    return command;
-  }
+  private static SiegfriedIdentifier identifier = null;
+  private static ExecutorService writeExecutor = null;
 
-  private static String getSiegfriedServerEndpoint(Path sourceDirectory) {
-    String siegfriedServer = RodaCoreFactory.getRodaConfigurationAsString("core", "tools", "siegfried", "server");
-    return String.format("%s/identify/%s?base64=true&format=json", siegfriedServer,
-      new String(Base64.encode(sourceDirectory.toString().getBytes())));
-  }
+  private static synchronized SiegfriedIdentifier getIdentifier() {
+    if (identifier == null) {
+      String mode = RodaCoreFactory.getRodaConfigurationAsString("core", "tools", "siegfried", "mode");
+      String binary = RodaCoreFactory.getRodaConfigurationAsString("core", "tools", "siegfried", "binary");
+      int multi = RodaCoreFactory.getRodaConfigurationAsInt(0, "core", "tools", "siegfried", "multi");
+      int timeout = RodaCoreFactory.getRodaConfigurationAsInt(600000, "core", "tools", "siegfried", "timeout");
 
-  public static String runSiegfriedOnPath(Path sourceDirectory) throws PluginException {
-    try {
-      String siegfriedMode = RodaCoreFactory.getRodaConfigurationAsString("core", "tools", "siegfried", "mode");
-      if ("server".equalsIgnoreCase(siegfriedMode)) {
+      if ("server".equalsIgnoreCase(mode)) {
         LOGGER.debug("Running Siegfried on server mode");
-        String endpoint = getSiegfriedServerEndpoint(sourceDirectory);
-        return HTTPUtility.doGet(endpoint);
+        identifier = new SiegfriedServerIdentifier(
+          RodaCoreFactory.getRodaConfigurationAsList("core", "tools", "siegfried", "server"), timeout);
+      } else if ("pool".equalsIgnoreCase(mode)) {
+        LOGGER.debug("Running Siegfried on pool mode");
+        identifier = new SiegfriedServerPool(binary, multi,
+          RodaCoreFactory.getRodaConfigurationAsInt(2, "core", "tools", "siegfried", "pool", "size"),
+          RodaCoreFactory.getRodaConfigurationAsInt(5140, "core", "tools", "siegfried", "pool", "port"), timeout,
+          RodaCoreFactory.getRodaConfigurationAsInt(10000, "core", "tools", "siegfried", "pool", "startup_timeout"),
+          RodaCoreFactory.getLogPath());
       } else {
         LOGGER.debug("Running Siegfried on standalone mode");
-        List<String> command = getBatchCommand(sourceDirectory);
-        return CommandUtility.execute(command, false);
+        identifier = new SiegfriedCommandIdentifier(binary, multi);
       }
-    } catch (CommandException | GenericException e) {
-      throw new PluginException("Error while executing Siegfried: " + e.getMessage());
+    }
+    return identifier;
+  }
+
+  private static synchronized ExecutorService getWriteExecutor() {
+    if (writeExecutor == null) {
+      int threads = RodaCoreFactory.getRodaConfigurationAsInt(4, "core", "tools", "siegfried", "write_threads");
+      writeExecutor = Executors.newFixedThreadPool(Math.max(1, threads),
+        new ThreadFactoryBuilder().setNameFormat("siegfried-write-%d").setDaemon(true).build());
+    }
+    return writeExecutor;
+  }
+
+  /**
+   * Replaces the identifier defined in the RODA configuration, e.g. by a fake
+   * one in tests.
+   */
+  public static synchronized void injectIdentifier(SiegfriedIdentifier siegfriedIdentifier) {
+    shutdown();
+    identifier = siegfriedIdentifier;
+  }
+
+  public static synchronized void shutdown() {
+    if (identifier != null) {
+      identifier.shutdown();
+      identifier = null;
+    }
+  }
+
+  public static String runSiegfriedOnPath(Path sourceDirectory) throws PluginException {
+    try (InputStream output = getIdentifier().identify(sourceDirectory)) {
+      return IOUtils.toString(output, StandardCharsets.UTF_8);
+    } catch (IOException e) {
+      throw new PluginException("Error while executing Siegfried: " + e.getMessage(), e);
     }
   }
 
@@ -152,55 +192,154 @@ public class SiegfriedPluginUtils {
     List<LinkingIdentifier> sources = new ArrayList<>();
 
     if (FSUtils.exists(path)) {
-      String siegfriedOutput = SiegfriedPluginUtils.runSiegfriedOnPath(path);
-      final JsonNode jsonObject = JsonUtils.parseJson(siegfriedOutput);
-      final JsonNode files = jsonObject.get("files");
-
-      for (JsonNode file : files) {
-        Path fullFsPath = Paths.get(file.get("filename").asText());
-        Path relativeFsPath = path.relativize(fullFsPath);
-        String jsonFileId = fullFsPath.getFileName().toString();
-
-        List<String> jsonFilePath = new ArrayList<>(fileDirectoryPath);
-        if (fileId != null) {
-          jsonFilePath.add(fileId);
-        }
+      int batchSize = RodaCoreFactory.getRodaConfigurationAsInt(100, "core", "tools", "siegfried",
+        "write_batch_size");
+      List<Callable<Void>> writes = new ArrayList<>();
+      try (InputStream siegfriedOutput = getIdentifier().identify(path)) {
+        forEachFile(siegfriedOutput, file -> {
+          Path fullFsPath = Paths.get(file.get("filename").asText());
+          Path relativeFsPath = path.relativize(fullFsPath);
+          String jsonFileId = fullFsPath.getFileName().toString();
 
-        for (int j = 0; j < relativeFsPath.getNameCount()
-          && StringUtils.isNotBlank(relativeFsPath.getName(j).toString()); j++) {
-          jsonFilePath.add(relativeFsPath.getName(j).toString());
-        }
+          List<String> jsonFilePath = new ArrayList<>(fileDirectoryPath);
+          if (fileId != null) {
+            jsonFilePath.add(fileId);
+          }
 
-        jsonFilePath.remove(jsonFilePath.size() - 1);
+          for (int j = 0; j < relativeFsPath.getNameCount()
+            && StringUtils.isNotBlank(relativeFsPath.getName(j).toString()); j++) {
+            jsonFilePath.add(relativeFsPath.getName(j).toString());
+          }
 
-        ContentPayload payload = new StringContentPayload(file.toString());
-        model.createOrUpdateOtherMetadata(aipId, representationId, jsonFilePath, jsonFileId,
-          SiegfriedPlugin.FILE_SUFFIX, RodaConstants.OTHER_METADATA_TYPE_SIEGFRIED, payload, false);
+          jsonFilePath.remove(jsonFilePath.size() - 1);
 
-        sources.add(PluginHelper.getLinkingIdentifier(aipId, representationId, jsonFilePath, jsonFileId,
-          RodaConstants.PRESERVATION_LINKING_OBJECT_SOURCE));
+          sources.add(PluginHelper.getLinkingIdentifier(aipId, representationId, jsonFilePath, jsonFileId,
+            RodaConstants.PRESERVATION_LINKING_OBJECT_SOURCE));
 
-        // Update PREMIS files
-        final JsonNode matches = file.get("matches");
-        for (JsonNode match : matches) {
-          String format = null;
-          String version = null;
-          String pronom = null;
-          String mime = null;
+          writes.add(() -> {
+            writeResults(model, aipId, representationId, jsonFilePath, jsonFileId, file);
+            return null;
+          });
 
-          if ("pronom".equalsIgnoreCase(match.get("ns").textValue())) {
-            format = match.get("format").textValue();
-            version = match.get("version").textValue();
-            pronom = match.get("id").textValue();
-            mime = match.get("mime").textValue();
+          if (writes.size() >= batchSize) {
+            runWrites(writes);
+            writes.clear();
           }
+        });
+      } catch (IOException e) {
+        throw new GenericException("Error reading Siegfried output: " + e.getMessage(), e);
+      }
+      runWrites(writes);
+    }
+
+    return sources;
+  }
 
-          PremisV3Utils.updateFormatPreservationMetadata(model, aipId, representationId, jsonFilePath, jsonFileId,
-            format, version, pronom, mime, true);
+  private static void writeResults(ModelService model, String aipId, String representationId,
+    List<String> filePath, String fileId, JsonNode file)
+    throws RequestNotValidException, GenericException, NotFoundException, AuthorizationDeniedException {
+    ContentPayload payload = new StringContentPayload(file.toString());
+    model.createOrUpdateOtherMetadata(aipId, representationId, filePath, fileId, SiegfriedPlugin.FILE_SUFFIX,
+      RodaConstants.OTHER_METADATA_TYPE_SIEGFRIED, payload, false);
+
+    // Update PREMIS files, once with the PRONOM match if there is one, and
+    // without notifying as callers notify the representation or file
+    String format = null;
+    String version = null;
+    String pronom = null;
+    String mime = null;
+
+    JsonNode match = getPronomMatch(file);
+    if (match != null) {
+      format = match.get("format").textValue();
+      version = match.get("version").textValue();
+      pronom = match.get("id").textValue();
+      mime = match.get("mime").textValue();
+    }
+
+    PremisV3Utils.updateFormatPreservationMetadata(model, aipId, representationId, filePath, fileId, format, version,
+      pronom, mime, false);
+  }
+
+  /**
+   * Writes the other metadata and PREMIS of a batch of identified files in
+   * parallel, as each file has its own, and waits for all of them.
+   */
+  private static void runWrites(List<Callable<Void>> writes)
+    throws RequestNotValidException, GenericException, NotFoundException, AuthorizationDeniedException {
+    List<Future<Void>> futures = new ArrayList<>();
+    ExecutorService executor = getWriteExecutor();
+    for (Callable<Void> write : writes) {
+      futures.add(executor.submit(write));
+    }
+
+    try {
+      for (Future<Void> future : futures) {
+        future.get();
+      }
+    } catch (InterruptedException e) {
+      futures.forEach(future -> future.cancel(true));
+      Thread.currentThread().interrupt();
+      throw new GenericException("Interrupted while writing Siegfried results", e);
+    } catch (ExecutionException e) {
+      futures.forEach(future -> future.cancel(true));
+      Throwable cause = e.getCause();
+      if (cause instanceof RequestNotValidException) {
+        throw (RequestNotValidException) cause;
+      } else if (cause instanceof NotFoundException) {
+        throw (NotFoundException) cause;
+      } else if (cause instanceof AuthorizationDeniedException) {
+        throw (AuthorizationDeniedException) cause;
+      } else if (cause instanceof GenericException) {
+        throw (GenericException) cause;
+      } else {
+        throw new GenericException("Error writing Siegfried results", cause);
+      }
+    }
+  }
+
+  private static JsonNode getPronomMatch(JsonNode file) {
+    JsonNode matches = file.get("matches");
+    if (matches != null) {
+      for (JsonNode match : matches) {
+        if ("pronom".equalsIgnoreCase(match.get("ns").textValue())) {
+          return match;
         }
       }
     }
+    return null;
+  }
 
-    return sources;
+  /**
+   * Reads the files identified in a Siegfried JSON output one by one, handling
+   * each as soon as it is read instead of waiting for the whole output.
+   */
+  static void forEachFile(InputStream siegfriedOutput, IdentifiedFileHandler handler) throws IOException,
+    RequestNotValidException, GenericException, NotFoundException, AuthorizationDeniedException {
+    ObjectMapper mapper = new ObjectMapper();
+    try (JsonParser parser = mapper.getFactory().createParser(siegfriedOutput)) {
+      if (parser.nextToken() != JsonToken.START_OBJECT) {
+        throw new IOException("Siegfried output is not a JSON object");
+      }
+
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        String field = parser.getCurrentName();
+        JsonToken value = parser.nextToken();
+        if ("files".equals(field) && value == JsonToken.START_ARRAY) {
+          while (parser.nextToken() == JsonToken.START_OBJECT) {
+            JsonNode file = mapper.readTree(parser);
+            handler.handle(file);
+          }
+        } else {
+          parser.skipChildren();
+        }
+      }
+    }
+  }
+
+  @FunctionalInterface
+  interface IdentifiedFileHandler {
+    void handle(JsonNode file)
+      throws RequestNotValidException, GenericException, NotFoundException, AuthorizationDeniedException;
   }
 }
@@ -0,0 +1,83 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/roda
+ */
+package org.roda.core.plugins.plugins.characterization;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.roda.core.plugins.PluginException;
+import org.roda.core.util.Base64;
+
+/**
+ * Siegfried identification using Siegfried servers (sf -serve), which keep
+ * the signature file loaded between requests. Requests are spread over the
+ * servers in turn and their responses are streamed back to the caller.
+ */
+public class SiegfriedServerIdentifier implements SiegfriedIdentifier {
+  private final List<String> servers;
+  private final int timeoutInMillis;
+  private final AtomicInteger next = new AtomicInteger();
+
+  /**
+   * @param servers
+   *          the base URL of each server, e.g. http://localhost:5138
+   * @param timeoutInMillis
+   *          the connect and read timeout of the requests, or 0 for none.
+   */
+  public SiegfriedServerIdentifier(List<String> servers, int timeoutInMillis) {
+    this.servers = new ArrayList<>(servers);
+    this.timeoutInMillis = timeoutInMillis;
+  }
+
+  /**
+   * @return the index of the server for the next request
+   */
+  protected int nextServerIndex() throws PluginException {
+    if (servers.isEmpty()) {
+      throw new PluginException("No Siegfried server configured");
+    }
+    return Math.floorMod(next.getAndIncrement(), servers.size());
+  }
+
+  protected String getServer(int index) {
+    return servers.get(index);
+  }
+
+  @Override
+  public InputStream identify(Path path) throws PluginException {
+    String server = getServer(nextServerIndex());
+    String endpoint = String.format("%s/identify/%s?base64=true&format=json", server,
+      new String(Base64.encode(path.toString().getBytes(StandardCharsets.UTF_8))));
+
+    HttpURLConnection connection = null;
+    try {
+      connection = (HttpURLConnection) new URL(endpoint).openConnection();
+      connection.setConnectTimeout(timeoutInMillis);
+      connection.setReadTimeout(timeoutInMillis);
+      int responseCode = connection.getResponseCode();
+      if (responseCode != HttpURLConnection.HTTP_OK) {
+        connection.disconnect();
+        throw new PluginException(
+          "Error while executing Siegfried: server " + server + " answered with response code " + responseCode);
+      }
+      return connection.getInputStream();
+    } catch (IOException e) {
+      if (connection != null) {
+        connection.disconnect();
+      }
+      throw new PluginException("Error while executing Siegfried: unable to connect to server " + server, e);
+    }
+  }
+}
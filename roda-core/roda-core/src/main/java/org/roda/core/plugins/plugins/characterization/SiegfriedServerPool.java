@@ -0,0 +1,155 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/roda
+ */
+package org.roda.core.plugins.plugins.characterization;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.roda.core.plugins.PluginException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Siegfried identification using a pool of Siegfried servers (sf -serve)
+ * started, and restarted if they die, by RODA itself. Each server listens on
+ * its own port of the loopback interface, starting at the base port. The
+ * output of each server is appended to siegfried-server-PORT.log in the log
+ * directory.
+ */
+public class SiegfriedServerPool extends SiegfriedServerIdentifier {
+  private static final Logger LOGGER = LoggerFactory.getLogger(SiegfriedServerPool.class);
+
+  private static final String HOST = "localhost";
+  private static final int STARTUP_POLL_INTERVAL = 100;
+
+  private final String binary;
+  private final int multi;
+  private final int basePort;
+  private final int startupTimeoutInMillis;
+  private final Path logDirectory;
+  private final Process[] processes;
+  private boolean shutdown = false;
+
+  /**
+   * @param multi
+   *          the number of files identified in parallel by each server, or 0
+   *          to use the Siegfried default.
+   */
+  public SiegfriedServerPool(String binary, int multi, int size, int basePort, int timeoutInMillis,
+    int startupTimeoutInMillis, Path logDirectory) {
+    super(getServers(size, basePort), timeoutInMillis);
+    this.binary = binary;
+    this.multi = multi;
+    this.basePort = basePort;
+    this.startupTimeoutInMillis = startupTimeoutInMillis;
+    this.logDirectory = logDirectory;
+    this.processes = new Process[size];
+  }
+
+  private static List<String> getServers(int size, int basePort) {
+    List<String> servers = new ArrayList<>();
+    for (int i = 0; i < size; i++) {
+      servers.add("http://" + HOST + ":" + (basePort + i));
+    }
+    return servers;
+  }
+
+  @Override
+  protected int nextServerIndex() throws PluginException {
+    int index = super.nextServerIndex();
+    ensureRunning(index);
+    return index;
+  }
+
+  @Override
+  public InputStream identify(Path path) throws PluginException {
+    try {
+      return super.identify(path);
+    } catch (PluginException e) {
+      // the server might have died after being checked, try once more
+      LOGGER.debug("Siegfried server request failed, retrying", e);
+      return super.identify(path);
+    }
+  }
+
+  private void ensureRunning(int index) throws PluginException {
+    synchronized (processes) {
+      if (shutdown) {
+        throw new PluginException("Siegfried server pool was shut down");
+      }
+
+      Process process = processes[index];
+      if (process != null && process.isAlive()) {
+        return;
+      }
+
+      int port = basePort + index;
+      List<String> command = new ArrayList<>(Arrays.asList(binary));
+      if (multi > 0) {
+        command.add("-multi=" + multi);
+      }
+      command.addAll(Arrays.asList("-serve", HOST + ":" + port));
+
+      LOGGER.info("Starting Siegfried server on port {}", port);
+      try {
+        File log = logDirectory.resolve("siegfried-server-" + port + ".log").toFile();
+        process = new ProcessBuilder(command).redirectErrorStream(true)
+          .redirectOutput(ProcessBuilder.Redirect.appendTo(log)).start();
+      } catch (IOException e) {
+        throw new PluginException("Error while starting Siegfried server: " + e.getMessage(), e);
+      }
+      processes[index] = process;
+      waitUntilListening(process, port);
+    }
+  }
+
+  private void waitUntilListening(Process process, int port) throws PluginException {
+    long deadline = System.currentTimeMillis() + startupTimeoutInMillis;
+    while (true) {
+      try (Socket socket = new Socket()) {
+        socket.connect(new InetSocketAddress(HOST, port), STARTUP_POLL_INTERVAL);
+        return;
+      } catch (IOException e) {
+        if (!process.isAlive()) {
+          throw new PluginException("Siegfried server on port " + port + " exited with " + process.exitValue());
+        } else if (System.currentTimeMillis() > deadline) {
+          process.destroy();
+          throw new PluginException("Siegfried server on port " + port + " did not start in time");
+        }
+      }
+
+      try {
+        Thread.sleep(STARTUP_POLL_INTERVAL);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        process.destroy();
+        throw new PluginException("Interrupted while starting Siegfried server", e);
+      }
+    }
+  }
+
+  @Override
+  public void shutdown() {
+    synchronized (processes) {
+      shutdown = true;
+      for (int i = 0; i < processes.length; i++) {
+        if (processes[i] != null) {
+          processes[i].destroy();
+          processes[i] = null;
+        }
+      }
+    }
+  }
+}
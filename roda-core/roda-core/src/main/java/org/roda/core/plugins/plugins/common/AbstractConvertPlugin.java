@@ -66,6 +66,7 @@ import org.roda.core.storage.ContentPayload;
 import org.roda.core.storage.DirectResourceAccess;
 import org.roda.core.storage.StorageService;
 import org.roda.core.storage.fs.FSPathContentPayload;
+import org.roda.core.storage.fs.FSUtils;
 import org.roda.core.util.CommandException;
 import org.roda.core.util.IdUtils;
 import org.slf4j.Logger;
@@ -336,6 +337,7 @@ public abstract class AbstractConvertPlugin<T extends IsRODAObject> extends Abst
 
                     alteredFiles.add(file);
                     IOUtils.closeQuietly(directAccess);
+                    FSUtils.deletePathQuietly(pluginResult);
 
                     Report fileReportItem = PluginHelper.initPluginReportItem(this, file.getId(), File.class,
                       AIPState.ACTIVE);
@@ -537,6 +539,7 @@ public abstract class AbstractConvertPlugin<T extends IsRODAObject> extends Abst
 
                   alteredFiles.add(file);
                   IOUtils.closeQuietly(directAccess);
+                  FSUtils.deletePathQuietly(pluginResult);
 
                   Report fileReportItem = PluginHelper.initPluginReportItem(this, file.getId(), File.class,
                     AIPState.ACTIVE);
@@ -724,6 +727,7 @@ public abstract class AbstractConvertPlugin<T extends IsRODAObject> extends Abst
                 reportItem.setSourceAndOutcomeObjectId(reportItem.getSourceObjectId(), IdUtils.getFileId(f));
                 changedRepresentationsOnAIPs.put(file.getRepresentationId(), file.getAipId());
               }
+              FSUtils.deletePathQuietly(pluginResult);
 
               Report fileReportItem = PluginHelper.initPluginReportItem(this, file.getId(), File.class,
                 AIPState.ACTIVE);
@@ -930,7 +934,8 @@ public abstract class AbstractConvertPlugin<T extends IsRODAObject> extends Abst
   }
 
   public Path getWorkingDirectory() {
-    return PluginHelper.getJobWorkingDirectory(this);
+    Path scratchDirectory = ConversionCommandExecutor.getScratchDirectory(PluginHelper.getJobId(this));
+    return scratchDirectory != null ? scratchDirectory : PluginHelper.getJobWorkingDirectory(this);
   }
 
 }
@@ -17,6 +17,7 @@ import org.roda.core.data.exceptions.InvalidParameterException;
 import org.roda.core.data.v2.IsRODAObject;
 import org.roda.core.data.v2.jobs.PluginParameter;
 import org.roda.core.data.v2.jobs.PluginParameter.PluginParameterType;
+import org.roda.core.util.CommandException;
 
 public abstract class CommandConvertPlugin<T extends IsRODAObject> extends AbstractConvertPlugin<T> {
 
@@ -58,6 +59,16 @@ public abstract class CommandConvertPlugin<T extends IsRODAObject> extends Abstr
     commandArguments = args;
   }
 
+  /**
+   * Executes a command of a conversion tool, with the concurrency, timeout,
+   * memory limit and workers configured for that tool.
+   *
+   * @see ConversionCommandExecutor
+   */
+  protected String executeCommand(String tool, List<String> command) throws CommandException {
+    return ConversionCommandExecutor.execute(tool, command);
+  }
+
   @Override
   public List<PluginParameter> getParameters() {
     return this.orderParameters(this.getDefaultParameters());
@@ -0,0 +1,157 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/roda
+ */
+package org.roda.core.plugins.plugins.common;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.configuration.Configuration;
+import org.apache.commons.lang3.StringUtils;
+import org.roda.core.RodaCoreFactory;
+import org.roda.core.storage.fs.FSUtils;
+import org.roda.core.util.CommandException;
+import org.roda.core.util.CommandUtility;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Executes the commands of the external conversion tools, each configured
+ * under core.tools.convert.&lt;tool&gt; with its maximum number of concurrent
+ * commands, timeout, memory limit and, optionally, worker command (see
+ * {@link ConversionTool}).
+ *
+ * Conversion plugins either call {@link #execute(String, List)} (see
+ * {@link CommandConvertPlugin#executeCommand(String, List)}) or keep calling
+ * {@link CommandUtility}, which hands over the commands of the executables
+ * configured for each tool (core.tools.convert.&lt;tool&gt;.executables).
+ */
+public final class ConversionCommandExecutor {
+  private static final Logger LOGGER = LoggerFactory.getLogger(ConversionCommandExecutor.class);
+
+  private static final String CONFIG_PREFIX = "core.tools.convert.";
+  private static final String EXECUTABLES_SUFFIX = ".executables";
+  private static final Map<String, ConversionTool> TOOLS = new ConcurrentHashMap<>();
+  private static final Set<String> EXECUTABLES = ConcurrentHashMap.newKeySet();
+
+  private ConversionCommandExecutor() {
+    // do nothing
+  }
+
+  /**
+   * Executes a command of the given conversion tool.
+   *
+   * @param tool
+   *          the name of the tool, e.g. imagemagick.
+   * @param command
+   *          the command line as a list of arguments.
+   *
+   * @return the output of the command.
+   *
+   * @throws CommandException
+   *           if the command could not be executed, failed or timed out.
+   */
+  public static String execute(String tool, List<String> command) throws CommandException {
+    return TOOLS.computeIfAbsent(tool, ConversionCommandExecutor::createTool).execute(command);
+  }
+
+  /**
+   * Makes {@link CommandUtility} execute the commands of the executables
+   * configured for each tool through that tool.
+   */
+  public static void registerExecutables(Configuration configuration) {
+    Iterator<String> keys = configuration.getKeys(StringUtils.removeEnd(CONFIG_PREFIX, "."));
+    while (keys.hasNext()) {
+      String key = keys.next();
+      if (key.endsWith(EXECUTABLES_SUFFIX)) {
+        String tool = StringUtils.removeEnd(StringUtils.removeStart(key, CONFIG_PREFIX), EXECUTABLES_SUFFIX);
+        for (String executables : configuration.getStringArray(key)) {
+          for (String executable : split(executables)) {
+            LOGGER.debug("Executing {} commands as conversion tool {}", executable, tool);
+            CommandUtility.setExecutor(executable, command -> execute(tool, command));
+            EXECUTABLES.add(executable);
+          }
+        }
+      }
+    }
+  }
+
+  private static ConversionTool createTool(String tool) {
+    Configuration configuration = RodaCoreFactory.getRodaConfiguration();
+    String prefix = CONFIG_PREFIX + tool + ".";
+
+    int maxConcurrent = configuration.getInt(prefix + "max_concurrent", Runtime.getRuntime().availableProcessors());
+    long timeout = configuration.getLong(prefix + "timeout", 0L);
+    long memoryLimitInMegabytes = configuration.getLong(prefix + "memory_limit", 0L);
+    List<String> memoryLimitCommand = ConversionTool.getMemoryLimitCommand(
+      split(configuration.getString(CONFIG_PREFIX + "memory_limit_command", "prlimit --as={limit}")),
+      memoryLimitInMegabytes * 1024 * 1024);
+    List<String> workerCommand = split(configuration.getString(prefix + "worker", ""));
+
+    LOGGER.debug("Conversion tool {}: max concurrent {}, timeout {} ms, memory limit {} MB, worker {}", tool,
+      maxConcurrent, timeout, memoryLimitInMegabytes, workerCommand);
+    return new ConversionTool(tool, maxConcurrent, timeout, memoryLimitCommand, workerCommand);
+  }
+
+  private static List<String> split(String command) {
+    if (StringUtils.isBlank(command)) {
+      return Collections.emptyList();
+    }
+    return Arrays.asList(command.trim().split("\\s+"));
+  }
+
+  /**
+   * Returns the directory of the job for temporary conversion results, e.g. on
+   * a tmpfs, if a scratch directory is configured.
+   *
+   * @return the scratch directory of the job, or null if there is none.
+   */
+  public static Path getScratchDirectory(String jobId) {
+    Path scratchDirectory = getScratchRoot();
+    if (scratchDirectory == null) {
+      return null;
+    }
+
+    Path path = scratchDirectory.resolve(jobId);
+    try {
+      Files.createDirectories(path);
+      return path;
+    } catch (IOException e) {
+      LOGGER.warn("Could not create conversion scratch directory {}, using the job working directory", path, e);
+      return null;
+    }
+  }
+
+  public static void deleteScratchDirectory(String jobId) {
+    Path scratchDirectory = getScratchRoot();
+    if (scratchDirectory != null) {
+      FSUtils.deletePathQuietly(scratchDirectory.resolve(jobId));
+    }
+  }
+
+  private static Path getScratchRoot() {
+    String scratchDirectory = RodaCoreFactory.getRodaConfigurationAsString("core", "tools", "convert",
+      "scratch_directory");
+    return StringUtils.isBlank(scratchDirectory) ? null : Paths.get(scratchDirectory);
+  }
+
+  public static void shutdown() {
+    EXECUTABLES.forEach(CommandUtility::removeExecutor);
+    EXECUTABLES.clear();
+    TOOLS.values().forEach(ConversionTool::shutdown);
+    TOOLS.clear();
+  }
+}
@@ -0,0 +1,304 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/roda
+ */
+package org.roda.core.plugins.plugins.common;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.commons.io.IOUtils;
+import org.roda.core.util.CommandException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * An external conversion tool, e.g. ImageMagick or LibreOffice, which limits
+ * the number of its commands running at the same time, kills those that take
+ * too long and limits the memory they may use.
+ *
+ * Tools with a worker command keep that many long-lived workers running,
+ * instead of starting a process for every conversion. A worker reads requests
+ * from its standard input and writes their responses to its standard output,
+ * one JSON document per line. Each request is the array of arguments of a
+ * command and each response an object with the exitCode and the output of that
+ * command, e.g. <code>["-density", "300", "in.pdf", "out.png"]</code> is
+ * answered with <code>{"exitCode": 0, "output": ""}</code>. This allows, e.g.,
+ * a worker converting documents with a LibreOffice running in listener mode.
+ */
+public class ConversionTool {
+  private static final Logger LOGGER = LoggerFactory.getLogger(ConversionTool.class);
+
+  private static final String MEMORY_LIMIT_PLACEHOLDER = "{limit}";
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+  private static final ScheduledExecutorService TIMEOUTS = Executors.newSingleThreadScheduledExecutor(
+    new ThreadFactoryBuilder().setNameFormat("conversion-timeouts-%d").setDaemon(true).build());
+
+  private final String name;
+  private final long timeoutInMillis;
+  private final List<String> memoryLimitCommand;
+  private final List<String> workerCommand;
+  private final Semaphore permits;
+  private final BlockingQueue<Worker> idleWorkers;
+  private final AtomicBoolean shutdown = new AtomicBoolean(false);
+
+  /**
+   * @param maxConcurrent
+   *          the maximum number of commands running at the same time, which is
+   *          also the maximum number of workers.
+   * @param timeoutInMillis
+   *          the time after which a command is killed, or 0 for none.
+   * @param memoryLimitCommand
+   *          the command, and its arguments, that runs the tool commands with
+   *          limited memory, where {limit} is replaced by the limit in bytes,
+   *          e.g. <code>prlimit --as={limit}</code>, or an empty list for no
+   *          limit.
+   * @param workerCommand
+   *          the command, and its arguments, that starts a worker, or an empty
+   *          list to start a process for every command.
+   */
+  public ConversionTool(String name, int maxConcurrent, long timeoutInMillis, List<String> memoryLimitCommand,
+    List<String> workerCommand) {
+    this.name = name;
+    this.timeoutInMillis = timeoutInMillis;
+    this.memoryLimitCommand = new ArrayList<>(memoryLimitCommand);
+    this.workerCommand = new ArrayList<>(workerCommand);
+    this.permits = new Semaphore(maxConcurrent, true);
+    this.idleWorkers = new ArrayBlockingQueue<>(maxConcurrent);
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Executes the given command of this tool, waiting while the maximum number
+   * of commands are running.
+   *
+   * @param command
+   *          the command line as a list of arguments, of which the first is
+   *          ignored by tools with a worker.
+   *
+   * @return the output of the command.
+   *
+   * @throws CommandException
+   *           if the command could not be executed, failed or timed out.
+   */
+  public String execute(List<String> command) throws CommandException {
+    try {
+      permits.acquire();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new CommandException("Interrupted while waiting to execute " + name, e);
+    }
+
+    try {
+      return workerCommand.isEmpty() ? executeProcess(command) : executeOnWorker(command);
+    } finally {
+      permits.release();
+    }
+  }
+
+  private String executeProcess(List<String> command) throws CommandException {
+    LOGGER.debug("Executing {}", command);
+    Process process;
+    try {
+      process = start(command);
+    } catch (IOException e) {
+      throw new CommandException("Error executing command " + command + " - " + e.getMessage(), e);
+    }
+
+    AtomicBoolean timedOut = new AtomicBoolean(false);
+    ScheduledFuture<?> timeout = scheduleTimeout(process, timedOut);
+    try {
+      String output = IOUtils.toString(process.getInputStream(), StandardCharsets.UTF_8);
+      int exitValue = process.waitFor();
+      checkTimeout(command, timedOut);
+      if (exitValue != 0) {
+        throw new CommandException("Command " + command + " terminated with error code " + exitValue, exitValue,
+          output);
+      }
+      return output;
+    } catch (IOException e) {
+      checkTimeout(command, timedOut);
+      throw new CommandException("Error executing command " + command + " - " + e.getMessage(), e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new CommandException("Interrupted while executing command " + command, e);
+    } finally {
+      cancel(timeout);
+      process.destroyForcibly();
+    }
+  }
+
+  private String executeOnWorker(List<String> command) throws CommandException {
+    List<String> arguments = command.isEmpty() ? command : command.subList(1, command.size());
+    Worker worker = idleWorkers.poll();
+    boolean reused = worker != null;
+    try {
+      if (worker == null) {
+        worker = new Worker();
+      }
+
+      JsonNode response;
+      try {
+        response = worker.request(arguments);
+      } catch (IOException e) {
+        if (!reused || worker.timedOut.get()) {
+          throw e;
+        }
+
+        // the idle worker might have died meanwhile, retry once with a new one
+        LOGGER.debug("Conversion worker of {} failed, retrying with a new one", name, e);
+        worker.close();
+        worker = new Worker();
+        response = worker.request(arguments);
+      }
+
+      int exitValue = response.path("exitCode").asInt(-1);
+      String output = response.path("output").asText("");
+      release(worker);
+      worker = null;
+
+      if (exitValue != 0) {
+        throw new CommandException("Command " + arguments + " of " + name + " worker terminated with error code "
+          + exitValue, exitValue, output);
+      }
+      return output;
+    } catch (IOException e) {
+      if (worker != null && worker.timedOut.get()) {
+        throw new CommandException("Command " + arguments + " of " + name + " worker timed out after "
+          + timeoutInMillis + " ms");
+      }
+      throw new CommandException("Error executing command " + arguments + " on " + name + " worker - "
+        + e.getMessage(), e);
+    } finally {
+      if (worker != null) {
+        worker.close();
+      }
+    }
+  }
+
+  private void release(Worker worker) {
+    if (shutdown.get() || !idleWorkers.offer(worker)) {
+      worker.close();
+    }
+  }
+
+  private Process start(List<String> command) throws IOException {
+    List<String> fullCommand = new ArrayList<>(memoryLimitCommand);
+    fullCommand.addAll(command);
+    return new ProcessBuilder(fullCommand).redirectErrorStream(true).start();
+  }
+
+  private ScheduledFuture<?> scheduleTimeout(Process process, AtomicBoolean timedOut) {
+    if (timeoutInMillis <= 0) {
+      return null;
+    }
+    return TIMEOUTS.schedule(() -> {
+      timedOut.set(true);
+      process.destroyForcibly();
+    }, timeoutInMillis, TimeUnit.MILLISECONDS);
+  }
+
+  private void checkTimeout(List<String> command, AtomicBoolean timedOut) throws CommandException {
+    if (timedOut.get()) {
+      throw new CommandException("Command " + command + " timed out after " + timeoutInMillis + " ms");
+    }
+  }
+
+  private static void cancel(ScheduledFuture<?> timeout) {
+    if (timeout != null) {
+      timeout.cancel(false);
+    }
+  }
+
+  /**
+   * Stops all idle workers, and the others as soon as they finish their
+   * current command.
+   */
+  public void shutdown() {
+    shutdown.set(true);
+    Worker worker;
+    while ((worker = idleWorkers.poll()) != null) {
+      worker.close();
+    }
+  }
+
+  /**
+   * Replaces {limit} in the memory limit command by the limit.
+   *
+   * @return the memory limit command, or an empty list if there is no limit.
+   */
+  public static List<String> getMemoryLimitCommand(List<String> command, long limitInBytes) {
+    if (limitInBytes <= 0 || command.isEmpty()) {
+      return Collections.emptyList();
+    }
+
+    List<String> ret = new ArrayList<>();
+    for (String argument : command) {
+      ret.add(argument.replace(MEMORY_LIMIT_PLACEHOLDER, Long.toString(limitInBytes)));
+    }
+    return ret;
+  }
+
+  private final class Worker implements Closeable {
+    private final Process process;
+    private final OutputStream input;
+    private final BufferedReader output;
+    private final AtomicBoolean timedOut = new AtomicBoolean(false);
+
+    private Worker() throws IOException {
+      LOGGER.debug("Starting {} conversion worker {}", name, workerCommand);
+      this.process = start(workerCommand);
+      this.input = process.getOutputStream();
+      this.output = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+    }
+
+    private JsonNode request(List<String> arguments) throws IOException {
+      ScheduledFuture<?> timeout = scheduleTimeout(process, timedOut);
+      try {
+        input.write(MAPPER.writeValueAsBytes(arguments));
+        input.write('\n');
+        input.flush();
+
+        String line = output.readLine();
+        if (line == null) {
+          throw new IOException("Conversion worker exited");
+        }
+        return MAPPER.readTree(line);
+      } finally {
+        cancel(timeout);
+      }
+    }
+
+    @Override
+    public void close() {
+      IOUtils.closeQuietly(input);
+      process.destroyForcibly();
+      IOUtils.closeQuietly(output);
+    }
+  }
+}
@@ -68,6 +68,7 @@ import org.roda.core.plugins.plugins.base.DescriptiveMetadataValidationPlugin;
 import org.roda.core.plugins.plugins.characterization.PremisSkeletonPlugin;
 import org.roda.core.plugins.plugins.characterization.SiegfriedPlugin;
 import org.roda.core.storage.StorageService;
+import org.roda.core.util.Tracing;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -277,6 +278,10 @@ public abstract class DefaultIngestPlugin extends AbstractPlugin<TransferredReso
         }
       }
 
+      // the last step has completed, so the reports no longer need to be kept
+      // in memory
+      jobPluginInfo.markAllAsProcessed();
+
       // X) move SIPs to PROCESSED folder??? (default: false)
       if (PluginHelper.verifyIfStepShouldBePerformed(this,
         getPluginParameter(RodaConstants.PLUGIN_PARAMS_DO_AUTO_ACCEPT))
@@ -344,7 +349,9 @@ public abstract class DefaultIngestPlugin extends AbstractPlugin<TransferredReso
     try {
       plugin.setParameterValues(getParameterValues());
       List<LiteOptionalWithCause> lites = LiteRODAObjectFactory.transformIntoLiteWithCause(model, transferredResources);
-      report = plugin.execute(index, model, storage, lites);
+      try (Tracing.Span span = Tracing.start(Tracing.SpanType.STEP, plugin.getClass().getSimpleName())) {
+        report = plugin.execute(index, model, storage, lites);
+      }
     } catch (PluginException | InvalidParameterException e) {
       // TODO handle failure
       LOGGER.error("Error executing plugin to transform transferred resource into AIP", e);
@@ -695,7 +702,9 @@ public abstract class DefaultIngestPlugin extends AbstractPlugin<TransferredReso
     try {
       plugin.setParameterValues(mergedParams);
       List<LiteOptionalWithCause> lites = LiteRODAObjectFactory.transformIntoLiteWithCause(model, aips);
-      return plugin.execute(index, model, storage, lites);
+      try (Tracing.Span span = Tracing.start(Tracing.SpanType.STEP, plugin.getClass().getSimpleName())) {
+        return plugin.execute(index, model, storage, lites);
+      }
     } catch (InvalidParameterException | PluginException | RuntimeException e) {
       LOGGER.error("Error executing plugin", e);
     }
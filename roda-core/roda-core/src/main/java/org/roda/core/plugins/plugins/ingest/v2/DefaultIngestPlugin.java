@@ -52,6 +52,7 @@ import org.roda.core.plugins.plugins.ingest.v2.steps.IngestStepBundle;
 import org.roda.core.plugins.plugins.ingest.v2.steps.IngestStepsUtils;
 import org.roda.core.plugins.plugins.notifications.JobNotification;
 import org.roda.core.storage.StorageService;
+import org.roda.core.util.Tracing;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -173,9 +174,16 @@ public abstract class DefaultIngestPlugin extends AbstractPlugin<TransferredReso
         IngestStepBundle bundle = new IngestStepBundle(this, index, model, storage, jobPluginInfo,
           getPluginParameter(step.getParameterName()), getParameterValues(), resources, aips, cachedJob,
           sipInformation);
-        step.execute(bundle);
+        String stepName = step.getPluginName().substring(step.getPluginName().lastIndexOf('.') + 1);
+        try (Tracing.Span span = Tracing.start(Tracing.SpanType.STEP, stepName)) {
+          step.execute(bundle);
+        }
       }
 
+      // the last step has completed, so the reports no longer need to be kept
+      // in memory
+      jobPluginInfo.markAllAsProcessed();
+
       createIngestEndedEvent(model, index, jobPluginInfo, cachedJob);
 
       getAfterExecute().ifPresent(e -> e.execute(jobPluginInfo, aips));
@@ -220,7 +228,9 @@ public abstract class DefaultIngestPlugin extends AbstractPlugin<TransferredReso
     try {
       plugin.setParameterValues(getParameterValues());
       List<LiteOptionalWithCause> lites = LiteRODAObjectFactory.transformIntoLiteWithCause(model, transferredResources);
-      report = plugin.execute(index, model, storage, lites);
+      try (Tracing.Span span = Tracing.start(Tracing.SpanType.STEP, plugin.getClass().getSimpleName())) {
+        report = plugin.execute(index, model, storage, lites);
+      }
     } catch (PluginException | InvalidParameterException e) {
       // TODO handle failure
       LOGGER.error("Error executing plugin to transform transferred resource into AIP", e);
@@ -11,8 +11,10 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.roda.core.data.common.RodaConstants;
 import org.roda.core.data.common.RodaConstants.PreservationEventType;
@@ -30,6 +32,7 @@ import org.roda.core.data.v2.common.Pair;
 import org.roda.core.data.v2.ip.AIP;
 import org.roda.core.data.v2.ip.File;
 import org.roda.core.data.v2.ip.Representation;
+import org.roda.core.data.v2.ip.metadata.LinkingIdentifier;
 import org.roda.core.data.v2.jobs.Job;
 import org.roda.core.data.v2.jobs.PluginParameter;
 import org.roda.core.data.v2.jobs.PluginParameter.PluginParameterType;
@@ -190,129 +193,180 @@ public class RiskAssociationPlugin<T extends IsRODAObject> extends AbstractPlugi
 
   private Pair<JobPluginInfo, Report> addIncidenceToAIPList(ModelService model, IndexService index, List<AIP> list,
     List<String> risks, JobPluginInfo jobPluginInfo, Report pluginReport, Job job) throws JobException {
-
+    Map<String, List<RiskIncidence>> incidences = new HashMap<>();
     for (AIP aip : list) {
-      PluginState state = PluginState.SUCCESS;
-
+      List<RiskIncidence> aipIncidences = new ArrayList<>();
       for (String riskId : risks) {
-        try {
-          RiskIncidence incidence = new RiskIncidence();
-          incidence.setDetectedOn(new Date());
-          incidence.setDetectedBy(job.getUsername());
-          incidence.setRiskId(riskId);
-          incidence.setAipId(aip.getId());
-          incidence.setObjectClass(AIP.class.getSimpleName());
-          incidence.setStatus(IncidenceStatus.UNMITIGATED);
-          incidence.setSeverity(SeverityLevel.valueOf(severity));
-          incidence.setDescription(incidenceDescription);
-          model.createRiskIncidence(incidence, false);
-        } catch (GenericException | AlreadyExistsException | NotFoundException | AuthorizationDeniedException e) {
-          state = PluginState.FAILURE;
-        }
+        RiskIncidence incidence = createIncidence(riskId, job);
+        incidence.setAipId(aip.getId());
+        incidence.setObjectClass(AIP.class.getSimpleName());
+        incidence.setDescription(incidenceDescription);
+        aipIncidences.add(incidence);
       }
+      incidences.put(aip.getId(), aipIncidences);
+    }
+
+    Set<String> createdIds = createIncidences(model, incidences);
+    List<LinkingIdentifier> outcomes = new ArrayList<>();
+    List<PluginState> states = new ArrayList<>();
+
+    for (AIP aip : list) {
+      PluginState state = getState(incidences.get(aip.getId()), createdIds);
+      states.add(state);
+      outcomes.add(PluginHelper.getLinkingIdentifier(aip.getId(), RodaConstants.PRESERVATION_LINKING_OBJECT_OUTCOME));
 
       jobPluginInfo.incrementObjectsProcessed(state);
       Report reportItem = PluginHelper.initPluginReportItem(this, aip.getId(), AIP.class);
       reportItem.setPluginState(state).setPluginDetails("Risk job plugin ran on an AIP");
       pluginReport.addReport(reportItem);
       PluginHelper.updatePartialJobReport(this, model, reportItem, true, job);
-
-      try {
-        PluginHelper.createPluginEvent(this, aip.getId(), model, index, state, "", true);
-      } catch (RequestNotValidException | NotFoundException | GenericException | AuthorizationDeniedException
-        | ValidationException | AlreadyExistsException e) {
-        LOGGER.error("Could not create a risk job plugin event");
-      }
     }
 
+    createBlockEvent(model, index, outcomes, states, job);
     return Pair.of(jobPluginInfo, pluginReport);
   }
 
   private Pair<JobPluginInfo, Report> addIncidenceToRepresentationList(ModelService model, IndexService index,
     List<Representation> list, List<String> risks, JobPluginInfo jobPluginInfo, Report pluginReport, Job job)
     throws JobException {
-
+    Map<String, List<RiskIncidence>> incidences = new HashMap<>();
     for (Representation representation : list) {
-      PluginState state = PluginState.SUCCESS;
-
+      List<RiskIncidence> representationIncidences = new ArrayList<>();
       for (String riskId : risks) {
-        try {
-          RiskIncidence incidence = new RiskIncidence();
-          incidence.setDetectedOn(new Date());
-          incidence.setDetectedBy(job.getUsername());
-          incidence.setRiskId(riskId);
-          incidence.setAipId(representation.getAipId());
-          incidence.setRepresentationId(representation.getId());
-          incidence.setObjectClass(Representation.class.getSimpleName());
-          incidence.setStatus(IncidenceStatus.UNMITIGATED);
-          incidence.setSeverity(SeverityLevel.valueOf(severity));
-          model.createRiskIncidence(incidence, false);
-        } catch (GenericException | AlreadyExistsException | NotFoundException | AuthorizationDeniedException e) {
-          state = PluginState.FAILURE;
-        }
+        RiskIncidence incidence = createIncidence(riskId, job);
+        incidence.setAipId(representation.getAipId());
+        incidence.setRepresentationId(representation.getId());
+        incidence.setObjectClass(Representation.class.getSimpleName());
+        representationIncidences.add(incidence);
       }
+      incidences.put(IdUtils.getRepresentationId(representation), representationIncidences);
+    }
+
+    Set<String> createdIds = createIncidences(model, incidences);
+    List<LinkingIdentifier> outcomes = new ArrayList<>();
+    List<PluginState> states = new ArrayList<>();
+
+    for (Representation representation : list) {
+      String id = IdUtils.getRepresentationId(representation);
+      PluginState state = getState(incidences.get(id), createdIds);
+      states.add(state);
+      outcomes.add(PluginHelper.getLinkingIdentifier(representation.getAipId(), representation.getId(),
+        RodaConstants.PRESERVATION_LINKING_OBJECT_OUTCOME));
 
       jobPluginInfo.incrementObjectsProcessed(state);
-      Report reportItem = PluginHelper.initPluginReportItem(this, IdUtils.getRepresentationId(representation),
-        Representation.class);
+      Report reportItem = PluginHelper.initPluginReportItem(this, id, Representation.class);
       reportItem.setPluginState(state).setPluginDetails("Risk job plugin ran on a representation");
       pluginReport.addReport(reportItem);
       PluginHelper.updatePartialJobReport(this, model, reportItem, true, job);
-
-      try {
-        PluginHelper.createPluginEvent(this, representation.getAipId(), representation.getId(), model, index, null,
-          null, state, "", true);
-      } catch (RequestNotValidException | NotFoundException | GenericException | AuthorizationDeniedException
-        | ValidationException | AlreadyExistsException e) {
-        LOGGER.error("Could not create a risk job plugin event");
-      }
     }
 
+    createBlockEvent(model, index, outcomes, states, job);
     return Pair.of(jobPluginInfo, pluginReport);
   }
 
   private Pair<JobPluginInfo, Report> addIncidenceToFileList(ModelService model, IndexService index, List<File> list,
     List<String> risks, JobPluginInfo jobPluginInfo, Report pluginReport, Job job) throws JobException {
-
+    Map<String, List<RiskIncidence>> incidences = new HashMap<>();
     for (File file : list) {
-      PluginState state = PluginState.SUCCESS;
-
+      List<RiskIncidence> fileIncidences = new ArrayList<>();
       for (String riskId : risks) {
-        try {
-          RiskIncidence incidence = new RiskIncidence();
-          incidence.setDetectedOn(new Date());
-          incidence.setDetectedBy(job.getUsername());
-          incidence.setRiskId(riskId);
-          incidence.setAipId(file.getAipId());
-          incidence.setRepresentationId(file.getRepresentationId());
-          incidence.setFilePath(file.getPath());
-          incidence.setFileId(file.getId());
-          incidence.setObjectClass(File.class.getSimpleName());
-          incidence.setStatus(IncidenceStatus.UNMITIGATED);
-          incidence.setSeverity(SeverityLevel.valueOf(severity));
-          model.createRiskIncidence(incidence, false);
-        } catch (GenericException | AlreadyExistsException | NotFoundException | AuthorizationDeniedException e) {
-          state = PluginState.FAILURE;
-        }
+        RiskIncidence incidence = createIncidence(riskId, job);
+        incidence.setAipId(file.getAipId());
+        incidence.setRepresentationId(file.getRepresentationId());
+        incidence.setFilePath(file.getPath());
+        incidence.setFileId(file.getId());
+        incidence.setObjectClass(File.class.getSimpleName());
+        fileIncidences.add(incidence);
       }
+      incidences.put(IdUtils.getFileId(file), fileIncidences);
+    }
+
+    Set<String> createdIds = createIncidences(model, incidences);
+    List<LinkingIdentifier> outcomes = new ArrayList<>();
+    List<PluginState> states = new ArrayList<>();
+
+    for (File file : list) {
+      String id = IdUtils.getFileId(file);
+      PluginState state = getState(incidences.get(id), createdIds);
+      states.add(state);
+      outcomes.add(PluginHelper.getLinkingIdentifier(file.getAipId(), file.getRepresentationId(), file.getPath(),
+        file.getId(), RodaConstants.PRESERVATION_LINKING_OBJECT_OUTCOME));
 
       jobPluginInfo.incrementObjectsProcessed(state);
-      Report reportItem = PluginHelper.initPluginReportItem(this, IdUtils.getFileId(file), File.class);
+      Report reportItem = PluginHelper.initPluginReportItem(this, id, File.class);
       reportItem.setPluginState(state).setPluginDetails("Risk job plugin ran on a file");
       pluginReport.addReport(reportItem);
       PluginHelper.updatePartialJobReport(this, model, reportItem, true, job);
+    }
+
+    createBlockEvent(model, index, outcomes, states, job);
+    return Pair.of(jobPluginInfo, pluginReport);
+  }
+
+  private RiskIncidence createIncidence(String riskId, Job job) {
+    RiskIncidence incidence = new RiskIncidence();
+    incidence.setDetectedOn(new Date());
+    incidence.setDetectedBy(job.getUsername());
+    incidence.setRiskId(riskId);
+    incidence.setStatus(IncidenceStatus.UNMITIGATED);
+    incidence.setSeverity(SeverityLevel.valueOf(severity));
+    return incidence;
+  }
+
+  /**
+   * Creates the incidences of all the objects of the block at once.
+   *
+   * @return the ids of the incidences that were created
+   */
+  private Set<String> createIncidences(ModelService model, Map<String, List<RiskIncidence>> incidences) {
+    List<RiskIncidence> all = new ArrayList<>();
+    incidences.values().forEach(all::addAll);
+
+    Set<String> createdIds = new HashSet<>();
+    try {
+      for (RiskIncidence incidence : model.createRiskIncidences(all, false)) {
+        createdIds.add(incidence.getId());
+      }
+    } catch (GenericException | AuthorizationDeniedException e) {
+      LOGGER.error("Could not create risk incidences", e);
+    }
+    return createdIds;
+  }
 
-      try {
-        PluginHelper.createPluginEvent(this, file.getAipId(), file.getRepresentationId(), file.getPath(), file.getId(),
-          model, index, null, null, state, "", true);
-      } catch (RequestNotValidException | NotFoundException | GenericException | AuthorizationDeniedException
-        | ValidationException | AlreadyExistsException e) {
-        LOGGER.error("Could not create a risk job plugin event");
+  private PluginState getState(List<RiskIncidence> incidences, Set<String> createdIds) {
+    for (RiskIncidence incidence : incidences) {
+      if (!createdIds.contains(incidence.getId())) {
+        return PluginState.FAILURE;
       }
+    }
+    return PluginState.SUCCESS;
+  }
 
+  /**
+   * Creates a single (repository) event for all the objects of the block,
+   * instead of one event per object.
+   */
+  private void createBlockEvent(ModelService model, IndexService index, List<LinkingIdentifier> outcomes,
+    List<PluginState> states, Job job) {
+    if (outcomes.isEmpty()) {
+      return;
     }
 
-    return Pair.of(jobPluginInfo, pluginReport);
+    long successes = states.stream().filter(state -> state == PluginState.SUCCESS).count();
+    PluginState state = PluginState.PARTIAL_SUCCESS;
+    if (successes == states.size()) {
+      state = PluginState.SUCCESS;
+    } else if (successes == 0) {
+      state = PluginState.FAILURE;
+    }
+
+    try {
+      PluginHelper.createPluginEvent(this, null, model, index, new ArrayList<>(), outcomes, state,
+        "Risks " + riskIds + " associated with " + successes + " of " + states.size() + " objects", true, job);
+    } catch (RequestNotValidException | NotFoundException | GenericException | AuthorizationDeniedException
+      | ValidationException | AlreadyExistsException e) {
+      LOGGER.error("Could not create a risk job plugin event");
+    }
   }
 
   @Override
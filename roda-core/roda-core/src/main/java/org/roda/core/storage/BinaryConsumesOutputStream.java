@@ -10,10 +10,19 @@ package org.roda.core.storage;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.Date;
+import java.util.Map;
+import java.util.TreeMap;
 
 import org.apache.commons.io.IOUtils;
 import org.roda.core.common.ConsumesSkipableOutputStream;
+import org.roda.core.storage.fs.FSPathContentPayload;
 
 public class BinaryConsumesOutputStream implements ConsumesSkipableOutputStream {
 
@@ -32,23 +41,92 @@ public class BinaryConsumesOutputStream implements ConsumesSkipableOutputStream
 
   @Override
   public void consumeOutputStream(OutputStream out) throws IOException {
-    try (InputStream in = binary.getContent().createInputStream()) {
-      IOUtils.copyLarge(in, out);
+    Path path = getPath();
+    if (path != null) {
+      transferTo(path, 0, Long.MAX_VALUE, out);
+    } else {
+      try (InputStream in = binary.getContent().createInputStream()) {
+        IOUtils.copyLarge(in, out);
+      }
     }
   }
 
   @Override
-  public void consumeOutputStream(OutputStream out, int from, int len) throws IOException {
-    try (InputStream in = binary.getContent().createInputStream()) {
-      IOUtils.copyLarge(in, out, from, len);
+  public void consumeOutputStream(OutputStream out, long from, long len) throws IOException {
+    Path path = getPath();
+    if (path != null) {
+      transferTo(path, from, len, out);
+    } else {
+      try (InputStream in = binary.getContent().createInputStream()) {
+        IOUtils.copyLarge(in, out, from, len);
+      }
     }
   }
 
+  /**
+   * Copies a region of the file with {@link FileChannel#transferTo}, which
+   * lets the operating system move the bytes directly when the output is backed
+   * by a file or socket channel, and avoids seeking through an input stream to
+   * reach the offset.
+   */
+  private static void transferTo(Path path, long from, long len, OutputStream out) throws IOException {
+    WritableByteChannel target = Channels.newChannel(out);
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      long end = Math.min(channel.size(), from + len < 0 ? Long.MAX_VALUE : from + len);
+      long position = from;
+      while (position < end) {
+        long transferred = channel.transferTo(position, end - position, target);
+        if (transferred <= 0) {
+          break;
+        }
+        position += transferred;
+      }
+    }
+  }
+
+  /**
+   * @return the file holding the binary content, if the binary comes from a
+   *         file system storage, or {@code null} otherwise
+   */
+  public Path getPath() {
+    ContentPayload content = binary.getContent();
+    return content instanceof FSPathContentPayload ? ((FSPathContentPayload) content).getPath() : null;
+  }
+
+  /**
+   * The entity tag is derived from the content digest stored with the binary
+   * or, for files without one, from their size and modification time.
+   */
+  @Override
+  public String getEntityTag() {
+    Map<String, String> digests = binary.getContentDigest();
+    if (digests != null && !digests.isEmpty()) {
+      TreeMap<String, String> sorted = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+      sorted.putAll(digests);
+      Map.Entry<String, String> digest = sorted.firstEntry();
+      return digest.getKey().replaceAll("[^A-Za-z0-9]", "").toLowerCase() + "-" + digest.getValue().toLowerCase();
+    }
+
+    Date lastModified = getLastModified();
+    if (lastModified != null) {
+      return Long.toHexString(getSize()) + "-" + Long.toHexString(lastModified.getTime());
+    }
+    return null;
+  }
+
   @Override
   public Date getLastModified() {
+    Path path = getPath();
+    if (path != null) {
+      try {
+        return new Date(Files.getLastModifiedTime(path).toMillis());
+      } catch (IOException e) {
+        // fall through, the last modified date is unknown
+      }
+    }
     return null;
   }
-  
+
   @Override
   public long getSize() {
     return binary.getSizeInBytes();
@@ -64,6 +142,4 @@ public class BinaryConsumesOutputStream implements ConsumesSkipableOutputStream
     return mediaType;
   }
 
-
-
 }
@@ -7,6 +7,8 @@
  */
 package org.roda.core.storage;
 
+import java.io.IOException;
+import java.util.Iterator;
 import java.util.Map;
 
 import org.roda.core.RodaCoreFactory;
@@ -18,7 +20,16 @@ import org.roda.core.data.exceptions.GenericException;
 import org.roda.core.data.exceptions.NotFoundException;
 import org.roda.core.data.exceptions.RequestNotValidException;
 import org.roda.core.data.v2.ip.StoragePath;
+import org.roda.core.util.Tracing;
 
+/**
+ * Wraps the storage service used by the model, checking if writing is allowed
+ * in this node and tracing the time spent in each storage operation.
+ *
+ * As listings are lazy, the span of a list operation only covers opening it.
+ * The time spent iterating it is traced apart (e.g. "listContainers iteration")
+ * when the listing is closed.
+ */
 public class StorageServiceWrapper implements StorageService {
   private StorageService storageService;
   private NodeType nodeType;
@@ -35,82 +46,110 @@ public class StorageServiceWrapper implements StorageService {
 
   @Override
   public boolean exists(StoragePath storagePath) {
-    return storageService.exists(storagePath);
+    try (Tracing.Span span = Tracing.start(Tracing.SpanType.STORAGE, "exists")) {
+      return storageService.exists(storagePath);
+    }
   }
 
   @Override
   public CloseableIterable<Container> listContainers()
     throws GenericException, AuthorizationDeniedException, RequestNotValidException, NotFoundException {
-    return storageService.listContainers();
+    try (Tracing.Span span = Tracing.start(Tracing.SpanType.STORAGE, "listContainers")) {
+      return new TracedIterable<>("listContainers", storageService.listContainers());
+    }
   }
 
   @Override
   public Container createContainer(StoragePath storagePath)
     throws GenericException, AlreadyExistsException, AuthorizationDeniedException, RequestNotValidException {
     RodaCoreFactory.checkIfWriteIsAllowedAndIfFalseThrowException(nodeType);
-    return storageService.createContainer(storagePath);
+    try (Tracing.Span span = Tracing.start(Tracing.SpanType.STORAGE, "createContainer")) {
+      return storageService.createContainer(storagePath);
+    }
   }
 
   @Override
   public Container getContainer(StoragePath storagePath)
     throws GenericException, RequestNotValidException, NotFoundException, AuthorizationDeniedException {
-    return storageService.getContainer(storagePath);
+    try (Tracing.Span span = Tracing.start(Tracing.SpanType.STORAGE, "getContainer")) {
+      return storageService.getContainer(storagePath);
+    }
   }
 
   @Override
   public void deleteContainer(StoragePath storagePath)
     throws NotFoundException, GenericException, AuthorizationDeniedException {
     RodaCoreFactory.checkIfWriteIsAllowedAndIfFalseThrowException(nodeType);
-    storageService.deleteContainer(storagePath);
+    try (Tracing.Span span = Tracing.start(Tracing.SpanType.STORAGE, "deleteContainer")) {
+      storageService.deleteContainer(storagePath);
+    }
   }
 
   @Override
   public CloseableIterable<Resource> listResourcesUnderContainer(StoragePath storagePath, boolean recursive)
     throws NotFoundException, GenericException, AuthorizationDeniedException, RequestNotValidException {
-    return storageService.listResourcesUnderContainer(storagePath, recursive);
+    try (Tracing.Span span = Tracing.start(Tracing.SpanType.STORAGE, "listResourcesUnderContainer")) {
+      return new TracedIterable<>("listResourcesUnderContainer",
+        storageService.listResourcesUnderContainer(storagePath, recursive));
+    }
   }
 
   @Override
   public Long countResourcesUnderContainer(StoragePath storagePath, boolean recursive)
     throws AuthorizationDeniedException, RequestNotValidException, NotFoundException, GenericException {
-    return storageService.countResourcesUnderContainer(storagePath, recursive);
+    try (Tracing.Span span = Tracing.start(Tracing.SpanType.STORAGE, "countResourcesUnderContainer")) {
+      return storageService.countResourcesUnderContainer(storagePath, recursive);
+    }
   }
 
   @Override
   public Directory createDirectory(StoragePath storagePath)
     throws AlreadyExistsException, GenericException, AuthorizationDeniedException {
     RodaCoreFactory.checkIfWriteIsAllowedAndIfFalseThrowException(nodeType);
-    return storageService.createDirectory(storagePath);
+    try (Tracing.Span span = Tracing.start(Tracing.SpanType.STORAGE, "createDirectory")) {
+      return storageService.createDirectory(storagePath);
+    }
   }
 
   @Override
   public Directory createRandomDirectory(StoragePath parentStoragePath) throws RequestNotValidException,
     GenericException, NotFoundException, AlreadyExistsException, AuthorizationDeniedException {
     RodaCoreFactory.checkIfWriteIsAllowedAndIfFalseThrowException(nodeType);
-    return storageService.createRandomDirectory(parentStoragePath);
+    try (Tracing.Span span = Tracing.start(Tracing.SpanType.STORAGE, "createRandomDirectory")) {
+      return storageService.createRandomDirectory(parentStoragePath);
+    }
   }
 
   @Override
   public Directory getDirectory(StoragePath storagePath)
     throws RequestNotValidException, NotFoundException, GenericException, AuthorizationDeniedException {
-    return storageService.getDirectory(storagePath);
+    try (Tracing.Span span = Tracing.start(Tracing.SpanType.STORAGE, "getDirectory")) {
+      return storageService.getDirectory(storagePath);
+    }
   }
 
   @Override
   public boolean hasDirectory(StoragePath storagePath) {
-    return storageService.hasDirectory(storagePath);
+    try (Tracing.Span span = Tracing.start(Tracing.SpanType.STORAGE, "hasDirectory")) {
+      return storageService.hasDirectory(storagePath);
+    }
   }
 
   @Override
   public CloseableIterable<Resource> listResourcesUnderDirectory(StoragePath storagePath, boolean recursive)
     throws NotFoundException, GenericException, AuthorizationDeniedException, RequestNotValidException {
-    return storageService.listResourcesUnderDirectory(storagePath, recursive);
+    try (Tracing.Span span = Tracing.start(Tracing.SpanType.STORAGE, "listResourcesUnderDirectory")) {
+      return new TracedIterable<>("listResourcesUnderDirectory",
+        storageService.listResourcesUnderDirectory(storagePath, recursive));
+    }
   }
 
   @Override
   public Long countResourcesUnderDirectory(StoragePath storagePath, boolean recursive)
     throws NotFoundException, GenericException, AuthorizationDeniedException, RequestNotValidException {
-    return storageService.countResourcesUnderDirectory(storagePath, recursive);
+    try (Tracing.Span span = Tracing.start(Tracing.SpanType.STORAGE, "countResourcesUnderDirectory")) {
+      return storageService.countResourcesUnderDirectory(storagePath, recursive);
+    }
   }
 
   @Override
@@ -118,25 +157,33 @@ public class StorageServiceWrapper implements StorageService {
     throws GenericException, AlreadyExistsException, RequestNotValidException, AuthorizationDeniedException,
     NotFoundException {
     RodaCoreFactory.checkIfWriteIsAllowedAndIfFalseThrowException(nodeType);
-    return storageService.createBinary(storagePath, payload, asReference);
+    try (Tracing.Span span = Tracing.start(Tracing.SpanType.STORAGE, "createBinary")) {
+      return storageService.createBinary(storagePath, payload, asReference);
+    }
   }
 
   @Override
   public Binary createRandomBinary(StoragePath parentStoragePath, ContentPayload payload, boolean asReference)
     throws GenericException, RequestNotValidException, AuthorizationDeniedException, NotFoundException {
     RodaCoreFactory.checkIfWriteIsAllowedAndIfFalseThrowException(nodeType);
-    return storageService.createRandomBinary(parentStoragePath, payload, asReference);
+    try (Tracing.Span span = Tracing.start(Tracing.SpanType.STORAGE, "createRandomBinary")) {
+      return storageService.createRandomBinary(parentStoragePath, payload, asReference);
+    }
   }
 
   @Override
   public Binary getBinary(StoragePath storagePath)
     throws GenericException, RequestNotValidException, NotFoundException, AuthorizationDeniedException {
-    return storageService.getBinary(storagePath);
+    try (Tracing.Span span = Tracing.start(Tracing.SpanType.STORAGE, "getBinary")) {
+      return storageService.getBinary(storagePath);
+    }
   }
 
   @Override
   public boolean hasBinary(StoragePath storagePath) {
-    return storageService.hasBinary(storagePath);
+    try (Tracing.Span span = Tracing.start(Tracing.SpanType.STORAGE, "hasBinary")) {
+      return storageService.hasBinary(storagePath);
+    }
   }
 
   @Override
@@ -144,20 +191,26 @@ public class StorageServiceWrapper implements StorageService {
     boolean createIfNotExists)
     throws GenericException, NotFoundException, RequestNotValidException, AuthorizationDeniedException {
     RodaCoreFactory.checkIfWriteIsAllowedAndIfFalseThrowException(nodeType);
-    return storageService.updateBinaryContent(storagePath, payload, asReference, createIfNotExists);
+    try (Tracing.Span span = Tracing.start(Tracing.SpanType.STORAGE, "updateBinaryContent")) {
+      return storageService.updateBinaryContent(storagePath, payload, asReference, createIfNotExists);
+    }
   }
 
   @Override
   public void deleteResource(StoragePath storagePath)
     throws NotFoundException, GenericException, AuthorizationDeniedException {
     RodaCoreFactory.checkIfWriteIsAllowedAndIfFalseThrowException(nodeType);
-    storageService.deleteResource(storagePath);
+    try (Tracing.Span span = Tracing.start(Tracing.SpanType.STORAGE, "deleteResource")) {
+      storageService.deleteResource(storagePath);
+    }
   }
 
   @Override
   public Class<? extends Entity> getEntity(StoragePath storagePath)
     throws GenericException, RequestNotValidException, AuthorizationDeniedException, NotFoundException {
-    return storageService.getEntity(storagePath);
+    try (Tracing.Span span = Tracing.start(Tracing.SpanType.STORAGE, "getEntity")) {
+      return storageService.getEntity(storagePath);
+    }
   }
 
   @Override
@@ -165,7 +218,9 @@ public class StorageServiceWrapper implements StorageService {
     throws AlreadyExistsException, GenericException, RequestNotValidException, NotFoundException,
     AuthorizationDeniedException {
     RodaCoreFactory.checkIfWriteIsAllowedAndIfFalseThrowException(nodeType);
-    storageService.copy(fromService, fromStoragePath, toStoragePath);
+    try (Tracing.Span span = Tracing.start(Tracing.SpanType.STORAGE, "copy")) {
+      storageService.copy(fromService, fromStoragePath, toStoragePath);
+    }
   }
 
   @Override
@@ -173,7 +228,9 @@ public class StorageServiceWrapper implements StorageService {
     throws AlreadyExistsException, GenericException, RequestNotValidException, NotFoundException,
     AuthorizationDeniedException {
     RodaCoreFactory.checkIfWriteIsAllowedAndIfFalseThrowException(nodeType);
-    storageService.move(fromService, fromStoragePath, toStoragePath);
+    try (Tracing.Span span = Tracing.start(Tracing.SpanType.STORAGE, "move")) {
+      storageService.move(fromService, fromStoragePath, toStoragePath);
+    }
   }
 
   @Override
@@ -184,34 +241,44 @@ public class StorageServiceWrapper implements StorageService {
   @Override
   public CloseableIterable<BinaryVersion> listBinaryVersions(StoragePath storagePath)
     throws GenericException, RequestNotValidException, NotFoundException, AuthorizationDeniedException {
-    return storageService.listBinaryVersions(storagePath);
+    try (Tracing.Span span = Tracing.start(Tracing.SpanType.STORAGE, "listBinaryVersions")) {
+      return new TracedIterable<>("listBinaryVersions", storageService.listBinaryVersions(storagePath));
+    }
   }
 
   @Override
   public BinaryVersion getBinaryVersion(StoragePath storagePath, String version)
     throws RequestNotValidException, NotFoundException, GenericException {
-    return storageService.getBinaryVersion(storagePath, version);
+    try (Tracing.Span span = Tracing.start(Tracing.SpanType.STORAGE, "getBinaryVersion")) {
+      return storageService.getBinaryVersion(storagePath, version);
+    }
   }
 
   @Override
   public BinaryVersion createBinaryVersion(StoragePath storagePath, Map<String, String> properties)
     throws RequestNotValidException, NotFoundException, GenericException, AuthorizationDeniedException {
     RodaCoreFactory.checkIfWriteIsAllowedAndIfFalseThrowException(nodeType);
-    return storageService.createBinaryVersion(storagePath, properties);
+    try (Tracing.Span span = Tracing.start(Tracing.SpanType.STORAGE, "createBinaryVersion")) {
+      return storageService.createBinaryVersion(storagePath, properties);
+    }
   }
 
   @Override
   public void revertBinaryVersion(StoragePath storagePath, String version)
     throws NotFoundException, RequestNotValidException, GenericException, AuthorizationDeniedException {
     RodaCoreFactory.checkIfWriteIsAllowedAndIfFalseThrowException(nodeType);
-    storageService.revertBinaryVersion(storagePath, version);
+    try (Tracing.Span span = Tracing.start(Tracing.SpanType.STORAGE, "revertBinaryVersion")) {
+      storageService.revertBinaryVersion(storagePath, version);
+    }
   }
 
   @Override
   public void deleteBinaryVersion(StoragePath storagePath, String version)
     throws NotFoundException, GenericException, RequestNotValidException, AuthorizationDeniedException {
     RodaCoreFactory.checkIfWriteIsAllowedAndIfFalseThrowException(nodeType);
-    storageService.deleteBinaryVersion(storagePath, version);
+    try (Tracing.Span span = Tracing.start(Tracing.SpanType.STORAGE, "deleteBinaryVersion")) {
+      storageService.deleteBinaryVersion(storagePath, version);
+    }
   }
 
   @Override
@@ -226,4 +293,56 @@ public class StorageServiceWrapper implements StorageService {
     return storageService.getStoragePathAsString(storagePath, skipContainer);
   }
 
+  /**
+   * Listing adding up the time spent in the wrapped listing, but not in the code
+   * consuming it.
+   */
+  private static class TracedIterable<T> implements CloseableIterable<T> {
+    private final String name;
+    private final CloseableIterable<T> iterable;
+    private long durationInNanos = 0;
+
+    TracedIterable(String name, CloseableIterable<T> iterable) {
+      this.name = name + " iteration";
+      this.iterable = iterable;
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+      long start = System.nanoTime();
+      Iterator<T> iterator = iterable.iterator();
+      durationInNanos += System.nanoTime() - start;
+
+      return new Iterator<T>() {
+        @Override
+        public boolean hasNext() {
+          long start = System.nanoTime();
+          try {
+            return iterator.hasNext();
+          } finally {
+            durationInNanos += System.nanoTime() - start;
+          }
+        }
+
+        @Override
+        public T next() {
+          long start = System.nanoTime();
+          try {
+            return iterator.next();
+          } finally {
+            durationInNanos += System.nanoTime() - start;
+          }
+        }
+      };
+    }
+
+    @Override
+    public void close() throws IOException {
+      try {
+        iterable.close();
+      } finally {
+        Tracing.record(Tracing.SpanType.STORAGE, name, durationInNanos);
+      }
+    }
+  }
 }
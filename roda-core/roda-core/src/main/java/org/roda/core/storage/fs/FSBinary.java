@@ -0,0 +1,70 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/roda
+ */
+package org.roda.core.storage.fs;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.nio.file.Path;
+import java.util.Map;
+
+import org.roda.core.data.v2.ip.StoragePath;
+import org.roda.core.storage.DefaultBinary;
+
+/**
+ * Binary of a file whose content digests, recorded in an extended attribute
+ * (see {@link FSUtils#readContentDigests(Path)}), are only read when asked
+ * for, so that retrieving a binary to read its content does not pay for it.
+ */
+public class FSBinary extends DefaultBinary {
+
+  private static final long serialVersionUID = -2954735720345587151L;
+
+  private transient Path path;
+  private boolean contentDigestRead = false;
+
+  public FSBinary(StoragePath storagePath, Path path, Long sizeInBytes) {
+    super(storagePath, new FSPathContentPayload(path), sizeInBytes, false, null);
+    this.path = path;
+  }
+
+  @Override
+  public Map<String, String> getContentDigest() {
+    if (!contentDigestRead) {
+      super.setContentDigest(FSUtils.readContentDigests(path));
+      contentDigestRead = true;
+    }
+    return super.getContentDigest();
+  }
+
+  @Override
+  public void setContentDigest(Map<String, String> contentDigest) {
+    super.setContentDigest(contentDigest);
+    contentDigestRead = true;
+  }
+
+  @Override
+  public int hashCode() {
+    getContentDigest();
+    return super.hashCode();
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    getContentDigest();
+    if (obj instanceof FSBinary) {
+      ((FSBinary) obj).getContentDigest();
+    }
+    return super.equals(obj);
+  }
+
+  private void writeObject(ObjectOutputStream out) throws IOException {
+    // the path is not serializable
+    getContentDigest();
+    out.defaultWriteObject();
+  }
+}
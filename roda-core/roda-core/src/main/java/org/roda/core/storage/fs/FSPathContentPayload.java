@@ -37,6 +37,7 @@ public class FSPathContentPayload implements ContentPayload {
   @Override
   public void writeToPath(Path outPath) throws IOException {
     Files.copy(path, outPath, StandardCopyOption.REPLACE_EXISTING);
+    FSUtils.copyContentDigests(path, outPath);
   }
 
   @Override
@@ -44,4 +45,8 @@ public class FSPathContentPayload implements ContentPayload {
     return path.toUri();
   }
 
+  public Path getPath() {
+    return path;
+  }
+
 }
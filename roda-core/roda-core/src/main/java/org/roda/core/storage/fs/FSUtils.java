@@ -9,8 +9,10 @@ package org.roda.core.storage.fs;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.CopyOption;
 import java.nio.file.DirectoryNotEmptyException;
 import java.nio.file.DirectoryStream;
@@ -23,6 +25,7 @@ import java.nio.file.Path;
 import java.nio.file.SimpleFileVisitor;
 import java.nio.file.StandardCopyOption;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.UserDefinedFileAttributeView;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
@@ -72,6 +75,10 @@ public class FSUtils {
   public static final String SEPARATOR_REGEX = "/";
   public static final String SEPARATOR_REPLACEMENT = "%2F";
 
+  private static final String CONTENT_DIGEST_ATTRIBUTE = "roda.content_digest";
+  private static final String CONTENT_DIGEST_SIZE = "size";
+  private static final String CONTENT_DIGEST_LAST_MODIFIED = "lastModified";
+
   public FSUtils() {
     // do nothing
   }
@@ -618,12 +625,10 @@ public class FSUtils {
     if (FSUtils.isDirectory(path)) {
       resource = new DefaultDirectory(storagePath);
     } else {
-      ContentPayload content = new FSPathContentPayload(path);
       long sizeInBytes;
       try {
         sizeInBytes = Files.size(path);
-        Map<String, String> contentDigest = null;
-        resource = new DefaultBinary(storagePath, content, sizeInBytes, false, contentDigest);
+        resource = new FSBinary(storagePath, path, sizeInBytes);
       } catch (IOException e) {
         throw new GenericException("Could not get file size", e);
       }
@@ -747,6 +752,77 @@ public class FSUtils {
     }
   }
 
+  /**
+   * Records the content digests of a file, already computed e.g. while it was
+   * uploaded, as an extended attribute of that file, along with its size and
+   * last modified time so that they are no longer used once the file changes.
+   * Nothing is recorded on file systems without extended attributes.
+   *
+   * @param digests
+   *          a map where the key is the digest algorithm and the value is the
+   *          digest for that algorithm, as in {@link Binary#getContentDigest()}.
+   */
+  public static void writeContentDigests(Path path, Map<String, String> digests) {
+    UserDefinedFileAttributeView view = Files.getFileAttributeView(path, UserDefinedFileAttributeView.class);
+    if (view == null || digests == null || digests.isEmpty()) {
+      return;
+    }
+
+    try {
+      Map<String, String> attribute = new HashMap<>(digests);
+      attribute.put(CONTENT_DIGEST_SIZE, Long.toString(Files.size(path)));
+      attribute.put(CONTENT_DIGEST_LAST_MODIFIED, Long.toString(Files.getLastModifiedTime(path).toMillis()));
+      view.write(CONTENT_DIGEST_ATTRIBUTE,
+        ByteBuffer.wrap(JsonUtils.getJsonFromObject(attribute).getBytes(StandardCharsets.UTF_8)));
+    } catch (IOException | UnsupportedOperationException e) {
+      LOGGER.debug("Could not record content digests of {}", path, e);
+    }
+  }
+
+  /**
+   * @return the content digests recorded for the file with
+   *         {@link #writeContentDigests(Path, Map)}, or null if there are none
+   *         or the file changed since they were recorded.
+   */
+  public static Map<String, String> readContentDigests(Path path) {
+    UserDefinedFileAttributeView view = Files.getFileAttributeView(path, UserDefinedFileAttributeView.class);
+    if (view == null) {
+      return null;
+    }
+
+    try {
+      if (!view.list().contains(CONTENT_DIGEST_ATTRIBUTE)) {
+        return null;
+      }
+
+      ByteBuffer buffer = ByteBuffer.allocate(view.size(CONTENT_DIGEST_ATTRIBUTE));
+      view.read(CONTENT_DIGEST_ATTRIBUTE, buffer);
+      buffer.flip();
+      Map<String, String> digests = JsonUtils.getMapFromJson(StandardCharsets.UTF_8.decode(buffer).toString());
+
+      String size = digests.remove(CONTENT_DIGEST_SIZE);
+      String lastModified = digests.remove(CONTENT_DIGEST_LAST_MODIFIED);
+      if (Long.toString(Files.size(path)).equals(size)
+        && Long.toString(Files.getLastModifiedTime(path).toMillis()).equals(lastModified) && !digests.isEmpty()) {
+        return digests;
+      }
+    } catch (IOException | RuntimeException e) {
+      LOGGER.debug("Could not read content digests of {}", path, e);
+    }
+    return null;
+  }
+
+  /**
+   * Records the content digests of the source file, if still valid, for its
+   * copy.
+   */
+  public static void copyContentDigests(Path sourcePath, Path targetPath) {
+    Map<String, String> digests = readContentDigests(sourcePath);
+    if (digests != null) {
+      writeContentDigests(targetPath, digests);
+    }
+  }
+
   public static Path createDirectory(Path parent, String name) throws IOException {
     Path directory;
     do {
@@ -225,6 +225,15 @@ public class RODA {
     return bean;
   }
 
+  @Bean
+  public ServletRegistrationBean<HttpServlet> indexChanges() {
+    ServletRegistrationBean<HttpServlet> bean;
+    bean = new ServletRegistrationBean<>(new org.roda.wui.servlets.IndexChangesServlet());
+    bean.setLoadOnStartup(2);
+    bean.addUrlMappings("/index-changes");
+    return bean;
+  }
+
   // TODO: add welcome page
   // TODO: add error handler
   // TODO: add security constraints
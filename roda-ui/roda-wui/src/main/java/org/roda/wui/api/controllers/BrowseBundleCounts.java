@@ -0,0 +1,162 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/roda
+ */
+package org.roda.wui.api.controllers;
+
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.roda.core.RodaCoreFactory;
+import org.roda.core.common.UserUtility;
+import org.roda.core.data.exceptions.GenericException;
+import org.roda.core.data.exceptions.RequestNotValidException;
+import org.roda.core.data.v2.index.IsIndexed;
+import org.roda.core.data.v2.index.filter.Filter;
+import org.roda.core.data.v2.user.User;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Runs the independent index queries needed to build the browse bundles
+ * concurrently, in a bounded pool shared by all requests, and keeps their
+ * counts for a few seconds so that consecutive page loads of the same object by
+ * users that can read the same objects do not query the index again.
+ */
+final class BrowseBundleCounts {
+  private static final String CONFIG_PREFIX = "ui.bundle.counts";
+
+  private static final ExecutorService EXECUTOR = createExecutor();
+  private static final Cache<Key, Long> CACHE = createCache();
+
+  private BrowseBundleCounts() {
+    // do nothing
+  }
+
+  private static ExecutorService createExecutor() {
+    int threads = RodaCoreFactory.getRodaConfigurationAsInt(8, CONFIG_PREFIX, "threads");
+    int queueSize = RodaCoreFactory.getRodaConfigurationAsInt(256, CONFIG_PREFIX, "queue_size");
+    ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+      new ArrayBlockingQueue<>(queueSize),
+      new ThreadFactoryBuilder().setNameFormat("browse-bundle-counts-%d").setDaemon(true).build(),
+      new ThreadPoolExecutor.CallerRunsPolicy());
+    executor.allowCoreThreadTimeOut(true);
+    return executor;
+  }
+
+  private static Cache<Key, Long> createCache() {
+    int expireAfterWrite = RodaCoreFactory.getRodaConfigurationAsInt(5, CONFIG_PREFIX, "cache",
+      "expire_after_write_seconds");
+    int maxSize = RodaCoreFactory.getRodaConfigurationAsInt(10000, CONFIG_PREFIX, "cache", "max_size");
+    return CacheBuilder.newBuilder().expireAfterWrite(Math.max(0, expireAfterWrite), TimeUnit.SECONDS)
+      .maximumSize(maxSize).build();
+  }
+
+  /**
+   * Counts, in the background, the objects that match the filter and that the
+   * user is allowed to read.
+   */
+  static <T extends IsIndexed> Future<Long> count(Class<T> returnClass, Filter filter, User user,
+    boolean justActive) {
+    Key key = new Key(returnClass, filter, UserUtility.getPermissionFingerprint(user), justActive, true);
+    return count(key, () -> RodaCoreFactory.getIndexService().count(returnClass, filter, user, justActive));
+  }
+
+  /**
+   * Counts, in the background, all the objects that match the filter, without
+   * any permission or state filtering.
+   */
+  static <T extends IsIndexed> Future<Long> count(Class<T> returnClass, Filter filter) {
+    Key key = new Key(returnClass, filter, "", false, false);
+    return count(key, () -> RodaCoreFactory.getIndexService().count(returnClass, filter));
+  }
+
+  private static Future<Long> count(Key key, Callable<Long> count) {
+    Long cached = CACHE.getIfPresent(key);
+    if (cached != null) {
+      return CompletableFuture.completedFuture(cached);
+    }
+
+    return EXECUTOR.submit(() -> {
+      Long result = count.call();
+      CACHE.put(key, result);
+      return result;
+    });
+  }
+
+  static <T> Future<T> submit(Callable<T> task) {
+    return EXECUTOR.submit(task);
+  }
+
+  /**
+   * Waits for a background query, re-throwing the exceptions it may have
+   * thrown.
+   */
+  static <T> T get(Future<T> future) throws GenericException, RequestNotValidException {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new GenericException("Interrupted while waiting for index query", e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof GenericException) {
+        throw (GenericException) cause;
+      } else if (cause instanceof RequestNotValidException) {
+        throw (RequestNotValidException) cause;
+      } else if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      } else {
+        throw new GenericException("Error executing index query", cause);
+      }
+    }
+  }
+
+  private static final class Key {
+    private final String className;
+    private final Filter filter;
+    private final String permissionFingerprint;
+    private final boolean justActive;
+    private final boolean filterPermissions;
+
+    private Key(Class<?> returnClass, Filter filter, String permissionFingerprint, boolean justActive,
+      boolean filterPermissions) {
+      this.className = returnClass.getName();
+      this.filter = filter;
+      this.permissionFingerprint = permissionFingerprint;
+      this.justActive = justActive;
+      this.filterPermissions = filterPermissions;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(className, filter, permissionFingerprint, justActive, filterPermissions);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (!(obj instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) obj;
+      return className.equals(other.className) && Objects.equals(filter, other.filter)
+        && permissionFingerprint.equals(other.permissionFingerprint) && justActive == other.justActive
+        && filterPermissions == other.filterPermissions;
+    }
+  }
+}
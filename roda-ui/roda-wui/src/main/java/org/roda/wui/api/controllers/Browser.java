@@ -11,6 +11,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -30,6 +31,7 @@ import org.roda.core.common.EntityResponse;
 import org.roda.core.common.Messages;
 import org.roda.core.common.StreamResponse;
 import org.roda.core.common.UserUtility;
+import org.roda.core.common.monitor.TransferredResourceUpload;
 import org.roda.core.data.common.RodaConstants;
 import org.roda.core.data.exceptions.AlreadyExistsException;
 import org.roda.core.data.exceptions.AuthorizationDeniedException;
@@ -1857,6 +1859,113 @@ public class Browser extends RodaWuiController {
 
   }
 
+  public static TransferredResourceUpload createTransferredResourceUpload(User user, String parentUUID,
+    String fileName, long length) throws AuthorizationDeniedException, GenericException, AlreadyExistsException,
+    RequestNotValidException, NotFoundException, IsStillUpdatingException {
+    final ControllerAssistant controllerAssistant = new ControllerAssistant() {};
+
+    // check user permissions
+    controllerAssistant.checkRoles(user);
+
+    UserUtility.checkTransferredResourceAccess(user, Arrays.asList(parentUUID));
+
+    LogEntryState state = LogEntryState.SUCCESS;
+
+    try {
+      // delegate
+      return BrowserHelper.createTransferredResourceUpload(parentUUID, fileName, length);
+    } catch (RODAException e) {
+      state = LogEntryState.FAILURE;
+      throw e;
+    } finally {
+      // register action
+      controllerAssistant.registerAction(user, state, RodaConstants.CONTROLLER_PATH_PARAM, parentUUID,
+        RodaConstants.CONTROLLER_FILENAME_PARAM, fileName);
+    }
+  }
+
+  public static TransferredResourceUpload retrieveTransferredResourceUpload(User user, String uploadId)
+    throws AuthorizationDeniedException, GenericException, NotFoundException {
+    final ControllerAssistant controllerAssistant = new ControllerAssistant() {};
+
+    // check user permissions
+    controllerAssistant.checkRoles(user);
+
+    LogEntryState state = LogEntryState.SUCCESS;
+
+    try {
+      // delegate
+      TransferredResourceUpload upload = BrowserHelper.retrieveTransferredResourceUpload(uploadId);
+      checkTransferredResourceUploadAccess(user, upload);
+      return upload;
+    } catch (RODAException e) {
+      state = LogEntryState.FAILURE;
+      throw e;
+    } finally {
+      // register action
+      controllerAssistant.registerAction(user, state, RodaConstants.CONTROLLER_ID_PARAM, uploadId);
+    }
+  }
+
+  public static TransferredResourceUpload appendToTransferredResourceUpload(User user, String uploadId, long offset,
+    InputStream content) throws AuthorizationDeniedException, GenericException, AlreadyExistsException,
+    RequestNotValidException, NotFoundException, IsStillUpdatingException {
+    final ControllerAssistant controllerAssistant = new ControllerAssistant() {};
+
+    // check user permissions
+    controllerAssistant.checkRoles(user);
+
+    try {
+      checkTransferredResourceUploadAccess(user, BrowserHelper.retrieveTransferredResourceUpload(uploadId));
+
+      // delegate
+      TransferredResourceUpload upload = BrowserHelper.appendToTransferredResourceUpload(uploadId, offset, content);
+
+      // register action only once the upload completes, not for every chunk
+      if (upload.isComplete()) {
+        controllerAssistant.registerAction(user, LogEntryState.SUCCESS, RodaConstants.CONTROLLER_ID_PARAM, uploadId,
+          RodaConstants.CONTROLLER_PATH_PARAM, upload.getRelativePath());
+      }
+      return upload;
+    } catch (RODAException e) {
+      controllerAssistant.registerAction(user, LogEntryState.FAILURE, RodaConstants.CONTROLLER_ID_PARAM, uploadId);
+      throw e;
+    }
+  }
+
+  public static void deleteTransferredResourceUpload(User user, String uploadId)
+    throws AuthorizationDeniedException, GenericException, NotFoundException, IsStillUpdatingException {
+    final ControllerAssistant controllerAssistant = new ControllerAssistant() {};
+
+    // check user permissions
+    controllerAssistant.checkRoles(user);
+
+    LogEntryState state = LogEntryState.SUCCESS;
+
+    try {
+      checkTransferredResourceUploadAccess(user, BrowserHelper.retrieveTransferredResourceUpload(uploadId));
+
+      // delegate
+      BrowserHelper.deleteTransferredResourceUpload(uploadId);
+    } catch (RODAException e) {
+      state = LogEntryState.FAILURE;
+      throw e;
+    } finally {
+      // register action
+      controllerAssistant.registerAction(user, state, RodaConstants.CONTROLLER_ID_PARAM, uploadId);
+    }
+  }
+
+  /**
+   * Checks the access to the folder the file of the upload is being
+   * transferred to, as when the upload was created.
+   */
+  private static void checkTransferredResourceUploadAccess(User user, TransferredResourceUpload upload) {
+    Path folder = Paths.get(upload.getRelativePath()).getParent();
+    String folderUUID = folder != null ? IdUtils.getTransferredResourceUUID(folder) : null;
+    UserUtility.checkTransferredResourceAccess(user, Arrays.asList(folderUUID));
+  }
+
   public static ConsumesOutputStream retrieveClassificationPlan(User user, String filename)
     throws GenericException, RequestNotValidException, NotFoundException, AuthorizationDeniedException {
     final ControllerAssistant controllerAssistant = new ControllerAssistant() {};
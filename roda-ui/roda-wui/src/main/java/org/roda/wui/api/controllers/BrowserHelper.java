@@ -16,6 +16,7 @@ import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
 import java.util.*;
 import java.util.Map.Entry;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
 import javax.ws.rs.core.MultivaluedMap;
@@ -28,6 +29,7 @@ import org.roda.core.RodaCoreFactory;
 import org.roda.core.common.*;
 import org.roda.core.common.iterables.CloseableIterable;
 import org.roda.core.common.iterables.CloseableIterables;
+import org.roda.core.common.monitor.TransferredResourceUpload;
 import org.roda.core.common.monitor.TransferredResourcesScanner;
 import org.roda.core.common.notifications.NotificationProcessor;
 import org.roda.core.common.tools.ZipEntryInfo;
@@ -91,6 +93,7 @@ import org.roda.wui.client.planning.MitigationPropertiesBundle;
 import org.roda.wui.client.planning.RelationTypeTranslationsBundle;
 import org.roda.wui.client.planning.RiskMitigationBundle;
 import org.roda.wui.client.planning.RiskVersionsBundle;
+import org.roda.wui.common.DescriptiveMetadataHtmlCache;
 import org.roda.wui.common.HTMLUtils;
 import org.roda.wui.common.server.ServerTools;
 import org.roda.wui.server.common.XMLSimilarityIgnoreElements;
@@ -98,7 +101,6 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.xml.sax.SAXException;
 
-import com.github.jknack.handlebars.Handlebars;
 import com.github.jknack.handlebars.Template;
 
 /**
@@ -123,75 +125,74 @@ public class BrowserHelper {
     String aipId = aip.getId();
     boolean justActive = aip.getState().equals(AIPState.ACTIVE);
 
-    // set aip ancestors
-    List<IndexedAIP> ancestors = retrieveAncestors(aip, user, aipAncestorsFieldsToReturn);
-    bundle.setAIPAncestors(ancestors);
-
-    // set descriptive metadata
-    if (UserUtility.hasPermissions(user, RodaConstants.PERMISSION_METHOD_LIST_AIP_DESCRIPTIVE_METADATA)) {
-      try {
-        List<DescriptiveMetadataViewBundle> descriptiveMetadataList = retrieveDescriptiveMetadataBundles(aipId, locale);
-        bundle.setDescriptiveMetadata(descriptiveMetadataList);
-      } catch (NotFoundException e) {
-        // do nothing
-      }
-    }
+    // the ancestors and counts are independent index queries, run concurrently
+    Future<List<IndexedAIP>> ancestors = BrowseBundleCounts
+      .submit(() -> retrieveAncestors(aip, user, aipAncestorsFieldsToReturn));
 
     // Count child AIPs
+    Future<Long> childAIPCount = null;
     if (UserUtility.hasPermissions(user, RodaConstants.PERMISSION_METHOD_FIND_AIP)) {
       Filter childAIPfilter = new Filter(new SimpleFilterParameter(RodaConstants.AIP_PARENT_ID, aip.getId()));
-      Long childAIPCount = RodaCoreFactory.getIndexService().count(IndexedAIP.class, childAIPfilter, user, justActive);
-      bundle.setChildAIPCount(childAIPCount);
-    } else {
-      bundle.setChildAIPCount(-1L);
+      childAIPCount = BrowseBundleCounts.count(IndexedAIP.class, childAIPfilter, user, justActive);
     }
 
     // Count representations
+    Future<Long> repCount = null;
     if (UserUtility.hasPermissions(user, RodaConstants.PERMISSION_METHOD_FIND_REPRESENTATION)) {
       Filter repFilter = new Filter(new SimpleFilterParameter(RodaConstants.REPRESENTATION_AIP_ID, aipId));
-      Long repCount = RodaCoreFactory.getIndexService().count(IndexedRepresentation.class, repFilter, user, justActive);
-      bundle.setRepresentationCount(repCount);
-    } else {
-      bundle.setRepresentationCount(-1L);
+      repCount = BrowseBundleCounts.count(IndexedRepresentation.class, repFilter, user, justActive);
     }
 
     // Count DIPs
+    Future<Long> dipCount = null;
     if (UserUtility.hasPermissions(user, RodaConstants.PERMISSION_METHOD_FIND_DIP)) {
       Filter dipsFilter = new Filter(new SimpleFilterParameter(RodaConstants.DIP_AIP_UUIDS, aip.getId()));
-      Long dipCount = RodaCoreFactory.getIndexService().count(IndexedDIP.class, dipsFilter, user, justActive);
-      bundle.setDipCount(dipCount);
-    } else {
-      bundle.setDipCount(-1L);
+      dipCount = BrowseBundleCounts.count(IndexedDIP.class, dipsFilter, user, justActive);
     }
 
     // Count risk incidences
+    Future<Long> riskIncidenceCount = null;
     if (UserUtility.hasPermissions(user, RodaConstants.PERMISSION_METHOD_FIND_RISK_INCIDENCE)) {
       Filter riskIncidenceFilter = new Filter(new SimpleFilterParameter(RodaConstants.RISK_INCIDENCE_AIP_ID, aipId));
-      Long riskIncidenceCount = RodaCoreFactory.getIndexService().count(RiskIncidence.class, riskIncidenceFilter, user,
-        justActive);
-      bundle.setRiskIncidenceCount(riskIncidenceCount);
-    } else {
-      bundle.setRiskIncidenceCount(-1L);
+      riskIncidenceCount = BrowseBundleCounts.count(RiskIncidence.class, riskIncidenceFilter, user, justActive);
     }
 
+    // Count preservation events
+    Future<Long> preservationEventCount = null;
     if (UserUtility.hasPermissions(user, RodaConstants.PERMISSION_METHOD_FIND_PRESERVATION_EVENT)) {
       Filter preservationEventFilter = new Filter(
         new SimpleFilterParameter(RodaConstants.PRESERVATION_EVENT_AIP_ID, aipId));
-      Long preservationEventCount = RodaCoreFactory.getIndexService().count(IndexedPreservationEvent.class,
-        preservationEventFilter, user, false);
-      bundle.setPreservationEventCount(preservationEventCount);
-    } else {
-      bundle.setPreservationEventCount(-1L);
+      preservationEventCount = BrowseBundleCounts.count(IndexedPreservationEvent.class, preservationEventFilter, user,
+        false);
     }
 
+    // Count log entries
+    Future<Long> logCount = null;
     if (UserUtility.hasPermissions(user, RodaConstants.PERMISSION_METHOD_FIND_LOG_ENTRY)) {
       Filter logFilter = new Filter(new SimpleFilterParameter(RodaConstants.LOG_RELATED_OBJECT_ID, aipId));
-      Long logCount = RodaCoreFactory.getIndexService().count(LogEntry.class, logFilter, user, justActive);
-      bundle.setLogCount(logCount);
-    } else {
-      bundle.setLogCount(-1L);
+      logCount = BrowseBundleCounts.count(LogEntry.class, logFilter, user, justActive);
     }
 
+    // set descriptive metadata
+    if (UserUtility.hasPermissions(user, RodaConstants.PERMISSION_METHOD_LIST_AIP_DESCRIPTIVE_METADATA)) {
+      try {
+        List<DescriptiveMetadataViewBundle> descriptiveMetadataList = retrieveDescriptiveMetadataBundles(aipId, locale);
+        bundle.setDescriptiveMetadata(descriptiveMetadataList);
+      } catch (NotFoundException e) {
+        // do nothing
+      }
+    }
+
+    // set aip ancestors
+    bundle.setAIPAncestors(BrowseBundleCounts.get(ancestors));
+
+    bundle.setChildAIPCount(getCount(childAIPCount));
+    bundle.setRepresentationCount(getCount(repCount));
+    bundle.setDipCount(getCount(dipCount));
+    bundle.setRiskIncidenceCount(getCount(riskIncidenceCount));
+    bundle.setPreservationEventCount(getCount(preservationEventCount));
+    bundle.setLogCount(getCount(logCount));
+
     if (UserUtility.hasPermissions(user, RodaConstants.PERMISSION_METHOD_FIND_REPRESENTATION_INFORMATION)) {
       List<String> rodaConfigurationAsList = RodaCoreFactory.getRodaConfigurationAsList("ui.ri.rule.AIP").stream()
         .map(r -> RodaCoreFactory.getRodaConfigurationAsString(r, RodaConstants.SEARCH_FIELD_FIELDS))
@@ -212,51 +213,51 @@ public class BrowserHelper {
     bundle.setAip(aip);
     bundle.setRepresentation(representation);
 
-    // set aip ancestors
-    List<IndexedAIP> ancestors = retrieveAncestors(aip, user, aipAncestorsFieldsToReturn);
-    bundle.setAipAncestors(ancestors);
-
-    // set representation desc. metadata
-    if (UserUtility.hasPermissions(user, RodaConstants.PERMISSION_METHOD_LIST_REPRESENTATION_DESCRIPTIVE_METADATA)) {
-      try {
-        bundle.setRepresentationDescriptiveMetadata(
-          retrieveDescriptiveMetadataBundles(aip.getId(), representation.getId(), locale));
-      } catch (NotFoundException e) {
-        // do nothing
-      }
-    }
+    // the ancestors and counts are independent index queries, run concurrently
+    Future<List<IndexedAIP>> ancestors = BrowseBundleCounts
+      .submit(() -> retrieveAncestors(aip, user, aipAncestorsFieldsToReturn));
 
     // Count DIPs
+    Future<Long> dipCount = null;
     if (UserUtility.hasPermissions(user, RodaConstants.PERMISSION_METHOD_FIND_DIP)) {
       Filter dipsFilter = new Filter(
         new SimpleFilterParameter(RodaConstants.DIP_REPRESENTATION_UUIDS, representation.getUUID()));
-      Long dipCount = RodaCoreFactory.getIndexService().count(IndexedDIP.class, dipsFilter);
-      bundle.setDipCount(dipCount);
-    } else {
-      bundle.setDipCount(-1L);
+      dipCount = BrowseBundleCounts.count(IndexedDIP.class, dipsFilter);
     }
 
     // Count risk incidences
+    Future<Long> riskIncidenceCount = null;
     if (UserUtility.hasPermissions(user, RodaConstants.PERMISSION_METHOD_FIND_RISK_INCIDENCE)) {
       Filter riskIncidenceFilter = new Filter(
         new SimpleFilterParameter(RodaConstants.RISK_INCIDENCE_REPRESENTATION_ID, representation.getId()));
-      Long riskIncidenceCount = RodaCoreFactory.getIndexService().count(RiskIncidence.class, riskIncidenceFilter);
-      bundle.setRiskIncidenceCount(riskIncidenceCount);
-    } else {
-      bundle.setRiskIncidenceCount(-1L);
+      riskIncidenceCount = BrowseBundleCounts.count(RiskIncidence.class, riskIncidenceFilter);
     }
 
     // Count preservation events
+    Future<Long> preservationEventCount = null;
     if (UserUtility.hasPermissions(user, RodaConstants.PERMISSION_METHOD_FIND_PRESERVATION_EVENT)) {
       Filter preservationEventFilter = new Filter(
         new SimpleFilterParameter(RodaConstants.PRESERVATION_EVENT_REPRESENTATION_UUID, representation.getUUID()));
-      Long preservationEventCount = RodaCoreFactory.getIndexService().count(IndexedPreservationEvent.class,
-        preservationEventFilter);
-      bundle.setPreservationEventCount(preservationEventCount);
-    } else {
-      bundle.setPreservationEventCount(-1L);
+      preservationEventCount = BrowseBundleCounts.count(IndexedPreservationEvent.class, preservationEventFilter);
+    }
+
+    // set representation desc. metadata
+    if (UserUtility.hasPermissions(user, RodaConstants.PERMISSION_METHOD_LIST_REPRESENTATION_DESCRIPTIVE_METADATA)) {
+      try {
+        bundle.setRepresentationDescriptiveMetadata(
+          retrieveDescriptiveMetadataBundles(aip.getId(), representation.getId(), locale));
+      } catch (NotFoundException e) {
+        // do nothing
+      }
     }
 
+    // set aip ancestors
+    bundle.setAipAncestors(BrowseBundleCounts.get(ancestors));
+
+    bundle.setDipCount(getCount(dipCount));
+    bundle.setRiskIncidenceCount(getCount(riskIncidenceCount));
+    bundle.setPreservationEventCount(getCount(preservationEventCount));
+
     if (UserUtility.hasPermissions(user, RodaConstants.PERMISSION_METHOD_FIND_REPRESENTATION_INFORMATION)) {
       List<String> rodaConfigurationAsList = RodaCoreFactory.getRodaConfigurationAsList("ui.ri.rule.Representation")
         .stream().map(r -> RodaCoreFactory.getRodaConfigurationAsString(r, RodaConstants.SEARCH_FIELD_FIELDS))
@@ -277,11 +278,12 @@ public class BrowserHelper {
     bundle.setRepresentation(representation);
     bundle.setFile(file);
 
-    // set aip ancestors
-    List<IndexedAIP> ancestors = retrieveAncestors(aip, user, aipAncestorsFieldsToReturn);
-    bundle.setAipAncestors(ancestors);
+    // the ancestors and counts are independent index queries, run concurrently
+    Future<List<IndexedAIP>> ancestors = BrowseBundleCounts
+      .submit(() -> retrieveAncestors(aip, user, aipAncestorsFieldsToReturn));
 
-    // set sibling count
+    // Count siblings
+    Future<Long> siblingCount = null;
     String parentUUID = bundle.getFile().getParentUUID();
 
     if (UserUtility.hasPermissions(user, RodaConstants.PERMISSION_METHOD_FIND_FILE)) {
@@ -295,41 +297,40 @@ public class BrowserHelper {
       }
 
       boolean justActive = AIPState.ACTIVE.equals(aip.getState());
-      bundle.setTotalSiblingCount(count(IndexedFile.class, siblingFilter, justActive, user));
-    } else {
-      bundle.setTotalSiblingCount(-1L);
+      siblingCount = BrowseBundleCounts.count(IndexedFile.class, siblingFilter, user, justActive);
     }
 
     // Count DIPs
+    Future<Long> dipCount = null;
     if (UserUtility.hasPermissions(user, RodaConstants.PERMISSION_METHOD_FIND_DIP)) {
       Filter dipsFilter = new Filter(new SimpleFilterParameter(RodaConstants.DIP_FILE_UUIDS, file.getUUID()));
-      Long dipCount = RodaCoreFactory.getIndexService().count(IndexedDIP.class, dipsFilter);
-      bundle.setDipCount(dipCount);
-    } else {
-      bundle.setDipCount(-1L);
+      dipCount = BrowseBundleCounts.count(IndexedDIP.class, dipsFilter);
     }
 
     // Count risk incidences
+    Future<Long> riskIncidenceCount = null;
     if (UserUtility.hasPermissions(user, RodaConstants.PERMISSION_METHOD_FIND_RISK_INCIDENCE)) {
       Filter riskIncidenceFilter = new Filter(
         new SimpleFilterParameter(RodaConstants.RISK_INCIDENCE_FILE_ID, file.getUUID()));
-      Long riskIncidenceCount = RodaCoreFactory.getIndexService().count(RiskIncidence.class, riskIncidenceFilter);
-      bundle.setRiskIncidenceCount(riskIncidenceCount);
-    } else {
-      bundle.setRiskIncidenceCount(-1L);
+      riskIncidenceCount = BrowseBundleCounts.count(RiskIncidence.class, riskIncidenceFilter);
     }
 
     // Count preservation events
+    Future<Long> preservationEventCount = null;
     if (UserUtility.hasPermissions(user, RodaConstants.PERMISSION_METHOD_FIND_PRESERVATION_EVENT)) {
       Filter preservationEventFilter = new Filter(
         new SimpleFilterParameter(RodaConstants.PRESERVATION_EVENT_FILE_UUID, file.getUUID()));
-      Long preservationEventCount = RodaCoreFactory.getIndexService().count(IndexedPreservationEvent.class,
-        preservationEventFilter);
-      bundle.setPreservationEventCount(preservationEventCount);
-    } else {
-      bundle.setPreservationEventCount(-1L);
+      preservationEventCount = BrowseBundleCounts.count(IndexedPreservationEvent.class, preservationEventFilter);
     }
 
+    // set aip ancestors
+    bundle.setAipAncestors(BrowseBundleCounts.get(ancestors));
+
+    bundle.setTotalSiblingCount(getCount(siblingCount));
+    bundle.setDipCount(getCount(dipCount));
+    bundle.setRiskIncidenceCount(getCount(riskIncidenceCount));
+    bundle.setPreservationEventCount(getCount(preservationEventCount));
+
     if (UserUtility.hasPermissions(user, RodaConstants.PERMISSION_METHOD_FIND_REPRESENTATION_INFORMATION)) {
       List<String> rodaConfigurationAsList = RodaCoreFactory.getRodaConfigurationAsList("ui.ri.rule.File").stream()
         .map(r -> RodaCoreFactory.getRodaConfigurationAsString(r, RodaConstants.SEARCH_FIELD_FIELDS))
@@ -342,6 +343,13 @@ public class BrowserHelper {
     return bundle;
   }
 
+  /**
+   * @return the count or -1 if the user was not allowed to count
+   */
+  private static Long getCount(Future<Long> count) throws GenericException, RequestNotValidException {
+    return count != null ? BrowseBundleCounts.get(count) : -1L;
+  }
+
   private static List<DescriptiveMetadataViewBundle> retrieveDescriptiveMetadataBundles(String aipId, Locale locale)
     throws GenericException, RequestNotValidException, AuthorizationDeniedException, NotFoundException {
     return retrieveDescriptiveMetadataBundles(aipId, null, locale);
@@ -858,8 +866,9 @@ public class BrowserHelper {
       for (DescriptiveMetadata dm : orderedMetadata) {
         Binary descriptiveMetadataBinary = model.retrieveDescriptiveMetadataBinary(aipId, dm.getId());
         DescriptiveMetadata descriptiveMetadata = model.retrieveDescriptiveMetadata(aipId, dm.getId());
-        htmlDescriptives.add(Pair.of(dm.getId(), HTMLUtils.descriptiveMetadataToHtml(descriptiveMetadataBinary,
-          descriptiveMetadata.getType(), descriptiveMetadata.getVersion(), ServerTools.parseLocale(language))));
+        htmlDescriptives.add(Pair.of(dm.getId(),
+          DescriptiveMetadataHtmlCache.getInstance().getHtml(aipId, null, dm.getId(), descriptiveMetadataBinary, null,
+            descriptiveMetadata.getType(), descriptiveMetadata.getVersion(), ServerTools.parseLocale(language))));
       }
 
       return new StreamResponse(
@@ -926,8 +935,9 @@ public class BrowserHelper {
       Binary descriptiveMetadataBinary = model.retrieveDescriptiveMetadataBinary(aipId, metadataId);
       filename = descriptiveMetadataBinary.getStoragePath().getName() + HTML_EXT;
       DescriptiveMetadata descriptiveMetadata = model.retrieveDescriptiveMetadata(aipId, metadataId);
-      String htmlDescriptive = HTMLUtils.descriptiveMetadataToHtml(descriptiveMetadataBinary,
-        descriptiveMetadata.getType(), descriptiveMetadata.getVersion(), ServerTools.parseLocale(language));
+      String htmlDescriptive = DescriptiveMetadataHtmlCache.getInstance().getHtml(aipId, null, metadataId,
+        descriptiveMetadataBinary, null, descriptiveMetadata.getType(), descriptiveMetadata.getVersion(),
+        ServerTools.parseLocale(language));
 
       stream = new DefaultConsumesOutputStream(filename, RodaConstants.MEDIA_TYPE_TEXT_HTML, out -> {
         PrintStream printStream = new PrintStream(out);
@@ -970,8 +980,9 @@ public class BrowserHelper {
       Binary descriptiveMetadataBinary = model.retrieveDescriptiveMetadataBinary(aipId, representationId, metadataId);
       filename = descriptiveMetadataBinary.getStoragePath().getName() + HTML_EXT;
       DescriptiveMetadata descriptiveMetadata = model.retrieveDescriptiveMetadata(aipId, representationId, metadataId);
-      String htmlDescriptive = HTMLUtils.descriptiveMetadataToHtml(descriptiveMetadataBinary,
-        descriptiveMetadata.getType(), descriptiveMetadata.getVersion(), ServerTools.parseLocale(language));
+      String htmlDescriptive = DescriptiveMetadataHtmlCache.getInstance().getHtml(aipId, representationId, metadataId,
+        descriptiveMetadataBinary, null, descriptiveMetadata.getType(), descriptiveMetadata.getVersion(),
+        ServerTools.parseLocale(language));
 
       stream = new DefaultConsumesOutputStream(filename, RodaConstants.MEDIA_TYPE_TEXT_HTML, out -> {
         PrintStream printStream = new PrintStream(out);
@@ -1016,8 +1027,8 @@ public class BrowserHelper {
     } else if (RodaConstants.API_QUERY_VALUE_ACCEPT_FORMAT_HTML.equals(acceptFormat)) {
       filename = fileName + HTML_EXT;
       DescriptiveMetadata descriptiveMetadata = model.retrieveDescriptiveMetadata(aipId, metadataId);
-      String htmlDescriptive = HTMLUtils.descriptiveMetadataToHtml(binary, descriptiveMetadata.getType(),
-        descriptiveMetadata.getVersion(), ServerTools.parseLocale(language));
+      String htmlDescriptive = DescriptiveMetadataHtmlCache.getInstance().getHtml(aipId, null, metadataId, binary,
+        versionId, descriptiveMetadata.getType(), descriptiveMetadata.getVersion(), ServerTools.parseLocale(language));
 
       stream = new DefaultConsumesOutputStream(filename, RodaConstants.MEDIA_TYPE_TEXT_HTML, out -> {
         PrintStream printStream = new PrintStream(out);
@@ -1062,8 +1073,9 @@ public class BrowserHelper {
       filename = fileName + HTML_EXT;
       DescriptiveMetadata descriptiveMetadata = model.retrieveDescriptiveMetadata(aipId, representationId, metadataId);
 
-      String htmlDescriptive = HTMLUtils.descriptiveMetadataToHtml(binary, descriptiveMetadata.getType(),
-        descriptiveMetadata.getVersion(), ServerTools.parseLocale(language));
+      String htmlDescriptive = DescriptiveMetadataHtmlCache.getInstance().getHtml(aipId, representationId, metadataId,
+        binary, versionId, descriptiveMetadata.getType(), descriptiveMetadata.getVersion(),
+        ServerTools.parseLocale(language));
 
       stream = new DefaultConsumesOutputStream(filename, RodaConstants.MEDIA_TYPE_TEXT_HTML, out -> {
         PrintStream printStream = new PrintStream(out);
@@ -1797,6 +1809,29 @@ public class BrowserHelper {
     return transferredResource;
   }
 
+  public static TransferredResourceUpload createTransferredResourceUpload(String parentUUID, String fileName,
+    long length) throws GenericException, AlreadyExistsException, RequestNotValidException, NotFoundException,
+    AuthorizationDeniedException, IsStillUpdatingException {
+    LOGGER.debug("createTransferredResourceUpload(path={}, name={}, length={})", parentUUID, fileName, length);
+    return RodaCoreFactory.getTransferredResourcesScanner().createUpload(parentUUID, fileName, length);
+  }
+
+  public static TransferredResourceUpload retrieveTransferredResourceUpload(String uploadId)
+    throws GenericException, NotFoundException {
+    return RodaCoreFactory.getTransferredResourcesScanner().retrieveUpload(uploadId);
+  }
+
+  public static TransferredResourceUpload appendToTransferredResourceUpload(String uploadId, long offset,
+    InputStream content) throws GenericException, AlreadyExistsException, RequestNotValidException,
+    NotFoundException, AuthorizationDeniedException, IsStillUpdatingException {
+    return RodaCoreFactory.getTransferredResourcesScanner().appendToUpload(uploadId, offset, content);
+  }
+
+  public static void deleteTransferredResourceUpload(String uploadId)
+    throws GenericException, NotFoundException, AuthorizationDeniedException, IsStillUpdatingException {
+    RodaCoreFactory.getTransferredResourcesScanner().deleteUpload(uploadId);
+  }
+
   protected static <T extends IsIndexed> void delete(User user, Class<T> returnClass, SelectedItems<T> ids)
     throws GenericException, RequestNotValidException, AuthorizationDeniedException {
     List<String> idList = consolidate(user, returnClass, ids);
@@ -3178,15 +3213,13 @@ public class BrowserHelper {
   }
 
   private static String getRepresentationInformationExtra(RepresentationInformationExtraBundle extra, String family) {
-    Handlebars handlebars = new Handlebars();
     Map<String, String> data = new HashMap<>();
-    handlebars.registerHelper("field", (o, options) -> options.fn());
 
     if (extra != null) {
       try (InputStream templateStream = RodaCoreFactory.getConfigurationFileAsStream(
         RodaConstants.METADATA_REPRESENTATION_INFORMATION_TEMPLATE_FOLDER + "/" + family + ".xml.hbs")) {
         String rawTemplate = IOUtils.toString(templateStream, RodaConstants.DEFAULT_ENCODING);
-        Template tmpl = handlebars.compileInline(rawTemplate);
+        Template tmpl = HandlebarsUtility.getTemplate(rawTemplate);
 
         Set<MetadataValue> values = extra.getFamilyValues().get(family);
         if (values != null) {
@@ -3202,7 +3235,7 @@ public class BrowserHelper {
         }
 
         return tmpl.apply(data);
-      } catch (IOException e) {
+      } catch (IOException | GenericException e) {
         LOGGER.error("Error getting template from stream", e);
       }
     }
@@ -16,6 +16,7 @@ import javax.ws.rs.ext.Provider;
 
 import org.glassfish.jersey.server.ContainerRequest;
 import org.roda.core.data.exceptions.AlreadyExistsException;
+import org.roda.core.data.exceptions.AuthenticationDeniedException;
 import org.roda.core.data.exceptions.AuthorizationDeniedException;
 import org.roda.core.data.exceptions.GenericException;
 import org.roda.core.data.exceptions.IsStillUpdatingException;
@@ -50,7 +51,7 @@ public class RodaExceptionMapper implements ExceptionMapper<RODAException> {
       message += ", caused by " + e.getCause().getClass().getName() + ": " + e.getCause().getMessage();
     }
     LOGGER.debug("Creating error response. MediaType: {}; Message: {}", mediaType, message, e);
-    if (e instanceof AuthorizationDeniedException) {
+    if (e instanceof AuthorizationDeniedException || e instanceof AuthenticationDeniedException) {
       responseBuilder = Response.status(Status.UNAUTHORIZED)
         .entity(new ApiResponseMessage(ApiResponseMessage.ERROR, message));
     } else if (e instanceof NotImplementedException) {
@@ -8,6 +8,7 @@
 package org.roda.wui.api.v1;
 
 import javax.servlet.http.HttpServletRequest;
+import javax.ws.rs.DELETE;
 import javax.ws.rs.GET;
 import javax.ws.rs.POST;
 import javax.ws.rs.Path;
@@ -18,13 +19,17 @@ import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 
 import org.glassfish.jersey.server.JSONP;
+import org.roda.core.common.AuthenticationCache;
 import org.roda.core.common.UserUtility;
 import org.roda.core.data.common.RodaConstants;
+import org.roda.core.data.exceptions.AuthenticationDeniedException;
 import org.roda.core.data.exceptions.RODAException;
 import org.roda.core.data.v2.user.User;
+import org.roda.wui.api.v1.entities.ApiToken;
 import org.roda.wui.api.v1.utils.ApiResponseMessage;
 import org.roda.wui.api.v1.utils.ApiUtils;
 import org.roda.wui.api.v1.utils.ExtraMediaType;
+import org.roda.wui.filter.BasicAuthRequestWrapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -81,4 +86,43 @@ public class AuthResource {
     return Response.ok(UserUtility.getApiUser(request), mediaType).build();
   }
 
+  @POST
+  @JSONP(callback = RodaConstants.API_QUERY_DEFAULT_JSONP_CALLBACK, queryParam = RodaConstants.API_QUERY_KEY_JSONP_CALLBACK)
+  @Path("/token")
+  @Produces({MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, ExtraMediaType.APPLICATION_JAVASCRIPT})
+  @ApiOperation(value = "Create token", notes = "Creates a bearer token for the user authenticated with Basic auth, to be sent in the Authorization header of the following requests", response = ApiToken.class)
+  @ApiResponses(value = {@ApiResponse(code = 200, message = "OK", response = ApiToken.class),
+    @ApiResponse(code = 401, message = "Not authenticated", response = ApiResponseMessage.class)})
+
+  public Response createToken(
+    @ApiParam(value = "Choose format in which to get the token", allowableValues = RodaConstants.API_LIST_MEDIA_TYPES, defaultValue = RodaConstants.API_QUERY_VALUE_ACCEPT_FORMAT_JSON) @QueryParam(RodaConstants.API_QUERY_KEY_ACCEPT_FORMAT) String acceptFormat,
+    @ApiParam(value = "JSONP callback name", required = false, allowMultiple = false, defaultValue = RodaConstants.API_QUERY_DEFAULT_JSONP_CALLBACK) @QueryParam(RodaConstants.API_QUERY_KEY_JSONP_CALLBACK) String jsonpCallbackName)
+    throws RODAException {
+    String mediaType = ApiUtils.getMediaType(acceptFormat, request);
+    // a token must not be renewed with another token, or it would never expire
+    if (new BasicAuthRequestWrapper(request).getCredentials() == null) {
+      throw new AuthenticationDeniedException("A token can only be created with the user credentials (Basic auth)");
+    }
+    User user = UserUtility.getApiUser(request);
+    if (user == null || user.isGuest()) {
+      throw new AuthenticationDeniedException("A token can only be created for an authenticated user");
+    }
+    ApiToken token = new ApiToken(AuthenticationCache.issueToken(user), AuthenticationCache.getTokenTimeToLive());
+    return Response.ok(token, mediaType).build();
+  }
+
+  @DELETE
+  @Path("/token")
+  @Produces({MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, ExtraMediaType.APPLICATION_JAVASCRIPT})
+  @ApiOperation(value = "Revoke token", notes = "Revokes the bearer token sent in the Authorization header", response = ApiResponseMessage.class)
+  @ApiResponses(value = {@ApiResponse(code = 200, message = "OK", response = ApiResponseMessage.class)})
+
+  public Response revokeToken(
+    @ApiParam(value = "Choose format in which to get the response", allowableValues = RodaConstants.API_LIST_MEDIA_TYPES, defaultValue = RodaConstants.API_QUERY_VALUE_ACCEPT_FORMAT_JSON) @QueryParam(RodaConstants.API_QUERY_KEY_ACCEPT_FORMAT) String acceptFormat)
+    throws RODAException {
+    String mediaType = ApiUtils.getMediaType(acceptFormat, request);
+    AuthenticationCache.revokeToken(new BasicAuthRequestWrapper(request).getBearerToken());
+    return Response.ok(new ApiResponseMessage(ApiResponseMessage.OK, "Token revoked"), mediaType).build();
+  }
+
 }
@@ -135,7 +135,7 @@ public class FilesResource {
       ObjectResponse<org.roda.core.data.v2.ip.File> file = (ObjectResponse<org.roda.core.data.v2.ip.File>) efile;
       return Response.ok(file.getObject(), mediaType).build();
     } else {
-      return ApiUtils.okResponse((StreamResponse) efile, inline, range, req);
+      return ApiUtils.okResponse((StreamResponse) efile, inline, range, req, request);
     }
   }
 
@@ -9,14 +9,22 @@ package org.roda.wui.api.v1;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import javax.servlet.http.HttpServletRequest;
+import javax.ws.rs.Consumes;
 import javax.ws.rs.DELETE;
 import javax.ws.rs.GET;
+import javax.ws.rs.HEAD;
+import javax.ws.rs.HeaderParam;
+import javax.ws.rs.OPTIONS;
 import javax.ws.rs.POST;
 import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
@@ -24,6 +32,7 @@ import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.Status;
@@ -36,9 +45,11 @@ import org.glassfish.jersey.server.JSONP;
 import org.roda.core.common.EntityResponse;
 import org.roda.core.common.StreamResponse;
 import org.roda.core.common.UserUtility;
+import org.roda.core.common.monitor.TransferredResourceUpload;
 import org.roda.core.data.common.RodaConstants;
 import org.roda.core.data.exceptions.AlreadyExistsException;
 import org.roda.core.data.exceptions.RODAException;
+import org.roda.core.data.exceptions.RequestNotValidException;
 import org.roda.core.data.v2.common.Pair;
 import org.roda.core.data.v2.index.IndexResult;
 import org.roda.core.data.v2.index.filter.Filter;
@@ -48,10 +59,12 @@ import org.roda.core.data.v2.index.sublist.Sublist;
 import org.roda.core.data.v2.ip.TransferredResources;
 import org.roda.core.data.v2.user.User;
 import org.roda.wui.api.controllers.Browser;
+import org.roda.wui.api.controllers.BrowserHelper;
 import org.roda.wui.api.v1.utils.ApiResponseMessage;
 import org.roda.wui.api.v1.utils.ApiUtils;
 import org.roda.wui.api.v1.utils.ExtraMediaType;
 import org.roda.wui.api.v1.utils.ObjectResponse;
+import org.roda.wui.api.v1.utils.PATCH;
 import org.roda.wui.common.I18nUtility;
 
 import io.swagger.annotations.Api;
@@ -66,6 +79,19 @@ public class TransferredResource {
   public static final String ENDPOINT = "/v1/transfers";
   public static final String SWAGGER_ENDPOINT = "v1 transfers";
 
+  private static final String UPLOADS = "uploads";
+  private static final String UPLOAD_ID = "upload_id";
+  private static final String UPLOAD_MEDIA_TYPE = "application/offset+octet-stream";
+  private static final String UPLOAD_LENGTH = "Upload-Length";
+  private static final String UPLOAD_OFFSET = "Upload-Offset";
+  private static final String UPLOAD_METADATA = "Upload-Metadata";
+  private static final String UPLOAD_METADATA_FILENAME = "filename";
+  private static final String TUS_RESUMABLE = "Tus-Resumable";
+  private static final String TUS_VERSION_HEADER = "Tus-Version";
+  private static final String TUS_EXTENSION = "Tus-Extension";
+  private static final String TUS_VERSION = "1.0.0";
+  private static final String TUS_EXTENSIONS = "creation,termination";
+
   @Context
   private HttpServletRequest request;
 
@@ -260,6 +286,151 @@ public class TransferredResource {
       .build();
   }
 
+  /*
+   * Resumable uploads, following the tus protocol (https://tus.io) with its
+   * creation and termination extensions
+   */
+
+  @OPTIONS
+  @Path("/" + UPLOADS)
+  @ApiOperation(value = "Upload options", notes = "Get the supported versions and extensions of the tus protocol.", response = Void.class)
+  public Response getUploadOptions() {
+    return Response.noContent().header(TUS_RESUMABLE, TUS_VERSION).header(TUS_VERSION_HEADER, TUS_VERSION)
+      .header(TUS_EXTENSION, TUS_EXTENSIONS).build();
+  }
+
+  @POST
+  @Path("/" + UPLOADS)
+  @ApiOperation(value = "Create upload", notes = "Create a resumable upload of a file, whose name is given in the Upload-Metadata header.", response = Void.class)
+  @ApiResponses(value = {@ApiResponse(code = 201, message = "Created", response = Void.class),
+    @ApiResponse(code = 409, message = "Already exists", response = ApiResponseMessage.class)})
+  public Response createUpload(
+    @ApiParam(value = "The id of the parent") @QueryParam(RodaConstants.TRANSFERRED_RESOURCE_PARENT_UUID) String parentUUID,
+    @ApiParam(value = "The length of the file", required = true) @HeaderParam(UPLOAD_LENGTH) Long length,
+    @ApiParam(value = "The metadata of the upload, with the base64 encoded filename", required = true) @HeaderParam(UPLOAD_METADATA) String metadata,
+    @HeaderParam(TUS_RESUMABLE) String tusResumable) throws RODAException {
+    if (!isSupportedVersion(tusResumable)) {
+      return unsupportedVersionResponse();
+    }
+    if (length == null) {
+      throw new RequestNotValidException("Missing " + UPLOAD_LENGTH + " header");
+    }
+
+    // get user
+    User user = UserUtility.getApiUser(request);
+
+    // delegate action to controller
+    String fileName = getUploadMetadata(metadata).get(UPLOAD_METADATA_FILENAME);
+    TransferredResourceUpload upload = Browser.createTransferredResourceUpload(user, parentUUID, fileName, length);
+
+    String location = request.getRequestURL().append('/').append(upload.getId()).toString();
+    return Response.status(Status.CREATED).header(HttpHeaders.LOCATION, location)
+      .header(UPLOAD_OFFSET, upload.getOffset()).header(TUS_RESUMABLE, TUS_VERSION).build();
+  }
+
+  @HEAD
+  @Path("/" + UPLOADS + "/{" + UPLOAD_ID + "}")
+  @ApiOperation(value = "Get upload offset", notes = "Get the number of bytes received so far by an upload.", response = Void.class)
+  @ApiResponses(value = {@ApiResponse(code = 200, message = "OK", response = Void.class),
+    @ApiResponse(code = 404, message = "Not found", response = ApiResponseMessage.class)})
+  public Response getUploadOffset(
+    @ApiParam(value = "The id of the upload", required = true) @PathParam(UPLOAD_ID) String uploadId,
+    @HeaderParam(TUS_RESUMABLE) String tusResumable) throws RODAException {
+    if (!isSupportedVersion(tusResumable)) {
+      return unsupportedVersionResponse();
+    }
+
+    // get user
+    User user = UserUtility.getApiUser(request);
+
+    // delegate action to controller
+    TransferredResourceUpload upload = Browser.retrieveTransferredResourceUpload(user, uploadId);
+    return Response.ok().header(UPLOAD_OFFSET, upload.getOffset()).header(UPLOAD_LENGTH, upload.getLength())
+      .header(HttpHeaders.CACHE_CONTROL, "no-store").header(TUS_RESUMABLE, TUS_VERSION).build();
+  }
+
+  @PATCH
+  @Path("/" + UPLOADS + "/{" + UPLOAD_ID + "}")
+  @Consumes(UPLOAD_MEDIA_TYPE)
+  @ApiOperation(value = "Upload chunk", notes = "Append a chunk of the file to an upload, starting at the number of bytes received so far.", response = Void.class)
+  @ApiResponses(value = {@ApiResponse(code = 204, message = "OK", response = Void.class),
+    @ApiResponse(code = 404, message = "Not found", response = ApiResponseMessage.class),
+    @ApiResponse(code = 409, message = "Offset does not match", response = ApiResponseMessage.class)})
+  public Response appendToUpload(
+    @ApiParam(value = "The id of the upload", required = true) @PathParam(UPLOAD_ID) String uploadId,
+    @ApiParam(value = "The offset of the chunk", required = true) @HeaderParam(UPLOAD_OFFSET) Long offset,
+    @HeaderParam(TUS_RESUMABLE) String tusResumable, InputStream content) throws RODAException {
+    if (!isSupportedVersion(tusResumable)) {
+      return unsupportedVersionResponse();
+    }
+    if (offset == null) {
+      throw new RequestNotValidException("Missing " + UPLOAD_OFFSET + " header");
+    }
+
+    // get user
+    User user = UserUtility.getApiUser(request);
+
+    // the offset is checked for every chunk, not registering an action for it
+    TransferredResourceUpload upload = BrowserHelper.retrieveTransferredResourceUpload(uploadId);
+    if (upload.getOffset() != offset) {
+      return Response.status(Status.CONFLICT).header(UPLOAD_OFFSET, upload.getOffset())
+        .header(TUS_RESUMABLE, TUS_VERSION).build();
+    }
+
+    // delegate action to controller
+    upload = Browser.appendToTransferredResourceUpload(user, uploadId, offset, content);
+    return Response.noContent().header(UPLOAD_OFFSET, upload.getOffset()).header(TUS_RESUMABLE, TUS_VERSION)
+      .build();
+  }
+
+  @DELETE
+  @Path("/" + UPLOADS + "/{" + UPLOAD_ID + "}")
+  @ApiOperation(value = "Delete upload", notes = "Delete an upload and the bytes received so far.", response = Void.class)
+  @ApiResponses(value = {@ApiResponse(code = 204, message = "OK", response = Void.class),
+    @ApiResponse(code = 404, message = "Not found", response = ApiResponseMessage.class)})
+  public Response deleteUpload(
+    @ApiParam(value = "The id of the upload", required = true) @PathParam(UPLOAD_ID) String uploadId,
+    @HeaderParam(TUS_RESUMABLE) String tusResumable) throws RODAException {
+    if (!isSupportedVersion(tusResumable)) {
+      return unsupportedVersionResponse();
+    }
+
+    // get user
+    User user = UserUtility.getApiUser(request);
+
+    // delegate action to controller
+    Browser.deleteTransferredResourceUpload(user, uploadId);
+    return Response.noContent().header(TUS_RESUMABLE, TUS_VERSION).build();
+  }
+
+  private static boolean isSupportedVersion(String tusResumable) {
+    return tusResumable == null || TUS_VERSION.equals(tusResumable);
+  }
+
+  private static Response unsupportedVersionResponse() {
+    return Response.status(Status.PRECONDITION_FAILED).header(TUS_VERSION_HEADER, TUS_VERSION).build();
+  }
+
+  /**
+   * Parses the Upload-Metadata header, a comma separated list of keys and
+   * their base64 encoded values.
+   */
+  private static Map<String, String> getUploadMetadata(String metadata) throws RequestNotValidException {
+    Map<String, String> ret = new HashMap<>();
+    if (StringUtils.isNotBlank(metadata)) {
+      for (String pair : metadata.split(",")) {
+        String[] keyAndValue = pair.trim().split(" ", 2);
+        try {
+          ret.put(keyAndValue[0], keyAndValue.length > 1
+            ? new String(Base64.getDecoder().decode(keyAndValue[1].trim()), StandardCharsets.UTF_8) : "");
+        } catch (IllegalArgumentException e) {
+          throw new RequestNotValidException("Invalid " + UPLOAD_METADATA + " header", e);
+        }
+      }
+    }
+    return ret;
+  }
+
   @GET
   @Path("/reindex")
   @Produces({MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, ExtraMediaType.APPLICATION_JAVASCRIPT})
@@ -0,0 +1,51 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/roda
+ */
+package org.roda.wui.api.v1.entities;
+
+import javax.xml.bind.annotation.XmlElement;
+
+/**
+ * A bearer token to authenticate API requests, to be sent in the
+ * <code>Authorization: Bearer &lt;token&gt;</code> header.
+ */
+@javax.xml.bind.annotation.XmlRootElement(name = "token")
+public class ApiToken {
+  @XmlElement(name = "token")
+  private String token;
+  @XmlElement(name = "expiresIn")
+  private long expiresIn;
+
+  public ApiToken() {
+    // do nothing
+  }
+
+  public ApiToken(String token, long expiresIn) {
+    this.token = token;
+    this.expiresIn = expiresIn;
+  }
+
+  public String getToken() {
+    return token;
+  }
+
+  public void setToken(String token) {
+    this.token = token;
+  }
+
+  /**
+   * @return the number of seconds the token is valid for
+   */
+  public long getExpiresIn() {
+    return expiresIn;
+  }
+
+  public void setExpiresIn(long expiresIn) {
+    this.expiresIn = expiresIn;
+  }
+
+}
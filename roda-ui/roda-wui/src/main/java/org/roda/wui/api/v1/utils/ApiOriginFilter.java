@@ -52,7 +52,7 @@ public class ApiOriginFilter implements ContainerRequestFilter, ContainerRespons
 
   // defaults
   private static final String ACCESS_CONTROL_ALLOW_CREDENTIALS_DEFAULT = "true";
-  private static final String ACCESS_CONTROL_ALLOW_METHODS_DEFAULT = "GET, POST, PUT, DELETE, OPTIONS, HEAD";
+  private static final String ACCESS_CONTROL_ALLOW_METHODS_DEFAULT = "GET, POST, PUT, PATCH, DELETE, OPTIONS, HEAD";
   private static final String ACCESS_CONTROL_ALLOW_HEADERS_DEFAULT = "Content-Type";
   private static final String ACCESS_CONTROL_EXPOSE_HEADERS_DEFAULT = null;
   private static final int ACCESS_CONTROL_MAX_AGE_DEFAULT = 3600;
@@ -11,8 +11,12 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.UUID;
 import java.util.stream.Collectors;
 
 import javax.servlet.http.HttpServletRequest;
@@ -30,6 +34,7 @@ import javax.xml.transform.TransformerException;
 
 import org.apache.commons.lang3.StringUtils;
 import org.roda.core.RodaCoreFactory;
+import org.roda.core.common.ByteRange;
 import org.roda.core.common.ConsumesOutputStream;
 import org.roda.core.common.ConsumesSkipableOutputStream;
 import org.roda.core.common.DownloadUtils;
@@ -66,6 +71,7 @@ import org.roda.core.data.v2.risks.IndexedRisk;
 import org.roda.core.data.v2.risks.Risk;
 import org.roda.core.data.v2.risks.RiskIncidence;
 import org.roda.core.model.utils.ModelUtils;
+import org.roda.core.storage.BinaryConsumesOutputStream;
 import org.roda.core.storage.Directory;
 import org.roda.core.storage.Resource;
 import org.roda.core.storage.StorageService;
@@ -243,65 +249,179 @@ public class ApiUtils {
 
   private static final int CACHE_CONTROL_MAX_AGE = 60;
 
+  private static final String HEADER_ACCEPT_RANGES = "Accept-Ranges";
+  private static final String HEADER_CONTENT_RANGE = "Content-Range";
+  private static final String HEADER_IF_RANGE = "If-Range";
+  private static final String MULTIPART_BYTERANGES_BOUNDARY = "multipart/byteranges; boundary=";
+  private static final String CRLF = "\r\n";
+
+  // request attributes of the Tomcat sendfile support, see DefaultServlet
+  private static final String SENDFILE_SUPPORTED_ATTRIBUTE = "org.apache.tomcat.sendfile.support";
+  private static final String SENDFILE_FILENAME_ATTRIBUTE = "org.apache.tomcat.sendfile.filename";
+  private static final String SENDFILE_START_ATTRIBUTE = "org.apache.tomcat.sendfile.start";
+  private static final String SENDFILE_END_ATTRIBUTE = "org.apache.tomcat.sendfile.end";
+  private static final long SENDFILE_MIN_SIZE = 48 * 1024L;
+
   public static Response okResponse(StreamResponse streamResponse, boolean inline, final String range,
     Request request) {
+    return okResponse(streamResponse, inline, range, request, null);
+  }
+
+  /**
+   * Response for content that can be read from any offset. Several ranges are
+   * sent as multipart/byteranges, the If-Range header is checked against the
+   * entity tag of the content and, if the servlet container supports it, files
+   * are sent by the container with sendfile.
+   */
+  public static Response okResponse(StreamResponse streamResponse, boolean inline, final String range,
+    Request request, HttpServletRequest servletRequest) {
 
-    // range not requested : Firefox, Opera, IE do not send range headers
     // cannot skip content
     // cannot calculate file size
-    if (range == null || !(streamResponse.getStream() instanceof ConsumesSkipableOutputStream)
-      || streamResponse.getFileSize() < 0) {
+    if (!(streamResponse.getStream() instanceof ConsumesSkipableOutputStream) || streamResponse.getFileSize() < 0) {
       return okResponse(streamResponse, inline, range == null, request);
     }
 
-    String[] ranges = range.split("=")[1].split("-");
-    final int from = Integer.parseInt(ranges[0]);
+    final ConsumesSkipableOutputStream stream = (ConsumesSkipableOutputStream) streamResponse.getStream();
+    final long fileSize = streamResponse.getFileSize();
+    final String entityTag = stream.getEntityTag();
+    Date lastModifiedDate = streamResponse.getLastModified();
+
+    CacheControl cc = null;
+    EntityTag etag = null;
+    if (entityTag != null || lastModifiedDate != null) {
+      cc = new CacheControl();
+      cc.setMaxAge(CACHE_CONTROL_MAX_AGE);
+      cc.setPrivate(true);
+      etag = new EntityTag(entityTag != null ? entityTag : Long.toString(lastModifiedDate.getTime()));
+      ResponseBuilder builder = request.evaluatePreconditions(etag);
+      if (builder != null) {
+        return builder.cacheControl(cc).tag(etag).build();
+      }
+    }
+
+    // range not requested : Firefox, Opera, IE do not send range headers
+    List<ByteRange> ranges = null;
+    if (range != null && ifRangeMatches(servletRequest, entityTag, lastModifiedDate)) {
+      ranges = ByteRange.parse(range, fileSize);
+    }
+
+    String mediaType = MimeTypeHelper.getContentType(streamResponse.getFilename(), streamResponse.getMediaType());
+    Response.ResponseBuilder response;
+    if (ranges == null) {
+      response = Response.ok().header(HttpHeaders.CONTENT_TYPE, mediaType);
+      rangeEntity(response, stream, 0, fileSize, servletRequest);
+    } else if (ranges.isEmpty()) {
+      return Response.status(Status.REQUESTED_RANGE_NOT_SATISFIABLE).header(HEADER_CONTENT_RANGE, "bytes */" + fileSize)
+        .build();
+    } else if (ranges.size() == 1) {
+      ByteRange byteRange = ranges.get(0);
+      response = Response.status(Status.PARTIAL_CONTENT).header(HttpHeaders.CONTENT_TYPE, mediaType)
+        .header(HEADER_CONTENT_RANGE, byteRange.toContentRange(fileSize));
+      rangeEntity(response, stream, byteRange.getFrom(), byteRange.getLength(), servletRequest);
+    } else {
+      response = multipartRangesResponse(stream, ranges, fileSize, mediaType);
+    }
+
+    response.header(HEADER_ACCEPT_RANGES, "bytes").header(HttpHeaders.CONTENT_DISPOSITION,
+      contentDisposition(inline) + CONTENT_DISPOSITION_FILENAME_ARGUMENT + "\"" + streamResponse.getFilename() + "\"");
+
+    if (lastModifiedDate != null) {
+      response.header(HttpHeaders.LAST_MODIFIED, lastModifiedDate);
+    }
+
+    if (etag != null) {
+      response.cacheControl(cc).tag(etag);
+    }
+
+    return response.build();
+  }
+
+  private static void rangeEntity(ResponseBuilder response, final ConsumesSkipableOutputStream stream, final long from,
+    final long len, HttpServletRequest servletRequest) {
+    response.header(HttpHeaders.CONTENT_LENGTH, len);
+
+    Path path = stream instanceof BinaryConsumesOutputStream
+      ? ((BinaryConsumesOutputStream) stream).getPath()
+      : null;
+    if (path != null && len >= SENDFILE_MIN_SIZE && servletRequest != null
+      && Boolean.TRUE.equals(servletRequest.getAttribute(SENDFILE_SUPPORTED_ATTRIBUTE))) {
+      // no entity, the container writes the file after the response headers
+      servletRequest.setAttribute(SENDFILE_FILENAME_ATTRIBUTE, path.toAbsolutePath().toString());
+      servletRequest.setAttribute(SENDFILE_START_ATTRIBUTE, from);
+      servletRequest.setAttribute(SENDFILE_END_ATTRIBUTE, from + len);
+    } else {
+      response.entity(new StreamingOutput() {
+        @Override
+        public void write(OutputStream output) throws IOException, WebApplicationException {
+          try {
+            stream.consumeOutputStream(output, from, len);
+          } catch (IOException e) {
+            // ignoring
+          }
+        }
+      });
+    }
+  }
 
-    long fileSize = streamResponse.getFileSize();
-    int to = (int) (fileSize - 1);
-    if (ranges.length == 2) {
-      to = Integer.parseInt(ranges[1]);
+  private static Response.ResponseBuilder multipartRangesResponse(final ConsumesSkipableOutputStream stream,
+    final List<ByteRange> ranges, long fileSize, String mediaType) {
+    String boundary = UUID.randomUUID().toString().replace("-", "");
+
+    final List<byte[]> partHeaders = new ArrayList<>();
+    long contentLength = 0;
+    for (ByteRange byteRange : ranges) {
+      byte[] partHeader = (CRLF + "--" + boundary + CRLF + HttpHeaders.CONTENT_TYPE + ": " + mediaType + CRLF
+        + HEADER_CONTENT_RANGE + ": " + byteRange.toContentRange(fileSize) + CRLF + CRLF)
+          .getBytes(StandardCharsets.US_ASCII);
+      partHeaders.add(partHeader);
+      contentLength += partHeader.length + byteRange.getLength();
     }
 
-    final String responseRange = String.format("bytes %d-%d/%d", from, to, fileSize);
-    final int len = to - from + 1;
+    final byte[] closeDelimiter = (CRLF + "--" + boundary + "--" + CRLF).getBytes(StandardCharsets.US_ASCII);
+    contentLength += closeDelimiter.length;
 
     StreamingOutput so = new StreamingOutput() {
       @Override
       public void write(OutputStream output) throws IOException, WebApplicationException {
         try {
-          ((ConsumesSkipableOutputStream) streamResponse.getStream()).consumeOutputStream(output, from, len);
+          for (int i = 0; i < ranges.size(); i++) {
+            output.write(partHeaders.get(i));
+            stream.consumeOutputStream(output, ranges.get(i).getFrom(), ranges.get(i).getLength());
+          }
+          output.write(closeDelimiter);
         } catch (IOException e) {
           // ignoring
         }
       }
     };
 
-    String mediaType = MimeTypeHelper.getContentType(streamResponse.getFilename(), streamResponse.getMediaType());
-
-    Response.ResponseBuilder response = Response.status(Status.PARTIAL_CONTENT).entity(so)
-      .header(HttpHeaders.CONTENT_TYPE, mediaType).header("Accept-Ranges", "bytes")
-      .header("Content-Range", responseRange).header(HttpHeaders.CONTENT_LENGTH, len)
-      .header(HttpHeaders.CONTENT_DISPOSITION, contentDisposition(inline) + CONTENT_DISPOSITION_FILENAME_ARGUMENT + "\""
-        + streamResponse.getFilename() + "\"");
-
-    Date lastModifiedDate = streamResponse.getLastModified();
-    if (lastModifiedDate != null) {
-      CacheControl cc = new CacheControl();
-      cc.setMaxAge(CACHE_CONTROL_MAX_AGE);
-      cc.setPrivate(true);
-      EntityTag etag = null;
-      etag = new EntityTag(Long.toString(lastModifiedDate.getTime()));
-      ResponseBuilder builder = request.evaluatePreconditions(etag);
-      if (builder != null) {
-        return builder.cacheControl(cc).tag(etag).build();
-      }
+    return Response.status(Status.PARTIAL_CONTENT).entity(so)
+      .header(HttpHeaders.CONTENT_TYPE, MULTIPART_BYTERANGES_BOUNDARY + boundary)
+      .header(HttpHeaders.CONTENT_LENGTH, contentLength);
+  }
 
-      response.header(HttpHeaders.LAST_MODIFIED, streamResponse.getLastModified());
-      response.cacheControl(cc).tag(etag);
+  /**
+   * A range request is only honoured if the If-Range validator, when present,
+   * still matches the content. Otherwise the whole content is sent.
+   */
+  private static boolean ifRangeMatches(HttpServletRequest servletRequest, String entityTag, Date lastModified) {
+    String ifRange = servletRequest != null ? servletRequest.getHeader(HEADER_IF_RANGE) : null;
+    if (ifRange == null) {
+      return true;
+    } else if (ifRange.startsWith("\"")) {
+      return entityTag != null && ifRange.equals("\"" + entityTag + "\"");
+    } else if (ifRange.startsWith("W/")) {
+      // weak validators cannot be used with ranges
+      return false;
     }
 
-    return response.build();
+    try {
+      long date = servletRequest.getDateHeader(HEADER_IF_RANGE);
+      return lastModified != null && lastModified.getTime() / 1000 == date / 1000;
+    } catch (IllegalArgumentException e) {
+      return false;
+    }
   }
 
   public static Response okResponse(StreamResponse streamResponse) {
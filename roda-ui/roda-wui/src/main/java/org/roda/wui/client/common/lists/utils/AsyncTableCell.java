@@ -41,6 +41,7 @@ import org.roda.wui.client.common.lists.pagination.ListSelectionUtils;
 import org.roda.wui.client.common.popup.CalloutPopup;
 import org.roda.wui.client.common.utils.AsyncCallbackUtils;
 import org.roda.wui.client.common.utils.HtmlSnippetUtils;
+import org.roda.wui.client.common.utils.IndexChanges;
 import org.roda.wui.common.client.ClientLogger;
 import org.roda.wui.common.client.tools.ConfigurationManager;
 import org.roda.wui.common.client.tools.HistoryUtils;
@@ -156,6 +157,7 @@ public abstract class AsyncTableCell<T extends IsIndexed> extends FlowPanel
 
   private Timer autoUpdateTimer = null;
   private int autoUpdateTimerMillis = 0;
+  private IndexChanges.Tracker autoUpdateChanges = null;
   private AutoUpdateState autoUpdateState = AutoUpdateState.AUTO_UPDATE_OFF;
   private AccessibleFocusPanel autoUpdatePanel;
   private InlineHTML autoUpdateSignal = new InlineHTML("");
@@ -658,10 +660,16 @@ public abstract class AsyncTableCell<T extends IsIndexed> extends FlowPanel
       autoUpdateTimer.cancel();
     }
 
+    autoUpdateChanges = IndexChanges.track(classToReturn);
     autoUpdateTimer = new Timer() {
 
       @Override
       public void run() {
+        // only search again if the server told that the list class changed
+        if (!autoUpdateChanges.hasChanged()) {
+          return;
+        }
+
         setAutoUpdateState(AutoUpdateState.AUTO_UPDATE_WORKING);
 
         dataProvider.update(fieldsToReturn, new AsyncCallback<Void>() {
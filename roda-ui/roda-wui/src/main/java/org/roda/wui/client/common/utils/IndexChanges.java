@@ -0,0 +1,115 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/roda
+ */
+package org.roda.wui.client.common.utils;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import com.google.gwt.core.client.GWT;
+
+/**
+ * Keeps track of the index classes changed, as told by the server through a
+ * single server-sent events connection, so that auto-updated lists and pages
+ * only search the index again when their class changed.
+ *
+ * While the connection is not open (e.g. reconnecting, or server-sent events
+ * not supported by the browser or the server) every class is considered
+ * changed, so that callers go on polling as before.
+ */
+public class IndexChanges {
+  private static final String URL = "index-changes";
+
+  // class name > number of changes
+  private static final Map<String, Integer> CHANGES = new HashMap<>();
+  private static boolean started = false;
+  private static boolean open = false;
+  // incremented each time the connection is opened, as changes may have been
+  // missed while it was closed
+  private static int connections = 0;
+
+  private IndexChanges() {
+    // do nothing
+  }
+
+  /**
+   * @return a tracker of the changes of the index class, to be kept by the
+   *         caller between updates
+   */
+  public static Tracker track(Class<?> indexClass) {
+    if (!started) {
+      started = true;
+      if (isSupported()) {
+        connect(GWT.getHostPageBaseURL() + URL);
+      }
+    }
+    return new Tracker(indexClass.getName());
+  }
+
+  private static native boolean isSupported() /*-{
+    return !!$wnd.EventSource;
+  }-*/;
+
+  private static native void connect(String url) /*-{
+    var source = new $wnd.EventSource(url);
+    source.onopen = $entry(function() {
+      @org.roda.wui.client.common.utils.IndexChanges::onOpen()();
+    });
+    source.onmessage = $entry(function(event) {
+      @org.roda.wui.client.common.utils.IndexChanges::onMessage(Ljava/lang/String;)(event.data);
+    });
+    source.onerror = $entry(function() {
+      @org.roda.wui.client.common.utils.IndexChanges::onError()();
+    });
+  }-*/;
+
+  private static void onOpen() {
+    open = true;
+    connections++;
+  }
+
+  private static void onMessage(String classNames) {
+    for (String className : classNames.split(",")) {
+      Integer count = CHANGES.get(className);
+      CHANGES.put(className, count == null ? 1 : count + 1);
+    }
+  }
+
+  private static void onError() {
+    // the browser reconnects on its own, unless the server refused the
+    // connection, in which case callers go on polling
+    open = false;
+  }
+
+  public static class Tracker {
+    private final String className;
+    private int lastConnection;
+    private int lastChanges;
+
+    private Tracker(String className) {
+      this.className = className;
+      this.lastConnection = connections;
+      this.lastChanges = getChanges();
+    }
+
+    private int getChanges() {
+      Integer count = CHANGES.get(className);
+      return count == null ? 0 : count;
+    }
+
+    /**
+     * @return true if the class may have changed since the last call
+     */
+    public boolean hasChanged() {
+      int currentChanges = getChanges();
+      boolean changed = !open || connections != lastConnection || currentChanges != lastChanges;
+      lastConnection = connections;
+      lastChanges = currentChanges;
+      return changed;
+    }
+  }
+}
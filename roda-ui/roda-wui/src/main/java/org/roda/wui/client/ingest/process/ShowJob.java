@@ -58,6 +58,7 @@ import org.roda.wui.client.common.search.SearchPreFilterUtils;
 import org.roda.wui.client.common.search.SearchWrapper;
 import org.roda.wui.client.common.utils.AsyncCallbackUtils;
 import org.roda.wui.client.common.utils.HtmlSnippetUtils;
+import org.roda.wui.client.common.utils.IndexChanges;
 import org.roda.wui.client.common.utils.JavascriptUtils;
 import org.roda.wui.client.common.utils.SidebarUtils;
 import org.roda.wui.client.process.Process;
@@ -607,14 +608,21 @@ public class ShowJob extends Composite {
 
   private Timer autoUpdateTimer = null;
   private int autoUpdateTimerPeriod = 0;
+  private IndexChanges.Tracker jobChanges = null;
 
   private void scheduleUpdateStatus() {
     if (isJobRunning() || isJobRecent()) {
       if (autoUpdateTimer == null) {
+        jobChanges = IndexChanges.track(Job.class);
         autoUpdateTimer = new Timer() {
 
           @Override
           public void run() {
+            if (!jobChanges.hasChanged()) {
+              scheduleUpdateStatus();
+              return;
+            }
+
             BrowserService.Util.getInstance().retrieve(Job.class.getName(), job.getId(), fieldsToReturn,
               new AsyncCallback<Job>() {
 
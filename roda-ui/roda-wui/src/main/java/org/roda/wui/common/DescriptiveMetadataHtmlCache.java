@@ -0,0 +1,314 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/roda
+ */
+package org.roda.wui.common;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import org.roda.core.RodaCoreFactory;
+import org.roda.core.common.RodaUtils;
+import org.roda.core.data.common.RodaConstants;
+import org.roda.core.data.exceptions.GenericException;
+import org.roda.core.data.exceptions.ReturnWithExceptions;
+import org.roda.core.data.v2.ip.metadata.DescriptiveMetadata;
+import org.roda.core.model.AbstractModelObserver;
+import org.roda.core.model.ModelObserver;
+import org.roda.core.storage.Binary;
+import org.roda.core.storage.fs.FSUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalCause;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.hash.Hashing;
+
+/**
+ * Cache of descriptive metadata rendered to HTML by the dissemination
+ * stylesheets.
+ *
+ * Entries are keyed by the descriptive metadata identification, the version of
+ * its binary, the locale and the version of the stylesheet, so a changed binary
+ * or stylesheet is never served from cache. Memory usage is bounded and,
+ * optionally, entries evicted because of size are spilled to disk. Entries are
+ * also invalidated when the descriptive metadata is updated or deleted.
+ */
+public final class DescriptiveMetadataHtmlCache {
+  private static final Logger LOGGER = LoggerFactory.getLogger(DescriptiveMetadataHtmlCache.class);
+
+  private static final String CONFIG_PREFIX = "ui.metadata.descriptive.html.cache";
+  private static final String SPILL_FOLDER = "descriptive-metadata-html-cache";
+  private static final String SPILL_EXTENSION = ".html";
+  private static final String NO_REPRESENTATION = "";
+
+  private static DescriptiveMetadataHtmlCache instance = null;
+
+  private final boolean enabled;
+  private final Cache<Key, String> cache;
+  private final Path spillDirectory;
+
+  private DescriptiveMetadataHtmlCache(boolean enabled, long maxSizeInBytes, int expireAfterAccessMinutes,
+    Path spillDirectory) {
+    this.enabled = enabled;
+    this.spillDirectory = spillDirectory;
+    this.cache = CacheBuilder.newBuilder().maximumWeight(maxSizeInBytes)
+      .weigher((Key key, String html) -> 2 * html.length())
+      .expireAfterAccess(expireAfterAccessMinutes, TimeUnit.MINUTES).removalListener(this::onRemoval).build();
+  }
+
+  public static synchronized DescriptiveMetadataHtmlCache getInstance() {
+    if (instance == null) {
+      boolean enabled = RodaCoreFactory.getProperty(CONFIG_PREFIX + ".enabled", true);
+      int maxSizeMb = RodaCoreFactory.getRodaConfigurationAsInt(64, CONFIG_PREFIX, "max_size_mb");
+      int expireAfterAccess = RodaCoreFactory.getRodaConfigurationAsInt(60, CONFIG_PREFIX,
+        "expire_after_access_minutes");
+      boolean spill = RodaCoreFactory.getProperty(CONFIG_PREFIX + ".spill.enabled", false);
+
+      Path spillDirectory = null;
+      if (enabled && spill) {
+        spillDirectory = RodaCoreFactory.getWorkingDirectory().resolve(SPILL_FOLDER);
+        try {
+          // spilled entries from a previous run might not have been invalidated
+          FSUtils.deletePathQuietly(spillDirectory);
+          Files.createDirectories(spillDirectory);
+        } catch (IOException e) {
+          LOGGER.error("Could not create descriptive metadata HTML cache spill directory, disk spill disabled", e);
+          spillDirectory = null;
+        }
+      }
+
+      instance = new DescriptiveMetadataHtmlCache(enabled, maxSizeMb * 1024L * 1024L, expireAfterAccess,
+        spillDirectory);
+      RodaCoreFactory.getModelService().addModelObserver(instance.new InvalidationObserver());
+    }
+    return instance;
+  }
+
+  /**
+   * Retrieves the HTML of a descriptive metadata binary, applying the
+   * dissemination stylesheet only if it is not cached.
+   *
+   * @param binaryVersion
+   *          the binary version, e.g. the id of a stored version, or
+   *          <code>null</code> to derive it from the binary itself
+   */
+  public String getHtml(String aipId, String representationId, String descriptiveMetadataId, Binary binary,
+    String binaryVersion, String metadataType, String metadataVersion, Locale locale) throws GenericException {
+    if (!enabled) {
+      return HTMLUtils.descriptiveMetadataToHtml(binary, metadataType, metadataVersion, locale);
+    }
+
+    String version = binaryVersion != null ? binaryVersion : getBinaryVersion(binary);
+    String stylesheetVersion = RodaUtils
+      .getMetadataStylesheetVersion(RodaConstants.CROSSWALKS_DISSEMINATION_HTML_PATH, metadataType, metadataVersion);
+    Key key = new Key(aipId, representationId, descriptiveMetadataId, version, metadataType, metadataVersion,
+      locale.toLanguageTag(), stylesheetVersion);
+
+    String html = cache.getIfPresent(key);
+    if (html == null) {
+      html = readSpilled(key);
+      if (html == null) {
+        html = HTMLUtils.descriptiveMetadataToHtml(binary, metadataType, metadataVersion, locale);
+      }
+      cache.put(key, html);
+    }
+
+    return html;
+  }
+
+  public void invalidate(String aipId, String representationId, String descriptiveMetadataId) {
+    invalidate(key -> key.aipId.equals(aipId) && key.representationId.equals(nullToEmpty(representationId))
+      && key.descriptiveMetadataId.equals(descriptiveMetadataId),
+      getSpillPath(aipId, representationId, descriptiveMetadataId));
+  }
+
+  public void invalidateRepresentation(String aipId, String representationId) {
+    invalidate(key -> key.aipId.equals(aipId) && key.representationId.equals(nullToEmpty(representationId)),
+      getSpillPath(aipId, representationId));
+  }
+
+  public void invalidateAIP(String aipId) {
+    invalidate(key -> key.aipId.equals(aipId), getSpillPath(aipId));
+  }
+
+  private void invalidate(Predicate<Key> predicate, Path spillPath) {
+    cache.asMap().keySet().removeIf(predicate);
+    if (spillPath != null) {
+      FSUtils.deletePathQuietly(spillPath);
+    }
+  }
+
+  private void onRemoval(RemovalNotification<Key, String> notification) {
+    if (spillDirectory != null && notification.getCause() == RemovalCause.SIZE) {
+      Key key = notification.getKey();
+      Path spillFile = getSpillFile(key);
+      try {
+        Files.createDirectories(spillFile.getParent());
+        Files.write(spillFile, notification.getValue().getBytes(StandardCharsets.UTF_8));
+      } catch (IOException e) {
+        LOGGER.debug("Could not spill descriptive metadata HTML to disk", e);
+      }
+    }
+  }
+
+  private String readSpilled(Key key) {
+    String html = null;
+    if (spillDirectory != null) {
+      Path spillFile = getSpillFile(key);
+      try {
+        html = new String(Files.readAllBytes(spillFile), StandardCharsets.UTF_8);
+        Files.deleteIfExists(spillFile);
+      } catch (NoSuchFileException e) {
+        // not spilled
+      } catch (IOException e) {
+        LOGGER.debug("Could not read spilled descriptive metadata HTML", e);
+      }
+    }
+    return html;
+  }
+
+  private Path getSpillPath(String aipId, String... ids) {
+    if (spillDirectory == null) {
+      return null;
+    }
+
+    Path path = spillDirectory.resolve(hash(aipId));
+    for (String id : ids) {
+      path = path.resolve(hash(nullToEmpty(id)));
+    }
+    return path;
+  }
+
+  private Path getSpillFile(Key key) {
+    return getSpillPath(key.aipId, key.representationId, key.descriptiveMetadataId)
+      .resolve(hash(key.toString()) + SPILL_EXTENSION);
+  }
+
+  private static String hash(String value) {
+    return Hashing.sha256().hashString(value, StandardCharsets.UTF_8).toString();
+  }
+
+  private static String nullToEmpty(String representationId) {
+    return representationId == null ? NO_REPRESENTATION : representationId;
+  }
+
+  /**
+   * Derives a version of the binary that changes whenever its content changes:
+   * the modification time and size for binaries on the file system, or the
+   * size and digests otherwise.
+   */
+  private static String getBinaryVersion(Binary binary) {
+    Map<String, String> digests = binary.getContentDigest() != null ? new TreeMap<>(binary.getContentDigest())
+      : null;
+    String version = binary.getSizeInBytes() + "/" + digests;
+    try {
+      URI uri = binary.getContent().getURI();
+      if (uri != null && "file".equals(uri.getScheme())) {
+        Path path = Paths.get(uri);
+        version = Files.getLastModifiedTime(path).toMillis() + "/" + Files.size(path);
+      }
+    } catch (IOException | UnsupportedOperationException e) {
+      // use size and digests
+    }
+    return version;
+  }
+
+  private static final class Key {
+    private final String aipId;
+    private final String representationId;
+    private final String descriptiveMetadataId;
+    private final String binaryVersion;
+    private final String metadataType;
+    private final String metadataVersion;
+    private final String locale;
+    private final String stylesheetVersion;
+
+    private Key(String aipId, String representationId, String descriptiveMetadataId, String binaryVersion,
+      String metadataType, String metadataVersion, String locale, String stylesheetVersion) {
+      this.aipId = aipId;
+      this.representationId = nullToEmpty(representationId);
+      this.descriptiveMetadataId = descriptiveMetadataId;
+      this.binaryVersion = binaryVersion;
+      this.metadataType = metadataType;
+      this.metadataVersion = metadataVersion;
+      this.locale = locale;
+      this.stylesheetVersion = stylesheetVersion;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(aipId, representationId, descriptiveMetadataId, binaryVersion, metadataType,
+        metadataVersion, locale, stylesheetVersion);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (!(obj instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) obj;
+      return Objects.equals(aipId, other.aipId) && Objects.equals(representationId, other.representationId)
+        && Objects.equals(descriptiveMetadataId, other.descriptiveMetadataId)
+        && Objects.equals(binaryVersion, other.binaryVersion) && Objects.equals(metadataType, other.metadataType)
+        && Objects.equals(metadataVersion, other.metadataVersion) && Objects.equals(locale, other.locale)
+        && Objects.equals(stylesheetVersion, other.stylesheetVersion);
+    }
+
+    @Override
+    public String toString() {
+      return String.join("|", aipId, representationId, descriptiveMetadataId, binaryVersion,
+        String.valueOf(metadataType), String.valueOf(metadataVersion), locale, stylesheetVersion);
+    }
+  }
+
+  private class InvalidationObserver extends AbstractModelObserver {
+
+    @Override
+    public ReturnWithExceptions<Void, ModelObserver> descriptiveMetadataUpdated(
+      DescriptiveMetadata descriptiveMetadata) {
+      invalidate(descriptiveMetadata.getAipId(), descriptiveMetadata.getRepresentationId(),
+        descriptiveMetadata.getId());
+      return new ReturnWithExceptions<>(this);
+    }
+
+    @Override
+    public ReturnWithExceptions<Void, ModelObserver> descriptiveMetadataDeleted(String aipId, String representationId,
+      String descriptiveMetadataBinaryId) {
+      invalidate(aipId, representationId, descriptiveMetadataBinaryId);
+      return new ReturnWithExceptions<>(this);
+    }
+
+    @Override
+    public ReturnWithExceptions<Void, ModelObserver> representationDeleted(String aipId, String representationId,
+      boolean deleteIncidences) {
+      invalidateRepresentation(aipId, representationId);
+      return new ReturnWithExceptions<>(this);
+    }
+
+    @Override
+    public ReturnWithExceptions<Void, ModelObserver> aipDeleted(String aipId, boolean deleteIncidences) {
+      invalidateAIP(aipId);
+      return new ReturnWithExceptions<>(this);
+    }
+  }
+}
@@ -13,6 +13,7 @@ import java.util.Base64;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletRequestWrapper;
 
+import org.apache.commons.lang3.StringUtils;
 import org.roda.core.data.common.RodaConstants;
 import org.roda.core.data.v2.common.Pair;
 
@@ -23,6 +24,8 @@ import org.roda.core.data.v2.common.Pair;
  * @author Rui Castro <rui.castro@gmail.com>
  */
 public class BasicAuthRequestWrapper extends HttpServletRequestWrapper {
+  /** Prefix of the Authorization header with a bearer token. */
+  private static final String BEARER_PREFIX = "Bearer ";
 
   /**
    * Constructor.
@@ -56,4 +59,20 @@ public class BasicAuthRequestWrapper extends HttpServletRequestWrapper {
     }
     return ret;
   }
+
+  /**
+   * Returns the token contained in the HTTP header <strong>Authorization</strong>
+   * (using the <strong>Bearer</strong> scheme) or <code>null</code> if there is
+   * no token.
+   * 
+   * @return the bearer token.
+   */
+  public String getBearerToken() {
+    String ret = null;
+    final String authorization = getHeader("Authorization");
+    if (authorization != null && authorization.regionMatches(true, 0, BEARER_PREFIX, 0, BEARER_PREFIX.length())) {
+      ret = StringUtils.trimToNull(authorization.substring(BEARER_PREFIX.length()));
+    }
+    return ret;
+  }
 }
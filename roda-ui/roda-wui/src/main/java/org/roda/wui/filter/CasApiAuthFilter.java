@@ -22,6 +22,7 @@ import javax.servlet.http.HttpServletRequestWrapper;
 import javax.servlet.http.HttpServletResponse;
 
 import org.apache.commons.lang3.StringUtils;
+import org.roda.core.common.AuthenticationCache;
 import org.roda.core.common.UserUtility;
 import org.roda.core.data.exceptions.AuthenticationDeniedException;
 import org.roda.core.data.exceptions.GenericException;
@@ -86,8 +87,24 @@ public class CasApiAuthFilter implements Filter {
       return;
     }
 
+    // try bearer token
+    final BasicAuthRequestWrapper authRequest = new BasicAuthRequestWrapper(request);
+    final String token = authRequest.getBearerToken();
+    if (token != null) {
+      try {
+        UserUtility.setUser(request, AuthenticationCache.getTokenUser(token));
+        filterChain.doFilter(request, response);
+      } catch (final AuthenticationDeniedException e) {
+        LOGGER.error("Error authenticating with token: " + e.getMessage());
+        response.sendError(HttpServletResponse.SC_UNAUTHORIZED, "Error authenticating user");
+      } catch (final GenericException e) {
+        throw new ServletException(e.getMessage(), e);
+      }
+      return;
+    }
+
     // try basic auth
-    final Pair<String, String> credentials = new BasicAuthRequestWrapper(request).getCredentials();
+    final Pair<String, String> credentials = authRequest.getCredentials();
     if (credentials != null) {
       try {
         doFilterWithCredentials(request, response, filterChain, credentials.getFirst(), credentials.getSecond());
@@ -121,7 +138,7 @@ public class CasApiAuthFilter implements Filter {
 
     // check if user is internal
     if (UserUtility.getLdapUtility().isInternal(username)) {
-      final User user = UserUtility.getLdapUtility().getAuthenticatedUser(username, password);
+      final User user = AuthenticationCache.getAuthenticatedUser(username, password);
       UserUtility.setUser(request, user);
     }
 
@@ -21,6 +21,7 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import org.apache.commons.lang3.StringUtils;
+import org.roda.core.common.AuthenticationCache;
 import org.roda.core.common.UserUtility;
 import org.roda.core.data.common.RodaConstants;
 import org.roda.core.data.exceptions.AuthenticationDeniedException;
@@ -82,7 +83,8 @@ public class InternalApiAuthFilter implements Filter {
   }
 
   /**
-   * Return a {@link User} from the HTTP Basic auth header information.
+   * Return a {@link User} from the HTTP Basic auth header information (or from
+   * a bearer token issued by {@link AuthenticationCache}).
    *
    * @param request
    *          the HTTP request.
@@ -94,12 +96,17 @@ public class InternalApiAuthFilter implements Filter {
    */
   private User getBasicAuthUser(final HttpServletRequest request)
     throws AuthenticationDeniedException, GenericException {
-    final Pair<String, String> credentials = new BasicAuthRequestWrapper(request).getCredentials();
+    final BasicAuthRequestWrapper authRequest = new BasicAuthRequestWrapper(request);
+    final String token = authRequest.getBearerToken();
+    if (token != null) {
+      return AuthenticationCache.getTokenUser(token);
+    }
 
+    final Pair<String, String> credentials = authRequest.getCredentials();
     if (credentials == null) {
       return UserUtility.getGuest(request.getRemoteAddr());
     } else {
-      return UserUtility.getLdapUtility().getAuthenticatedUser(credentials.getFirst(), credentials.getSecond());
+      return AuthenticationCache.getAuthenticatedUser(credentials.getFirst(), credentials.getSecond());
     }
   }
 
@@ -0,0 +1,240 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE file at the root of the source
+ * tree and available online at
+ *
+ * https://github.com/keeps/roda
+ */
+package org.roda.wui.servlets;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.roda.core.RodaCoreFactory;
+import org.roda.core.data.v2.IsModelObject;
+import org.roda.core.data.v2.index.IsIndexed;
+import org.roda.core.index.IndexService;
+import org.roda.core.index.schema.SolrCollection;
+import org.roda.core.index.schema.SolrCollectionRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Server-sent events stream telling the web interface which index classes
+ * changed (e.g. a job changed its state, reports were added), so that lists
+ * are only refreshed when their collection changed instead of polling the
+ * index. Each event carries the comma separated names of the classes; the same
+ * events are sent to all connected sessions.
+ *
+ * Connections are closed after a while and the browser opens them again, so
+ * that connections left behind by proxies are dropped. Events are written
+ * without blocking, each connection keeping the events not yet written, and a
+ * connection that falls too far behind is closed.
+ */
+public class IndexChangesServlet extends HttpServlet {
+  private static final long serialVersionUID = -3411569383046377329L;
+  private static final Logger LOGGER = LoggerFactory.getLogger(IndexChangesServlet.class);
+
+  private static final long CONNECTION_TIMEOUT_MILLIS = 5 * 60 * 1000L;
+  private static final long HEARTBEAT_PERIOD_MILLIS = 30 * 1000L;
+  private static final int RECONNECT_DELAY_MILLIS = 5000;
+  private static final int MAX_PENDING_EVENTS = 100;
+
+  private final transient Set<Connection> connections = ConcurrentHashMap.newKeySet();
+  private final transient Consumer<Set<String>> listener = this::collectionsChanged;
+  private transient ScheduledExecutorService executor;
+  private transient Map<String, String> classNames;
+
+  @Override
+  public void init() throws ServletException {
+    classNames = new HashMap<>();
+    for (SolrCollection<? extends IsIndexed, ? extends IsModelObject> collection : SolrCollectionRegistry
+      .registry()) {
+      classNames.put(collection.getIndexName(), collection.getIndexClass().getName());
+    }
+
+    // hands the events to all connections, so that clients do not delay the index
+    executor = Executors.newSingleThreadScheduledExecutor(
+      new ThreadFactoryBuilder().setNameFormat("index-changes-push-%d").setDaemon(true).build());
+    executor.scheduleAtFixedRate(() -> send(":\n\n"), HEARTBEAT_PERIOD_MILLIS, HEARTBEAT_PERIOD_MILLIS,
+      TimeUnit.MILLISECONDS);
+
+    IndexService index = RodaCoreFactory.getIndexService();
+    if (index != null) {
+      index.getChangeNotifier().addListener(listener);
+    }
+  }
+
+  @Override
+  protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    if (!request.isAsyncSupported()) {
+      // the web interface goes on polling
+      response.sendError(HttpServletResponse.SC_NOT_IMPLEMENTED);
+      return;
+    }
+
+    response.setContentType("text/event-stream");
+    response.setCharacterEncoding("UTF-8");
+    response.setHeader("Cache-Control", "no-cache");
+    // tells nginx not to buffer the events
+    response.setHeader("X-Accel-Buffering", "no");
+
+    AsyncContext context = request.startAsync();
+    context.setTimeout(CONNECTION_TIMEOUT_MILLIS);
+    Connection connection = new Connection(context, response.getOutputStream());
+    context.addListener(new AsyncListener() {
+      @Override
+      public void onComplete(AsyncEvent event) {
+        connections.remove(connection);
+      }
+
+      @Override
+      public void onTimeout(AsyncEvent event) {
+        connection.close();
+      }
+
+      @Override
+      public void onError(AsyncEvent event) {
+        connections.remove(connection);
+      }
+
+      @Override
+      public void onStartAsync(AsyncEvent event) {
+        // do nothing
+      }
+    });
+    connection.send(("retry: " + RECONNECT_DELAY_MILLIS + "\n\n").getBytes(StandardCharsets.UTF_8));
+    connections.add(connection);
+    // from now on the output stream does not block, the container calling the
+    // connection when more can be written
+    response.getOutputStream().setWriteListener(connection);
+  }
+
+  private void collectionsChanged(Set<String> collections) {
+    String classes = collections.stream().map(collection -> classNames.getOrDefault(collection, collection))
+      .collect(Collectors.joining(","));
+    executor.execute(() -> send("data: " + classes + "\n\n"));
+  }
+
+  private void send(String event) {
+    byte[] bytes = event.getBytes(StandardCharsets.UTF_8);
+    for (Connection connection : connections) {
+      connection.send(bytes);
+    }
+  }
+
+  @Override
+  public void destroy() {
+    IndexService index = RodaCoreFactory.getIndexService();
+    if (index != null) {
+      index.getChangeNotifier().removeListener(listener);
+    }
+    executor.shutdownNow();
+    for (Connection connection : connections) {
+      connection.close();
+    }
+    connections.clear();
+  }
+
+  /**
+   * Events waiting to be written to a client. They are only written when the
+   * output stream is ready, so that a slow client never blocks the thread
+   * sending the events.
+   */
+  private class Connection implements WriteListener {
+    private final AsyncContext context;
+    private final ServletOutputStream out;
+    private final Queue<byte[]> pending = new ArrayDeque<>();
+    private boolean listening = false;
+    private boolean closed = false;
+
+    Connection(AsyncContext context, ServletOutputStream out) {
+      this.context = context;
+      this.out = out;
+    }
+
+    synchronized void send(byte[] event) {
+      if (closed) {
+        return;
+      }
+
+      if (pending.size() >= MAX_PENDING_EVENTS) {
+        LOGGER.debug("Closing index changes connection as the client is not reading the events");
+        close();
+      } else {
+        pending.add(event);
+        if (listening) {
+          write();
+        }
+      }
+    }
+
+    @Override
+    public synchronized void onWritePossible() {
+      listening = true;
+      write();
+    }
+
+    @Override
+    public void onError(Throwable t) {
+      LOGGER.debug("Closing index changes connection", t);
+      close();
+    }
+
+    synchronized void close() {
+      connections.remove(this);
+      if (!closed) {
+        closed = true;
+        pending.clear();
+        try {
+          context.complete();
+        } catch (IllegalStateException e) {
+          // already closed
+        }
+      }
+    }
+
+    /**
+     * Writes the pending events while the output stream is ready, otherwise the
+     * container calls {@link #onWritePossible()} once it can be written again.
+     */
+    private void write() {
+      try {
+        while (!closed && out.isReady()) {
+          byte[] event = pending.poll();
+          if (event == null) {
+            out.flush();
+            break;
+          }
+          out.write(event);
+        }
+      } catch (IOException | IllegalStateException e) {
+        LOGGER.debug("Closing index changes connection", e);
+        close();
+      }
+    }
+  }
+}
@@ -14,6 +14,7 @@ import javax.servlet.http.HttpServlet;
 
 import org.apache.commons.configuration.ConfigurationException;
 import org.roda.core.RodaCoreFactory;
+import org.roda.wui.common.DescriptiveMetadataHtmlCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -43,6 +44,9 @@ public class RodaWuiServlet extends HttpServlet {
 
     RodaCoreFactory.addLogger("logback_wui.xml");
 
+    // registers the cache as model observer before any request is served
+    DescriptiveMetadataHtmlCache.getInstance();
+
     LOGGER.info("RODA started with success!");
   }
 